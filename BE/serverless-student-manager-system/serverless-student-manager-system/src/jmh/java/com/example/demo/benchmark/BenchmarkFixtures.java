@@ -0,0 +1,152 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dữ liệu + hạ tầng dùng chung cho benchmark: bảng single-table trong bộ nhớ
+ * ({@link InMemoryDynamoDbClient}, không độ trễ) và item mẫu có đúng key layout của service.
+ */
+final class BenchmarkFixtures {
+
+    static final String TABLE_NAME = "Student-Management-Database";
+    static final String CLASS_ID = "CLASS01";
+
+    private BenchmarkFixtures() {
+    }
+
+    static InMemoryDynamoDbClient newClient() {
+        InMemoryDynamoDbClient client = new InMemoryDynamoDbClient();
+        client.createTable(LocalDynamoConfig.singleTableRequest(TABLE_NAME));
+        return client;
+    }
+
+    static SchoolItemRepository repository(InMemoryDynamoDbClient client) {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(client)
+                .build();
+        return new SchoolItemRepository(enhancedClient, client, TABLE_NAME, 4);
+    }
+
+    /**
+     * Handle tới method private của service (converter, helper parse key) để đo trực tiếp.
+     * Gán vào field static final thì JIT inline được như gọi thẳng.
+     */
+    static MethodHandle privateMethod(Class<?> owner, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            return lookup.findVirtual(owner, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Không tìm thấy " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+
+    // ========================================================================
+    // DỮ LIỆU LỚP HỌC
+    // ========================================================================
+
+    /** Lớp {@link #CLASS_ID} + {@code students} sinh viên (dòng ghi danh + profile). */
+    static void seedClass(SchoolItemRepository repository, int students) {
+        List<SchoolItem> items = new ArrayList<>();
+        items.add(classItem());
+        for (int i = 0; i < students; i++) {
+            String studentId = studentId(i);
+            items.add(enrollmentItem(studentId));
+            items.add(profileItem(studentId, "Sinh Vien " + i, studentId.toLowerCase() + "@fpt.edu.vn"));
+        }
+        repository.batchWriteItems(items);
+    }
+
+    static String studentId(int i) {
+        return String.format("SE%06d", i);
+    }
+
+    static SchoolItem classItem() {
+        SchoolItem item = new SchoolItem();
+        item.setPk("CLASS#" + CLASS_ID);
+        item.setSk("INFO");
+        item.setGsi1Pk("TYPE#CLASS");
+        item.setGsi1Sk("NAME#lap trinh java");
+        item.setId(CLASS_ID);
+        item.setName("Lập trình Java");
+        item.setDescription("Lớp học kỳ Fall 2025");
+        item.setStatus(1);
+        item.setCreatedAt("2025-08-01T08:00:00Z");
+        item.setUpdatedAt("2025-08-15T08:00:00Z");
+        item.setSemester("FALL2025");
+        item.setAcademicYear("2025-2026");
+        item.setRoom("A101");
+        item.setSubjectId("SUBJECT#PRJ301");
+        item.setTeacherId("USER#GV001");
+        item.setTeacherName("Tran Van B");
+        item.setPassword("123456");
+        item.setStudentCount(35);
+        return item;
+    }
+
+    static SchoolItem enrollmentItem(String studentId) {
+        SchoolItem item = new SchoolItem();
+        item.setPk("CLASS#" + CLASS_ID);
+        item.setSk("STUDENT#" + studentId);
+        item.setGsi1Pk("USER#" + studentId);
+        item.setGsi1Sk("CLASS#" + CLASS_ID);
+        item.setStudentId(studentId);
+        item.setStudentName("Sinh Vien " + studentId);
+        item.setJoinedAt("2025-09-01T08:00:00Z");
+        item.setStatus(1);
+        return item;
+    }
+
+    static SchoolItem profileItem(String userId, String name, String email) {
+        SchoolItem item = new SchoolItem();
+        item.setPk("USER#" + userId);
+        item.setSk("PROFILE");
+        item.setGsi1Pk("ROLE#3");
+        item.setGsi1Sk("NAME#" + name.toLowerCase());
+        item.setId(userId);
+        item.setName(name);
+        item.setEmail(email);
+        item.setRoleName("STUDENT");
+        item.setCodeUser(userId);
+        item.setStatus(1);
+        return item;
+    }
+
+    static SchoolItem postItem() {
+        SchoolItem item = new SchoolItem();
+        item.setPk("CLASS#" + CLASS_ID);
+        item.setSk("POST#7f1c2a9e-5b0d-4d8e-9a51-3c2f6e7d8b90");
+        item.setPostId("7f1c2a9e-5b0d-4d8e-9a51-3c2f6e7d8b90");
+        item.setClassId(CLASS_ID);
+        item.setSenderId("USER#GV001");
+        item.setTitle("Thông báo lịch thi giữa kỳ");
+        item.setContent("Lớp thi giữa kỳ vào tuần 8, phòng A101. Các bạn mang theo thẻ sinh viên.");
+        item.setFileUrl("https://bucket.s3.amazonaws.com/posts/lich-thi.pdf");
+        item.setIsPinned(true);
+        item.setLikeCount(12);
+        item.setCommentCount(4);
+        item.setCreatedAt("2025-10-01T08:00:00Z");
+        return item;
+    }
+
+    static SchoolItem commentItem() {
+        SchoolItem item = new SchoolItem();
+        item.setPk("POST#7f1c2a9e-5b0d-4d8e-9a51-3c2f6e7d8b90");
+        item.setSk("COMMENT#2025-10-01T09:00:00Z#c0ffee00");
+        item.setPostId("7f1c2a9e-5b0d-4d8e-9a51-3c2f6e7d8b90");
+        item.setClassId(CLASS_ID);
+        item.setSenderId("USER#SE182088");
+        item.setContent("Em cảm ơn thầy ạ");
+        item.setCreatedAt("2025-10-01T09:00:00Z");
+        return item;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.Class.ClassDto;
+import com.example.demo.dto.Post.CommentDto;
+import com.example.demo.dto.Post.PostDto;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.service.AdminService;
+import com.example.demo.service.LecturerService;
+import com.example.demo.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput các hàm convert SchoolItem -> DTO trong service (private, gọi qua MethodHandle).
+ * Đo allocation: -Djmh.args="ConverterBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private static final MethodHandle ADMIN_CLASS_DTO = BenchmarkFixtures.privateMethod(
+            AdminService.class, "convertToClassDto", ClassDto.class, SchoolItem.class);
+    private static final MethodHandle LECTURER_CLASS_DTO = BenchmarkFixtures.privateMethod(
+            LecturerService.class, "convertToClassDto", ClassDto.class, SchoolItem.class);
+    private static final MethodHandle STUDENT_POST_DTO = BenchmarkFixtures.privateMethod(
+            StudentService.class, "mapToPostDto", PostDto.class, SchoolItem.class);
+    private static final MethodHandle LECTURER_POST_DTO = BenchmarkFixtures.privateMethod(
+            LecturerService.class, "mapToPostDto", PostDto.class, SchoolItem.class);
+    private static final MethodHandle STUDENT_COMMENT_DTO = BenchmarkFixtures.privateMethod(
+            StudentService.class, "mapToCommentDto", CommentDto.class, SchoolItem.class);
+
+    private AdminService adminService;
+    private LecturerService lecturerService;
+    private StudentService studentService;
+    private SchoolItem classItem;
+    private SchoolItem postItem;
+    private SchoolItem commentItem;
+
+    @Setup
+    public void setup() {
+        // Converter không đụng tới dependency nào -> null là đủ
+        adminService = new AdminService(null, null, null, null, null, null, null, null, null, null, null, null);
+        lecturerService = new LecturerService(null, null, null, null, null, null, null);
+        studentService = new StudentService(null, adminService, null, null, null, null, null);
+        classItem = BenchmarkFixtures.classItem();
+        postItem = BenchmarkFixtures.postItem();
+        commentItem = BenchmarkFixtures.commentItem();
+    }
+
+    @Benchmark
+    public ClassDto adminConvertToClassDto() throws Throwable {
+        return (ClassDto) ADMIN_CLASS_DTO.invokeExact(adminService, classItem);
+    }
+
+    @Benchmark
+    public ClassDto lecturerConvertToClassDto() throws Throwable {
+        return (ClassDto) LECTURER_CLASS_DTO.invokeExact(lecturerService, classItem);
+    }
+
+    @Benchmark
+    public PostDto studentMapToPostDto() throws Throwable {
+        return (PostDto) STUDENT_POST_DTO.invokeExact(studentService, postItem);
+    }
+
+    @Benchmark
+    public PostDto lecturerMapToPostDto() throws Throwable {
+        return (PostDto) LECTURER_POST_DTO.invokeExact(lecturerService, postItem);
+    }
+
+    @Benchmark
+    public CommentDto studentMapToCommentDto() throws Throwable {
+        return (CommentDto) STUDENT_COMMENT_DTO.invokeExact(studentService, commentItem);
+    }
+}
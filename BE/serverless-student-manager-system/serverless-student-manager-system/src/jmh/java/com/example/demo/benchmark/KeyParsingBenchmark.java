@@ -0,0 +1,74 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.repository.SchoolKeys;
+import com.example.demo.service.LecturerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tách id từ sort key: các kiểu đang có trong service (split("#"), replace prefix)
+ * so với helper không cấp phát mảng trong SchoolKeys.
+ * Đo allocation: -Djmh.args="KeyParsingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyParsingBenchmark {
+
+    private static final MethodHandle EXTRACT_STUDENT_ID = BenchmarkFixtures.privateMethod(
+            LecturerService.class, "extractStudentIdFromSubmissionSk", String.class, String.class);
+
+    private LecturerService lecturerService;
+    private String submissionSk;
+    private String postSk;
+
+    @Setup
+    public void setup() {
+        lecturerService = new LecturerService(null, null, null, null, null, null, null);
+        submissionSk = SchoolKeys.submissionSk("9b2f4c1e-7a3d-4e55-8c10-2d6f0a9e4b71", "SE182088");
+        postSk = BenchmarkFixtures.postItem().getSk();
+    }
+
+    /** LecturerService.extractStudentIdFromSubmissionSk (split rồi lấy phần cuối). */
+    @Benchmark
+    public String extractStudentIdFromSubmissionSk() throws Throwable {
+        return (String) EXTRACT_STUDENT_ID.invokeExact(lecturerService, submissionSk);
+    }
+
+    /** Cách viết inline trong LecturerService.getSubmissions. */
+    @Benchmark
+    public String splitLastPart() {
+        String[] parts = submissionSk.split("#");
+        return parts.length >= 3 ? parts[parts.length - 1] : "Unknown";
+    }
+
+    @Benchmark
+    public String schoolKeysStudentId() {
+        return SchoolKeys.studentIdFromSubmissionSk(submissionSk);
+    }
+
+    /** mapToPostDto: sk.replace("POST#", ""). */
+    @Benchmark
+    public String replacePrefix() {
+        return postSk.replace("POST#", "");
+    }
+
+    @Benchmark
+    public String stripPrefix() {
+        return SchoolKeys.stripPrefix(SchoolKeys.POST, postSk);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.Lecturer.RankingDto;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.service.ClassLeaderboard;
+import com.example.demo.service.GradebookEngine;
+import com.example.demo.service.LecturerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LecturerService.getRankingByClass trên bảng trong bộ nhớ (không độ trễ mạng):
+ * gồm Query ghi danh + BatchGetItem profile + bảng điểm (cache theo version) + bảng xếp hạng lưu sẵn (CLASS#/LEADERBOARD).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RankingBenchmark {
+
+    @Param({"30", "200", "1000"})
+    public int students;
+
+    private SchoolItemRepository repository;
+    private LecturerService lecturerService;
+
+    @Setup
+    public void setup() {
+        InMemoryDynamoDbClient client = BenchmarkFixtures.newClient();
+        repository = BenchmarkFixtures.repository(client);
+        BenchmarkFixtures.seedClass(repository, students);
+        ClassLeaderboard classLeaderboard = new ClassLeaderboard(repository);
+        GradebookEngine gradebookEngine = new GradebookEngine(repository, classLeaderboard, 16, 600);
+        gradebookEngine.rebuild(BenchmarkFixtures.CLASS_ID);
+        lecturerService = new LecturerService(repository, null, null, null, null, classLeaderboard, gradebookEngine);
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.shutdown();
+    }
+
+    @Benchmark
+    public List<RankingDto> getRankingByClass() {
+        return lecturerService.getRankingByClass(BenchmarkFixtures.CLASS_ID);
+    }
+}
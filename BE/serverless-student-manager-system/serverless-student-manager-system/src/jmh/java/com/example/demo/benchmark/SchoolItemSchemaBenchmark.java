@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput map SchoolItem <-> Map<String, AttributeValue>: TableSchema.fromBean vs SchoolItemSchema.
+ * Đo allocation bằng profiler GC của JMH:
+ *   ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="SchoolItemSchemaBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchoolItemSchemaBenchmark {
+
+    /** Item nhỏ (enrollment, ~8 cột) và item lớn (lớp học, ~20 cột). */
+    @Param({"enrollment", "class"})
+    public String shape;
+
+    private TableSchema<SchoolItem> beanSchema;
+    private TableSchema<SchoolItem> staticSchema;
+    private SchoolItem item;
+    private Map<String, AttributeValue> itemMap;
+
+    @Setup
+    public void setup() {
+        beanSchema = TableSchema.fromBean(SchoolItem.class);
+        staticSchema = SchoolItemSchema.create();
+        item = "class".equals(shape) ? classItem() : enrollmentItem();
+        itemMap = beanSchema.itemToMap(item, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> itemToMapBean() {
+        return beanSchema.itemToMap(item, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> itemToMapStatic() {
+        return staticSchema.itemToMap(item, true);
+    }
+
+    @Benchmark
+    public SchoolItem mapToItemBean() {
+        return beanSchema.mapToItem(itemMap);
+    }
+
+    @Benchmark
+    public SchoolItem mapToItemStatic() {
+        return staticSchema.mapToItem(itemMap);
+    }
+
+    private static SchoolItem enrollmentItem() {
+        SchoolItem item = new SchoolItem();
+        item.setPk("CLASS#CLASS01");
+        item.setSk("STUDENT#SE182088");
+        item.setGsi1Pk("USER#SE182088");
+        item.setGsi1Sk("CLASS#CLASS01");
+        item.setStudentId("SE182088");
+        item.setStudentName("Nguyen Van A");
+        item.setJoinedAt("2025-09-01T08:00:00Z");
+        item.setStatus(1);
+        return item;
+    }
+
+    private static SchoolItem classItem() {
+        SchoolItem item = new SchoolItem();
+        item.setPk("CLASS#CLASS01");
+        item.setSk("INFO");
+        item.setGsi1Pk("TYPE#CLASS");
+        item.setGsi1Sk("NAME#lap trinh java");
+        item.setId("CLASS01");
+        item.setName("Lập trình Java");
+        item.setDescription("Lớp học kỳ Fall 2025");
+        item.setStatus(1);
+        item.setCreatedAt("2025-08-01T08:00:00Z");
+        item.setUpdatedAt("2025-08-15T08:00:00Z");
+        item.setSemester("FALL2025");
+        item.setAcademicYear("2025-2026");
+        item.setRoom("A101");
+        item.setSubjectId("SUBJECT#PRJ301");
+        item.setTeacherId("GV001");
+        item.setTeacherName("Tran Van B");
+        item.setPassword("123456");
+        item.setStudentCount(35);
+        item.setCredits(3);
+        item.setDepartment("SE");
+        return item;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.SchoolItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh chi phí CPU của cách cũ (TableSchema.fromBean + dynamoDbClient.table mỗi lần gọi)
+ * với SchoolItemRepository (schema + table tạo 1 lần).
+ * Không gọi mạng: chỉ đo phần dựng schema/table/index và map SchoolItem <-> AttributeValue.
+ * Lưu ý: SDK 2.25 đã tự cache BeanTableSchema theo class, nên phần tiết kiệm chủ yếu là
+ * tra cache + dựng DynamoDbTable/DynamoDbIndex mới mỗi lần gọi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableSchemaBenchmark {
+
+    private static final String TABLE_NAME = "Student-Management-Database";
+
+    private DynamoDbEnhancedClient enhancedClient;
+    private TableSchema<SchoolItem> cachedSchema;
+    private DynamoDbTable<SchoolItem> cachedTable;
+    private DynamoDbIndex<SchoolItem> cachedGsi1;
+    private SchoolItem item;
+    private Map<String, AttributeValue> itemMap;
+
+    @Setup
+    public void setup() {
+        // Client rỗng: benchmark không gửi request nào
+        DynamoDbClient client = new DynamoDbClient() {
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
+        cachedSchema = TableSchema.fromBean(SchoolItem.class);
+        cachedTable = enhancedClient.table(TABLE_NAME, cachedSchema);
+        cachedGsi1 = cachedTable.index("GSI1");
+
+        item = new SchoolItem();
+        item.setPk("ASSIGNMENT#CLASS01");
+        item.setSk("SUBMISSION#ASS_1#SE182088");
+        item.setGsi1Pk("USER#SE182088");
+        item.setGsi1Sk("SUBMISSION#ASS_1");
+        item.setStudentId("SE182088");
+        item.setStudentName("Nguyen Van A");
+        item.setScore(8.5);
+        item.setFeedback("Tốt");
+        item.setStatus(2);
+        item.setSubmittedAt("2025-10-01T08:00:00Z");
+        itemMap = cachedSchema.itemToMap(item, true);
+    }
+
+    // ==== Chỉ dựng handle bảng ====
+
+    @Benchmark
+    public DynamoDbTable<SchoolItem> tableHandlePerCall() {
+        return enhancedClient.table(TABLE_NAME, TableSchema.fromBean(SchoolItem.class));
+    }
+
+    @Benchmark
+    public DynamoDbTable<SchoolItem> tableHandleCached() {
+        return cachedTable;
+    }
+
+    @Benchmark
+    public DynamoDbIndex<SchoolItem> gsi1HandlePerCall() {
+        return enhancedClient.table(TABLE_NAME, TableSchema.fromBean(SchoolItem.class)).index("GSI1");
+    }
+
+    @Benchmark
+    public DynamoDbIndex<SchoolItem> gsi1HandleCached() {
+        return cachedGsi1;
+    }
+
+    // ==== 1 lần đọc + 1 lần ghi như 1 request điển hình (phần map item) ====
+
+    @Benchmark
+    public Map<String, AttributeValue> readWritePerCall() {
+        TableSchema<SchoolItem> schema = enhancedClient
+                .table(TABLE_NAME, TableSchema.fromBean(SchoolItem.class))
+                .tableSchema();
+        SchoolItem read = schema.mapToItem(itemMap);
+        return schema.itemToMap(read, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> readWriteCached() {
+        TableSchema<SchoolItem> schema = cachedTable.tableSchema();
+        SchoolItem read = schema.mapToItem(itemMap);
+        return schema.itemToMap(read, true);
+    }
+}
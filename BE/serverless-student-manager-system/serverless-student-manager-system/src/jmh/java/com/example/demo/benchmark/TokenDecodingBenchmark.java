@@ -0,0 +1,104 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.security.CallerContext;
+import com.example.demo.security.CallerContextResolver;
+import com.example.demo.service.UserEmailIndex;
+import com.example.demo.service.UserSearchIndex;
+import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giải mã ID Token (header user-idToken) của CallerContextResolver - thay cho các helper
+ * decode token trước đây nằm rải rác trong controller:
+ *   - decodePayload: Base64 + Jackson,
+ *   - resolveCached: cả luồng resolve khi CallerContext đã có trong cache (trường hợp thường gặp).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenDecodingBenchmark {
+
+    private static final MethodHandle DECODE_PAYLOAD = BenchmarkFixtures.privateMethod(
+            CallerContextResolver.class, "decodePayload", Map.class, String.class);
+    private static final String REQUEST_ATTRIBUTE = CallerContext.class.getName();
+
+    private SchoolItemRepository repository;
+    private CallerContextResolver resolver;
+    private String idToken;
+    private ServletWebRequest webRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        InMemoryDynamoDbClient client = BenchmarkFixtures.newClient();
+        repository = BenchmarkFixtures.repository(client);
+        UserEmailIndex emailIndex = new UserEmailIndex(repository);
+        SchoolItem profile = BenchmarkFixtures.profileItem("SE182088", "Nguyen Van A", "se182088@fpt.edu.vn");
+        repository.putItem(profile);
+        emailIndex.register(profile);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        resolver = new CallerContextResolver(new UserService(repository, emailIndex, new UserSearchIndex(repository, 600)), objectMapper, 10_000, 900);
+        idToken = unsignedToken(objectMapper, Map.of(
+                "sub", "6b1f0c2e-0d4a-4c55-9e3b-8a7d2f1e0c9b",
+                "email", "se182088@fpt.edu.vn",
+                "jti", "1d7e6c2a-3f4b-4a8e-b0c1-5e9f7a2d4c6b",
+                "token_use", "id",
+                "exp", System.currentTimeMillis() / 1000 + 3600));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/classes");
+        request.addHeader(CallerContextResolver.ID_TOKEN_HEADER, idToken);
+        webRequest = new ServletWebRequest(request);
+        resolver.resolveArgument(null, null, webRequest, null); // nạp cache
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.shutdown();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decodePayload() throws Throwable {
+        return (Map<String, Object>) DECODE_PAYLOAD.invokeExact(resolver, idToken);
+    }
+
+    @Benchmark
+    public Object resolveCached() {
+        // Mỗi request mới chưa có CallerContext trong attribute
+        webRequest.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return resolver.resolveArgument(null, null, webRequest, null);
+    }
+
+    private static String unsignedToken(ObjectMapper objectMapper, Map<String, Object> claims) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\",\"kid\":\"bench\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(objectMapper.writeValueAsBytes(claims));
+        return header + "." + payload + "." + encoder.encodeToString("signature".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Độ trễ (µs) + số lỗi theo endpoint. Ghi từ nhiều virtual user cùng lúc qua {@link Recorder};
+ * {@link #startInterval()} bỏ số liệu giai đoạn ramp-up, {@link #endInterval()} lấy số liệu giai đoạn đo.
+ */
+final class EndpointStats {
+
+    /** Request lâu hơn mức này được ghi bằng đúng mức này. */
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void recordSuccess(String endpoint, long elapsedNanos) {
+        long micros = Math.max(1, Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+        endpoint(endpoint).latency.recordValue(micros);
+    }
+
+    void recordError(String endpoint) {
+        endpoint(endpoint).errors.increment();
+    }
+
+    /** Bắt đầu giai đoạn đo: bỏ mọi số liệu trước đó. */
+    void startInterval() {
+        endpoints.values().forEach(e -> {
+            e.latency.getIntervalHistogram();
+            e.errors.reset();
+        });
+    }
+
+    /** Số liệu từ lần {@link #startInterval()} gần nhất, sắp theo tên endpoint. */
+    Map<String, Result> endInterval() {
+        Map<String, Result> out = new TreeMap<>();
+        endpoints.forEach((name, e) -> out.put(name, new Result(e.latency.getIntervalHistogram(), e.errors.sum())));
+        return out;
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, k -> new Endpoint());
+    }
+
+    private static final class Endpoint {
+        final Recorder latency = new Recorder(MAX_TRACKABLE_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    static final class Result {
+        final Histogram latency;
+        final long errors;
+
+        Result(Histogram latency, long errors) {
+            this.latency = latency;
+            this.errors = errors;
+        }
+    }
+}
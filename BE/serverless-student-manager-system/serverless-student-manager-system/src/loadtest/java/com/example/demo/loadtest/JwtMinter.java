@@ -0,0 +1,55 @@
+package com.example.demo.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ký ID Token giả (HS256) có cùng claim mà SecurityConfig / CallerContextResolver đọc từ token Cognito:
+ * sub, email, cognito:groups, token_use, jti, exp. Secret phải trùng app.local.jwt-secret của server.
+ */
+final class JwtMinter {
+
+    private static final Duration TOKEN_TTL = Duration.ofHours(1);
+
+    private final MACSigner signer;
+
+    JwtMinter(String secret) {
+        try {
+            this.signer = new MACSigner(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (JOSEException e) {
+            throw new IllegalArgumentException("Secret HS256 không hợp lệ (tối thiểu 32 byte)", e);
+        }
+    }
+
+    /** Mỗi lần gọi = 1 lần đăng nhập: jti mới nên request đầu tiên luôn trượt cache CallerContextResolver. */
+    String mint(String userId, String email, String group) {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("sub-" + userId.toLowerCase())
+                .jwtID(UUID.randomUUID().toString())
+                .claim("email", email)
+                .claim("cognito:groups", List.of(group))
+                .claim("token_use", "id")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(TOKEN_TTL)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Không ký được JWT", e);
+        }
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.SchoolApplication;
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.dataset.DatasetGenerator;
+import com.example.demo.dataset.DatasetReport;
+import com.example.demo.dataset.DatasetSpec;
+import com.example.demo.local.DynamoCallTrackingFilter;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.service.ClassDirectory;
+import com.example.demo.service.UserSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Load test theo endpoint: khởi động ứng dụng trong cùng JVM với profile local-dynamo
+ * (DynamoDB trong bộ nhớ có độ trễ giả lập, mail chỉ ghi log, S3 chỉ ký presigned URL cục bộ, JWT HS256),
+ * nạp dữ liệu đầu kỳ rồi cho sinh viên / giảng viên / quản trị ảo chạy kịch bản qua HTTP thật.
+ *
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--users 2000 --duration 120 --ramp-up 30"
+ * </pre>
+ *
+ * Tham số (đều tuỳ chọn):
+ * <ul>
+ *     <li>--users N: số sinh viên ảo (mặc định 2000)</li>
+ *     <li>--lecturers N: số giảng viên ảo (mặc định: tất cả giảng viên trong dữ liệu)</li>
+ *     <li>--admins N: số quản trị ảo (mặc định 5)</li>
+ *     <li>--ramp-up S / --duration S: thời gian tăng dần số người dùng / thời gian đo (giây)</li>
+ *     <li>--think-millis MS: thời gian nghỉ trung bình giữa 2 request của 1 người dùng</li>
+ *     <li>--dynamo-latency-millis / --dynamo-jitter-millis: độ trễ giả lập mỗi lệnh DynamoDB</li>
+ *     <li>--server-threads N: server.tomcat.threads.max</li>
+ * </ul>
+ * Chỉ số liệu sau ramp-up được tính.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        PrintStream out = System.out;
+
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(SchoolApplication.class)
+                .profiles("local-dynamo")
+                .properties(serverProperties(options))
+                .run();
+        // SecurityConfig / EmailService in ra System.out mỗi request: tắt đi để không làm nhiễu số đo
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            run(app, options, out);
+        } finally {
+            System.setOut(out);
+            app.close();
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext app, Options options, PrintStream out)
+            throws InterruptedException {
+        int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+        InMemoryDynamoDbClient dynamo = app.getBean(InMemoryDynamoDbClient.class);
+        DynamoCallTrackingFilter tracking = app.getBean(DynamoCallTrackingFilter.class);
+
+        // 1. Nạp dữ liệu (cùng tỉ lệ với DatasetSpec.scale, số sinh viên = --users)
+        DatasetSpec data = DatasetSpec.scale(options.users / 10_000.0).toBuilder()
+                .students(options.users)
+                .admins(options.admins)
+                .build();
+        DatasetReport seeded = new DatasetGenerator(app.getBean(SchoolItemRepository.class)).generate(data);
+        if (seeded.getFailed() > 0) {
+            throw new IllegalStateException("Nạp dữ liệu lỗi: " + seeded.getFailed() + " item không ghi được");
+        }
+        // Dữ liệu được ghi thẳng vào bảng (không qua service) -> dựng lại chỉ mục tìm user và danh bạ lớp
+        app.getBean(UserSearchIndex.class).rebuildAsync().join();
+        app.getBean(ClassDirectory.class).reload();
+        out.printf("Đã nạp %d item trong %d ms: %d lớp, %d giảng viên, %d sinh viên%n", seeded.getWritten(),
+                seeded.getElapsedMillis(), data.classes(), data.getLecturers(), data.getStudents());
+
+        // 2. Người dùng ảo
+        EndpointStats stats = new EndpointStats();
+        AtomicBoolean running = new AtomicBoolean(true);
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        VirtualUser.Context context = new VirtualUser.Context(http, "http://localhost:" + port, stats,
+                new JwtMinter(LocalDynamoConfig.DEFAULT_JWT_SECRET), data, options.thinkMillis, running::get);
+
+        List<VirtualUser> users = new ArrayList<>();
+        for (int i = 0; i < data.getStudents(); i++) users.add(new VirtualUser.Student(context, i));
+        int lecturers = options.lecturers < 0 ? data.getLecturers() : Math.min(options.lecturers, data.getLecturers());
+        for (int i = 0; i < lecturers; i++) {
+            if (data.classCountOfLecturer(i) > 0) users.add(new VirtualUser.Lecturer(context, i));
+        }
+        for (int i = 0; i < data.getAdmins(); i++) users.add(new VirtualUser.Admin(context, i));
+        // Trộn để giảng viên / quản trị không dồn hết vào cuối ramp-up
+        Collections.shuffle(users, new Random(42));
+
+        // 3. Ramp-up: khởi động đều trong rampUpSeconds
+        out.printf("Ramp-up %d người dùng ảo trong %ds...%n", users.size(), options.rampUpSeconds);
+        List<Thread> threads = new ArrayList<>(users.size());
+        long rampStart = System.nanoTime();
+        long rampNanos = Duration.ofSeconds(options.rampUpSeconds).toNanos();
+        for (int i = 0; i < users.size(); i++) {
+            long startAt = rampStart + rampNanos * i / users.size();
+            long wait = startAt - System.nanoTime();
+            if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            Thread thread = new Thread(users.get(i), "vu-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        long rampLeft = rampStart + rampNanos - System.nanoTime();
+        if (rampLeft > 0) Thread.sleep(rampLeft / 1_000_000);
+
+        // 4. Đo
+        stats.startInterval();
+        tracking.reset();
+        dynamo.resetCallCounts();
+        out.printf("Đo trong %ds...%n", options.durationSeconds);
+        long measureStart = System.nanoTime();
+        Thread.sleep(Duration.ofSeconds(options.durationSeconds).toMillis());
+        Map<String, EndpointStats.Result> results = stats.endInterval();
+        Map<String, long[]> dynamoCounts = tracking.counts();
+        Map<String, Long> dynamoOperations = dynamo.callCounts();
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+        running.set(false);
+
+        LoadTestReport.print(out, results, dynamoCounts, seconds);
+        out.println("Lệnh DynamoDB theo loại (giai đoạn đo, kể cả lệnh chạy nền): " + dynamoOperations);
+
+        for (Thread thread : threads) {
+            thread.join(1000);
+        }
+    }
+
+    private static Map<String, Object> serverProperties(Options options) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("server.port", 0);
+        props.put("server.tomcat.threads.max", options.serverThreads);
+        props.put("spring.main.banner-mode", "off");
+        props.put("logging.level.root", "WARN");
+        props.put("app.dynamodb.local.latency-millis", options.dynamoLatencyMillis);
+        props.put("app.dynamodb.local.jitter-millis", options.dynamoJitterMillis);
+        // Giá trị giả cho các bean AWS / mail (không có lệnh nào thực sự đi ra mạng trong kịch bản)
+        props.put("aws.region", "ap-southeast-1");
+        props.put("aws.accessKeyId", "local");
+        props.put("aws.secretAccessKey", "local");
+        props.put("aws.clientId", "local");
+        props.put("aws.cognito.user-pool-id", "ap-southeast-1_local");
+        props.put("aws.s3.bucket-name", "loadtest-bucket");
+        props.put("aws.dynamodb.table-name", "Student-Management-Database");
+        props.put("spring.mail.username", "noreply@loadtest.local");
+        return props;
+    }
+
+    // ========================================================================
+    // THAM SỐ DÒNG LỆNH
+    // ========================================================================
+
+    private static final class Options {
+        int users = 2000;
+        int lecturers = -1;
+        int admins = 5;
+        int rampUpSeconds = 30;
+        int durationSeconds = 120;
+        long thinkMillis = 1000;
+        long dynamoLatencyMillis = 3;
+        long dynamoJitterMillis = 2;
+        int serverThreads = 200;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Thiếu giá trị cho " + name);
+                long value = Long.parseLong(args[++i]);
+                switch (name) {
+                    case "--users": o.users = (int) value; break;
+                    case "--lecturers": o.lecturers = (int) value; break;
+                    case "--admins": o.admins = (int) value; break;
+                    case "--ramp-up": o.rampUpSeconds = (int) value; break;
+                    case "--duration": o.durationSeconds = (int) value; break;
+                    case "--think-millis": o.thinkMillis = value; break;
+                    case "--dynamo-latency-millis": o.dynamoLatencyMillis = value; break;
+                    case "--dynamo-jitter-millis": o.dynamoJitterMillis = value; break;
+                    case "--server-threads": o.serverThreads = (int) value; break;
+                    default: throw new IllegalArgumentException("Tham số không hợp lệ: " + name);
+                }
+            }
+            return o;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * In bảng kết quả: mỗi endpoint 1 dòng gồm số request thành công, lỗi, throughput,
+ * phân vị độ trễ (ms, từ HdrHistogram) và số lệnh DynamoDB trung bình mỗi request (từ DynamoCallTrackingFilter).
+ */
+final class LoadTestReport {
+
+    private static final String ROW = "%-48s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n";
+
+    private LoadTestReport() {
+    }
+
+    /**
+     * @param dynamoCounts endpoint -> {số request, tổng lệnh DynamoDB}
+     */
+    static void print(PrintStream out, Map<String, EndpointStats.Result> results,
+                      Map<String, long[]> dynamoCounts, double seconds) {
+        out.printf(ROW, "ENDPOINT", "OK", "ERR", "REQ/S", "P50", "P90", "P99", "P99.9", "MAX", "DDB/REQ");
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        long totalRequests = 0;
+        long totalCalls = 0;
+        for (Map.Entry<String, EndpointStats.Result> e : results.entrySet()) {
+            EndpointStats.Result r = e.getValue();
+            long[] dynamo = dynamoCounts.get(e.getKey());
+            row(out, e.getKey(), r.latency, r.errors, seconds, dynamo);
+            total.add(r.latency);
+            totalErrors += r.errors;
+            if (dynamo != null) {
+                totalRequests += dynamo[0];
+                totalCalls += dynamo[1];
+            }
+        }
+        row(out, "TỔNG", total, totalErrors, seconds, new long[]{totalRequests, totalCalls});
+        out.println("Độ trễ tính bằng ms; DDB/REQ = số lệnh DynamoDB trung bình trên thread xử lý request.");
+    }
+
+    private static void row(PrintStream out, String name, Histogram h, long errors, double seconds, long[] dynamo) {
+        long ok = h.getTotalCount();
+        out.printf(ROW, name, ok, errors,
+                String.format("%.1f", (ok + errors) / seconds),
+                millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+                ok == 0 ? "-" : String.format("%.1f", h.getMaxValue() / 1000.0),
+                dynamo == null || dynamo[0] == 0 ? "-" : String.format("%.2f", (double) dynamo[1] / dynamo[0]));
+    }
+
+    private static String millis(Histogram h, double percentile) {
+        if (h.getTotalCount() == 0) return "-";
+        return String.format("%.1f", h.getValueAtPercentile(percentile) / 1000.0);
+    }
+}
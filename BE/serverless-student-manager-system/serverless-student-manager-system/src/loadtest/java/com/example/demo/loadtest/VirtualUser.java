@@ -0,0 +1,215 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.dataset.DatasetSpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 1 người dùng ảo = 1 thread chạy lặp lại 1 phiên (đăng nhập -> các bước của kịch bản) tới khi hết giờ.
+ * Mô hình đóng: giữa 2 request người dùng "đọc" trong khoảng think time ngẫu nhiên (0.5x - 1.5x).
+ * Tên endpoint dùng template giống DynamoCallTrackingFilter để ghép được 2 bảng số liệu.
+ */
+abstract class VirtualUser implements Runnable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final EndpointStats stats;
+    private final long thinkMillis;
+    private final BooleanSupplier running;
+    protected final JwtMinter minter;
+    protected String token;
+
+    protected VirtualUser(Context context) {
+        this.http = context.http;
+        this.baseUrl = context.baseUrl;
+        this.stats = context.stats;
+        this.thinkMillis = context.thinkMillis;
+        this.running = context.running;
+        this.minter = context.minter;
+    }
+
+    /** 1 phiên làm việc; trả về false nếu nên dừng giữa chừng (hết giờ). */
+    protected abstract boolean session();
+
+    @Override
+    public void run() {
+        while (running.getAsBoolean()) {
+            if (!session()) return;
+        }
+    }
+
+    // ========================================================================
+    // HTTP
+    // ========================================================================
+
+    /** GET; {@code path} là đường dẫn thật, {@code endpoint} là template để gom số liệu. */
+    protected boolean get(String endpoint, String path) {
+        return send(endpoint, request(path).GET().build());
+    }
+
+    protected boolean post(String endpoint, String path, String json) {
+        return send(endpoint, request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+
+    /** Gửi request rồi nghỉ think time. Trả về false khi đã hết giờ (bỏ các bước còn lại của phiên). */
+    private boolean send(String endpoint, HttpRequest request) {
+        if (!running.getAsBoolean()) return false;
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() < 400) {
+                stats.recordSuccess(endpoint, System.nanoTime() - start);
+            } else {
+                stats.recordError(endpoint);
+            }
+        } catch (IOException e) {
+            stats.recordError(endpoint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return think();
+    }
+
+    private boolean think() {
+        if (thinkMillis <= 0) return running.getAsBoolean();
+        long pause = ThreadLocalRandom.current().nextLong(thinkMillis / 2, thinkMillis + thinkMillis / 2 + 1);
+        try {
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return running.getAsBoolean();
+    }
+
+    protected static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    protected static int pick(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    /** Hạ tầng dùng chung của mọi người dùng ảo. */
+    static final class Context {
+        final HttpClient http;
+        final String baseUrl;
+        final EndpointStats stats;
+        final JwtMinter minter;
+        final DatasetSpec data;
+        final long thinkMillis;
+        final BooleanSupplier running;
+
+        Context(HttpClient http, String baseUrl, EndpointStats stats, JwtMinter minter, DatasetSpec data,
+                long thinkMillis, BooleanSupplier running) {
+            this.http = http;
+            this.baseUrl = baseUrl;
+            this.stats = stats;
+            this.minter = minter;
+            this.data = data;
+            this.thinkMillis = thinkMillis;
+            this.running = running;
+        }
+    }
+
+    // ========================================================================
+    // KỊCH BẢN
+    // ========================================================================
+
+    /** Sinh viên đầu kỳ: đăng nhập -> lớp đã ghi danh -> bài đăng -> bài tập -> nộp bài -> thông báo. */
+    static final class Student extends VirtualUser {
+        private final DatasetSpec data;
+        private final int index;
+        private final String studentId;
+
+        Student(Context context, int index) {
+            super(context);
+            this.data = context.data;
+            this.index = index;
+            this.studentId = DatasetSpec.studentId(index);
+        }
+
+        @Override
+        protected boolean session() {
+            token = minter.mint(studentId, DatasetSpec.email(studentId), "STUDENT");
+            int classIndex = data.classOfStudent(index, pick(data.getClassesPerStudent()));
+            String classId = DatasetSpec.classId(classIndex);
+            String assignmentId = data.assignmentId(classIndex, pick(data.getAssignmentsPerClass()));
+            String fileName = "bai-lam-" + studentId + ".pdf";
+            String submit = "{\"class_id\":\"" + classId + "\",\"assignmentId\":\"" + assignmentId + "\","
+                    + "\"content\":\"Bài làm load test\",\"fileUrl\":\"assignments/" + fileName + "\","
+                    + "\"fileName\":\"" + fileName + "\"}";
+
+            return get("GET /api/student/classes/enrolled", "/api/student/classes/enrolled")
+                    && get("GET /api/student/classes/{class_id}/posts",
+                    "/api/student/classes/" + classId + "/posts?limit=20")
+                    && get("GET /api/student/assignments", "/api/student/assignments?classId=" + encode(classId))
+                    && get("GET /api/upload/presigned-url", "/api/upload/presigned-url?fileName=" + encode(fileName))
+                    && post("POST /api/student/submit", "/api/student/submit", submit)
+                    && get("GET /api/student/notifications", "/api/student/notifications?limit=20");
+        }
+    }
+
+    /** Giảng viên: danh sách lớp -> sinh viên trong lớp -> bài tập của lớp -> bảng xếp hạng. */
+    static final class Lecturer extends VirtualUser {
+        private final DatasetSpec data;
+        private final int index;
+        private final String lecturerId;
+
+        Lecturer(Context context, int index) {
+            super(context);
+            this.data = context.data;
+            this.index = index;
+            this.lecturerId = DatasetSpec.lecturerId(index);
+        }
+
+        @Override
+        protected boolean session() {
+            token = minter.mint(lecturerId, DatasetSpec.email(lecturerId), "LECTURER");
+            String classId = DatasetSpec.classId(data.classOfLecturer(index, pick(data.classCountOfLecturer(index))));
+
+            return get("GET /api/lecturer/classes", "/api/lecturer/classes")
+                    && get("GET /api/lecturer/students/{class_id}", "/api/lecturer/students/" + classId)
+                    && get("GET /api/lecturer/classes/{class_id}/assignments",
+                    "/api/lecturer/classes/" + classId + "/assignments")
+                    && get("GET /api/lecturer/ranking/{class_id}", "/api/lecturer/ranking/" + classId);
+        }
+    }
+
+    /** Quản trị: trang đầu danh sách lớp và người dùng. */
+    static final class Admin extends VirtualUser {
+        private final String adminId;
+
+        Admin(Context context, int index) {
+            super(context);
+            this.adminId = DatasetSpec.adminId(index);
+        }
+
+        @Override
+        protected boolean session() {
+            token = minter.mint(adminId, DatasetSpec.email(adminId), "ADMIN");
+            return get("GET /api/admin/classes", "/api/admin/classes?limit=20")
+                    && get("GET /api/admin/users", "/api/admin/users?role_id=3&limit=20");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache cục bộ (trong 1 node) có giới hạn kích thước + thời gian sống.
+ * - Mỗi entry có hạn riêng (mặc định = defaultTtlMillis, có thể truyền hạn tuyệt đối khi put).
+ * - Vượt maxSize thì bỏ entry cũ nhất theo thứ tự ghi (FIFO).
+ * - Đếm hit / miss / eviction / expiration để xem qua /api/admin/metrics.
+ */
+public class TtlCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long defaultTtlMillis;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Slot<K>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedSlots = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TtlCache(String name, int maxSize, long defaultTtlMillis) {
+        this(name, maxSize, defaultTtlMillis, System::currentTimeMillis);
+    }
+
+    public TtlCache(String name, int maxSize, long defaultTtlMillis, LongSupplier clock) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize phải > 0");
+        this.name = name;
+        this.maxSize = maxSize;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            if (entries.remove(key, entry)) expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) return cached;
+        V loaded = loader.apply(key);
+        if (loaded != null) put(key, loaded);
+        return loaded;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, clock.getAsLong() + defaultTtlMillis);
+    }
+
+    /** Ghi với thời điểm hết hạn tuyệt đối (epoch millis), VD lấy từ claim exp của token. */
+    public void put(K key, V value, long expiresAtMillis) {
+        if (key == null || value == null) return;
+        if (expiresAtMillis <= clock.getAsLong()) return;
+        long seq = sequence.incrementAndGet();
+        entries.put(key, new Entry<>(value, expiresAtMillis, seq));
+        insertionOrder.add(new Slot<>(key, seq));
+        queuedSlots.incrementAndGet();
+        evictIfNeeded();
+    }
+
+    public void invalidate(K key) {
+        if (key != null) entries.remove(key);
+    }
+
+    public void invalidateIf(Predicate<? super K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public void clear() {
+        entries.clear();
+        insertionOrder.clear();
+        queuedSlots.set(0);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", (h + m) == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    private void evictIfNeeded() {
+        while (entries.size() > maxSize) {
+            Slot<K> oldest = insertionOrder.poll();
+            if (oldest == null) return;
+            queuedSlots.decrementAndGet();
+            Entry<V> current = entries.get(oldest.key);
+            // Slot cũ của key đã bị ghi đè -> bỏ qua, không xóa bản mới
+            if (current != null && current.sequence == oldest.sequence && entries.remove(oldest.key, current)) {
+                evictions.increment();
+            }
+        }
+        // Dọn bớt slot rác để hàng đợi không phình vô hạn khi cùng 1 key bị ghi nhiều lần
+        if (queuedSlots.get() > maxSize * 2) {
+            insertionOrder.removeIf(slot -> {
+                Entry<V> current = entries.get(slot.key);
+                return current == null || current.sequence != slot.sequence;
+            });
+            queuedSlots.set(insertionOrder.size());
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+        final long sequence;
+
+        Entry(V value, long expiresAt, long sequence) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Slot<K> {
+        final K key;
+        final long sequence;
+
+        Slot(K key, long sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+}
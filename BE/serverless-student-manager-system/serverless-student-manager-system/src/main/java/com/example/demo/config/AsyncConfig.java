@@ -0,0 +1,13 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Bật @Async (EmailService, NotificationDispatcher).
+ * Dùng thread pool mặc định của Spring Boot, chỉnh qua spring.task.execution.pool.*.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
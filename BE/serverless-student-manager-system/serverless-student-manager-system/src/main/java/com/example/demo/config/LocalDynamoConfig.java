@@ -0,0 +1,143 @@
+package com.example.demo.config;
+
+import com.example.demo.local.DynamoCallTrackingFilter;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+import javax.crypto.spec.SecretKeySpec;
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Profile "local-dynamo": thay {@link DynamoConfig} bằng {@link InMemoryDynamoDbClient} để chạy
+ * service / benchmark / load test không cần AWS. Bảng single-table (PK/SK + GSI1) được tạo sẵn lúc khởi động,
+ * dữ liệu mất khi tắt ứng dụng. EventBridge và mail chỉ ghi log.
+ * JWT được ký HS256 bằng {@code app.local.jwt-secret} thay cho Cognito (xem loadtest/JwtMinter).
+ * Cognito / S3 vẫn dùng client thật nên các thuộc tính aws.* vẫn phải có (giá trị giả là đủ để khởi động;
+ * presigned URL của S3 được ký cục bộ nên vẫn chạy được).
+ */
+@Configuration
+@Profile("local-dynamo")
+@Slf4j
+public class LocalDynamoConfig {
+
+    /** Secret mặc định chỉ dùng cho máy dev / load test. */
+    public static final String DEFAULT_JWT_SECRET = "local-dynamo-dev-secret-change-me-0123456789";
+
+    @Bean
+    public InMemoryDynamoDbClient dynamoDbClient(@Value("${aws.dynamodb.table-name}") String tableName,
+                                                 @Value("${app.dynamodb.local.latency-millis:0}") long latencyMillis,
+                                                 @Value("${app.dynamodb.local.jitter-millis:0}") long jitterMillis) {
+        InMemoryDynamoDbClient client = new InMemoryDynamoDbClient(latencyMillis, jitterMillis);
+        client.createTable(singleTableRequest(tableName));
+        log.info("In-memory DynamoDB: bảng {} (latency {}ms + jitter {}ms)", tableName, latencyMillis, jitterMillis);
+        return client;
+    }
+
+    @Bean
+    public DynamoDbEnhancedClient dynamoDbEnhancedClient(InMemoryDynamoDbClient dynamoDbClient) {
+        return DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+    }
+
+    @Bean
+    public EventBridgeClient eventBridgeClient() {
+        return new EventBridgeClient() {
+            @Override
+            public PutEventsResponse putEvents(PutEventsRequest request) {
+                log.info("[local-dynamo] Bỏ qua EventBridge putEvents: {} entries", request.entries().size());
+                PutEventsResponse.Builder response = PutEventsResponse.builder().failedEntryCount(0);
+                request.entries().forEach(e -> response.entries(PutEventsResultEntry.builder()
+                        .eventId(UUID.randomUUID().toString()).build()));
+                return response.build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /** Đếm lệnh DynamoDB theo endpoint, xem trên /api/admin/metrics (nhóm "dynamoCallsPerEndpoint"). */
+    @Bean
+    public DynamoCallTrackingFilter dynamoCallTrackingFilter(InMemoryDynamoDbClient dynamoDbClient) {
+        return new DynamoCallTrackingFilter(dynamoDbClient);
+    }
+
+    /** Thay issuer Cognito: chấp nhận token HS256 ký bằng secret dùng chung (tối thiểu 32 byte). */
+    @Bean
+    public JwtDecoder jwtDecoder(@Value("${app.local.jwt-secret:" + DEFAULT_JWT_SECRET + "}") String secret) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < 32) {
+            throw new IllegalArgumentException("app.local.jwt-secret phải dài tối thiểu 32 byte (HS256)");
+        }
+        return NimbusJwtDecoder.withSecretKey(new SecretKeySpec(key, "HmacSHA256"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+    }
+
+    /** Không có SMTP: mail chỉ được ghi log. */
+    @Bean
+    public JavaMailSender javaMailSender() {
+        return new JavaMailSenderImpl() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                log.debug("[local-dynamo] Bỏ qua gửi {} mail", mimeMessages.length);
+            }
+        };
+    }
+
+    /** Định nghĩa bảng giống bảng thật trên AWS: PK/SK (String) + GSI1 (GSI1PK/GSI1SK, chiếu ALL). */
+    public static CreateTableRequest singleTableRequest(String tableName) {
+        return CreateTableRequest.builder()
+                .tableName(tableName)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .attributeDefinitions(
+                        attribute("PK"), attribute("SK"), attribute("GSI1PK"), attribute("GSI1SK"))
+                .keySchema(key("PK", KeyType.HASH), key("SK", KeyType.RANGE))
+                .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+                        .indexName(SchoolItemRepository.GSI1)
+                        .keySchema(key("GSI1PK", KeyType.HASH), key("GSI1SK", KeyType.RANGE))
+                        .projection(p -> p.projectionType(ProjectionType.ALL))
+                        .build())
+                .build();
+    }
+
+    private static AttributeDefinition attribute(String name) {
+        return AttributeDefinition.builder().attributeName(name).attributeType(ScalarAttributeType.S).build();
+    }
+
+    private static KeySchemaElement key(String name, KeyType type) {
+        return KeySchemaElement.builder().attributeName(name).keyType(type).build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.config;
 
+import com.example.demo.security.CallerContext;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -7,6 +8,7 @@ import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.parameters.Parameter;
+import org.springdoc.core.SpringDocUtils;
 import org.springdoc.core.customizers.OperationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +28,11 @@ import org.springframework.context.annotation.Configuration;
 
 public class OpenApiConfig {
 
+    static {
+        // CallerContext do CallerContextResolver điền từ token, không phải tham số query của API
+        SpringDocUtils.getConfig().addRequestWrapperToIgnore(CallerContext.class);
+    }
+
     @Bean
     public OpenAPI customOpenAPI() {
         return new OpenAPI()
@@ -1,14 +1,39 @@
 package com.example.demo.config;
 
+import com.example.demo.security.CallerContextResolver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.core.convert.converter.Converter;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
-    
+
+    private final CallerContextResolver callerContextResolver;
+
+    // Export (StreamingResponseBody) chạy async -> nếu không set, Tomcat cắt sau 30s
+    @Value("${app.export.timeout-seconds:900}")
+    private long exportTimeoutSeconds;
+
+    // Cho phép controller nhận tham số CallerContext (người gọi API)
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(callerContextResolver);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(exportTimeoutSeconds * 1000);
+    }
+
     @Override
     public void addFormatters(FormatterRegistry registry) {
         registry.addConverter(new Converter<String, MultipartFile>() {
@@ -11,27 +11,48 @@ import com.example.demo.dto.Subjects.CreateSubjectDto;
 import com.example.demo.dto.Subjects.UpdateSubjectDto;
 import com.example.demo.dto.Search.SubjectDto;
 import com.example.demo.dto.User.UserDto;
+import com.example.demo.export.ExportFormat;
+import com.example.demo.export.ExportWriter;
 import com.example.demo.search.SearchService;
+import com.example.demo.repository.DtoProjections;
+import com.example.demo.repository.FieldProjection;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.security.CallerContext;
 import com.example.demo.service.AdminService;
-import com.example.demo.service.UserService;
+import com.example.demo.service.AuditLogStore;
+import com.example.demo.service.ClassLinkIndex;
+import com.example.demo.service.GradebookEngine;
+import com.example.demo.service.UserEmailIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
+@Slf4j
 public class AdminController {
 
     private final AdminService adminService;
+    private final ObjectMapper objectMapper;
     private final SearchService searchService;
-    private final UserService userService;
+    private final UserEmailIndex userEmailIndex;
+    private final ClassLinkIndex classLinkIndex;
+    private final AuditLogStore auditLogStore;
+    private final GradebookEngine gradebookEngine;
 
     @PostMapping("/create-users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -127,6 +148,44 @@ public class AdminController {
      * API: Xóa mềm môn học (Chuyển status -> 0)
      * URL: PATCH /api/admin/subjects/{codeSubject}/delete
      */
+    /**
+     * API: Danh sách lớp của môn học
+     * URL: GET /api/admin/subjects/SWP391/classes
+     */
+    @GetMapping("/subjects/{codeSubject}/classes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getClassesOfSubject(@PathVariable String codeSubject) {
+        try {
+            List<ClassDto> classes = adminService.getClassesOfSubject(codeSubject);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("data", classes);
+            response.put("count", classes.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * API: Danh sách lớp mở trong kỳ học
+     * URL: GET /api/admin/semesters/FALL2025/classes
+     */
+    @GetMapping("/semesters/{semester}/classes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getClassesOfSemester(@PathVariable String semester) {
+        try {
+            List<ClassDto> classes = adminService.getClassesOfSemester(semester);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("data", classes);
+            response.put("count", classes.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
     @PatchMapping("/subjects/{codeSubject}/delete")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> deleteSubject(@PathVariable String codeSubject) {
@@ -159,10 +218,17 @@ public class AdminController {
     @GetMapping("/users")
     public ResponseEntity<?> getUsers(
             @RequestParam(value = "role_id", required = false) Integer roleId,
-            @RequestParam(value = "keyword", required = false) String keyword
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
-        // 1. Gọi Service đã viết sẵn logic Query/Scan
-        List<UserDto> users = adminService.searchUsers(roleId, keyword);
+        // 1. Gọi Service đã viết sẵn logic Query/Scan (1 trang)
+        PageResult<UserDto> users;
+        try {
+            users = adminService.searchUsers(roleId, keyword, PageRequest.of(limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
 
         // 2. Tạo response có cấu trúc (Status + Data)
         Map<String, Object> response = new LinkedHashMap<>();
@@ -174,7 +240,8 @@ public class AdminController {
         response.put("message", "Get users successfully");
 
         // Đưa danh sách user vào key "data" (trước đây bạn để là "results", mình đổi thành "data" cho đồng bộ, bạn có thể sửa lại nếu thích)
-        response.put("data", users);
+        response.put("data", users.getItems());
+        response.put("next_cursor", users.getNextCursor()); // null = hết dữ liệu
 
         return ResponseEntity.ok(response);
     }
@@ -185,32 +252,38 @@ public class AdminController {
             @RequestParam(name = "subject_id", required = false) String subjectId,
             @RequestParam(name = "teacher_id", required = false) String teacherId,
             @RequestParam(name = "keyword", required = false) String keyword,
-            @RequestParam(name = "status", required = false) Integer status
+            @RequestParam(name = "status", required = false) Integer status,
+            @RequestParam(name = "fields", required = false) String fields, // VD: id,name,status
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        // Gọi Service
-        List<ClassDto> classes = adminService.searchClasses(subjectId, teacherId, keyword, status);
-
-        // Trả về JSON chuẩn: { "results": [...] }
-        return ResponseEntity.ok(Collections.singletonMap("results", classes));
+        try {
+            FieldProjection.Selection<ClassDto> selection = DtoProjections.CLASS.select(fields);
+            // Gọi Service
+            PageResult<ClassDto> classes = adminService.searchClasses(subjectId, teacherId, keyword, status,
+                    PageRequest.of(limit, cursor));
+
+            // Trả về JSON chuẩn: { "results": [...], "next_cursor": ... }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("results", selection.shape(classes.getItems()));
+            response.put("next_cursor", classes.getNextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
     }
 
     @PostMapping("/notifications")
     public ResponseEntity<?> sendNotification(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = true) String idToken, // Dùng cái này để lấy info Admin
+            CallerContext caller, // Info Admin lấy từ user-idToken
             @RequestBody SendNotificationDto request
     ) {
         try {
-            // 1. Lấy Email Admin từ Token (Dùng lại hàm helper getEmailFromIdToken)
-            String email = getEmailFromIdToken(idToken);
-            if (email == null) return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Token không hợp lệ"));
-
-            // 2. Lấy Profile Admin để lấy tên hiển thị hoặc CodeUser
-            UserDto adminProfile = userService.getMyProfile(email);
-
+            // 1-2. Lấy tên hiển thị của Admin
             // Bạn có thể chọn lưu CodeUser (ADMIN01) hoặc Tên (Admin System) tùy ý
-            String senderName = (adminProfile != null && adminProfile.getName() != null)
-                    ? adminProfile.getName()
+            String senderName = caller.getName() != null
+                    ? caller.getName()
                     : "System Admin";
 
             // 3. Gọi Service
@@ -222,7 +295,6 @@ public class AdminController {
         }
     }
 
-    // (Nhớ copy hàm private getEmailFromIdToken xuống dưới cùng nếu chưa có)
     // Tạo môn học
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/subjects")
@@ -280,18 +352,119 @@ public class AdminController {
     // 5. AUDIT LOGS (XEM LỊCH SỬ HOẠT ĐỘNG)
     // ========================================================================
     // GET /api/admin/audit-logs
-    // Params: user_id, class_id, timestamp (YYYY-MM-DD)
+    // Params: user_id, class_id, timestamp (YYYY-MM-DD hoặc YYYY-MM) hoặc from/to (YYYY-MM-DD, tính cả 2 đầu)
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/audit-logs")
     public ResponseEntity<?> getAuditLogs(
             @RequestParam(name = "user_id", required = false) String userId,
             @RequestParam(name = "class_id", required = false) String classId,
-            @RequestParam(name = "timestamp", required = false) String timestamp
+            @RequestParam(name = "timestamp", required = false) String timestamp,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        try {
+            PageResult<LogDto> logs = adminService.getAuditLogs(userId, classId, timestamp, from, to,
+                    DtoProjections.LOG.all(), PageRequest.of(limit, cursor));
+
+            // Trả về: { "results": [ ...danh sách log... ], "next_cursor": ... }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("results", logs.getItems());
+            response.put("next_cursor", logs.getNextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    // ========================================================================
+    // 5b. EXPORT (STREAMING NDJSON / CSV)
+    // ========================================================================
+    // GET /api/admin/export/{users|classes|audit-logs}
+    // Params: cùng bộ lọc với API danh sách + format=ndjson|csv, gzip=true|false, fields=...
+    // Ghi từng trang DynamoDB ra response ngay khi đọc xong -> heap không phụ thuộc số bản ghi.
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export/users")
+    public ResponseEntity<?> exportUsers(
+            @RequestParam(value = "role_id", required = false) Integer roleId,
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        try {
+            FieldProjection.Selection<UserDto> selection = DtoProjections.USER.select(fields);
+            return export("users", ExportFormat.from(format), gzip, selection,
+                    page -> adminService.searchUsers(roleId, keyword, page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export/classes")
+    public ResponseEntity<?> exportClasses(
+            @RequestParam(name = "subject_id", required = false) String subjectId,
+            @RequestParam(name = "teacher_id", required = false) String teacherId,
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "status", required = false) Integer status,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        try {
+            FieldProjection.Selection<ClassDto> selection = DtoProjections.CLASS.select(fields);
+            return export("classes", ExportFormat.from(format), gzip, selection,
+                    page -> adminService.searchClasses(subjectId, teacherId, keyword, status, page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export/audit-logs")
+    public ResponseEntity<?> exportAuditLogs(
+            @RequestParam(name = "user_id", required = false) String userId,
+            @RequestParam(name = "class_id", required = false) String classId,
+            @RequestParam(name = "timestamp", required = false) String timestamp,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip
     ) {
-        List<LogDto> logs = adminService.getAuditLogs(userId, classId, timestamp);
+        try {
+            FieldProjection.Selection<LogDto> selection = DtoProjections.LOG.select(fields);
+            return export("audit-logs", ExportFormat.from(format), gzip, selection,
+                    page -> adminService.getAuditLogs(userId, classId, timestamp, from, to, selection, page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
 
-        // Trả về: { "results": [ ...danh sách log... ] }
-        return ResponseEntity.ok(Collections.singletonMap("results", logs));
+    private <D> ResponseEntity<StreamingResponseBody> export(String name, ExportFormat format, boolean gzip,
+                                                             FieldProjection.Selection<D> selection,
+                                                             Function<PageRequest, PageResult<D>> fetch) {
+        String fileName = name + "-" + LocalDate.now() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            long start = System.currentTimeMillis();
+            ExportWriter<D> writer = new ExportWriter<>(out, format, selection, objectMapper, gzip);
+            try {
+                PageResult.forEachPage(PageRequest.MAX_LIMIT, fetch, writer::writePage);
+                writer.finish();
+            } catch (RuntimeException e) {
+                // Header đã gửi -> không đổi được status, chỉ log và cắt kết nối (file sẽ bị thiếu)
+                log.error("Export {} lỗi sau {} dòng: {}", name, writer.getRows(), e.getMessage());
+                throw e;
+            }
+            log.info("Export {}: {} dòng trong {} ms", name, writer.getRows(), System.currentTimeMillis() - start);
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType() + ";charset=UTF-8"))
+                .body(body);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -330,31 +503,67 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
-    private String getEmailFromIdToken(String idToken) {
+    // Ghi con trỏ EMAIL#... cho các user tạo trước khi có email index
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/maintenance/email-index/backfill")
+    public ResponseEntity<?> backfillEmailIndex() {
         try {
-            // 1. Kiểm tra null hoặc rỗng
-            if (idToken == null || idToken.isEmpty()) return null;
-
-            // 2. JWT có 3 phần: Header.Payload.Signature
-            // Chúng ta chỉ cần phần Payload (vị trí số 1) để lấy dữ liệu
-            String[] chunks = idToken.split("\\.");
-            if (chunks.length < 2) return null;
-
-            // 3. Decode Base64Url
-            Base64.Decoder decoder = Base64.getUrlDecoder();
-            String payload = new String(decoder.decode(chunks[1]));
+            int written = userEmailIndex.backfill();
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("message", "Backfill email index thành công");
+            response.put("written", written);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", "Lỗi hệ thống: " + e.getMessage()));
+        }
+    }
 
-            // 4. Parse JSON thành Map để lấy key "email"
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> claims = mapper.readValue(payload, Map.class);
+    // Ghi item liên kết TEACHER#/SUBJECT#/SEMESTER# -> lớp cho các lớp tạo trước khi có ClassLinkIndex
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/maintenance/class-links/backfill")
+    public ResponseEntity<?> backfillClassLinks() {
+        try {
+            int written = classLinkIndex.backfill();
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("message", "Backfill liên kết lớp thành công");
+            response.put("written", written);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", "Lỗi hệ thống: " + e.getMessage()));
+        }
+    }
 
-            return (String) claims.get("email");
+    // Chuyển log kiểu cũ LOG#<uuid>/INFO sang bucket ngày + item kề ACTOR#/CLASS# (AuditLogStore)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/maintenance/audit-logs/backfill")
+    public ResponseEntity<?> backfillAuditLogs() {
+        try {
+            int migrated = auditLogStore.backfill();
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("message", "Backfill audit log thành công");
+            response.put("migrated", migrated);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", "Lỗi hệ thống: " + e.getMessage()));
+        }
+    }
 
+    // Tính lại tổng có trọng số + item CLASS#<id>/LEADERBOARD từ bài nộp đã chấm (lớp có điểm trước khi có bảng xếp hạng)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/maintenance/leaderboards/backfill")
+    public ResponseEntity<?> backfillLeaderboards() {
+        try {
+            int classes = gradebookEngine.backfill();
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("message", "Backfill bảng xếp hạng thành công");
+            response.put("classes", classes);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            e.printStackTrace(); // In lỗi ra console nếu token bị sai format
-            return null;
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", "Lỗi hệ thống: " + e.getMessage()));
         }
     }
 }
-
-
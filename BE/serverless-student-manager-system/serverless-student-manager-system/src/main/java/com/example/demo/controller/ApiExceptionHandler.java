@@ -0,0 +1,18 @@
+package com.example.demo.controller;
+
+import com.example.demo.security.CallerResolutionException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Collections;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Lỗi resolve CallerContext xảy ra trước khi vào controller -> trả cùng format { "error": ... }
+    @ExceptionHandler(CallerResolutionException.class)
+    public ResponseEntity<?> handleCallerResolution(CallerResolutionException e) {
+        return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+    }
+}
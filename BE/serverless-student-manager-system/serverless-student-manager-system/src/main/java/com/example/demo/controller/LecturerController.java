@@ -3,15 +3,22 @@ package com.example.demo.controller;
 import com.example.demo.dto.Class.ClassDto;
 import com.example.demo.dto.Class.CreateClassRequest;
 import com.example.demo.dto.Class.UpdateClassDto;
+import com.example.demo.dto.Grade.BulkGradeRequest;
+import com.example.demo.dto.Grade.BulkGradeResultDto;
 import com.example.demo.dto.Grade.GradeSubmissionDto;
 import com.example.demo.dto.Lecturer.*;
 import com.example.demo.dto.Notification.CreateNotificationRequest;
 import com.example.demo.dto.Post.CreateCommentRequest;
 import com.example.demo.dto.Post.CreatePostRequest;
-import com.example.demo.dto.User.UserDto;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.export.GradebookJsonWriter;
+import com.example.demo.repository.DtoProjections;
+import com.example.demo.repository.FieldProjection;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.security.CallerContext;
 import com.example.demo.service.LecturerService;
-import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -19,10 +26,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.MediaType;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.*;
 
 @RestController
@@ -33,7 +40,7 @@ import java.util.*;
 public class LecturerController {
 
     private final LecturerService lecturerService;
-    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     // ========================================================================
     // 1. QUẢN LÝ LỚP HỌC
@@ -46,24 +53,15 @@ public class LecturerController {
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false) String semester,
-            Authentication authentication
+            CallerContext caller
     ) {
         try {
-            String email = null;
-            if (authentication.getPrincipal() instanceof Jwt jwt) {
-                email = jwt.getClaimAsString("email");
-            }
-            if (email == null) {
+            if (caller.getCodeUser() == null) {
                 return ResponseEntity.badRequest()
-                        .body(Collections.singletonMap("error", "Token không chứa email. Vui lòng sử dụng ID Token."));
-            }
-            UserDto lecturer = userService.getMyProfile(email);
-            if (lecturer == null || lecturer.getCodeUser() == null) {
-                return ResponseEntity.badRequest()
-                        .body(Collections.singletonMap("error", "Không tìm thấy Code giảng viên (GV...) cho email: " + email));
+                        .body(Collections.singletonMap("error", "Không tìm thấy Code giảng viên (GV...) cho email: " + caller.getEmail()));
             }
             List<ClassDto> classes = lecturerService.getClassesForLecturer(
-                    lecturer.getCodeUser(),
+                    caller.getCodeUser(),
                     keyword, status, semester
             );
 
@@ -183,6 +181,38 @@ public class LecturerController {
         }
     }
 
+    /**
+     * Bảng điểm cả lớp: sinh viên × bài tập (điểm, trạng thái nộp, nộp muộn) trong 1 response JSON dạng cột
+     * GET /api/lecturer/classes/{id}/gradebook
+     */
+    @GetMapping("/classes/{id}/gradebook")
+    @Operation(summary = "Class Gradebook", description = "Bảng điểm cả lớp (sinh viên × bài tập) dạng cột")
+    public ResponseEntity<?> getGradebook(
+            @PathVariable("id") String classId,
+            CallerContext caller
+    ) {
+        try {
+            if (caller.getCodeUser() == null) {
+                return ResponseEntity.badRequest()
+                        .body(Collections.singletonMap("error", "Không tìm thấy Code giảng viên (GV...) cho email: " + caller.getEmail()));
+            }
+            // Dựng xong trước khi stream: lỗi quyền / lớp không tồn tại vẫn trả đúng status
+            GradebookGrid grid = lecturerService.getGradebookGrid(classId, caller.getCodeUser());
+            StreamingResponseBody body = out -> GradebookJsonWriter.write(grid, out, objectMapper);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
     // ========================================================================
     // 3. QUẢN LÝ BÀI TẬP
     // ========================================================================
@@ -217,16 +247,20 @@ public class LecturerController {
      */
     @GetMapping("/classes/{class_id}/assignments")
     @Operation(summary = "List Assignments", description = "Lấy danh sách bài tập của lớp")
-    public ResponseEntity<?> getAssignments(@PathVariable("class_id") String classId) {
+    public ResponseEntity<?> getAssignments(@PathVariable("class_id") String classId,
+                                            @RequestParam(name = "fields", required = false) String fields) {
         try {
-            List<AssignmentDto> assignments = lecturerService.getAssignmentsByClass(classId);
+            FieldProjection.Selection<AssignmentDto> selection = DtoProjections.ASSIGNMENT.select(fields);
+            List<AssignmentDto> assignments = lecturerService.getAssignmentsByClass(classId, selection);
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", HttpStatus.OK.value());
             response.put("message", "Lấy danh sách bài tập thành công");
-            response.put("data", assignments);
+            response.put("data", selection.shape(assignments));
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Collections.singletonMap("error", e.getMessage()));
@@ -309,7 +343,7 @@ public class LecturerController {
     public ResponseEntity<?> updateGrades(
             @PathVariable("assignment_id") String pathAssignmentId,
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = true) String idToken,
+            CallerContext caller,
             @RequestParam("classId") String classId,
             @RequestBody GradeSubmissionDto gradeDto
     ) {
@@ -317,22 +351,17 @@ public class LecturerController {
             if (gradeDto.getAssignmentId() == null || !gradeDto.getAssignmentId().equals(pathAssignmentId)) {
                 return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Assignment ID không khớp"));
             }
-            String email = getEmailFromIdToken(idToken);
-            if (email == null) {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Token user-idToken không hợp lệ"));
-            }
 
-            // 3. Lấy Profile GV từ Email
-            UserDto lecturer = userService.getMyProfile(email);
-            if (lecturer == null || lecturer.getCodeUser() == null) {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Không tìm thấy GV với email: " + email));
+            // 3. Profile GV đã được resolve từ token
+            if (caller.getCodeUser() == null) {
+                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Không tìm thấy GV với email: " + caller.getEmail()));
             }
 
             // 4. GỌI SERVICE CHẤM ĐIỂM
             lecturerService.processGradeUpdate(
                     classId,
                     pathAssignmentId,
-                    lecturer.getCodeUser(), // Mã GV (GV...)
+                    caller.getCodeUser(), // Mã GV (GV...)
                     gradeDto
             );
 
@@ -346,6 +375,34 @@ public class LecturerController {
         }
     }
 
+    // Chấm điểm hàng loạt (cả lớp trong 1 lần gọi)
+    @PutMapping("/assignments/{assignment_id}/bulk-grades")
+    @Operation(summary = "Bulk Grade Submissions",
+            description = "GV chấm điểm nhiều SV của 1 bài tập, trả kết quả từng dòng (tối đa 1000 dòng)")
+    public ResponseEntity<?> bulkUpdateGrades(
+            @PathVariable("assignment_id") String pathAssignmentId,
+            CallerContext caller,
+            @RequestParam("classId") String classId,
+            @RequestBody BulkGradeRequest request
+    ) {
+        try {
+            if (caller.getCodeUser() == null) {
+                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Không tìm thấy GV với email: " + caller.getEmail()));
+            }
+            BulkGradeResultDto result = lecturerService.bulkGradeSubmissions(
+                    classId, pathAssignmentId, caller.getCodeUser(), request.getGrades());
+            return ResponseEntity.ok(result);
+
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Collections.singletonMap("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
     // ========================================================================
     // 5. QUẢN LÝ BÀI VIẾT & BÌNH LUẬN
     // ========================================================================
@@ -359,29 +416,19 @@ public class LecturerController {
     public ResponseEntity<?> createPost(
             @PathVariable("class_id") String classId,
             @RequestBody CreatePostRequest request, // <--- Dùng @RequestBody
-            Authentication authentication
+            CallerContext caller
     ) {
         try {
-            // 1. Lấy Email từ Token
-            String email = null;
-            if (authentication.getPrincipal() instanceof Jwt jwt) {
-                email = jwt.getClaimAsString("email");
-            }
-            if (email == null) {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Token không hợp lệ (thiếu email)"));
-            }
-
-            // 2. Lấy thông tin giảng viên (UserCode)
-            UserDto lecturer = userService.getMyProfile(email);
-            if (lecturer == null || lecturer.getCodeUser() == null) {
+            // 1. Thông tin giảng viên (UserCode) lấy từ token
+            if (caller.getCodeUser() == null) {
                 return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Không tìm thấy thông tin giảng viên"));
             }
 
-            // 3. Gán classId vào request cho chắc chắn
+            // 2. Gán classId vào request cho chắc chắn
             request.setClassId(classId);
 
-            // 4. Gọi Service
-            lecturerService.createClassPost(classId, lecturer.getCodeUser(), request);
+            // 3. Gọi Service
+            lecturerService.createClassPost(classId, caller.getCodeUser(), request);
 
             return ResponseEntity.ok(Collections.singletonMap("message", "Đăng bài thành công"));
         } catch (Exception e) {
@@ -422,17 +469,11 @@ public class LecturerController {
     public ResponseEntity<?> createComment(
             @PathVariable("post_id") String postId,
             @RequestBody CreateCommentRequest request, // <--- Dùng @RequestBody
-            Authentication authentication
+            CallerContext caller
     ) {
         try {
-            String email = null;
-            if (authentication.getPrincipal() instanceof Jwt jwt) {
-                email = jwt.getClaimAsString("email");
-            }
-            UserDto user = userService.getMyProfile(email);
-            if (user == null) return ResponseEntity.badRequest().body(Collections.singletonMap("error", "User not found"));
             request.setPostId(postId);
-            lecturerService.createComment(postId, user.getCodeUser(), request);
+            lecturerService.createComment(postId, caller.getCodeUser(), request);
             return ResponseEntity.ok(Collections.singletonMap("message", "Bình luận thành công"));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -530,30 +571,16 @@ public class LecturerController {
     @Operation(summary = "Send Class Notification", description = "Gửi thông báo đến toàn bộ sinh viên (App + Email)")
     public ResponseEntity<?> sendNotification(
             @RequestBody CreateNotificationRequest request,
-            Authentication authentication
+            CallerContext caller
     ) {
         try {
-            String email = null;
-
-            // 1. Lấy Email từ ID Token
-            if (authentication.getPrincipal() instanceof Jwt jwt) {
-                email = jwt.getClaimAsString("email");
-            }
-
-            if (email == null) {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Token không hợp lệ (thiếu email)"));
-            }
-
-            // 2. Tìm thông tin Giảng viên từ Email (Để lấy teacherCode chuẩn: GV...)
-            UserDto lecturer = userService.getMyProfile(email);
-
-            if (lecturer == null || lecturer.getCodeUser() == null) {
+            // 1. Thông tin Giảng viên (teacherCode chuẩn: GV...) lấy từ token
+            if (caller.getCodeUser() == null) {
                 return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Không tìm thấy thông tin giảng viên"));
             }
 
-            // 3. Gọi Service với teacherCode chuẩn
-            // Sửa: Truyền lecturer.getCodeUser() thay vì gọi getTeacherCodeFromUuid(userUuid)
-            lecturerService.sendClassNotification(lecturer.getCodeUser(), request);
+            // 2. Gọi Service với teacherCode chuẩn
+            lecturerService.sendClassNotification(caller.getCodeUser(), request);
 
             return ResponseEntity.ok(Collections.singletonMap("message", "Sent successfully"));
 
@@ -572,63 +599,40 @@ public class LecturerController {
     @Operation(summary = "Get All Submissions", description = "GV lấy danh sách bài nộp (Lấy Email từ header user-idToken)")
     public ResponseEntity<?> getSubmissionsForAssignment(
             @RequestHeader("Authorization") String authHeader, // Spring Security cần cái này để cho qua cửa
-            @RequestHeader(value = "user-idToken", required = true) String idToken, // <--- LẤY TOKEN TỪ ĐÂY
+            CallerContext caller, // <--- Resolve từ header user-idToken
             @RequestParam("classId") String classId,
-            @RequestParam("assignmentId") String assignmentId
+            @RequestParam("assignmentId") String assignmentId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
         try {
-            String email = getEmailFromIdToken(idToken);
-
-            if (email == null) {
-                return ResponseEntity.badRequest()
-                        .body(Collections.singletonMap("error", "Token ở header user-idToken không hợp lệ hoặc thiếu email."));
-            }
-            UserDto lecturer = userService.getMyProfile(email);
-            if (lecturer == null || lecturer.getCodeUser() == null) {
+            if (caller.getCodeUser() == null) {
                 return ResponseEntity.badRequest()
-                        .body(Collections.singletonMap("error", "Không tìm thấy Code giảng viên (GV...) cho email: " + email));
+                        .body(Collections.singletonMap("error", "Không tìm thấy Code giảng viên (GV...) cho email: " + caller.getEmail()));
             }
-            List<AssignmentSubmissionResponse> submissions = lecturerService.getSubmissions(
-                    lecturer.getCodeUser(),
+            PageResult<AssignmentSubmissionResponse> submissions = lecturerService.getSubmissions(
+                    caller.getCodeUser(),
                     classId,
-                    assignmentId
+                    assignmentId,
+                    PageRequest.of(limit, cursor)
             );
 
             // 4. TRẢ VỀ KẾT QUẢ (Format chuẩn)
             Map<String, Object> response = new HashMap<>();
             response.put("status", HttpStatus.OK.value());
             response.put("message", "Lấy danh sách bài nộp thành công");
-            response.put("data", submissions);
-            response.put("count", submissions.size());
+            response.put("data", submissions.getItems());
+            response.put("count", submissions.getItems().size()); // Số bài nộp trong trang này
+            response.put("next_cursor", submissions.getNextCursor());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError()
                     .body(Collections.singletonMap("error", e.getMessage()));
         }
     }
-    // =========================================================================
-// HÀM GIẢI MÃ NHANH (Copy cái này để xuống dưới cùng Controller)
-// Vì mình không dùng Authentication của Spring nên phải tự decode chuỗi String này
-// =========================================================================
-    private String getEmailFromIdToken(String token) {
-        try {
-            String[] parts = token.split("\\.");
-            if (parts.length < 2) return null;
-
-            java.util.Base64.Decoder decoder = java.util.Base64.getUrlDecoder();
-            String payload = new String(decoder.decode(parts[1]));
-
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            java.util.Map<String, Object> claims = mapper.readValue(payload, java.util.Map.class);
-
-            return (String) claims.get("email");
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-
 }
@@ -0,0 +1,39 @@
+package com.example.demo.controller;
+
+import com.example.demo.metrics.MetricsSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final List<MetricsSource> sources;
+
+    // GET /api/admin/metrics -> số liệu cache, hàng đợi... của node hiện tại
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public ResponseEntity<?> getMetrics() {
+        Map<String, Object> data = new TreeMap<>();
+        for (MetricsSource source : sources) {
+            data.put(source.metricsName(), source.metricsSnapshot());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", HttpStatus.OK.value());
+        response.put("message", "Get metrics successfully");
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+}
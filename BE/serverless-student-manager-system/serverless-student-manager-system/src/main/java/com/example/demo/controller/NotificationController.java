@@ -1,10 +1,9 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.Class.NotificationDto;
-import com.example.demo.dto.User.UserDto;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.security.CallerContext;
 import com.example.demo.service.SchoolService;
-import com.example.demo.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,29 +22,16 @@ import java.util.stream.Collectors;
 public class NotificationController {
 
     private final SchoolService schoolService;
-    private final UserService userService;
     private final CognitoIdentityProviderClient cognitoClient;
 
     @GetMapping
     public ResponseEntity<?> getMyNotifications(
             @RequestHeader("Authorization") String authHeader, // Spring Security check quyền
-            @RequestHeader(value = "user-idToken", required = true) String idToken // <--- Lấy Email nhanh từ đây
+            CallerContext caller // <--- Resolve từ header user-idToken (có cache)
     ) {
         try {
-            // 1. Giải mã Email từ ID Token (Nhanh, không cần gọi AWS)
-            String email = getEmailFromIdToken(idToken);
-            if (email == null) {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Token không hợp lệ"));
-            }
-
-            // 2. Lấy Profile (để lấy ID thật: SE123/GV456)
-            UserDto myProfile = userService.getMyProfile(email);
-            if (myProfile == null) {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "User not found"));
-            }
-
-            // Lấy ID: ví dụ SE1701
-            String myId = myProfile.getId();
+            // 1-2. Lấy ID thật (SE123/GV456) của người gọi
+            String myId = caller.getId();
 
             // 3. Gọi Service
             List<SchoolItem> notiItems = schoolService.getNotifications(myId);
@@ -70,19 +56,4 @@ public class NotificationController {
             return ResponseEntity.internalServerError().body(Collections.singletonMap("error", e.getMessage()));
         }
     }
-
-    // Hàm Helper giải mã token (Copy để dưới cùng Controller)
-    private String getEmailFromIdToken(String token) {
-        try {
-            String[] parts = token.split("\\.");
-            if (parts.length < 2) return null;
-            java.util.Base64.Decoder decoder = java.util.Base64.getUrlDecoder();
-            String payload = new String(decoder.decode(parts[1]));
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            java.util.Map<String, Object> claims = mapper.readValue(payload, java.util.Map.class);
-            return (String) claims.get("email");
-        } catch (Exception e) {
-            return null;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -8,11 +8,12 @@ import com.example.demo.dto.Post.PostDto;
 import com.example.demo.dto.Post.ReactionRequest;
 import com.example.demo.dto.Search.SearchResultDto;
 import com.example.demo.dto.Student.*;
-import com.example.demo.dto.User.UserDto;
+import com.example.demo.repository.DtoProjections;
+import com.example.demo.repository.FieldProjection;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.security.CallerContext;
 import com.example.demo.service.StudentService;
-import com.example.demo.service.UserService; // <--- Cần thêm Service này
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper; // <--- Cần thêm để decode JSON
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -29,50 +30,6 @@ import java.util.*;
 public class StudentController {
 
     private final StudentService studentService;
-    private final UserService userService;       // Inject UserService để tìm thông tin user
-    private final ObjectMapper objectMapper;     // Inject ObjectMapper để decode Token
-
-    // ========================================================================
-    // 🛠️ PRIVATE HELPER: LẤY STUDENT ID THẬT (SE...) TỪ ID TOKEN
-    // ========================================================================
-    private String getStudentIdFromToken(String idToken) {
-        if (idToken == null || idToken.isEmpty()) {
-            throw new IllegalArgumentException("Vui lòng gửi kèm header 'user-idToken' để xác thực.");
-        }
-
-        try {
-            // 1. Clean token (Bỏ chữ Bearer nếu FE lỡ gửi thừa)
-            String cleanToken = idToken.replace("Bearer ", "");
-
-            // 2. Decode Payload (Phần ở giữa dấu chấm của JWT)
-            String[] parts = cleanToken.split("\\.");
-            if (parts.length < 2) throw new IllegalArgumentException("Token không hợp lệ");
-
-            String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]));
-            JsonNode node = objectMapper.readTree(payloadJson);
-
-            // 3. Lấy Email
-            if (!node.has("email")) {
-                throw new IllegalArgumentException("Token không chứa email");
-            }
-            String email = node.get("email").asText();
-
-            // 4. Tìm User trong DB bằng Email -> Lấy CodeUser (SE123...)
-            UserDto student = userService.getMyProfile(email);
-
-            if (student == null || student.getCodeUser() == null) {
-                throw new IllegalArgumentException("Không tìm thấy thông tin sinh viên cho email: " + email);
-            }
-
-            return student.getCodeUser(); // Trả về ID thật trong DB (VD: SE170123)
-
-        } catch (IllegalArgumentException e) {
-            throw e;
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new IllegalArgumentException("Lỗi xác thực ID Token: " + e.getMessage());
-        }
-    }
 
     // ========================================================================
     // 🚀 CÁC API STUDENT (ĐÃ CẬP NHẬT HEADER)
@@ -81,11 +38,11 @@ public class StudentController {
     @GetMapping("/classes/enrolled")
     public ResponseEntity<?> getEnrolledClasses(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken, // <--- Header mới
+            CallerContext caller,
             @RequestParam(value = "class_id", required = false) String classId
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken); // <--- Logic mới
+            String studentId = caller.requireCodeUser();
             return ResponseEntity.ok(Collections.singletonMap("results", studentService.getEnrolledClasses(studentId, classId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
@@ -95,11 +52,11 @@ public class StudentController {
     @PostMapping("/enroll")
     public ResponseEntity<?> enrollOrUnenroll(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @RequestBody EnrollRequest request
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
             studentService.handleEnrollAction(studentId, request);
             String message = "enroll".equalsIgnoreCase(request.getAction()) ? "Enrolled Successfully" : "Unenrolled Successfully";
             return ResponseEntity.ok(Collections.singletonMap("message", message));
@@ -113,10 +70,11 @@ public class StudentController {
     @PostMapping("/submit")
     public ResponseEntity<?> submitAssignment(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
+            CallerContext caller,
             @RequestBody SubmitAssignmentRequest request
     ) {
         try {
-            String studentId = getStudentIdFromToken(authHeader);
+            String studentId = caller.requireCodeUser();
             studentService.submitAssignment(studentId, request);
             return ResponseEntity.ok(Collections.singletonMap("message", "Submitted Successfully"));
         } catch (IllegalArgumentException e) {
@@ -129,14 +87,22 @@ public class StudentController {
     @GetMapping("/notifications")
     public ResponseEntity<?> getNotifications(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @RequestParam(value = "type", required = false) String type,
-            @RequestParam(value = "class_id", required = false) String classId
+            @RequestParam(value = "class_id", required = false) String classId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
-            List<NotificationDto> notifications = studentService.getNotifications(studentId, type, classId);
-            return ResponseEntity.ok(Collections.singletonMap("results", notifications));
+            String studentId = caller.requireCodeUser();
+            PageResult<NotificationDto> notifications = studentService.getNotifications(studentId, type, classId,
+                    PageRequest.of(limit, cursor));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("results", notifications.getItems());
+            response.put("next_cursor", notifications.getNextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Collections.singletonMap("error", e.getMessage()));
         }
@@ -145,11 +111,11 @@ public class StudentController {
     @GetMapping("/ranking/{class_id}")
     public ResponseEntity<?> getRanking(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @PathVariable("class_id") String classId
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
             RankingDto dto = studentService.getRanking(classId, studentId);
             return ResponseEntity.ok(dto);
         } catch (IllegalArgumentException e) {
@@ -159,6 +125,25 @@ public class StudentController {
         }
     }
 
+    // Hạng của tôi + top đầu lớp + các bạn xếp ngay trên / dưới
+    @GetMapping("/ranking/{class_id}/leaderboard")
+    public ResponseEntity<?> getLeaderboard(
+            @RequestHeader("Authorization") String authHeader,
+            CallerContext caller,
+            @PathVariable("class_id") String classId,
+            @RequestParam(value = "top", defaultValue = "10") int top,
+            @RequestParam(value = "around", defaultValue = "2") int around
+    ) {
+        try {
+            String studentId = caller.requireCodeUser();
+            return ResponseEntity.ok(studentService.getLeaderboard(classId, studentId, top, around));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/search")
     public ResponseEntity<?> search(
             @RequestParam("type") String type,
@@ -183,12 +168,12 @@ public class StudentController {
     @PostMapping(value = "/classes/{class_id}/posts") // Bỏ consumes multipart
     public ResponseEntity<?> createPost(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @PathVariable("class_id") String classId,
             @RequestBody CreatePostRequest request // <-- Dùng @RequestBody
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
 
             // Gán classId từ URL vào DTO để đảm bảo tính nhất quán
             request.setClassId(classId);
@@ -207,12 +192,12 @@ public class StudentController {
     @PostMapping(value = "/posts/{post_id}/comments") // Bỏ consumes Multipart
     public ResponseEntity<?> createComment(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @PathVariable("post_id") String postId,
             @RequestBody CreateCommentRequest request // <-- Dùng @RequestBody
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
 
             // Gán postId vào DTO cho chắc chắn
             request.setPostId(postId);
@@ -229,25 +214,36 @@ public class StudentController {
     @GetMapping("/classes/{class_id}/posts")
     public ResponseEntity<?> listPostsOrComments(
             @PathVariable("class_id") String classId,
-            @RequestParam(value = "post_id", required = false) String postId
+            @RequestParam(value = "post_id", required = false) String postId,
+            @RequestParam(value = "fields", required = false) String fields, // Chỉ áp dụng cho danh sách post
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
         // API này public hoặc không cần user id cụ thể để xem list
         if (postId != null) {
             List<CommentDto> comments = studentService.listComments(postId);
             return ResponseEntity.ok(Collections.singletonMap("results", comments));
         }
-        List<PostDto> posts = studentService.listPosts(classId);
-        return ResponseEntity.ok(Collections.singletonMap("results", posts));
+        try {
+            FieldProjection.Selection<PostDto> selection = DtoProjections.POST.select(fields);
+            PageResult<PostDto> posts = studentService.listPosts(classId, selection, PageRequest.of(limit, cursor));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("results", selection.shape(posts.getItems()));
+            response.put("next_cursor", posts.getNextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/posts/{id}")
     public ResponseEntity<?> deletePost(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @PathVariable("id") String postId
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
             studentService.deletePost(studentId, "STUDENT", postId);
             return ResponseEntity.ok(Collections.singletonMap("message", "Deleted"));
         } catch (IllegalArgumentException e) {
@@ -260,11 +256,11 @@ public class StudentController {
     @DeleteMapping("/comments/{id}")
     public ResponseEntity<?> deleteComment(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @PathVariable("id") String commentId
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
             studentService.deleteComment(studentId, "STUDENT", commentId);
             return ResponseEntity.ok(Collections.singletonMap("message", "Deleted"));
         } catch (IllegalArgumentException e) {
@@ -277,7 +273,7 @@ public class StudentController {
     @PutMapping("/reactions/{id}")
     public ResponseEntity<?> updateReaction(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @PathVariable("id") String entityId,
             @RequestBody ReactionRequest request
     ) {
@@ -285,7 +281,7 @@ public class StudentController {
             return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Chỉ hỗ trợ reactions cho post/comment."));
         }
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
             if (request.getEntityId() == null) {
                 request.setEntityId(entityId);
             }
@@ -305,11 +301,11 @@ public class StudentController {
     @Operation(summary = "Get All Assignments", description = "Lấy danh sách bài tập của một lớp (Chỉ lấy bài đã Publish)")
     public ResponseEntity<?> getAssignments(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @RequestParam("classId") String classId
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
             List<StudentAssignmentResponse> assignments = studentService.getStudentAssignments(studentId, classId);
             return ResponseEntity.ok(Collections.singletonMap("data", assignments));
         } catch (SecurityException e) {
@@ -323,12 +319,12 @@ public class StudentController {
     @Operation(summary = "Get Personal Submission", description = "HS lấy chi tiết bài nộp của bản thân")
     public ResponseEntity<?> getPersonalSubmission(
             @RequestHeader("Authorization") String authHeader,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @RequestParam("assignmentId") String assignmentId
     ) {
         try {
-            // Thay vì truyền authHeader, bây giờ chúng ta lấy ID thật từ Token
-            String studentId = getStudentIdFromToken(idToken);
+            // ID thật (SE...) của SV do CallerContextResolver lấy từ token
+            String studentId = caller.requireCodeUser();
 
             // LƯU Ý: Bạn cần update hàm getPersonalSubmission trong Service để nhận studentId (String)
             // thay vì nhận authHeader.
@@ -343,11 +339,11 @@ public class StudentController {
     @PutMapping("/assignments/{assignmentId}/submit")
     public ResponseEntity<?> updateSubmission(
             @PathVariable("assignmentId") String assignmentId,
-            @RequestHeader(value = "user-idToken", required = false) String idToken,
+            CallerContext caller,
             @RequestBody SubmitAssignmentRequest request // Nhận JSON
     ) {
         try {
-            String studentId = getStudentIdFromToken(idToken);
+            String studentId = caller.requireCodeUser();
 
             // Đảm bảo assignmentId trong body khớp với path (hoặc set lại cho chắc)
             request.setAssignmentId(assignmentId);
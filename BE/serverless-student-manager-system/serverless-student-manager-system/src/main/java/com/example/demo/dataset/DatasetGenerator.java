@@ -0,0 +1,502 @@
+package com.example.demo.dataset;
+
+import com.example.demo.dto.Enum.Role;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.BatchWriteResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import com.example.demo.service.AuditLogStore;
+import com.example.demo.service.ClassLeaderboard;
+import com.example.demo.service.ClassLinkIndex;
+import com.example.demo.service.Gradebook;
+import com.example.demo.service.UserEmailIndex;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Sinh bộ dữ liệu single-table theo {@link DatasetSpec}, đúng key layout + thuộc tính mà các luồng ghi thật tạo ra:
+ * <ul>
+ *     <li>USER#id/PROFILE + EMAIL#email/USER: AdminService.createUser + UserEmailIndex.register</li>
+ *     <li>SUBJECT#code/INFO: AdminService.createSubject</li>
+ *     <li>CLASS#id/INFO, CLASS#id/STUDENT#sv: AdminService.createClass + StudentService.handleEnrollAction</li>
+ *     <li>TEACHER#gv/SEMESTER#..#CLASS#id, SUBJECT#code/CLASS#id, SEMESTER#kỳ/CLASS#id: ClassLinkIndex.register</li>
+ *     <li>ASSIGNMENT#lớp/INFO#bt, SUBMISSION#bt#sv: LecturerService.createAssignment,
+ *         StudentService.submitAssignment, LecturerService.processGradeUpdate</li>
+ *     <li>CLASS#id/LEADERBOARD: ClassLeaderboard (tổng có trọng số theo Gradebook)</li>
+ *     <li>CLASS#id/POST#..., POST#id/COMMENT#...: LecturerService.createClassPost, StudentService.createPost / createComment</li>
+ *     <li>USER#id/NOTI#...: AdminService.createNotification, LecturerService (thông báo lớp)</li>
+ *     <li>LOG#ngày/LOG#ts#id (GSI1 TYPE#LOG), ACTOR#người/..., CLASS#id/LOG#...: AdminService.logActivity
+ *         + AuditLogStore.rowsOf</li>
+ * </ul>
+ * Tất định: mỗi thực thể có bộ sinh ngẫu nhiên riêng tính từ (seed, loại, chỉ số), nên cùng spec -> cùng dữ liệu
+ * (kể cả UUID và thời gian). Item được gom {@value #FLUSH_SIZE} cái 1 lượt rồi ghi bằng
+ * {@link SchoolItemRepository#batchWriteItems} (chia lô 25, chạy song song, tự gửi lại UnprocessedItems).
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    static final int FLUSH_SIZE = 5_000;
+
+    private static final long SALT_USER = 1;
+    private static final long SALT_SUBJECT = 2;
+    private static final long SALT_CLASS = 3;
+    private static final long SALT_NOTIFICATION = 4;
+    private static final long SALT_LOG = 5;
+
+    private static final String[] FAMILY_NAMES = {
+            "Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng", "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"
+    };
+    private static final String[] MIDDLE_NAMES = {"Văn", "Thị", "Minh", "Hoàng", "Ngọc", "Thanh", "Quốc", "Gia", "Hữu", "Đức"};
+    private static final String[] GIVEN_NAMES = {
+            "An", "Bình", "Chi", "Dũng", "Giang", "Hà", "Hải", "Hiếu", "Hùng", "Khánh", "Lan", "Linh",
+            "Long", "Mai", "Nam", "Phúc", "Quân", "Sơn", "Tâm", "Thảo", "Trang", "Tuấn", "Vy", "Yến"
+    };
+    private static final String[] SUBJECT_NAMES = {
+            "Lập trình Java", "Dự án phần mềm", "Toán cho kỹ thuật", "Cấu trúc dữ liệu", "Cơ sở dữ liệu",
+            "Thực hành lập trình", "Phát triển Web", "Kiểm thử phần mềm", "Yêu cầu phần mềm", "Triết học Mác - Lênin",
+            "Tiếng Nhật", "Viết tiếng Anh", "Lập trình .NET", "Internet vạn vật"
+    };
+    private static final String[] DEPARTMENTS = {"Kỹ thuật phần mềm", "Khoa học máy tính", "Ngoại ngữ", "Lý luận chính trị"};
+    private static final String[] ASSIGNMENT_TYPES = {"homework", "quiz", "lab", "project", "exam"};
+    private static final String[] LOG_ACTIONS = {
+            "CREATE_SUBJECT", "UPDATE_SUBJECT", "CREATE_CLASS", "UPDATE_CLASS", "ENROLL_STUDENT", "DEACTIVATE_USER"
+    };
+
+    private final SchoolItemRepository repository;
+
+    public DatasetGenerator(SchoolItemRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Ghi vào 1 DynamoDbClient bất kỳ (InMemoryDynamoDbClient, DynamoDbJsonDumpClient, client AWS thật).
+     * Gọi {@link SchoolItemRepository#shutdown()} của repository trả về khi xong.
+     */
+    public static SchoolItemRepository repositoryFor(DynamoDbClient client, String tableName, int parallelism) {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(client)
+                .build();
+        return new SchoolItemRepository(enhancedClient, client, tableName, parallelism);
+    }
+
+    public DatasetReport generate(DatasetSpec spec) {
+        long start = System.currentTimeMillis();
+        Sink sink = new Sink();
+        writeUsers(spec, sink);
+        writeSubjects(spec, sink);
+        for (int c = 0; c < spec.classes(); c++) {
+            writeClass(spec, c, sink);
+        }
+        for (int i = 0; i < spec.getStudents(); i++) {
+            writeNotifications(spec, i, sink);
+        }
+        for (int n = 0; n < spec.getAuditLogs(); n++) {
+            List<SchoolItem> rows = AuditLogStore.rowsOf(logItem(spec, n));
+            sink.add("LOG", rows.get(0));
+            for (SchoolItem row : rows.subList(1, rows.size())) {
+                sink.add("LOG_LINK", row);
+            }
+        }
+        sink.flush();
+
+        DatasetReport report = DatasetReport.builder()
+                .entities(sink.entities)
+                .written(sink.written)
+                .failed(sink.failed)
+                .batchCalls(sink.batchCalls)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+        log.info("Đã sinh {} item ({} lỗi) trong {} ms: {}", report.getWritten(), report.getFailed(),
+                report.getElapsedMillis(), report.getEntities());
+        return report;
+    }
+
+    // ========================================================================
+    // USER + SUBJECT
+    // ========================================================================
+
+    private void writeUsers(DatasetSpec spec, Sink sink) {
+        for (int i = 0; i < spec.getStudents(); i++) {
+            writeUser(spec, DatasetSpec.studentId(i), Role.STUDENT, random(spec, SALT_USER, i), sink);
+        }
+        for (int l = 0; l < spec.getLecturers(); l++) {
+            writeUser(spec, DatasetSpec.lecturerId(l), Role.LECTURER, random(spec, SALT_USER, -1 - l), sink);
+        }
+        for (int a = 0; a < spec.getAdmins(); a++) {
+            writeUser(spec, DatasetSpec.adminId(a), Role.ADMIN, random(spec, SALT_USER, Integer.MIN_VALUE + a), sink);
+        }
+    }
+
+    private void writeUser(DatasetSpec spec, String userId, Role role, SplittableRandom rnd, Sink sink) {
+        String name = pick(rnd, FAMILY_NAMES) + " " + pick(rnd, MIDDLE_NAMES) + " " + pick(rnd, GIVEN_NAMES);
+        SchoolItem profile = new SchoolItem();
+        profile.setPk("USER#" + userId);
+        profile.setSk("PROFILE");
+        profile.setGsi1Pk(role.getSearchKey());
+        profile.setGsi1Sk("NAME#" + name.toLowerCase());
+        profile.setId(userId);
+        profile.setName(name);
+        profile.setEmail(DatasetSpec.email(userId));
+        profile.setRoleName(role.getCognitoRoleName());
+        profile.setCodeUser(userId);
+        profile.setAvatar("https://ui-avatars.com/api/?name=" + name.replace(" ", "+"));
+        profile.setStatus(rnd.nextInt(100) < 98 ? 1 : 0);
+        int birthYear = role == Role.STUDENT ? 2003 + rnd.nextInt(4) : 1970 + rnd.nextInt(25);
+        profile.setDateOfBirth(LocalDate.of(birthYear, 1, 1).plusDays(rnd.nextInt(365)).toString());
+        sink.add("USER", profile);
+
+        SchoolItem pointer = new SchoolItem();
+        pointer.setPk(UserEmailIndex.EMAIL_PREFIX + UserEmailIndex.normalize(profile.getEmail()));
+        pointer.setSk(UserEmailIndex.POINTER_SK);
+        pointer.setId(userId);
+        sink.add("EMAIL", pointer);
+    }
+
+    private void writeSubjects(DatasetSpec spec, Sink sink) {
+        for (int s = 0; s < spec.getSubjects(); s++) {
+            SplittableRandom rnd = random(spec, SALT_SUBJECT, s);
+            String code = DatasetSpec.subjectCode(s);
+            String name = SUBJECT_NAMES[s % SUBJECT_NAMES.length] + (s < SUBJECT_NAMES.length ? "" : " " + (s / SUBJECT_NAMES.length + 1));
+            String created = spec.getSemesterStart().minus(Duration.ofDays(365 + rnd.nextInt(365))).toString();
+
+            SchoolItem item = new SchoolItem();
+            item.setPk(SchoolKeys.subjectPk(code));
+            item.setSk("INFO");
+            item.setGsi1Pk("TYPE#SUBJECT");
+            item.setGsi1Sk("NAME#" + name.toLowerCase());
+            item.setId(item.getPk());
+            item.setCodeSubject(code);
+            item.setName(name);
+            item.setCredits(2 + rnd.nextInt(3));
+            item.setDescription("Môn " + name);
+            item.setDepartment(pick(rnd, DEPARTMENTS));
+            item.setStatus(1);
+            item.setCreatedAt(created);
+            item.setUpdatedAt(created);
+            sink.add("SUBJECT", item);
+        }
+    }
+
+    // ========================================================================
+    // LỚP: INFO + ghi danh + bài tập + bài nộp + bài đăng + bình luận
+    // ========================================================================
+
+    private void writeClass(DatasetSpec spec, int c, Sink sink) {
+        SplittableRandom rnd = random(spec, SALT_CLASS, c);
+        Instant start = spec.getSemesterStart();
+        String classId = DatasetSpec.classId(c);
+        String classPk = "CLASS#" + classId;
+        String teacherId = DatasetSpec.lecturerId(spec.teacherOf(c));
+        int size = spec.classSize(c);
+        String subjectCode = DatasetSpec.subjectCode(spec.subjectOf(c));
+        String name = subjectCode + " - " + classId;
+
+        String created = start.minus(Duration.ofDays(7 + rnd.nextInt(14))).toString();
+        SchoolItem info = new SchoolItem();
+        info.setPk(classPk);
+        info.setSk("INFO");
+        info.setGsi1Pk("TYPE#CLASS");
+        info.setGsi1Sk("NAME#" + name.toLowerCase());
+        info.setId(classId);
+        info.setClassId(classId);
+        info.setName(name);
+        info.setDescription("Lớp " + subjectCode + " học kỳ Fall 2025");
+        if (rnd.nextInt(100) < 30) {
+            info.setPassword(String.format("%06d", rnd.nextInt(1_000_000)));
+        }
+        info.setSubjectId(subjectCode);
+        info.setSemester("FALL2025");
+        info.setAcademicYear("2025-2026");
+        info.setTeacherId(teacherId);
+        info.setStatus(1);
+        info.setStudentCount(size);
+        info.setCreatedAt(created);
+        info.setUpdatedAt(start.plus(Duration.ofDays(7)).toString());
+        sink.add("CLASS", info);
+        for (SchoolItem link : ClassLinkIndex.linksOf(info)) {
+            sink.add("CLASS_LINK", link);
+        }
+
+        String[] students = new String[size];
+        for (int j = 0; j < size; j++) {
+            students[j] = DatasetSpec.studentId(spec.studentOfClass(c, j));
+            SchoolItem enrollment = new SchoolItem();
+            enrollment.setPk(classPk);
+            enrollment.setSk("STUDENT#" + students[j]);
+            enrollment.setGsi1Pk("USER#" + students[j]);
+            enrollment.setGsi1Sk(classPk);
+            enrollment.setJoinedAt(start.plusSeconds(rnd.nextInt(7 * 86_400)).toString());
+            enrollment.setStatus(1);
+            sink.add("ENROLLMENT", enrollment);
+        }
+
+        writeAssignments(spec, c, classId, students, rnd, sink);
+        writePosts(spec, classId, teacherId, students, rnd, sink);
+    }
+
+    private void writeAssignments(DatasetSpec spec, int c, String classId, String[] students,
+                                  SplittableRandom rnd, Sink sink) {
+        int count = spec.getAssignmentsPerClass();
+        double weight = Math.floor(1000.0 / Math.max(1, count)) / 10;
+        List<SchoolItem> rows = new ArrayList<>();
+        for (int a = 0; a < count; a++) {
+            String assignmentId = spec.assignmentId(c, a);
+            Instant created = spec.getSemesterStart().plus(Duration.ofDays(7 + 14L * a)).plusSeconds(rnd.nextInt(86_400));
+            Instant deadline = created.plus(Duration.ofDays(7));
+
+            SchoolItem item = new SchoolItem();
+            item.setPk(SchoolKeys.assignmentPk(classId));
+            item.setSk("INFO#" + assignmentId);
+            item.setGsi1Pk("CLASS#" + classId);
+            item.setGsi1Sk("ASSIGNMENT#" + assignmentId);
+            item.setId(assignmentId);
+            item.setTitle("Bài tập " + (a + 1));
+            item.setDescription("Nội dung bài tập " + (a + 1));
+            item.setContent(item.getDescription());
+            item.setType(ASSIGNMENT_TYPES[a % ASSIGNMENT_TYPES.length]);
+            item.setMaxScore(10.0);
+            // Tổng trọng số = 100 (phần dư dồn vào bài cuối)
+            item.setWeight(a < count - 1 ? weight : Math.round((100 - weight * (count - 1)) * 10) / 10.0);
+            item.setDeadline(deadline.toString());
+            item.setIsPublished(a < count - 1 || rnd.nextBoolean());
+            item.setCreatedAt(created.toString());
+            item.setUpdatedAt(created.toString());
+            sink.add("ASSIGNMENT", item);
+            rows.add(item);
+
+            for (String studentId : students) {
+                if (rnd.nextDouble() >= spec.getSubmissionRate()) continue;
+                SchoolItem submission = submissionItem(spec, classId, assignmentId, studentId, created, deadline, rnd);
+                rows.add(submission);
+                sink.add("SUBMISSION", submission);
+            }
+        }
+        sink.add("LEADERBOARD", ClassLeaderboard.itemOf(classId, Gradebook.of(classId, rows, 1).totals()));
+    }
+
+    private SchoolItem submissionItem(DatasetSpec spec, String classId, String assignmentId, String studentId,
+                                      Instant created, Instant deadline, SplittableRandom rnd) {
+        // ~10% nộp muộn tối đa 2 ngày
+        Instant submitted = created.plusSeconds(rnd.nextInt(rnd.nextInt(10) == 0 ? 9 * 86_400 : 7 * 86_400));
+        String fileName = "bai-lam-" + studentId.toLowerCase() + ".pdf";
+
+        SchoolItem item = new SchoolItem();
+        item.setPk(SchoolKeys.assignmentPk(classId));
+        item.setSk(SchoolKeys.submissionSk(assignmentId, studentId));
+        item.setGsi1Pk("USER#" + studentId);
+        item.setGsi1Sk("SUBMISSION#" + assignmentId);
+        item.setStudentId(studentId);
+        item.setFileUrl("assignments/" + uuid(rnd) + "_" + fileName);
+        item.setFileName(fileName);
+        item.setContent("Bài làm của " + studentId);
+        item.setSubmittedAt(submitted.toString());
+        item.setType(submitted.isAfter(deadline) ? "late" : "on_time");
+        item.setStatus(1);
+        item.setCreatedAt(submitted.toString());
+
+        if (rnd.nextDouble() < spec.getGradedRate()) {
+            // Điểm tập trung quanh 7, làm tròn 0.5
+            double score = Math.max(0, Math.min(10, 7 + rnd.nextDouble() * 6 - 3 + rnd.nextDouble() * 2 - 1));
+            item.setScore(Math.round(score * 2) / 2.0);
+            item.setFeedback(score >= 5 ? "Đạt yêu cầu" : "Cần bổ sung");
+            item.setGradedAt(deadline.plus(Duration.ofDays(1 + rnd.nextInt(5))).toString());
+            item.setStatus(2);
+        }
+        return item;
+    }
+
+    private void writePosts(DatasetSpec spec, String classId, String teacherId, String[] students,
+                            SplittableRandom rnd, Sink sink) {
+        Instant start = spec.getSemesterStart();
+        int posts = spec.getLecturerPostsPerClass() + (students.length == 0 ? 0 : spec.getStudentPostsPerClass());
+        for (int p = 0; p < posts; p++) {
+            boolean byLecturer = p < spec.getLecturerPostsPerClass();
+            String postId = uuid(rnd);
+            Instant created = start.plusSeconds(rnd.nextInt(90 * 86_400));
+            int comments = spec.getMaxCommentsPerPost() == 0 ? 0 : rnd.nextInt(spec.getMaxCommentsPerPost() + 1);
+
+            SchoolItem post = new SchoolItem();
+            post.setPk("CLASS#" + classId);
+            post.setSk("POST#" + postId);
+            post.setGsi1Pk("POST#" + postId);
+            post.setGsi1Sk("INFO");
+            post.setPostId(postId);
+            post.setClassId(classId);
+            post.setTitle(byLecturer ? "Thông báo lớp số " + (p + 1) : "Câu hỏi về bài tập");
+            post.setContent(byLecturer ? "Các bạn chú ý lịch học và hạn nộp bài tuần này." : "Cho em hỏi yêu cầu của bài tập ạ?");
+            post.setIsPinned(byLecturer && p == 0);
+            post.setLikeCount(rnd.nextInt(students.length + 1));
+            post.setCommentCount(comments);
+            post.setCreatedAt(created.toString());
+            if (byLecturer) {
+                // LecturerService.createClassPost
+                post.setId(postId);
+                post.setUploadedBy(teacherId);
+                post.setSenderId("USER#" + teacherId);
+                post.setType("POST");
+            } else {
+                // StudentService.createPost
+                post.setSenderId(students[rnd.nextInt(students.length)]);
+            }
+            sink.add("POST", post);
+
+            for (int k = 0; k < comments; k++) {
+                String commentId = uuid(rnd);
+                boolean teacherReply = students.length == 0 || rnd.nextInt(5) == 0;
+                SchoolItem comment = new SchoolItem();
+                comment.setPk("POST#" + postId);
+                comment.setSk("COMMENT#" + commentId);
+                comment.setGsi1Pk("COMMENT#" + commentId);
+                comment.setGsi1Sk("INFO");
+                comment.setPostId(postId);
+                comment.setSenderId(teacherReply ? teacherId : students[rnd.nextInt(students.length)]);
+                comment.setClassId(classId);
+                comment.setContent(teacherReply ? "Thầy/cô đã cập nhật, các bạn xem lại nhé." : "Em cảm ơn ạ");
+                comment.setCreatedAt(created.plusSeconds(60L * (k + 1) + rnd.nextInt(3_600)).toString());
+                comment.setLikeCount(0);
+                sink.add("COMMENT", comment);
+            }
+        }
+    }
+
+    // ========================================================================
+    // THÔNG BÁO + LOG
+    // ========================================================================
+
+    private void writeNotifications(DatasetSpec spec, int i, Sink sink) {
+        SplittableRandom rnd = random(spec, SALT_NOTIFICATION, i);
+        String studentPk = "USER#" + DatasetSpec.studentId(i);
+        // Thời gian tăng dần để SK NOTI#<thời gian> không trùng trong cùng inbox
+        Instant at = spec.getSemesterStart();
+        for (int n = 0; n < spec.getNotificationsPerStudent(); n++) {
+            at = at.plusSeconds(3_600 + rnd.nextInt(3 * 86_400));
+            SchoolItem noti = new SchoolItem();
+            noti.setPk(studentPk);
+            noti.setIsRead(rnd.nextInt(100) < 60);
+            int kind = n < spec.getClassesPerStudent() ? 0 : 1 + rnd.nextInt(3);
+            if (kind == 0) {
+                // AdminService: thêm vào lớp
+                String classId = DatasetSpec.classId(spec.classOfStudent(i, n));
+                noti.setSk("NOTI#" + at);
+                noti.setTitle("Đăng ký lớp thành công");
+                noti.setContent("Bạn đã được thêm vào lớp " + classId + ". Hãy kiểm tra lịch học nhé!");
+                noti.setType("CLASS_ENROLLMENT");
+                noti.setCreatedAt(at.toString());
+            } else if (kind == 3) {
+                // AdminService: thông báo hệ thống
+                noti.setSk("NOTI#" + at);
+                noti.setTitle("Thông báo từ phòng đào tạo");
+                noti.setContent("Lịch nghỉ lễ và lịch thi đã được cập nhật.");
+                noti.setType("SYSTEM_ALERT");
+                noti.setCreatedAt(at.toString());
+            } else {
+                // LecturerService: giảng viên gửi cả lớp
+                int c = spec.classOfStudent(i, rnd.nextInt(spec.getClassesPerStudent()));
+                String notiId = uuid(rnd);
+                noti.setSk("NOTI#" + at + "#" + notiId);
+                noti.setId(notiId);
+                noti.setTitle("Nhắc hạn nộp bài");
+                noti.setContent("Các bạn nhớ nộp bài đúng hạn.");
+                noti.setType("class");
+                noti.setClassId(DatasetSpec.classId(c));
+                noti.setSentAt(at.toString());
+                noti.setSentBy(DatasetSpec.lecturerId(spec.teacherOf(c)));
+            }
+            sink.add("NOTIFICATION", noti);
+        }
+    }
+
+    private SchoolItem logItem(DatasetSpec spec, int n) {
+        SplittableRandom rnd = random(spec, SALT_LOG, n);
+        String logId = uuid(rnd);
+        String timestamp = spec.getSemesterStart().minus(Duration.ofDays(30))
+                .plusSeconds(rnd.nextInt(120 * 86_400)).toString();
+        String action = pick(rnd, LOG_ACTIONS);
+
+        // Chỉ thuộc tính log; key do AuditLogStore.rowsOf đặt
+        SchoolItem item = new SchoolItem();
+        item.setId(logId);
+        item.setActionType(action);
+        if (action.contains("CLASS") || action.equals("ENROLL_STUDENT")) {
+            String classId = DatasetSpec.classId(rnd.nextInt(spec.classes()));
+            item.setActorId("ADMIN");
+            item.setTargetClassId("CLASS#" + classId);
+            item.setLogDetails(action + " lớp " + classId);
+        } else if (action.equals("DEACTIVATE_USER")) {
+            item.setActorId("USER#" + DatasetSpec.adminId(rnd.nextInt(Math.max(1, spec.getAdmins()))));
+            item.setLogDetails("Khoá tài khoản " + DatasetSpec.studentId(rnd.nextInt(Math.max(1, spec.getStudents()))));
+        } else {
+            item.setActorId("ADMIN");
+            item.setLogDetails(action + " " + DatasetSpec.subjectCode(rnd.nextInt(Math.max(1, spec.getSubjects()))));
+        }
+        item.setCreatedAt(timestamp);
+        return item;
+    }
+
+    // ========================================================================
+    // HELPER
+    // ========================================================================
+
+    /** Bộ sinh riêng cho (loại, chỉ số): không phụ thuộc thứ tự sinh các thực thể khác. */
+    private static SplittableRandom random(DatasetSpec spec, long salt, long index) {
+        return new SplittableRandom(mix(mix(spec.getSeed() ^ (salt << 56)) ^ index));
+    }
+
+    /** Finalizer của SplitMix64. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** UUID v4 lấy bit từ bộ sinh tất định. */
+    private static String uuid(SplittableRandom rnd) {
+        long msb = (rnd.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (rnd.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static String pick(SplittableRandom rnd, String[] values) {
+        return values[rnd.nextInt(values.length)];
+    }
+
+    /** Gom item rồi ghi theo lô; đếm số item theo loại. */
+    private final class Sink {
+        final Map<String, Long> entities = new LinkedHashMap<>();
+        final List<SchoolItem> buffer = new ArrayList<>(FLUSH_SIZE);
+        long written;
+        long failed;
+        long batchCalls;
+
+        void add(String entity, SchoolItem item) {
+            entities.merge(entity, 1L, Long::sum);
+            buffer.add(item);
+            if (buffer.size() >= FLUSH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) return;
+            BatchWriteResult result = repository.batchWriteItems(buffer);
+            written += result.getWritten();
+            failed += result.getFailed();
+            batchCalls += result.getBatchCalls();
+            if (result.getFailed() > 0) {
+                log.warn("Sinh dữ liệu: {} item không ghi được", result.getFailed());
+            }
+            buffer.clear();
+        }
+    }
+}
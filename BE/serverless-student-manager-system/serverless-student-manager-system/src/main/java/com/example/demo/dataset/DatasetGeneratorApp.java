@@ -0,0 +1,83 @@
+package com.example.demo.dataset;
+
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.nio.file.Path;
+
+/**
+ * Chạy {@link DatasetGenerator} từ dòng lệnh (không khởi động Spring):
+ * <pre>
+ * ./mvnw compile exec:java -Dexec.mainClass=com.example.demo.dataset.DatasetGeneratorApp \
+ *     -Dexec.args="--scale 1 --seed 42 --out dataset.ndjson"
+ * </pre>
+ * Đích ghi (chọn 1):
+ * <ul>
+ *     <li>--out FILE: file DynamoDB JSON (mỗi dòng 1 item)</li>
+ *     <li>--table NAME: bảng DynamoDB thật (credential / region lấy theo chuỗi mặc định của AWS SDK)</li>
+ *     <li>không có: InMemoryDynamoDbClient, chỉ để đo kích thước / thời gian sinh</li>
+ * </ul>
+ * --parallelism N: số lô BatchWriteItem chạy song song (mặc định 8).
+ */
+public final class DatasetGeneratorApp {
+
+    private static final String DEFAULT_TABLE = "Student-Management-Database";
+
+    private DatasetGeneratorApp() {
+    }
+
+    public static void main(String[] args) {
+        double scale = 1;
+        long seed = 42;
+        String out = null;
+        String table = null;
+        int parallelism = 8;
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Thiếu giá trị cho " + name);
+            String value = args[++i];
+            switch (name) {
+                case "--scale": scale = Double.parseDouble(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--out": out = value; break;
+                case "--table": table = value; break;
+                case "--parallelism": parallelism = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Tham số không hợp lệ: " + name);
+            }
+        }
+        if (out != null && table != null) {
+            throw new IllegalArgumentException("Chỉ chọn 1 trong --out hoặc --table");
+        }
+
+        DatasetSpec spec = DatasetSpec.scale(scale).toBuilder().seed(seed).build();
+        DynamoDbClient client;
+        String tableName = table != null ? table : DEFAULT_TABLE;
+        if (out != null) {
+            client = new DynamoDbJsonDumpClient(Path.of(out));
+        } else if (table != null) {
+            client = DynamoDbClient.create();
+        } else {
+            InMemoryDynamoDbClient inMemory = new InMemoryDynamoDbClient();
+            inMemory.createTable(LocalDynamoConfig.singleTableRequest(tableName));
+            client = inMemory;
+        }
+
+        SchoolItemRepository repository = DatasetGenerator.repositoryFor(client, tableName, parallelism);
+        try {
+            DatasetReport report = new DatasetGenerator(repository).generate(spec);
+            System.out.printf("Scale %.2f, seed %d: %d sinh viên, %d lớp, %d giảng viên%n",
+                    scale, seed, spec.getStudents(), spec.classes(), spec.getLecturers());
+            report.getEntities().forEach((entity, count) -> System.out.printf("  %-13s %,d%n", entity, count));
+            System.out.printf("Đã ghi %,d item (%d lỗi), %,d lệnh BatchWriteItem, %d ms%n",
+                    report.getWritten(), report.getFailed(), report.getBatchCalls(), report.getElapsedMillis());
+            if (report.getFailed() > 0) {
+                System.exit(1);
+            }
+        } finally {
+            repository.shutdown();
+            client.close();
+        }
+    }
+}
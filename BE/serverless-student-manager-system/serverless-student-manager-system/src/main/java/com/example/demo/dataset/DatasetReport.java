@@ -0,0 +1,19 @@
+package com.example.demo.dataset;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Tổng kết 1 lần sinh dữ liệu.
+ */
+@Data
+@Builder
+public class DatasetReport {
+    private Map<String, Long> entities;   // Số item theo loại (VD: "SUBMISSION" -> 204000)
+    private long written;                 // Ghi thành công
+    private long failed;                  // Hết lượt thử / lỗi
+    private long batchCalls;              // Tổng số lệnh BatchWriteItem
+    private long elapsedMillis;
+}
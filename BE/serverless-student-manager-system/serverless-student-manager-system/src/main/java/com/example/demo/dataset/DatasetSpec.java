@@ -0,0 +1,167 @@
+package com.example.demo.dataset;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Kích thước + hình dạng bộ dữ liệu giả lập, kèm các hàm tính id / quan hệ (tất định, không cần đọc lại DB)
+ * để load test / benchmark biết sinh viên nào học lớp nào, lớp nào có bài tập nào...
+ *
+ * Ghi danh được chia đều: lượt ghi danh thứ e = student * classesPerStudent + k thuộc lớp e % classes,
+ * nên mỗi lớp có tối đa classCapacity sinh viên và các lớp của 1 sinh viên luôn khác nhau.
+ * Lớp c do giảng viên c % lecturers dạy.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class DatasetSpec {
+
+    /** Sĩ số tối đa của 1 lớp (giống giới hạn trong StudentService.incrementStudentCount). */
+    public static final int MAX_CLASS_CAPACITY = 40;
+
+    private static final String[] SUBJECT_PREFIXES = {
+            "PRJ", "SWP", "MAE", "CSD", "DBI", "LAB", "WED", "SWT", "SWR", "MLN", "JPD", "ENW", "PRN", "IOT"
+    };
+
+    @Builder.Default
+    private final long seed = 42;
+    @Builder.Default
+    private final Instant semesterStart = Instant.parse("2025-09-01T00:00:00Z");
+
+    private final int students;
+    private final int lecturers;
+    private final int admins;
+    private final int subjects;
+    private final int classesPerStudent;
+    private final int classCapacity;
+    private final int assignmentsPerClass;
+    /** Tỉ lệ (0..1) sinh viên nộp mỗi bài tập. */
+    private final double submissionRate;
+    /** Tỉ lệ (0..1) bài nộp đã được chấm. */
+    private final double gradedRate;
+    private final int lecturerPostsPerClass;
+    private final int studentPostsPerClass;
+    /** Số bình luận mỗi bài đăng: ngẫu nhiên 0..maxCommentsPerPost. */
+    private final int maxCommentsPerPost;
+    private final int notificationsPerStudent;
+    private final int auditLogs;
+
+    /**
+     * Hệ số 1 = 10.000 sinh viên, 250 giảng viên, ~1.000 lớp, ~600.000 item.
+     * Các tỉ lệ (số lớp / sinh viên, bài tập / lớp...) giữ nguyên khi đổi hệ số.
+     */
+    public static DatasetSpec scale(double factor) {
+        if (factor <= 0) {
+            throw new IllegalArgumentException("Hệ số scale phải > 0");
+        }
+        return DatasetSpec.builder()
+                .students(Math.max(1, (int) Math.round(10_000 * factor)))
+                .lecturers(Math.max(1, (int) Math.round(250 * factor)))
+                .admins(5)
+                .subjects(Math.max(1, (int) Math.round(120 * Math.min(1.0, factor))))
+                .classesPerStudent(4)
+                .classCapacity(MAX_CLASS_CAPACITY)
+                .assignmentsPerClass(6)
+                .submissionRate(0.85)
+                .gradedRate(0.7)
+                .lecturerPostsPerClass(8)
+                .studentPostsPerClass(6)
+                .maxCommentsPerPost(6)
+                .notificationsPerStudent(25)
+                .auditLogs((int) Math.round(20_000 * factor))
+                .build();
+    }
+
+    // ========================================================================
+    // SỐ LƯỢNG SUY RA
+    // ========================================================================
+
+    public int classes() {
+        int byCapacity = (int) ((students * (long) classesPerStudent + classCapacity - 1) / classCapacity);
+        return Math.max(classesPerStudent, byCapacity);
+    }
+
+    /** Số sinh viên thực tế của lớp c. */
+    public int classSize(int c) {
+        long enrollments = students * (long) classesPerStudent;
+        int classes = classes();
+        return (int) (enrollments / classes + (c < enrollments % classes ? 1 : 0));
+    }
+
+    // ========================================================================
+    // ID (giống định dạng do service sinh ra)
+    // ========================================================================
+
+    public static String studentId(int i) {
+        return String.format("SE%06d", i);
+    }
+
+    public static String lecturerId(int l) {
+        return String.format("GV%04d", l);
+    }
+
+    public static String adminId(int a) {
+        return String.format("AD%03d", a);
+    }
+
+    /** Mã lớp 8 ký tự hex viết hoa như AdminService.createClass, không trùng nhau (hoán vị 32 bit). */
+    public static String classId(int c) {
+        return String.format("%08X", permute(c + 1));
+    }
+
+    /** "ASS_" + 8 ký tự hex viết hoa như LecturerService.createAssignment. */
+    public String assignmentId(int c, int a) {
+        return String.format("ASS_%08X", permute(0x40000000 + c * assignmentsPerClass + a));
+    }
+
+    public static String subjectCode(int s) {
+        return SUBJECT_PREFIXES[s % SUBJECT_PREFIXES.length] + (101 + s / SUBJECT_PREFIXES.length);
+    }
+
+    public static String email(String userId) {
+        return userId.toLowerCase() + (userId.startsWith("SE") ? "@fpt.edu.vn" : "@fe.edu.vn");
+    }
+
+    // ========================================================================
+    // QUAN HỆ
+    // ========================================================================
+
+    /** Chỉ số lớp thứ k (0..classesPerStudent-1) của sinh viên. */
+    public int classOfStudent(int student, int k) {
+        return (int) ((student * (long) classesPerStudent + k) % classes());
+    }
+
+    /** Chỉ số sinh viên thứ j (0..classSize(c)-1) của lớp c. */
+    public int studentOfClass(int c, int j) {
+        return (int) ((c + (long) j * classes()) / classesPerStudent);
+    }
+
+    public int teacherOf(int c) {
+        return c % lecturers;
+    }
+
+    /** Số lớp giảng viên l dạy. */
+    public int classCountOfLecturer(int l) {
+        int classes = classes();
+        return l >= classes ? 0 : (classes - 1 - l) / lecturers + 1;
+    }
+
+    /** Chỉ số lớp thứ k (0..classCountOfLecturer(l)-1) của giảng viên l. */
+    public int classOfLecturer(int l, int k) {
+        return l + k * lecturers;
+    }
+
+    public int subjectOf(int c) {
+        return c % subjects;
+    }
+
+    /** Hoán vị trên 32 bit (nhân số lẻ + xor-shift đều khả nghịch) - trộn chỉ số mà không sinh trùng. */
+    private static int permute(int x) {
+        x *= 0x9E3779B1;
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        return x;
+    }
+}
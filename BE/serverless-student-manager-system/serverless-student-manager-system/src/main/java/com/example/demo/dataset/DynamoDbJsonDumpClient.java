@@ -0,0 +1,155 @@
+package com.example.demo.dataset;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DynamoDbClient chỉ ghi ra file: mỗi item 1 dòng {@code {"Item":{"PK":{"S":"..."},...}}}
+ * (định dạng DynamoDB JSON mà "Import from S3" của DynamoDB đọc được).
+ * Chỉ hỗ trợ PutItem / BatchWriteItem (PutRequest); DeleteRequest bị từ chối. Các lệnh khác giữ mặc định (Unsupported).
+ */
+public class DynamoDbJsonDumpClient implements DynamoDbClient {
+
+    private final OutputStream out;
+    private final JsonFactory json = new JsonFactory();
+    private long items;
+
+    public DynamoDbJsonDumpClient(Path file) {
+        try {
+            this.out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không mở được file dump: " + file, e);
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    /** Số item đã ghi. */
+    public synchronized long itemCount() {
+        return items;
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        write(request.item());
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        for (List<WriteRequest> writes : request.requestItems().values()) {
+            for (WriteRequest write : writes) {
+                if (write.putRequest() == null) {
+                    throw new UnsupportedOperationException("File dump chỉ hỗ trợ PutRequest");
+                }
+                write(write.putRequest().item());
+            }
+        }
+        return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+    }
+
+    private synchronized void write(Map<String, AttributeValue> item) {
+        try {
+            JsonGenerator gen = json.createGenerator(out, JsonEncoding.UTF8);
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartObject();
+            gen.writeFieldName("Item");
+            writeMap(gen, item);
+            gen.writeEndObject();
+            gen.flush();
+            out.write('\n');
+            items++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ghi file dump lỗi", e);
+        }
+    }
+
+    private static void writeMap(JsonGenerator gen, Map<String, AttributeValue> map) throws IOException {
+        gen.writeStartObject();
+        for (Map.Entry<String, AttributeValue> e : map.entrySet()) {
+            gen.writeFieldName(e.getKey());
+            writeValue(gen, e.getValue());
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator gen, AttributeValue v) throws IOException {
+        gen.writeStartObject();
+        if (v.s() != null) {
+            gen.writeStringField("S", v.s());
+        } else if (v.n() != null) {
+            gen.writeStringField("N", v.n());
+        } else if (v.b() != null) {
+            gen.writeStringField("B", base64(v.b()));
+        } else if (v.bool() != null) {
+            gen.writeBooleanField("BOOL", v.bool());
+        } else if (Boolean.TRUE.equals(v.nul())) {
+            gen.writeBooleanField("NULL", true);
+        } else if (v.hasM()) {
+            gen.writeFieldName("M");
+            writeMap(gen, v.m());
+        } else if (v.hasL()) {
+            gen.writeArrayFieldStart("L");
+            for (AttributeValue element : v.l()) {
+                writeValue(gen, element);
+            }
+            gen.writeEndArray();
+        } else if (v.hasSs()) {
+            writeStrings(gen, "SS", v.ss());
+        } else if (v.hasNs()) {
+            writeStrings(gen, "NS", v.ns());
+        } else if (v.hasBs()) {
+            gen.writeArrayFieldStart("BS");
+            for (SdkBytes bytes : v.bs()) {
+                gen.writeString(base64(bytes));
+            }
+            gen.writeEndArray();
+        } else {
+            throw new IllegalArgumentException("AttributeValue rỗng");
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeStrings(JsonGenerator gen, String type, List<String> values) throws IOException {
+        gen.writeArrayFieldStart(type);
+        for (String value : values) {
+            gen.writeString(value);
+        }
+        gen.writeEndArray();
+    }
+
+    private static String base64(SdkBytes bytes) {
+        return Base64.getEncoder().encodeToString(bytes.asByteArray());
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Đóng file dump lỗi", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto.Grade;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkGradeRequest {
+    private List<GradeSubmissionDto> grades; // Mỗi dòng: studentId, score, feedback (assignmentId bỏ trống hoặc khớp Path)
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto.Grade;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkGradeResultDto {
+    private int requested;
+    private int graded;
+    private int failed;
+    private long elapsedMillis;
+    private List<BulkGradeRowResult> results; // Cùng thứ tự với danh sách gửi lên
+}
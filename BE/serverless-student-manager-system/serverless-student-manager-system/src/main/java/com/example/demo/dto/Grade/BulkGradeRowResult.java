@@ -0,0 +1,18 @@
+package com.example.demo.dto.Grade;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkGradeRowResult {
+    private String studentId;
+    private boolean success;
+    private Double previousScore; // Điểm trước khi chấm (null = chưa chấm)
+    private Double score;
+    private String error;         // Lý do lỗi khi success = false
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto.Lecturer;
+
+import com.example.demo.service.Gradebook;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/** Bảng điểm cả lớp cho giảng viên: ma trận điểm + danh sách sinh viên đang học (thứ tự hàng). */
+@Getter
+@AllArgsConstructor
+public class GradebookGrid {
+    private final Gradebook gradebook;
+    private final List<StudentInClassDto> students;
+}
@@ -109,6 +109,12 @@ public class SchoolItem {
     private Integer likeCount;  // Đếm like/reactions
     private Integer commentCount; // Đếm comment trên post
 
+    // ========================================================================
+    // 7b. BẢNG XẾP HẠNG LỚP (CLASS#id / LEADERBOARD)
+    // ========================================================================
+    private String leaderboard; // "SE01:27.5;SE07:19" - tổng điểm giảm dần
+    private Integer version;    // Khóa lạc quan khi ghi lại cả item
+
     // ========================================================================
     // 8. MAPPING VỚI DYNAMODB
     // ========================================================================
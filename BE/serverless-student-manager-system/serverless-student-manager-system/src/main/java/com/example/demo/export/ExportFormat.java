@@ -0,0 +1,38 @@
+package com.example.demo.export;
+
+/**
+ * Định dạng file export: NDJSON (1 object JSON / dòng) hoặc CSV (dòng đầu là header).
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /** null/rỗng -> NDJSON. */
+    public static ExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("format không hợp lệ: " + value + " (chỉ hỗ trợ ndjson, csv)");
+    }
+}
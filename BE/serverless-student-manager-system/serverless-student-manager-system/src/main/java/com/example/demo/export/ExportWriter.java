@@ -0,0 +1,117 @@
+package com.example.demo.export;
+
+import com.example.demo.repository.FieldProjection;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ghi từng trang DTO ra OutputStream của response (NDJSON/CSV, tuỳ chọn gzip).
+ * Mỗi trang được flush ngay -> client nhận byte đầu tiên sớm, heap chỉ giữ 1 trang.
+ * Không đóng OutputStream gốc (container tự đóng), chỉ finish gzip trong {@link #finish()}.
+ */
+public class ExportWriter<D> {
+
+    private final ExportFormat format;
+    private final FieldProjection.Selection<D> fields;
+    private final ObjectMapper objectMapper;
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private boolean headerWritten;
+    private long rows;
+
+    public ExportWriter(OutputStream out, ExportFormat format, FieldProjection.Selection<D> fields,
+                        ObjectMapper objectMapper, boolean gzip) throws IOException {
+        this.format = format;
+        this.fields = fields;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip ? new GZIPOutputStream(out, true) : null;
+        this.writer = new BufferedWriter(new OutputStreamWriter(gzip ? this.gzip : out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.NDJSON) {
+            this.json = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.json.setRootValueSeparator(null);
+        } else {
+            this.json = null;
+        }
+    }
+
+    /** Ghi 1 trang rồi flush (ném UncheckedIOException nếu client ngắt kết nối). */
+    public void writePage(List<D> page) {
+        try {
+            for (D dto : page) {
+                if (format == ExportFormat.NDJSON) {
+                    objectMapper.writeValue(json, fields.shape(dto));
+                    json.flush();
+                    writer.write('\n');
+                } else {
+                    writeCsvRow(fields.toMap(dto));
+                }
+                rows++;
+            }
+            writer.flush();
+            if (gzip != null) {
+                gzip.flush(); // syncFlush -> đẩy phần đã nén xuống client
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Ghi phần còn lại (header CSV nếu chưa có dòng nào, trailer gzip). */
+    public void finish() throws IOException {
+        if (format == ExportFormat.CSV && !headerWritten) {
+            writeCsvHeader();
+        }
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    // ==== CSV ====
+
+    private void writeCsvRow(Map<String, Object> row) throws IOException {
+        if (!headerWritten) {
+            writeCsvHeader();
+        }
+        boolean first = true;
+        for (Object value : row.values()) {
+            if (!first) writer.write(',');
+            writer.write(csvEscape(value == null ? "" : value.toString()));
+            first = false;
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvHeader() throws IOException {
+        writer.write(String.join(",", fields.getFields()));
+        writer.write("\r\n");
+        headerWritten = true;
+    }
+
+    static String csvEscape(String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.export;
+
+import com.example.demo.dto.Lecturer.GradebookGrid;
+import com.example.demo.dto.Lecturer.StudentInClassDto;
+import com.example.demo.service.Gradebook;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Ghi bảng điểm cả lớp dạng JSON theo cột (mỗi cột điểm 1 mảng theo thứ tự sinh viên), ghi thẳng bằng JsonGenerator
+ * không dựng cây / Map trung gian:
+ *
+ *   { "class_id", "version", "status_codes": ["missing","submitted","graded"],
+ *     "assignments": {"id": [...], "title": [...], "weight": [...], "max_score": [...], "deadline": [...]},
+ *     "students":    {"id": [...], "name": [...], "total": [...]},
+ *     "score":  [[cột 0 theo SV], [cột 1], ...],   null = chưa có điểm
+ *     "status": [[...]],                             chỉ số trong status_codes
+ *     "late":   [[...]] }                            1 = nộp muộn
+ *
+ * Lớp 40 SV × 30 cột ~ 1200 ô trong 1 response thay vì 30+ lần gọi danh sách bài nộp từng bài.
+ */
+public final class GradebookJsonWriter {
+
+    static final String[] STATUS_CODES = {"missing", "submitted", "graded"};
+
+    private GradebookJsonWriter() {
+    }
+
+    public static void write(GradebookGrid grid, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        Gradebook gradebook = grid.getGradebook();
+        List<StudentInClassDto> students = grid.getStudents();
+        int columns = gradebook.assignmentCount();
+        List<String> assignmentIds = gradebook.assignmentIds();
+        // Hàng trong ma trận của từng SV đang học (-1 = chưa có bài nộp nào)
+        int[] rows = new int[students.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = gradebook.rowOf(students.get(i).getStudentId());
+        }
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.writeStartObject();
+            json.writeStringField("class_id", gradebook.getClassId());
+            json.writeNumberField("version", gradebook.getVersion());
+            json.writeArrayFieldStart("status_codes");
+            for (String code : STATUS_CODES) json.writeString(code);
+            json.writeEndArray();
+
+            json.writeObjectFieldStart("assignments");
+            json.writeArrayFieldStart("id");
+            for (int a = 0; a < columns; a++) json.writeString(assignmentIds.get(a));
+            json.writeEndArray();
+            json.writeArrayFieldStart("title");
+            for (int a = 0; a < columns; a++) json.writeString(gradebook.assignmentTitle(a));
+            json.writeEndArray();
+            json.writeArrayFieldStart("weight");
+            for (int a = 0; a < columns; a++) json.writeNumber(gradebook.weight(a));
+            json.writeEndArray();
+            json.writeArrayFieldStart("max_score");
+            for (int a = 0; a < columns; a++) json.writeNumber(gradebook.maxScore(a));
+            json.writeEndArray();
+            json.writeArrayFieldStart("deadline");
+            for (int a = 0; a < columns; a++) json.writeString(gradebook.deadline(a));
+            json.writeEndArray();
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("students");
+            json.writeArrayFieldStart("id");
+            for (StudentInClassDto student : students) json.writeString(student.getStudentId());
+            json.writeEndArray();
+            json.writeArrayFieldStart("name");
+            for (StudentInClassDto student : students) json.writeString(student.getStudentName());
+            json.writeEndArray();
+            json.writeArrayFieldStart("total");
+            for (StudentInClassDto student : students) writeNumberOrNull(json, gradebook.total(student.getStudentId()));
+            json.writeEndArray();
+            json.writeEndObject();
+
+            json.writeArrayFieldStart("score");
+            for (int a = 0; a < columns; a++) {
+                json.writeStartArray();
+                for (int row : rows) {
+                    double score = row < 0 ? Double.NaN : gradebook.score(row, a);
+                    if (Double.isNaN(score)) json.writeNull();
+                    else json.writeNumber(score);
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("status");
+            for (int a = 0; a < columns; a++) {
+                json.writeStartArray();
+                for (int row : rows) json.writeNumber(statusCode(gradebook, row, a));
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("late");
+            for (int a = 0; a < columns; a++) {
+                json.writeStartArray();
+                for (int row : rows) {
+                    json.writeNumber(row >= 0 && (gradebook.state(row, a) & Gradebook.LATE) != 0 ? 1 : 0);
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /** Chỉ số trong STATUS_CODES: có điểm = graded, có bài nộp = submitted, còn lại missing. */
+    static int statusCode(Gradebook gradebook, int row, int column) {
+        if (row < 0) return 0;
+        if (!Double.isNaN(gradebook.score(row, column))) return 2;
+        return (gradebook.state(row, column) & Gradebook.SUBMITTED) != 0 ? 1 : 0;
+    }
+
+    private static void writeNumberOrNull(JsonGenerator json, Double value) throws IOException {
+        if (value == null) json.writeNull();
+        else json.writeNumber(value);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.local;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * So sánh / đo kích thước AttributeValue theo quy tắc của DynamoDB.
+ */
+final class AttributeValues {
+
+    private AttributeValues() {
+    }
+
+    /** S, N, B, SS, NS, BS, M, L, NULL, BOOL (null nếu value rỗng). */
+    static String typeOf(AttributeValue v) {
+        if (v == null) return null;
+        if (v.s() != null) return "S";
+        if (v.n() != null) return "N";
+        if (v.b() != null) return "B";
+        if (v.hasSs()) return "SS";
+        if (v.hasNs()) return "NS";
+        if (v.hasBs()) return "BS";
+        if (v.hasM()) return "M";
+        if (v.hasL()) return "L";
+        if (v.nul() != null) return "NULL";
+        if (v.bool() != null) return "BOOL";
+        return null;
+    }
+
+    static BigDecimal number(AttributeValue v) {
+        try {
+            return new BigDecimal(v.n());
+        } catch (NumberFormatException e) {
+            throw Errors.validation("Giá trị N không hợp lệ: " + v.n());
+        }
+    }
+
+    static AttributeValue fromNumber(BigDecimal n) {
+        BigDecimal normalized = n.signum() == 0 ? BigDecimal.ZERO : n.stripTrailingZeros();
+        return AttributeValue.fromN(normalized.toPlainString());
+    }
+
+    /**
+     * So sánh thứ tự cho S / N / B. Trả null nếu 2 giá trị khác kiểu hoặc kiểu không so sánh được
+     * (DynamoDB coi phép so sánh đó là false).
+     */
+    static Integer compare(AttributeValue a, AttributeValue b) {
+        String type = typeOf(a);
+        if (type == null || !type.equals(typeOf(b))) return null;
+        switch (type) {
+            case "S":
+                return a.s().compareTo(b.s());
+            case "N":
+                return number(a).compareTo(number(b));
+            case "B":
+                return compareBytes(a.b().asByteArrayUnsafe(), b.b().asByteArrayUnsafe());
+            default:
+                return null;
+        }
+    }
+
+    static int compareBytes(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+            if (c != 0) return c;
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /** Bằng nhau theo ngữ nghĩa DynamoDB: N so theo giá trị, set không phân biệt thứ tự. */
+    static boolean valueEquals(AttributeValue a, AttributeValue b) {
+        String type = typeOf(a);
+        if (type == null || !type.equals(typeOf(b))) return false;
+        switch (type) {
+            case "S":
+            case "N":
+            case "B":
+                return compare(a, b) == 0;
+            case "SS":
+                return new HashSet<>(a.ss()).equals(new HashSet<>(b.ss()));
+            case "NS":
+                return numberSet(a.ns()).equals(numberSet(b.ns()));
+            case "BS":
+                return new HashSet<>(a.bs()).equals(new HashSet<>(b.bs()));
+            case "L":
+                if (a.l().size() != b.l().size()) return false;
+                for (int i = 0; i < a.l().size(); i++) {
+                    if (!valueEquals(a.l().get(i), b.l().get(i))) return false;
+                }
+                return true;
+            case "M":
+                if (!a.m().keySet().equals(b.m().keySet())) return false;
+                for (Map.Entry<String, AttributeValue> e : a.m().entrySet()) {
+                    if (!valueEquals(e.getValue(), b.m().get(e.getKey()))) return false;
+                }
+                return true;
+            default:
+                return Objects.equals(a, b);
+        }
+    }
+
+    static HashSet<BigDecimal> numberSet(List<String> ns) {
+        HashSet<BigDecimal> out = new HashSet<>();
+        for (String n : ns) {
+            out.add(new BigDecimal(n).stripTrailingZeros());
+        }
+        return out;
+    }
+
+    /** Hàm size() trong expression. */
+    static Integer size(AttributeValue v) {
+        String type = typeOf(v);
+        if (type == null) return null;
+        switch (type) {
+            case "S":
+                return v.s().length();
+            case "B":
+                return v.b().asByteArrayUnsafe().length;
+            case "SS":
+                return v.ss().size();
+            case "NS":
+                return v.ns().size();
+            case "BS":
+                return v.bs().size();
+            case "L":
+                return v.l().size();
+            case "M":
+                return v.m().size();
+            default:
+                return null;
+        }
+    }
+
+    // ==== Kích thước (ước lượng theo cách DynamoDB tính item size) ====
+
+    static long itemSize(Map<String, AttributeValue> item) {
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> e : item.entrySet()) {
+            size += utf8Length(e.getKey()) + valueSize(e.getValue());
+        }
+        return size;
+    }
+
+    static long valueSize(AttributeValue v) {
+        String type = typeOf(v);
+        if (type == null) return 0;
+        switch (type) {
+            case "S":
+                return utf8Length(v.s());
+            case "N":
+                return v.n().length() / 2 + 1;
+            case "B":
+                return v.b().asByteArrayUnsafe().length;
+            case "SS":
+                return v.ss().stream().mapToLong(AttributeValues::utf8Length).sum();
+            case "NS":
+                return v.ns().stream().mapToLong(n -> n.length() / 2 + 1).sum();
+            case "BS":
+                return v.bs().stream().mapToLong(b -> b.asByteArrayUnsafe().length).sum();
+            case "M":
+                return 3 + itemSize(v.m()) + v.m().size();
+            case "L":
+                return 3 + v.l().stream().mapToLong(x -> valueSize(x) + 1).sum();
+            default:
+                return 1;
+        }
+    }
+
+    static long utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
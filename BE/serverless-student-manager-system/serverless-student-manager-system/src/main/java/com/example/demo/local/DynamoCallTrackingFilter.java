@@ -0,0 +1,81 @@
+package com.example.demo.local;
+
+import com.example.demo.metrics.MetricsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đếm số lệnh DynamoDB mỗi request tốn, gom theo endpoint ("GET /api/student/classes/{class_id}/posts").
+ * Chỉ tính lệnh chạy trên thread xử lý request; lệnh chạy nền (@Async, NotificationDispatcher...) không được gán
+ * cho request nào. Request không khớp controller (401, 404) gom vào "<METHOD> (unmatched)".
+ */
+public class DynamoCallTrackingFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private final InMemoryDynamoDbClient client;
+    private final Map<String, Counter> endpoints = new ConcurrentHashMap<>();
+
+    public DynamoCallTrackingFilter(InMemoryDynamoDbClient client) {
+        this.client = client;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = client.callsOnCurrentThread();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long used = client.callsOnCurrentThread() - before;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "(unmatched)");
+            Counter counter = endpoints.computeIfAbsent(endpoint, k -> new Counter());
+            counter.requests.increment();
+            counter.calls.add(used);
+        }
+    }
+
+    /** Số request và tổng số lệnh theo endpoint. */
+    public Map<String, long[]> counts() {
+        Map<String, long[]> out = new TreeMap<>();
+        endpoints.forEach((endpoint, c) -> out.put(endpoint, new long[]{c.requests.sum(), c.calls.sum()}));
+        return out;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    @Override
+    public String metricsName() {
+        return "dynamoCallsPerEndpoint";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> out = new TreeMap<>();
+        counts().forEach((endpoint, c) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", c[0]);
+            row.put("dynamoCalls", c[1]);
+            row.put("callsPerRequest", c[0] == 0 ? 0.0 : (double) c[1] / c[0]);
+            out.put(endpoint, row);
+        });
+        return out;
+    }
+
+    private static final class Counter {
+        final LongAdder requests = new LongAdder();
+        final LongAdder calls = new LongAdder();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.local;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.List;
+
+/**
+ * Lỗi giống hệt loại exception mà SDK ném ra khi gọi DynamoDB thật (status 400 + error code),
+ * để code xử lý lỗi (catch ConditionalCheckFailedException...) chạy đúng như trên AWS.
+ */
+final class Errors {
+
+    private Errors() {
+    }
+
+    static DynamoDbException validation(String message) {
+        return (DynamoDbException) DynamoDbException.builder()
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(details("ValidationException", message))
+                .build();
+    }
+
+    static ConditionalCheckFailedException conditionFailed() {
+        String message = "The conditional request failed";
+        return ConditionalCheckFailedException.builder()
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(details("ConditionalCheckFailedException", message))
+                .build();
+    }
+
+    static ResourceNotFoundException tableNotFound(String tableName) {
+        String message = "Requested resource not found: Table: " + tableName + " not found";
+        return ResourceNotFoundException.builder()
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(details("ResourceNotFoundException", message))
+                .build();
+    }
+
+    static ResourceInUseException tableExists(String tableName) {
+        String message = "Table already exists: " + tableName;
+        return ResourceInUseException.builder()
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(details("ResourceInUseException", message))
+                .build();
+    }
+
+    static TransactionCanceledException transactionCanceled(List<CancellationReason> reasons) {
+        StringBuilder codes = new StringBuilder();
+        for (CancellationReason reason : reasons) {
+            if (codes.length() > 0) codes.append(", ");
+            codes.append(reason.code());
+        }
+        String message = "Transaction cancelled, please refer cancellation reasons for specific reasons [" + codes + "]";
+        return TransactionCanceledException.builder()
+                .message(message)
+                .statusCode(400)
+                .cancellationReasons(reasons)
+                .awsErrorDetails(details("TransactionCanceledException", message))
+                .build();
+    }
+
+    private static AwsErrorDetails details(String code, String message) {
+        return AwsErrorDetails.builder()
+                .errorCode(code)
+                .errorMessage(message)
+                .serviceName("DynamoDb")
+                .build();
+    }
+}
@@ -0,0 +1,957 @@
+package com.example.demo.local;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parser + evaluator cho Condition / KeyCondition / Filter / Update / Projection expression.
+ *
+ * Hỗ trợ:
+ *   - so sánh = <> < <= > >=, BETWEEN, IN, AND / OR / NOT, ngoặc
+ *   - attribute_exists, attribute_not_exists, attribute_type, begins_with, contains, size
+ *   - SET (a + b, a - b, if_not_exists, list_append), REMOVE, ADD, DELETE
+ *   - path lồng nhau: a.b[0].c, placeholder #name / :value
+ * Không kiểm tra reserved word và placeholder thừa (DynamoDB thật sẽ báo lỗi).
+ */
+final class Expressions {
+
+    private Expressions() {
+    }
+
+    // ========================================================================
+    // API
+    // ========================================================================
+
+    interface Condition {
+        boolean test(Map<String, AttributeValue> item);
+    }
+
+    static Condition parseCondition(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        Parser parser = new Parser(expression, names, values);
+        Condition condition = parser.parseOr();
+        parser.expectEnd();
+        return condition;
+    }
+
+    static Update parseUpdate(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        Parser parser = new Parser(expression, names, values);
+        Update update = parser.parseUpdate();
+        parser.expectEnd();
+        return update;
+    }
+
+    static List<Path> parseProjection(String expression, Map<String, String> names) {
+        Parser parser = new Parser(expression, names, Collections.emptyMap());
+        List<Path> paths = new ArrayList<>();
+        paths.add(parser.parsePath());
+        while (parser.accept(",")) {
+            paths.add(parser.parsePath());
+        }
+        parser.expectEnd();
+        return paths;
+    }
+
+    /** Chỉ giữ các attribute (cấp 1) có trong projection. */
+    static Map<String, AttributeValue> project(Map<String, AttributeValue> item, List<Path> paths) {
+        if (paths == null) return item;
+        Map<String, AttributeValue> out = new LinkedHashMap<>();
+        for (Path path : paths) {
+            String top = path.topLevel();
+            AttributeValue v = item.get(top);
+            if (v != null) out.put(top, v);
+        }
+        return out;
+    }
+
+    /**
+     * Điều kiện "partition = :v" (bắt buộc) + điều kiện sort key (tuỳ chọn) của KeyConditionExpression.
+     */
+    static final class KeyCondition {
+        final AttributeValue partitionValue;
+        final Condition sortCondition; // null = cả partition
+
+        KeyCondition(AttributeValue partitionValue, Condition sortCondition) {
+            this.partitionValue = partitionValue;
+            this.sortCondition = sortCondition;
+        }
+
+        /** Giá trị sort key nhỏ nhất có thể khớp (null = từ đầu partition). */
+        AttributeValue lowerBound() {
+            if (sortCondition instanceof Compare) {
+                Compare c = (Compare) sortCondition;
+                return c.op.equals("=") || c.op.startsWith(">") ? ((Literal) c.right).value : null;
+            }
+            if (sortCondition instanceof Between) return ((Literal) ((Between) sortCondition).low).value;
+            if (sortCondition instanceof BeginsWith) return ((Literal) ((BeginsWith) sortCondition).prefix).value;
+            return null;
+        }
+
+        /** Giá trị sort key lớn nhất có thể khớp (null = tới cuối partition). */
+        AttributeValue upperBound() {
+            if (sortCondition instanceof Compare) {
+                Compare c = (Compare) sortCondition;
+                return c.op.equals("=") || c.op.startsWith("<") ? ((Literal) c.right).value : null;
+            }
+            if (sortCondition instanceof Between) return ((Literal) ((Between) sortCondition).high).value;
+            return null;
+        }
+    }
+
+    static KeyCondition parseKeyCondition(String expression, Map<String, String> names,
+                                          Map<String, AttributeValue> values, String hashKey, String rangeKey) {
+        Condition parsed = parseCondition(expression, names, values);
+        List<Condition> parts = new ArrayList<>();
+        flattenAnd(parsed, parts);
+        AttributeValue partition = null;
+        Condition sort = null;
+        for (Condition part : parts) {
+            if (part instanceof Compare && ((Compare) part).op.equals("=")
+                    && ((Compare) part).left instanceof Path
+                    && ((Path) ((Compare) part).left).isTopLevel(hashKey)
+                    && ((Compare) part).right instanceof Literal) {
+                if (partition != null) throw Errors.validation("KeyConditionExpression có 2 điều kiện cho partition key");
+                partition = ((Literal) ((Compare) part).right).value;
+            } else if (rangeKey != null && referencesOnly(part, rangeKey)) {
+                if (sort != null) throw Errors.validation("KeyConditionExpression có 2 điều kiện cho sort key");
+                sort = part;
+            } else {
+                throw Errors.validation("KeyConditionExpression không hợp lệ: " + expression);
+            }
+        }
+        if (partition == null) {
+            throw Errors.validation("Query condition missed key schema element: " + hashKey);
+        }
+        return new KeyCondition(partition, sort);
+    }
+
+    private static void flattenAnd(Condition c, List<Condition> out) {
+        if (c instanceof And) {
+            flattenAnd(((And) c).left, out);
+            flattenAnd(((And) c).right, out);
+        } else {
+            out.add(c);
+        }
+    }
+
+    private static boolean referencesOnly(Condition c, String attribute) {
+        if (c instanceof Compare) {
+            Compare cmp = (Compare) c;
+            return !cmp.op.equals("<>") && cmp.left instanceof Path && ((Path) cmp.left).isTopLevel(attribute)
+                    && cmp.right instanceof Literal;
+        }
+        if (c instanceof Between) {
+            Between b = (Between) c;
+            return b.operand instanceof Path && ((Path) b.operand).isTopLevel(attribute)
+                    && b.low instanceof Literal && b.high instanceof Literal;
+        }
+        if (c instanceof BeginsWith) {
+            BeginsWith b = (BeginsWith) c;
+            return b.path.isTopLevel(attribute) && b.prefix instanceof Literal;
+        }
+        return false;
+    }
+
+    // ========================================================================
+    // PATH + OPERAND
+    // ========================================================================
+
+    interface Operand {
+        AttributeValue eval(Map<String, AttributeValue> item);
+    }
+
+    static final class Path implements Operand {
+        final List<Object> elements; // String (tên) hoặc Integer (chỉ số list)
+
+        Path(List<Object> elements) {
+            this.elements = elements;
+        }
+
+        String topLevel() {
+            return (String) elements.get(0);
+        }
+
+        boolean isTopLevel(String name) {
+            return elements.size() == 1 && elements.get(0).equals(name);
+        }
+
+        @Override
+        public AttributeValue eval(Map<String, AttributeValue> item) {
+            AttributeValue current = item.get(topLevel());
+            for (int i = 1; i < elements.size() && current != null; i++) {
+                Object element = elements.get(i);
+                if (element instanceof Integer) {
+                    int index = (Integer) element;
+                    current = current.hasL() && index < current.l().size() ? current.l().get(index) : null;
+                } else {
+                    current = current.hasM() ? current.m().get(element) : null;
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(topLevel());
+            for (int i = 1; i < elements.size(); i++) {
+                Object e = elements.get(i);
+                sb.append(e instanceof Integer ? "[" + e + "]" : "." + e);
+            }
+            return sb.toString();
+        }
+    }
+
+    static final class Literal implements Operand {
+        final AttributeValue value;
+
+        Literal(AttributeValue value) {
+            this.value = value;
+        }
+
+        @Override
+        public AttributeValue eval(Map<String, AttributeValue> item) {
+            return value;
+        }
+    }
+
+    static final class Size implements Operand {
+        final Path path;
+
+        Size(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public AttributeValue eval(Map<String, AttributeValue> item) {
+            Integer size = AttributeValues.size(path.eval(item));
+            return size == null ? null : AttributeValue.fromN(String.valueOf(size));
+        }
+    }
+
+    // ========================================================================
+    // CONDITION NODES
+    // ========================================================================
+
+    static final class Compare implements Condition {
+        final String op;
+        final Operand left;
+        final Operand right;
+
+        Compare(String op, Operand left, Operand right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue l = left.eval(item);
+            AttributeValue r = right.eval(item);
+            if (l == null || r == null) {
+                return false;
+            }
+            if (op.equals("=")) return AttributeValues.valueEquals(l, r);
+            if (op.equals("<>")) return !AttributeValues.valueEquals(l, r);
+            Integer c = AttributeValues.compare(l, r);
+            if (c == null) return false;
+            switch (op) {
+                case "<":
+                    return c < 0;
+                case "<=":
+                    return c <= 0;
+                case ">":
+                    return c > 0;
+                default:
+                    return c >= 0;
+            }
+        }
+    }
+
+    static final class Between implements Condition {
+        final Operand operand;
+        final Operand low;
+        final Operand high;
+
+        Between(Operand operand, Operand low, Operand high) {
+            this.operand = operand;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue v = operand.eval(item);
+            AttributeValue lo = low.eval(item);
+            AttributeValue hi = high.eval(item);
+            if (v == null || lo == null || hi == null) return false;
+            Integer a = AttributeValues.compare(v, lo);
+            Integer b = AttributeValues.compare(v, hi);
+            return a != null && b != null && a >= 0 && b <= 0;
+        }
+    }
+
+    static final class In implements Condition {
+        final Operand operand;
+        final List<Operand> candidates;
+
+        In(Operand operand, List<Operand> candidates) {
+            this.operand = operand;
+            this.candidates = candidates;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue v = operand.eval(item);
+            if (v == null) return false;
+            for (Operand candidate : candidates) {
+                if (AttributeValues.valueEquals(v, candidate.eval(item))) return true;
+            }
+            return false;
+        }
+    }
+
+    static final class And implements Condition {
+        final Condition left;
+        final Condition right;
+
+        And(Condition left, Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            return left.test(item) && right.test(item);
+        }
+    }
+
+    static final class BeginsWith implements Condition {
+        final Path path;
+        final Operand prefix;
+
+        BeginsWith(Path path, Operand prefix) {
+            this.path = path;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue v = path.eval(item);
+            AttributeValue p = prefix.eval(item);
+            if (v == null || p == null) return false;
+            if (v.s() != null && p.s() != null) return v.s().startsWith(p.s());
+            if (v.b() != null && p.b() != null) {
+                byte[] value = v.b().asByteArrayUnsafe();
+                byte[] pre = p.b().asByteArrayUnsafe();
+                if (pre.length > value.length) return false;
+                for (int i = 0; i < pre.length; i++) {
+                    if (value[i] != pre[i]) return false;
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static boolean contains(AttributeValue v, AttributeValue operand) {
+        if (v == null || operand == null) return false;
+        if (v.s() != null) return operand.s() != null && v.s().contains(operand.s());
+        if (v.hasSs()) return operand.s() != null && v.ss().contains(operand.s());
+        if (v.hasNs()) {
+            return operand.n() != null
+                    && AttributeValues.numberSet(v.ns()).contains(AttributeValues.number(operand).stripTrailingZeros());
+        }
+        if (v.hasBs()) return operand.b() != null && v.bs().contains(operand.b());
+        if (v.hasL()) {
+            for (AttributeValue element : v.l()) {
+                if (AttributeValues.valueEquals(element, operand)) return true;
+            }
+        }
+        return false;
+    }
+
+    // ========================================================================
+    // UPDATE
+    // ========================================================================
+
+    /** Kết quả parse UpdateExpression. Mọi vế phải được tính trên item TRƯỚC khi cập nhật. */
+    static final class Update {
+        final List<Object[]> sets = new ArrayList<>();    // {Path, Operand}
+        final List<Path> removes = new ArrayList<>();
+        final List<Object[]> adds = new ArrayList<>();    // {Path, Operand}
+        final List<Object[]> deletes = new ArrayList<>(); // {Path, Operand}
+
+        /** Các attribute cấp 1 bị đụng tới (dùng cho ReturnValues UPDATED_*). */
+        Set<String> touchedAttributes() {
+            Set<String> out = new LinkedHashSet<>();
+            for (Object[] s : sets) out.add(((Path) s[0]).topLevel());
+            for (Path p : removes) out.add(p.topLevel());
+            for (Object[] a : adds) out.add(((Path) a[0]).topLevel());
+            for (Object[] d : deletes) out.add(((Path) d[0]).topLevel());
+            return out;
+        }
+
+        Map<String, AttributeValue> apply(Map<String, AttributeValue> original) {
+            // 1. Tính giá trị trên item cũ
+            List<AttributeValue> setValues = new ArrayList<>();
+            for (Object[] s : sets) {
+                AttributeValue v = ((Operand) s[1]).eval(original);
+                if (v == null) {
+                    throw Errors.validation("The provided expression refers to an attribute that does not exist in the item");
+                }
+                setValues.add(v);
+            }
+            List<AttributeValue> addValues = new ArrayList<>();
+            for (Object[] a : adds) {
+                AttributeValue delta = ((Operand) a[1]).eval(original);
+                AttributeValue current = ((Path) a[0]).eval(original);
+                addValues.add(add(current, delta));
+            }
+            List<AttributeValue> deleteValues = new ArrayList<>();
+            for (Object[] d : deletes) {
+                AttributeValue remove = ((Operand) d[1]).eval(original);
+                AttributeValue current = ((Path) d[0]).eval(original);
+                deleteValues.add(current == null ? null : deleteFromSet(current, remove));
+            }
+
+            // 2. Ghi vào bản sao
+            Map<String, AttributeValue> item = new LinkedHashMap<>(original);
+            for (int i = 0; i < sets.size(); i++) {
+                item = setPath(item, (Path) sets.get(i)[0], setValues.get(i));
+            }
+            for (int i = 0; i < adds.size(); i++) {
+                item = setPath(item, (Path) adds.get(i)[0], addValues.get(i));
+            }
+            for (int i = 0; i < deletes.size(); i++) {
+                AttributeValue v = deleteValues.get(i);
+                Path path = (Path) deletes.get(i)[0];
+                item = v == null ? removePath(item, path) : setPath(item, path, v);
+            }
+            for (Path path : removes) {
+                item = removePath(item, path);
+            }
+            return item;
+        }
+    }
+
+    /** SET a = b + c / b - c. */
+    private static final class Arithmetic implements Operand {
+        final Operand left;
+        final Operand right;
+        final boolean plus;
+
+        Arithmetic(Operand left, Operand right, boolean plus) {
+            this.left = left;
+            this.right = right;
+            this.plus = plus;
+        }
+
+        @Override
+        public AttributeValue eval(Map<String, AttributeValue> item) {
+            AttributeValue l = left.eval(item);
+            AttributeValue r = right.eval(item);
+            if (l == null || r == null || l.n() == null || r.n() == null) {
+                throw Errors.validation("An operand in the update expression has an incorrect data type");
+            }
+            BigDecimal a = AttributeValues.number(l);
+            BigDecimal b = AttributeValues.number(r);
+            return AttributeValues.fromNumber(plus ? a.add(b) : a.subtract(b));
+        }
+    }
+
+    private static final class IfNotExists implements Operand {
+        final Path path;
+        final Operand fallback;
+
+        IfNotExists(Path path, Operand fallback) {
+            this.path = path;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public AttributeValue eval(Map<String, AttributeValue> item) {
+            AttributeValue v = path.eval(item);
+            return v != null ? v : fallback.eval(item);
+        }
+    }
+
+    private static final class ListAppend implements Operand {
+        final Operand first;
+        final Operand second;
+
+        ListAppend(Operand first, Operand second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public AttributeValue eval(Map<String, AttributeValue> item) {
+            AttributeValue a = first.eval(item);
+            AttributeValue b = second.eval(item);
+            if (a == null || b == null || !a.hasL() || !b.hasL()) {
+                throw Errors.validation("list_append chỉ nhận 2 list");
+            }
+            List<AttributeValue> joined = new ArrayList<>(a.l());
+            joined.addAll(b.l());
+            return AttributeValue.fromL(joined);
+        }
+    }
+
+    private static AttributeValue add(AttributeValue current, AttributeValue delta) {
+        if (delta == null) throw Errors.validation("ADD thiếu giá trị");
+        if (delta.n() != null) {
+            if (current == null) return AttributeValues.fromNumber(AttributeValues.number(delta));
+            if (current.n() == null) throw Errors.validation("ADD: attribute hiện tại không phải số");
+            return AttributeValues.fromNumber(AttributeValues.number(current).add(AttributeValues.number(delta)));
+        }
+        if (delta.hasSs()) {
+            Set<String> out = new LinkedHashSet<>(current == null ? List.of() : requireType(current, "SS").ss());
+            out.addAll(delta.ss());
+            return AttributeValue.fromSs(new ArrayList<>(out));
+        }
+        if (delta.hasNs()) {
+            Set<String> out = new LinkedHashSet<>(current == null ? List.of() : requireType(current, "NS").ns());
+            out.addAll(delta.ns());
+            return AttributeValue.fromNs(new ArrayList<>(out));
+        }
+        if (delta.hasBs()) {
+            Set<SdkBytes> out = new LinkedHashSet<>(current == null ? List.of() : requireType(current, "BS").bs());
+            out.addAll(delta.bs());
+            return AttributeValue.fromBs(new ArrayList<>(out));
+        }
+        throw Errors.validation("ADD chỉ dùng cho số hoặc set");
+    }
+
+    private static AttributeValue deleteFromSet(AttributeValue current, AttributeValue remove) {
+        if (remove == null) throw Errors.validation("DELETE thiếu giá trị");
+        String type = AttributeValues.typeOf(remove);
+        requireType(current, type);
+        if ("SS".equals(type)) {
+            List<String> out = new ArrayList<>(current.ss());
+            out.removeAll(remove.ss());
+            return out.isEmpty() ? null : AttributeValue.fromSs(out);
+        } else if ("NS".equals(type)) {
+            List<String> out = new ArrayList<>(current.ns());
+            out.removeAll(remove.ns());
+            return out.isEmpty() ? null : AttributeValue.fromNs(out);
+        } else if ("BS".equals(type)) {
+            List<SdkBytes> out = new ArrayList<>(current.bs());
+            out.removeAll(remove.bs());
+            return out.isEmpty() ? null : AttributeValue.fromBs(out);
+        }
+        throw Errors.validation("DELETE chỉ dùng cho set");
+    }
+
+    private static AttributeValue requireType(AttributeValue v, String type) {
+        if (!type.equals(AttributeValues.typeOf(v))) {
+            throw Errors.validation("An operand in the update expression has an incorrect data type");
+        }
+        return v;
+    }
+
+    private static Map<String, AttributeValue> setPath(Map<String, AttributeValue> item, Path path, AttributeValue value) {
+        if (path.elements.size() == 1) {
+            item.put(path.topLevel(), value);
+            return item;
+        }
+        AttributeValue parent = item.get(path.topLevel());
+        if (parent == null) throw invalidDocumentPath();
+        item.put(path.topLevel(), setNested(parent, path.elements, 1, value));
+        return item;
+    }
+
+    private static AttributeValue setNested(AttributeValue container, List<Object> elements, int index, AttributeValue value) {
+        Object element = elements.get(index);
+        boolean last = index == elements.size() - 1;
+        if (element instanceof Integer) {
+            if (!container.hasL()) throw invalidDocumentPath();
+            List<AttributeValue> list = new ArrayList<>(container.l());
+            int i = (Integer) element;
+            if (last) {
+                if (i >= list.size()) list.add(value);
+                else list.set(i, value);
+            } else {
+                if (i >= list.size()) throw invalidDocumentPath();
+                list.set(i, setNested(list.get(i), elements, index + 1, value));
+            }
+            return AttributeValue.fromL(list);
+        }
+        if (!container.hasM()) throw invalidDocumentPath();
+        Map<String, AttributeValue> map = new LinkedHashMap<>(container.m());
+        if (last) {
+            map.put((String) element, value);
+        } else {
+            AttributeValue child = map.get(element);
+            if (child == null) throw invalidDocumentPath();
+            map.put((String) element, setNested(child, elements, index + 1, value));
+        }
+        return AttributeValue.fromM(map);
+    }
+
+    private static Map<String, AttributeValue> removePath(Map<String, AttributeValue> item, Path path) {
+        if (path.elements.size() == 1) {
+            item.remove(path.topLevel());
+            return item;
+        }
+        AttributeValue parent = item.get(path.topLevel());
+        if (parent != null) {
+            item.put(path.topLevel(), removeNested(parent, path.elements, 1));
+        }
+        return item;
+    }
+
+    private static AttributeValue removeNested(AttributeValue container, List<Object> elements, int index) {
+        Object element = elements.get(index);
+        boolean last = index == elements.size() - 1;
+        if (element instanceof Integer && container.hasL()) {
+            List<AttributeValue> list = new ArrayList<>(container.l());
+            int i = (Integer) element;
+            if (i >= list.size()) return container;
+            if (last) list.remove(i);
+            else list.set(i, removeNested(list.get(i), elements, index + 1));
+            return AttributeValue.fromL(list);
+        }
+        if (element instanceof String && container.hasM()) {
+            Map<String, AttributeValue> map = new LinkedHashMap<>(container.m());
+            if (last) {
+                map.remove(element);
+            } else if (map.containsKey(element)) {
+                map.put((String) element, removeNested(map.get(element), elements, index + 1));
+            }
+            return AttributeValue.fromM(map);
+        }
+        return container;
+    }
+
+    private static RuntimeException invalidDocumentPath() {
+        return Errors.validation("The document path provided in the update expression is invalid for update");
+    }
+
+    // ========================================================================
+    // TOKENIZER + PARSER
+    // ========================================================================
+
+    private static final class Parser {
+        private final String source;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private final List<String> tokens = new ArrayList<>();
+        private int pos;
+
+        Parser(String source, Map<String, String> names, Map<String, AttributeValue> values) {
+            this.source = source;
+            this.names = names == null ? Collections.emptyMap() : names;
+            this.values = values == null ? Collections.emptyMap() : values;
+            tokenize();
+        }
+
+        private void tokenize() {
+            int i = 0;
+            int n = source.length();
+            while (i < n) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '#' || c == ':' || Character.isLetterOrDigit(c) || c == '_') {
+                    int start = i++;
+                    while (i < n && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_'
+                            || source.charAt(i) == '-')) {
+                        i++;
+                    }
+                    tokens.add(source.substring(start, i));
+                } else if ((c == '<' || c == '>') && i + 1 < n && (source.charAt(i + 1) == '=' || source.charAt(i + 1) == '>')) {
+                    String op = source.substring(i, i + 2);
+                    if (op.equals("><")) throw syntax("><");
+                    tokens.add(op);
+                    i += 2;
+                } else if ("=<>(),.[]+-".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw syntax(String.valueOf(c));
+                }
+            }
+        }
+
+        private String peek() {
+            return pos < tokens.size() ? tokens.get(pos) : null;
+        }
+
+        private String peek(int offset) {
+            return pos + offset < tokens.size() ? tokens.get(pos + offset) : null;
+        }
+
+        private String next() {
+            if (pos >= tokens.size()) throw syntax("<EOF>");
+            return tokens.get(pos++);
+        }
+
+        boolean accept(String token) {
+            if (token.equals(peek())) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            String t = peek();
+            if (t != null && t.equalsIgnoreCase(keyword)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            String t = next();
+            if (!token.equals(t)) throw syntax(t);
+        }
+
+        void expectEnd() {
+            if (pos < tokens.size()) throw syntax(tokens.get(pos));
+        }
+
+        private RuntimeException syntax(String near) {
+            return Errors.validation("Invalid expression: Syntax error; token: \"" + near + "\", expression: " + source);
+        }
+
+        // ---- Condition ----
+
+        Condition parseOr() {
+            Condition left = parseAnd();
+            while (acceptKeyword("OR")) {
+                Condition l = left;
+                Condition r = parseAnd();
+                left = item -> l.test(item) || r.test(item);
+            }
+            return left;
+        }
+
+        private Condition parseAnd() {
+            Condition left = parseNot();
+            while (acceptKeyword("AND")) {
+                left = new And(left, parseNot());
+            }
+            return left;
+        }
+
+        private Condition parseNot() {
+            if (acceptKeyword("NOT")) {
+                Condition inner = parseNot();
+                return item -> !inner.test(item);
+            }
+            return parsePrimary();
+        }
+
+        private Condition parsePrimary() {
+            if (accept("(")) {
+                Condition inner = parseOr();
+                expect(")");
+                return inner;
+            }
+            String t = peek();
+            if (t != null && "(".equals(peek(1)) && !t.equalsIgnoreCase("size")) {
+                return parseFunction();
+            }
+            Operand left = parseOperand();
+            if (acceptKeyword("BETWEEN")) {
+                Operand low = parseOperand();
+                if (!acceptKeyword("AND")) throw syntax(peek());
+                Operand high = parseOperand();
+                return new Between(left, low, high);
+            }
+            if (acceptKeyword("IN")) {
+                expect("(");
+                List<Operand> candidates = new ArrayList<>();
+                candidates.add(parseOperand());
+                while (accept(",")) candidates.add(parseOperand());
+                expect(")");
+                if (candidates.size() > 100) throw Errors.validation("IN tối đa 100 giá trị");
+                return new In(left, candidates);
+            }
+            String op = next();
+            if (!List.of("=", "<>", "<", "<=", ">", ">=").contains(op)) throw syntax(op);
+            return new Compare(op, left, parseOperand());
+        }
+
+        private Condition parseFunction() {
+            String name = next().toLowerCase(Locale.ROOT);
+            expect("(");
+            Condition result;
+            switch (name) {
+                case "attribute_exists": {
+                    Path path = parsePath();
+                    result = item -> path.eval(item) != null;
+                    break;
+                }
+                case "attribute_not_exists": {
+                    Path path = parsePath();
+                    result = item -> path.eval(item) == null;
+                    break;
+                }
+                case "attribute_type": {
+                    Path path = parsePath();
+                    expect(",");
+                    Operand type = parseOperand();
+                    result = item -> {
+                        AttributeValue t = type.eval(item);
+                        return t != null && t.s() != null && t.s().equals(AttributeValues.typeOf(path.eval(item)));
+                    };
+                    break;
+                }
+                case "begins_with": {
+                    Path path = parsePath();
+                    expect(",");
+                    result = new BeginsWith(path, parseOperand());
+                    break;
+                }
+                case "contains": {
+                    Path path = parsePath();
+                    expect(",");
+                    Operand operand = parseOperand();
+                    result = item -> contains(path.eval(item), operand.eval(item));
+                    break;
+                }
+                default:
+                    throw Errors.validation("Invalid function name; function: " + name);
+            }
+            expect(")");
+            return result;
+        }
+
+        private Operand parseOperand() {
+            String t = peek();
+            if (t == null) throw syntax("<EOF>");
+            if (t.startsWith(":")) {
+                pos++;
+                AttributeValue v = values.get(t);
+                if (v == null) {
+                    throw Errors.validation("An expression attribute value used in expression is not defined; attribute value: " + t);
+                }
+                return new Literal(v);
+            }
+            if (t.equalsIgnoreCase("size") && "(".equals(peek(1))) {
+                pos += 2;
+                Path path = parsePath();
+                expect(")");
+                return new Size(path);
+            }
+            return parsePath();
+        }
+
+        Path parsePath() {
+            List<Object> elements = new ArrayList<>();
+            elements.add(name(next()));
+            while (true) {
+                if (accept(".")) {
+                    elements.add(name(next()));
+                } else if (accept("[")) {
+                    String index = next();
+                    try {
+                        elements.add(Integer.parseInt(index));
+                    } catch (NumberFormatException e) {
+                        throw syntax(index);
+                    }
+                    expect("]");
+                } else {
+                    return new Path(elements);
+                }
+            }
+        }
+
+        private String name(String token) {
+            if (token.startsWith("#")) {
+                String resolved = names.get(token);
+                if (resolved == null) {
+                    throw Errors.validation("An expression attribute name used in the document path is not defined; attribute name: " + token);
+                }
+                return resolved;
+            }
+            if (token.startsWith(":") || !Character.isLetter(token.charAt(0))) throw syntax(token);
+            return token;
+        }
+
+        // ---- Update ----
+
+        Update parseUpdate() {
+            Update update = new Update();
+            Set<String> seen = new LinkedHashSet<>();
+            while (peek() != null) {
+                String clause = next().toUpperCase(Locale.ROOT);
+                if (!seen.add(clause)) {
+                    throw Errors.validation("The \"" + clause + "\" section can only be used once in an update expression");
+                }
+                switch (clause) {
+                    case "SET":
+                        do {
+                            Path path = parsePath();
+                            expect("=");
+                            update.sets.add(new Object[]{path, parseSetValue()});
+                        } while (accept(","));
+                        break;
+                    case "REMOVE":
+                        do {
+                            update.removes.add(parsePath());
+                        } while (accept(","));
+                        break;
+                    case "ADD":
+                        do {
+                            Path path = parsePath();
+                            update.adds.add(new Object[]{path, parseOperand()});
+                        } while (accept(","));
+                        break;
+                    case "DELETE":
+                        do {
+                            Path path = parsePath();
+                            update.deletes.add(new Object[]{path, parseOperand()});
+                        } while (accept(","));
+                        break;
+                    default:
+                        throw syntax(clause);
+                }
+            }
+            if (seen.isEmpty()) throw syntax("<EOF>");
+            return update;
+        }
+
+        private Operand parseSetValue() {
+            Operand left = parseSetTerm();
+            if (accept("+")) return new Arithmetic(left, parseSetTerm(), true);
+            if (accept("-")) return new Arithmetic(left, parseSetTerm(), false);
+            return left;
+        }
+
+        private Operand parseSetTerm() {
+            String t = peek();
+            if (t != null && "(".equals(peek(1))) {
+                if (t.equalsIgnoreCase("if_not_exists")) {
+                    pos += 2;
+                    Path path = parsePath();
+                    expect(",");
+                    Operand fallback = parseSetTerm();
+                    expect(")");
+                    return new IfNotExists(path, fallback);
+                }
+                if (t.equalsIgnoreCase("list_append")) {
+                    pos += 2;
+                    Operand first = parseSetTerm();
+                    expect(",");
+                    Operand second = parseSetTerm();
+                    expect(")");
+                    return new ListAppend(first, second);
+                }
+            }
+            return parseOperand();
+        }
+    }
+}
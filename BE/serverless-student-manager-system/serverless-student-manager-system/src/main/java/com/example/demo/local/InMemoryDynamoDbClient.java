@@ -0,0 +1,668 @@
+package com.example.demo.local;
+
+import com.example.demo.metrics.MetricsSource;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.Get;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * DynamoDbClient chạy hoàn toàn trong bộ nhớ (không cần AWS), dùng cho profile "local-dynamo",
+ * test và benchmark.
+ *
+ * Hỗ trợ: CreateTable/DescribeTable/DeleteTable/ListTables, GetItem, PutItem, UpdateItem, DeleteItem,
+ * Query (bảng + GSI), Scan (gồm Segment), BatchGetItem, BatchWriteItem, TransactWriteItems,
+ * TransactGetItems; ConditionExpression, FilterExpression, UpdateExpression, ProjectionExpression;
+ * Limit + ExclusiveStartKey/LastEvaluatedKey, trang tối đa 1MB như DynamoDB thật.
+ * Lỗi ném ra cùng loại exception với SDK (ConditionalCheckFailedException, TransactionCanceledException...).
+ *
+ * Khác DynamoDB thật:
+ *   - mọi lệnh đọc đều strongly consistent, BatchGet/BatchWrite không bao giờ trả Unprocessed*,
+ *   - không kiểm tra reserved word, không giới hạn throughput,
+ *   - ProjectionExpression với path lồng nhau (a.b) trả cả attribute cấp 1 (a).
+ *
+ * Độ trễ giả lập: mỗi lệnh ngủ latencyMillis + random(0..jitterMillis) trước khi chạy,
+ * để benchmark thấy được tác dụng của batch / song song hoá như khi gọi qua mạng.
+ * Toàn bộ dữ liệu dùng chung 1 ReadWriteLock: đọc song song được, ghi tuần tự.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient, MetricsSource {
+
+    /** Giới hạn dữ liệu đọc của 1 trang Query/Scan. */
+    static final long MAX_PAGE_BYTES = 1024 * 1024;
+    private static final int MAX_BATCH_GET = 100;
+    private static final int MAX_BATCH_WRITE = 25;
+    private static final int MAX_TRANSACT_ITEMS = 100;
+
+    private final Map<String, InMemoryTable> tables = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> threadCalls = ThreadLocal.withInitial(() -> new long[1]);
+    private final long latencyMillis;
+    private final long jitterMillis;
+
+    public InMemoryDynamoDbClient() {
+        this(0, 0);
+    }
+
+    public InMemoryDynamoDbClient(long latencyMillis, long jitterMillis) {
+        if (latencyMillis < 0 || jitterMillis < 0) {
+            throw new IllegalArgumentException("latencyMillis / jitterMillis không được âm");
+        }
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // Không giữ tài nguyên ngoài
+    }
+
+    /** Số lần gọi theo từng operation (VD: "Query" -> 12). */
+    public Map<String, Long> callCounts() {
+        Map<String, Long> out = new TreeMap<>();
+        calls.forEach((op, n) -> out.put(op, n.sum()));
+        return out;
+    }
+
+    public void resetCallCounts() {
+        calls.clear();
+    }
+
+    /**
+     * Tổng số lệnh mà thread hiện tại đã gọi (cộng dồn, không reset).
+     * Lấy hiệu trước/sau 1 request để biết request đó tốn bao nhiêu lệnh (xem {@link DynamoCallTrackingFilter}).
+     */
+    public long callsOnCurrentThread() {
+        return threadCalls.get()[0];
+    }
+
+    @Override
+    public String metricsName() {
+        return "inMemoryDynamo";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("latencyMillis", latencyMillis);
+        out.put("jitterMillis", jitterMillis);
+        out.put("calls", callCounts());
+        Map<String, Long> items = new TreeMap<>();
+        read(() -> {
+            tables.forEach((name, table) -> items.put(name, table.itemCount()));
+            return null;
+        });
+        out.put("items", items);
+        return out;
+    }
+
+    // ========================================================================
+    // TABLE
+    // ========================================================================
+
+    @Override
+    public CreateTableResponse createTable(CreateTableRequest request) {
+        enter("CreateTable");
+        return write(() -> {
+            if (tables.containsKey(request.tableName())) {
+                throw Errors.tableExists(request.tableName());
+            }
+            InMemoryTable table = new InMemoryTable(request);
+            tables.put(table.name, table);
+            return CreateTableResponse.builder().tableDescription(table.describe()).build();
+        });
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        enter("DescribeTable");
+        return read(() -> DescribeTableResponse.builder().table(table(request.tableName()).describe()).build());
+    }
+
+    @Override
+    public DeleteTableResponse deleteTable(DeleteTableRequest request) {
+        enter("DeleteTable");
+        return write(() -> {
+            InMemoryTable table = table(request.tableName());
+            tables.remove(table.name);
+            return DeleteTableResponse.builder().tableDescription(table.describe()).build();
+        });
+    }
+
+    @Override
+    public ListTablesResponse listTables(ListTablesRequest request) {
+        enter("ListTables");
+        return read(() -> ListTablesResponse.builder().tableNames(new ArrayList<>(tables.keySet())).build());
+    }
+
+    @Override
+    public ListTablesResponse listTables() {
+        return listTables(ListTablesRequest.builder().build());
+    }
+
+    // ========================================================================
+    // ITEM
+    // ========================================================================
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        enter("GetItem");
+        List<Expressions.Path> projection = projection(request.projectionExpression(), request.expressionAttributeNames());
+        return read(() -> {
+            InMemoryTable table = table(request.tableName());
+            Map<String, AttributeValue> item = table.get(table.exactKey(request.key()));
+            GetItemResponse.Builder response = GetItemResponse.builder();
+            if (item != null) {
+                response.item(Expressions.project(item, projection));
+            }
+            return response.build();
+        });
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        enter("PutItem");
+        Expressions.Condition condition = condition(request.conditionExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        return write(() -> {
+            InMemoryTable table = table(request.tableName());
+            Map<String, AttributeValue> old = table.get(table.validate(request.item()));
+            check(condition, old);
+            table.put(request.item());
+            PutItemResponse.Builder response = PutItemResponse.builder();
+            if (request.returnValues() == ReturnValue.ALL_OLD && old != null) {
+                response.attributes(old);
+            }
+            return response.build();
+        });
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        enter("UpdateItem");
+        Expressions.Condition condition = condition(request.conditionExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        Expressions.Update update = request.updateExpression() == null ? null
+                : Expressions.parseUpdate(request.updateExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        return write(() -> {
+            InMemoryTable table = table(request.tableName());
+            Map<String, AttributeValue> old = table.get(table.exactKey(request.key()));
+            check(condition, old);
+            Map<String, AttributeValue> updated = applyUpdate(table, request.key(), old, update);
+            table.put(updated);
+            return UpdateItemResponse.builder()
+                    .attributes(returnValues(request.returnValues(), old, updated, update))
+                    .build();
+        });
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        enter("DeleteItem");
+        Expressions.Condition condition = condition(request.conditionExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        return write(() -> {
+            InMemoryTable table = table(request.tableName());
+            InMemoryTable.PrimaryKey key = table.exactKey(request.key());
+            check(condition, table.get(key));
+            Map<String, AttributeValue> old = table.delete(key);
+            DeleteItemResponse.Builder response = DeleteItemResponse.builder();
+            if (request.returnValues() == ReturnValue.ALL_OLD && old != null) {
+                response.attributes(old);
+            }
+            return response.build();
+        });
+    }
+
+    private Map<String, AttributeValue> applyUpdate(InMemoryTable table, Map<String, AttributeValue> key,
+                                                    Map<String, AttributeValue> old, Expressions.Update update) {
+        Map<String, AttributeValue> base = old != null ? old : key;
+        if (update == null) {
+            return base;
+        }
+        for (String attribute : update.touchedAttributes()) {
+            if (attribute.equals(table.hashKey) || attribute.equals(table.rangeKey)) {
+                throw Errors.validation("One or more parameter values were invalid: Cannot update attribute "
+                        + attribute + ". This attribute is part of the key");
+            }
+        }
+        return update.apply(base);
+    }
+
+    private static Map<String, AttributeValue> returnValues(ReturnValue mode, Map<String, AttributeValue> old,
+                                                            Map<String, AttributeValue> updated,
+                                                            Expressions.Update update) {
+        if (mode == null || mode == ReturnValue.NONE) return null;
+        switch (mode) {
+            case ALL_OLD:
+                return old;
+            case ALL_NEW:
+                return updated;
+            case UPDATED_OLD:
+                return old == null || update == null ? null : pick(old, update.touchedAttributes());
+            case UPDATED_NEW:
+                return update == null ? null : pick(updated, update.touchedAttributes());
+            default:
+                throw Errors.validation("ReturnValues không hợp lệ: " + mode);
+        }
+    }
+
+    private static Map<String, AttributeValue> pick(Map<String, AttributeValue> item, Set<String> attributes) {
+        Map<String, AttributeValue> out = new LinkedHashMap<>();
+        for (String attribute : attributes) {
+            AttributeValue v = item.get(attribute);
+            if (v != null) out.put(attribute, v);
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // QUERY / SCAN
+    // ========================================================================
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        enter("Query");
+        if (request.keyConditionExpression() == null) {
+            throw Errors.validation("Chỉ hỗ trợ KeyConditionExpression (không hỗ trợ KeyConditions kiểu cũ)");
+        }
+        Expressions.Condition filter = condition(request.filterExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        List<Expressions.Path> projection = projection(request.projectionExpression(), request.expressionAttributeNames());
+        boolean forward = request.scanIndexForward() == null || request.scanIndexForward();
+        return read(() -> {
+            InMemoryTable table = table(request.tableName());
+            InMemoryTable.Index index = request.indexName() == null ? null : table.index(request.indexName());
+            if (index != null && Boolean.TRUE.equals(request.consistentRead())) {
+                throw Errors.validation("Consistent reads are not supported on global secondary indexes");
+            }
+            Expressions.KeyCondition key = Expressions.parseKeyCondition(request.keyConditionExpression(),
+                    request.expressionAttributeNames(), request.expressionAttributeValues(),
+                    index == null ? table.hashKey : index.hashKey, index == null ? table.rangeKey : index.rangeKey);
+            AttributeValue from = forward ? key.lowerBound() : key.upperBound();
+            Iterator<Map<String, AttributeValue>> source = table.partition(index, key.partitionValue, forward,
+                    request.exclusiveStartKey().isEmpty() ? null : request.exclusiveStartKey(), from);
+            Page page = readPage(table, index, source, key.sortCondition, filter, projection,
+                    request.limit(), request.select());
+            return QueryResponse.builder()
+                    .items(page.items)
+                    .count(page.count)
+                    .scannedCount(page.scanned)
+                    .lastEvaluatedKey(page.lastEvaluatedKey)
+                    .build();
+        });
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        enter("Scan");
+        Expressions.Condition filter = condition(request.filterExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        List<Expressions.Path> projection = projection(request.projectionExpression(), request.expressionAttributeNames());
+        int totalSegments = request.totalSegments() == null ? 1 : request.totalSegments();
+        int segment = request.segment() == null ? 0 : request.segment();
+        if (segment < 0 || segment >= totalSegments) {
+            throw Errors.validation("Segment phải nằm trong [0, TotalSegments)");
+        }
+        return read(() -> {
+            InMemoryTable table = table(request.tableName());
+            InMemoryTable.Index index = request.indexName() == null ? null : table.index(request.indexName());
+            Iterator<Map<String, AttributeValue>> source = table.scan(index,
+                    request.exclusiveStartKey().isEmpty() ? null : request.exclusiveStartKey(), segment, totalSegments);
+            Page page = readPage(table, index, source, null, filter, projection, request.limit(), request.select());
+            return ScanResponse.builder()
+                    .items(page.items)
+                    .count(page.count)
+                    .scannedCount(page.scanned)
+                    .lastEvaluatedKey(page.lastEvaluatedKey)
+                    .build();
+        });
+    }
+
+    private static final class Page {
+        final List<Map<String, AttributeValue>> items = new ArrayList<>();
+        int count;
+        int scanned;
+        Map<String, AttributeValue> lastEvaluatedKey;
+    }
+
+    /**
+     * Đọc 1 trang: Limit tính trên số item ĐÃ ĐỌC (trước filter) và trang dừng ở 1MB, giống DynamoDB;
+     * dừng vì Limit/1MB thì luôn trả LastEvaluatedKey, kể cả khi phía sau không còn item.
+     *
+     * @param keyCondition điều kiện sort key của Query: item khớp nằm liền nhau theo thứ tự sort key,
+     *                     nên gặp item không khớp sau khi đã khớp là dừng
+     */
+    private Page readPage(InMemoryTable table, InMemoryTable.Index index, Iterator<Map<String, AttributeValue>> source,
+                          Expressions.Condition keyCondition, Expressions.Condition filter,
+                          List<Expressions.Path> projection, Integer limit, Select select) {
+        if (limit != null && limit < 1) {
+            throw Errors.validation("Limit phải >= 1");
+        }
+        boolean countOnly = select == Select.COUNT;
+        Page page = new Page();
+        long bytes = 0;
+        boolean matched = false;
+        while (source.hasNext()) {
+            Map<String, AttributeValue> item = source.next();
+            if (keyCondition != null && !keyCondition.test(item)) {
+                if (matched) break;
+                continue;
+            }
+            matched = true;
+            Map<String, AttributeValue> visible = table.projectForIndex(index, item);
+            page.scanned++;
+            bytes += AttributeValues.itemSize(visible);
+            if (filter == null || filter.test(visible)) {
+                page.count++;
+                if (!countOnly) {
+                    page.items.add(Expressions.project(visible, projection));
+                }
+            }
+            if ((limit != null && page.scanned >= limit) || bytes >= MAX_PAGE_BYTES) {
+                page.lastEvaluatedKey = table.lastEvaluatedKey(index, item);
+                break;
+            }
+        }
+        return page;
+    }
+
+    // ========================================================================
+    // BATCH
+    // ========================================================================
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        enter("BatchGetItem");
+        int total = request.requestItems().values().stream().mapToInt(k -> k.keys().size()).sum();
+        if (total == 0 || total > MAX_BATCH_GET) {
+            throw Errors.validation("Too many items requested for the BatchGetItem call (tối đa " + MAX_BATCH_GET + ")");
+        }
+        return read(() -> {
+            Map<String, List<Map<String, AttributeValue>>> responses = new LinkedHashMap<>();
+            for (Map.Entry<String, KeysAndAttributes> entry : request.requestItems().entrySet()) {
+                InMemoryTable table = table(entry.getKey());
+                KeysAndAttributes spec = entry.getValue();
+                List<Expressions.Path> projection = projection(spec.projectionExpression(), spec.expressionAttributeNames());
+                Set<InMemoryTable.PrimaryKey> seen = new HashSet<>();
+                List<Map<String, AttributeValue>> found = new ArrayList<>();
+                for (Map<String, AttributeValue> key : spec.keys()) {
+                    InMemoryTable.PrimaryKey pk = table.exactKey(key);
+                    if (!seen.add(pk)) {
+                        throw Errors.validation("Provided list of item keys contains duplicates");
+                    }
+                    Map<String, AttributeValue> item = table.get(pk);
+                    if (item != null) found.add(Expressions.project(item, projection));
+                }
+                responses.put(entry.getKey(), found);
+            }
+            return BatchGetItemResponse.builder().responses(responses).unprocessedKeys(Map.of()).build();
+        });
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        enter("BatchWriteItem");
+        int total = request.requestItems().values().stream().mapToInt(List::size).sum();
+        if (total == 0 || total > MAX_BATCH_WRITE) {
+            throw Errors.validation("Too many items requested for the BatchWriteItem call (tối đa " + MAX_BATCH_WRITE + ")");
+        }
+        return write(() -> {
+            // Kiểm tra toàn bộ trước khi ghi: DynamoDB từ chối cả lệnh nếu 1 request không hợp lệ
+            for (Map.Entry<String, List<WriteRequest>> entry : request.requestItems().entrySet()) {
+                InMemoryTable table = table(entry.getKey());
+                Set<InMemoryTable.PrimaryKey> seen = new HashSet<>();
+                for (WriteRequest w : entry.getValue()) {
+                    InMemoryTable.PrimaryKey key = w.putRequest() != null
+                            ? table.validate(w.putRequest().item())
+                            : table.exactKey(w.deleteRequest().key());
+                    if (!seen.add(key)) {
+                        throw Errors.validation("Provided list of item keys contains duplicates");
+                    }
+                }
+            }
+            for (Map.Entry<String, List<WriteRequest>> entry : request.requestItems().entrySet()) {
+                InMemoryTable table = tables.get(entry.getKey());
+                for (WriteRequest w : entry.getValue()) {
+                    if (w.putRequest() != null) {
+                        table.put(w.putRequest().item());
+                    } else {
+                        table.delete(table.exactKey(w.deleteRequest().key()));
+                    }
+                }
+            }
+            return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+        });
+    }
+
+    // ========================================================================
+    // TRANSACTION
+    // ========================================================================
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        enter("TransactWriteItems");
+        List<TransactWriteItem> actions = request.transactItems();
+        if (actions.isEmpty() || actions.size() > MAX_TRANSACT_ITEMS) {
+            throw Errors.validation("TransactItems phải có 1.." + MAX_TRANSACT_ITEMS + " phần tử");
+        }
+        return write(() -> {
+            // 1. Kiểm tra điều kiện của mọi action trên trạng thái hiện tại
+            List<CancellationReason> reasons = new ArrayList<>();
+            List<Runnable> writes = new ArrayList<>();
+            Set<String> touched = new HashSet<>();
+            boolean failed = false;
+            for (TransactWriteItem action : actions) {
+                TxAction tx = prepare(action);
+                if (!touched.add(tx.table.name + "|" + tx.key.partition + "|" + tx.key.sort)) {
+                    throw Errors.validation("Transaction request cannot include multiple operations on one item");
+                }
+                Map<String, AttributeValue> current = tx.table.get(tx.key);
+                if (tx.condition != null && !tx.condition.test(current == null ? Map.of() : current)) {
+                    failed = true;
+                    reasons.add(CancellationReason.builder()
+                            .code("ConditionalCheckFailed")
+                            .message("The conditional request failed")
+                            .build());
+                } else {
+                    reasons.add(CancellationReason.builder().code("None").build());
+                }
+                writes.add(() -> tx.apply.accept(current));
+            }
+            if (failed) {
+                throw Errors.transactionCanceled(reasons);
+            }
+            // 2. Ghi tất cả (đang giữ write lock nên không ai thấy trạng thái nửa vời)
+            writes.forEach(Runnable::run);
+            return TransactWriteItemsResponse.builder().build();
+        });
+    }
+
+    private static final class TxAction {
+        InMemoryTable table;
+        InMemoryTable.PrimaryKey key;
+        Expressions.Condition condition;
+        Consumer<Map<String, AttributeValue>> apply;
+    }
+
+    private TxAction prepare(TransactWriteItem action) {
+        TxAction tx = new TxAction();
+        if (action.put() != null) {
+            Put put = action.put();
+            tx.table = table(put.tableName());
+            tx.key = tx.table.validate(put.item());
+            tx.condition = condition(put.conditionExpression(), put.expressionAttributeNames(), put.expressionAttributeValues());
+            tx.apply = current -> tx.table.put(put.item());
+        } else if (action.update() != null) {
+            Update update = action.update();
+            tx.table = table(update.tableName());
+            tx.key = tx.table.exactKey(update.key());
+            tx.condition = condition(update.conditionExpression(), update.expressionAttributeNames(),
+                    update.expressionAttributeValues());
+            Expressions.Update parsed = Expressions.parseUpdate(update.updateExpression(),
+                    update.expressionAttributeNames(), update.expressionAttributeValues());
+            // Tính trước để lỗi validation (sai kiểu, sửa key...) hủy cả transaction trước khi ghi
+            Map<String, AttributeValue> updated = applyUpdate(tx.table, update.key(), tx.table.get(tx.key), parsed);
+            tx.table.validate(updated);
+            tx.apply = current -> tx.table.put(updated);
+        } else if (action.delete() != null) {
+            Delete delete = action.delete();
+            tx.table = table(delete.tableName());
+            tx.key = tx.table.exactKey(delete.key());
+            tx.condition = condition(delete.conditionExpression(), delete.expressionAttributeNames(),
+                    delete.expressionAttributeValues());
+            tx.apply = current -> tx.table.delete(tx.key);
+        } else if (action.conditionCheck() != null) {
+            ConditionCheck check = action.conditionCheck();
+            tx.table = table(check.tableName());
+            tx.key = tx.table.exactKey(check.key());
+            tx.condition = condition(check.conditionExpression(), check.expressionAttributeNames(),
+                    check.expressionAttributeValues());
+            tx.apply = current -> {
+            };
+        } else {
+            throw Errors.validation("TransactWriteItem rỗng");
+        }
+        return tx;
+    }
+
+    @Override
+    public TransactGetItemsResponse transactGetItems(TransactGetItemsRequest request) {
+        enter("TransactGetItems");
+        if (request.transactItems().isEmpty() || request.transactItems().size() > MAX_TRANSACT_ITEMS) {
+            throw Errors.validation("TransactItems phải có 1.." + MAX_TRANSACT_ITEMS + " phần tử");
+        }
+        return read(() -> {
+            List<ItemResponse> responses = new ArrayList<>();
+            for (TransactGetItem action : request.transactItems()) {
+                Get get = action.get();
+                InMemoryTable table = table(get.tableName());
+                Map<String, AttributeValue> item = table.get(table.exactKey(get.key()));
+                List<Expressions.Path> projection = projection(get.projectionExpression(), get.expressionAttributeNames());
+                responses.add(item == null ? ItemResponse.builder().build()
+                        : ItemResponse.builder().item(Expressions.project(item, projection)).build());
+            }
+            return TransactGetItemsResponse.builder().responses(responses).build();
+        });
+    }
+
+    // ========================================================================
+    // HELPER
+    // ========================================================================
+
+    private InMemoryTable table(String name) {
+        InMemoryTable table = tables.get(name);
+        if (table == null) {
+            throw Errors.tableNotFound(name);
+        }
+        return table;
+    }
+
+    private static Expressions.Condition condition(String expression, Map<String, String> names,
+                                                   Map<String, AttributeValue> values) {
+        return expression == null ? null : Expressions.parseCondition(expression, names, values);
+    }
+
+    private static List<Expressions.Path> projection(String expression, Map<String, String> names) {
+        return expression == null ? null : Expressions.parseProjection(expression, names);
+    }
+
+    private static void check(Expressions.Condition condition, Map<String, AttributeValue> current) {
+        if (condition != null && !condition.test(current == null ? Map.of() : current)) {
+            throw Errors.conditionFailed();
+        }
+    }
+
+    /** Đếm lệnh + ngủ theo độ trễ giả lập (ngoài lock, giống thời gian đi mạng). */
+    private void enter(String operation) {
+        calls.computeIfAbsent(operation, k -> new LongAdder()).increment();
+        threadCalls.get()[0]++;
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AbortedException.builder().message("Bị ngắt khi chờ độ trễ giả lập").cause(e).build();
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.demo.local;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * 1 bảng trong {@link InMemoryDynamoDbClient}.
+ *
+ * Dữ liệu: partition key -> (sort key -> item), cả 2 tầng đều là TreeMap nên Query theo
+ * sort key và phân trang bằng ExclusiveStartKey chỉ là tailMap/headMap.
+ * Mỗi GSI: gsi partition key -> TreeSet(gsi sort key, PK, SK) trỏ ngược về item gốc; item
+ * thiếu attribute key của index thì không vào index (sparse index).
+ * Item lưu dạng Map không sửa được -> đọc không cần copy. Không tự khoá: client giữ lock.
+ */
+final class InMemoryTable {
+
+    /** Vị trí 1 item trong bảng. */
+    static final class PrimaryKey {
+        final KeyValue partition;
+        final KeyValue sort;
+
+        PrimaryKey(KeyValue partition, KeyValue sort) {
+            this.partition = partition;
+            this.sort = sort;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PrimaryKey && partition.equals(((PrimaryKey) o).partition)
+                    && sort.equals(((PrimaryKey) o).sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * partition.hashCode() + sort.hashCode();
+        }
+    }
+
+    private static final class IndexEntry implements Comparable<IndexEntry> {
+        final KeyValue sort;
+        final PrimaryKey tableKey;
+
+        IndexEntry(KeyValue sort, PrimaryKey tableKey) {
+            this.sort = sort;
+            this.tableKey = tableKey;
+        }
+
+        @Override
+        public int compareTo(IndexEntry o) {
+            int c = sort.compareTo(o.sort);
+            if (c != 0) return c;
+            c = tableKey.partition.compareTo(o.tableKey.partition);
+            return c != 0 ? c : tableKey.sort.compareTo(o.tableKey.sort);
+        }
+    }
+
+    static final class Index {
+        final String name;
+        final String hashKey;
+        final String rangeKey;
+        final ProjectionType projectionType;
+        final Set<String> nonKeyAttributes;
+        final GlobalSecondaryIndex definition;
+        private final TreeMap<KeyValue, TreeSet<IndexEntry>> entries = new TreeMap<>();
+
+        private Index(GlobalSecondaryIndex gsi) {
+            this.name = gsi.indexName();
+            this.hashKey = keyName(gsi.keySchema(), KeyType.HASH);
+            this.rangeKey = keyName(gsi.keySchema(), KeyType.RANGE);
+            this.projectionType = gsi.projection() == null || gsi.projection().projectionType() == null
+                    ? ProjectionType.ALL : gsi.projection().projectionType();
+            this.nonKeyAttributes = gsi.projection() == null || !gsi.projection().hasNonKeyAttributes()
+                    ? Collections.emptySet() : new LinkedHashSet<>(gsi.projection().nonKeyAttributes());
+            this.definition = gsi;
+        }
+    }
+
+    final String name;
+    final String hashKey;
+    final String rangeKey;
+    private final Map<String, String> attributeTypes = new LinkedHashMap<>();
+    private final Map<String, Index> indexes = new LinkedHashMap<>();
+    private final CreateTableRequest definition;
+    private final Instant createdAt = Instant.now();
+    private final TreeMap<KeyValue, TreeMap<KeyValue, Map<String, AttributeValue>>> partitions = new TreeMap<>();
+    private long itemCount;
+    private long sizeBytes;
+
+    InMemoryTable(CreateTableRequest request) {
+        this.name = request.tableName();
+        this.hashKey = keyName(request.keySchema(), KeyType.HASH);
+        this.rangeKey = keyName(request.keySchema(), KeyType.RANGE);
+        if (hashKey == null) {
+            throw Errors.validation("KeySchema thiếu HASH key");
+        }
+        for (AttributeDefinition def : request.attributeDefinitions()) {
+            attributeTypes.put(def.attributeName(), def.attributeTypeAsString());
+        }
+        requireDefined(hashKey);
+        requireDefined(rangeKey);
+        for (GlobalSecondaryIndex gsi : request.globalSecondaryIndexes()) {
+            Index index = new Index(gsi);
+            requireDefined(index.hashKey);
+            requireDefined(index.rangeKey);
+            indexes.put(index.name, index);
+        }
+        this.definition = request;
+    }
+
+    private void requireDefined(String attribute) {
+        if (attribute != null && !attributeTypes.containsKey(attribute)) {
+            throw Errors.validation("Attribute " + attribute + " trong KeySchema chưa có trong AttributeDefinitions");
+        }
+    }
+
+    private static String keyName(List<KeySchemaElement> schema, KeyType type) {
+        for (KeySchemaElement e : schema) {
+            if (e.keyType() == type) return e.attributeName();
+        }
+        return null;
+    }
+
+    Index index(String indexName) {
+        Index index = indexes.get(indexName);
+        if (index == null) {
+            throw Errors.validation("The table does not have the specified index: " + indexName);
+        }
+        return index;
+    }
+
+    long itemCount() {
+        return itemCount;
+    }
+
+    TableDescription describe() {
+        List<GlobalSecondaryIndexDescription> gsis = new ArrayList<>();
+        for (Index index : indexes.values()) {
+            long count = index.entries.values().stream().mapToLong(Set::size).sum();
+            gsis.add(GlobalSecondaryIndexDescription.builder()
+                    .indexName(index.name)
+                    .keySchema(index.definition.keySchema())
+                    .projection(index.definition.projection())
+                    .indexStatus(IndexStatus.ACTIVE)
+                    .itemCount(count)
+                    .build());
+        }
+        return TableDescription.builder()
+                .tableName(name)
+                .tableArn("arn:aws:dynamodb:local:000000000000:table/" + name)
+                .tableStatus(TableStatus.ACTIVE)
+                .creationDateTime(createdAt)
+                .keySchema(definition.keySchema())
+                .attributeDefinitions(definition.attributeDefinitions())
+                .billingModeSummary(b -> b.billingMode(definition.billingMode()))
+                .globalSecondaryIndexes(gsis.isEmpty() ? null : gsis)
+                .itemCount(itemCount)
+                .tableSizeBytes(sizeBytes)
+                .build();
+    }
+
+    // ========================================================================
+    // KEY
+    // ========================================================================
+
+    /** Key của item (hoặc map key) - kiểm tra đủ và đúng kiểu. */
+    PrimaryKey keyOf(Map<String, AttributeValue> item) {
+        KeyValue partition = KeyValue.of(hashKey, item.get(hashKey), attributeTypes.get(hashKey));
+        KeyValue sort = rangeKey == null ? KeyValue.NONE
+                : KeyValue.of(rangeKey, item.get(rangeKey), attributeTypes.get(rangeKey));
+        return new PrimaryKey(partition, sort);
+    }
+
+    /** Tham số Key của GetItem/DeleteItem/UpdateItem: phải đúng bằng các attribute key. */
+    PrimaryKey exactKey(Map<String, AttributeValue> key) {
+        int expected = rangeKey == null ? 1 : 2;
+        if (key == null || key.size() != expected) {
+            throw Errors.validation("The provided key element does not match the schema");
+        }
+        return keyOf(key);
+    }
+
+    Map<String, AttributeValue> keyAttributes(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put(hashKey, item.get(hashKey));
+        if (rangeKey != null) key.put(rangeKey, item.get(rangeKey));
+        return key;
+    }
+
+    /** LastEvaluatedKey: key bảng + key index (nếu đọc qua index). */
+    Map<String, AttributeValue> lastEvaluatedKey(Index index, Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = keyAttributes(item);
+        if (index != null) {
+            key.put(index.hashKey, item.get(index.hashKey));
+            if (index.rangeKey != null) key.put(index.rangeKey, item.get(index.rangeKey));
+        }
+        return key;
+    }
+
+    // ========================================================================
+    // GHI (client giữ write lock)
+    // ========================================================================
+
+    Map<String, AttributeValue> get(PrimaryKey key) {
+        NavigableMap<KeyValue, Map<String, AttributeValue>> partition = partitions.get(key.partition);
+        return partition == null ? null : partition.get(key.sort);
+    }
+
+    /** Kiểm tra item hợp lệ trước khi ghi (dùng cho batch / transaction: kiểm tra hết rồi mới ghi). */
+    PrimaryKey validate(Map<String, AttributeValue> item) {
+        PrimaryKey key = keyOf(item);
+        for (Index index : indexes.values()) {
+            indexKey(index, item);
+        }
+        if (AttributeValues.itemSize(item) > 400 * 1024) {
+            throw Errors.validation("Item size has exceeded the maximum allowed size");
+        }
+        return key;
+    }
+
+    /** @return item cũ (null nếu chưa có) */
+    Map<String, AttributeValue> put(Map<String, AttributeValue> item) {
+        PrimaryKey key = validate(item);
+        Map<String, AttributeValue> stored = Collections.unmodifiableMap(new LinkedHashMap<>(item));
+        Map<String, AttributeValue> old = partitions.computeIfAbsent(key.partition, k -> new TreeMap<>())
+                .put(key.sort, stored);
+        if (old != null) {
+            unindex(key, old);
+            sizeBytes -= AttributeValues.itemSize(old);
+        } else {
+            itemCount++;
+        }
+        sizeBytes += AttributeValues.itemSize(stored);
+        index(key, stored);
+        return old;
+    }
+
+    Map<String, AttributeValue> delete(PrimaryKey key) {
+        TreeMap<KeyValue, Map<String, AttributeValue>> partition = partitions.get(key.partition);
+        if (partition == null) return null;
+        Map<String, AttributeValue> old = partition.remove(key.sort);
+        if (old != null) {
+            if (partition.isEmpty()) partitions.remove(key.partition);
+            unindex(key, old);
+            itemCount--;
+            sizeBytes -= AttributeValues.itemSize(old);
+        }
+        return old;
+    }
+
+    /** {gsi partition, gsi sort}; null = item không có key của index (không vào index). */
+    private KeyValue[] indexKey(Index index, Map<String, AttributeValue> item) {
+        AttributeValue pk = item.get(index.hashKey);
+        AttributeValue sk = index.rangeKey == null ? null : item.get(index.rangeKey);
+        if (pk == null || (index.rangeKey != null && sk == null)) {
+            return null;
+        }
+        KeyValue partition = KeyValue.of(index.hashKey, pk, attributeTypes.get(index.hashKey));
+        KeyValue sort = index.rangeKey == null ? KeyValue.NONE
+                : KeyValue.of(index.rangeKey, sk, attributeTypes.get(index.rangeKey));
+        return new KeyValue[]{partition, sort};
+    }
+
+    private void index(PrimaryKey key, Map<String, AttributeValue> item) {
+        for (Index index : indexes.values()) {
+            KeyValue[] k = indexKey(index, item);
+            if (k != null) {
+                index.entries.computeIfAbsent(k[0], x -> new TreeSet<>()).add(new IndexEntry(k[1], key));
+            }
+        }
+    }
+
+    private void unindex(PrimaryKey key, Map<String, AttributeValue> item) {
+        for (Index index : indexes.values()) {
+            KeyValue[] k = indexKey(index, item);
+            if (k == null) continue;
+            TreeSet<IndexEntry> set = index.entries.get(k[0]);
+            if (set != null) {
+                set.remove(new IndexEntry(k[1], key));
+                if (set.isEmpty()) index.entries.remove(k[0]);
+            }
+        }
+    }
+
+    // ========================================================================
+    // ĐỌC (client giữ read lock và đọc hết trang trước khi nhả lock)
+    // ========================================================================
+
+    /**
+     * Item của 1 partition (bảng hoặc index) theo thứ tự sort key.
+     *
+     * @param startAfter ExclusiveStartKey (null = từ đầu)
+     * @param from       sort key bắt đầu (gồm cả nó) khi không có startAfter, null = đầu partition
+     */
+    Iterator<Map<String, AttributeValue>> partition(Index index, AttributeValue partitionValue, boolean forward,
+                                                    Map<String, AttributeValue> startAfter, AttributeValue from) {
+        if (index == null) {
+            KeyValue pk = KeyValue.of(hashKey, partitionValue, attributeTypes.get(hashKey));
+            NavigableMap<KeyValue, Map<String, AttributeValue>> items = partitions.get(pk);
+            if (items == null) return Collections.emptyIterator();
+            if (startAfter != null) {
+                KeyValue sk = exactStartKey(startAfter, null).sort;
+                items = forward ? items.tailMap(sk, false) : items.headMap(sk, false);
+            } else if (from != null && rangeKey != null) {
+                KeyValue sk = KeyValue.of(rangeKey, from, attributeTypes.get(rangeKey));
+                items = forward ? items.tailMap(sk, true) : items.headMap(sk, true);
+            }
+            return (forward ? items : items.descendingMap()).values().iterator();
+        }
+
+        KeyValue pk = KeyValue.of(index.hashKey, partitionValue, attributeTypes.get(index.hashKey));
+        NavigableSet<IndexEntry> entries = index.entries.get(pk);
+        if (entries == null) return Collections.emptyIterator();
+        if (startAfter != null) {
+            IndexEntry start = new IndexEntry(indexSortOf(index, startAfter), exactStartKey(startAfter, index));
+            entries = forward ? entries.tailSet(start, false) : entries.headSet(start, false);
+        } else if (from != null && index.rangeKey != null) {
+            KeyValue sk = KeyValue.of(index.rangeKey, from, attributeTypes.get(index.rangeKey));
+            entries = forward
+                    ? entries.tailSet(new IndexEntry(sk, new PrimaryKey(KeyValue.NONE, KeyValue.NONE)), true)
+                    : entries.headSet(new IndexEntry(sk, new PrimaryKey(KeyValue.MAX, KeyValue.MAX)), true);
+        }
+        return resolve((forward ? entries : entries.descendingSet()).stream()).iterator();
+    }
+
+    /** Toàn bảng / toàn index theo thứ tự key (chỉ các partition thuộc segment nếu có). */
+    Iterator<Map<String, AttributeValue>> scan(Index index, Map<String, AttributeValue> startAfter,
+                                               int segment, int totalSegments) {
+        if (index == null) {
+            NavigableMap<KeyValue, TreeMap<KeyValue, Map<String, AttributeValue>>> view = partitions;
+            Stream<Map<String, AttributeValue>> head = Stream.empty();
+            if (startAfter != null) {
+                PrimaryKey start = exactStartKey(startAfter, null);
+                TreeMap<KeyValue, Map<String, AttributeValue>> current = partitions.get(start.partition);
+                if (current != null) head = current.tailMap(start.sort, false).values().stream();
+                view = partitions.tailMap(start.partition, false);
+            }
+            Stream<Map<String, AttributeValue>> rest = view.entrySet().stream()
+                    .filter(e -> inSegment(e.getKey(), segment, totalSegments))
+                    .flatMap(e -> e.getValue().values().stream());
+            return Stream.concat(head, rest).iterator();
+        }
+
+        NavigableMap<KeyValue, TreeSet<IndexEntry>> view = index.entries;
+        Stream<IndexEntry> head = Stream.empty();
+        if (startAfter != null) {
+            KeyValue pk = KeyValue.of(index.hashKey, startAfter.get(index.hashKey), attributeTypes.get(index.hashKey));
+            TreeSet<IndexEntry> current = index.entries.get(pk);
+            if (current != null) {
+                head = current.tailSet(new IndexEntry(indexSortOf(index, startAfter), exactStartKey(startAfter, index)), false)
+                        .stream();
+            }
+            view = index.entries.tailMap(pk, false);
+        }
+        Stream<IndexEntry> rest = view.entrySet().stream()
+                .filter(e -> inSegment(e.getKey(), segment, totalSegments))
+                .flatMap(e -> e.getValue().stream());
+        return resolve(Stream.concat(head, rest)).iterator();
+    }
+
+    private static boolean inSegment(KeyValue partition, int segment, int totalSegments) {
+        return totalSegments <= 1 || Math.floorMod(partition.hashCode(), totalSegments) == segment;
+    }
+
+    private Stream<Map<String, AttributeValue>> resolve(Stream<IndexEntry> entries) {
+        return entries.map(e -> get(e.tableKey));
+    }
+
+    private PrimaryKey exactStartKey(Map<String, AttributeValue> startKey, Index index) {
+        int expected = (rangeKey == null ? 1 : 2);
+        if (index != null) {
+            Set<String> names = new LinkedHashSet<>(List.of(hashKey, index.hashKey));
+            if (rangeKey != null) names.add(rangeKey);
+            if (index.rangeKey != null) names.add(index.rangeKey);
+            expected = names.size();
+        }
+        if (startKey.size() != expected) {
+            throw Errors.validation("The provided starting key is invalid: The provided key element does not match the schema");
+        }
+        return keyOf(startKey);
+    }
+
+    private KeyValue indexSortOf(Index index, Map<String, AttributeValue> startKey) {
+        return index.rangeKey == null ? KeyValue.NONE
+                : KeyValue.of(index.rangeKey, startKey.get(index.rangeKey), attributeTypes.get(index.rangeKey));
+    }
+
+    /** Chỉ giữ attribute mà index chiếu (KEYS_ONLY / INCLUDE). */
+    Map<String, AttributeValue> projectForIndex(Index index, Map<String, AttributeValue> item) {
+        if (index == null || index.projectionType == ProjectionType.ALL) return item;
+        Map<String, AttributeValue> out = lastEvaluatedKey(index, item);
+        if (index.projectionType == ProjectionType.INCLUDE) {
+            for (String attribute : index.nonKeyAttributes) {
+                AttributeValue v = item.get(attribute);
+                if (v != null) out.put(attribute, v);
+            }
+        }
+        return out;
+    }
+}
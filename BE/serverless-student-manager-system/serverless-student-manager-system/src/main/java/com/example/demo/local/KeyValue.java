@@ -0,0 +1,86 @@
+package com.example.demo.local;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Giá trị key (S / N / B) có thứ tự giống DynamoDB, dùng làm key của TreeMap.
+ * {@link #NONE} cho bảng/index không có sort key; NONE / {@link #MAX} cũng là cận dưới / cận trên
+ * khi cần định vị trong TreeSet.
+ */
+final class KeyValue implements Comparable<KeyValue> {
+
+    static final KeyValue NONE = new KeyValue(null, null, null, null);
+    static final KeyValue MAX = new KeyValue(null, null, null, null);
+
+    private final AttributeValue raw;
+    private final String s;
+    private final BigDecimal n;
+    private final byte[] b;
+
+    private KeyValue(AttributeValue raw, String s, BigDecimal n, byte[] b) {
+        this.raw = raw;
+        this.s = s;
+        this.n = n;
+        this.b = b;
+    }
+
+    /**
+     * @param type kiểu khai báo trong AttributeDefinitions (S / N / B)
+     * @throws software.amazon.awssdk.services.dynamodb.model.DynamoDbException nếu thiếu hoặc sai kiểu
+     */
+    static KeyValue of(String attribute, AttributeValue value, String type) {
+        if (value == null) {
+            throw Errors.validation("One of the required keys was not given a value: " + attribute);
+        }
+        if (!type.equals(AttributeValues.typeOf(value))) {
+            throw Errors.validation("One or more parameter values were invalid: Type mismatch for key "
+                    + attribute + " expected: " + type + " actual: " + AttributeValues.typeOf(value));
+        }
+        switch (type) {
+            case "S":
+                if (value.s().isEmpty()) {
+                    throw Errors.validation("One or more parameter values are not valid. The AttributeValue for a key attribute cannot contain an empty string value. Key: " + attribute);
+                }
+                return new KeyValue(value, value.s(), null, null);
+            case "N":
+                return new KeyValue(value, null, AttributeValues.number(value).stripTrailingZeros(), null);
+            default:
+                return new KeyValue(value, null, null, value.b().asByteArray());
+        }
+    }
+
+    AttributeValue raw() {
+        return raw;
+    }
+
+    @Override
+    public int compareTo(KeyValue o) {
+        if (this == o) return 0;
+        if (this == NONE || o == MAX) return -1;
+        if (o == NONE || this == MAX) return 1;
+        if (s != null) return s.compareTo(o.s);
+        if (n != null) return n.compareTo(o.n);
+        return AttributeValues.compareBytes(b, o.b);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof KeyValue && compareTo((KeyValue) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        if (s != null) return s.hashCode();
+        if (n != null) return n.hashCode();
+        return b == null ? 0 : Arrays.hashCode(b);
+    }
+
+    @Override
+    public String toString() {
+        if (this == NONE || this == MAX) return this == NONE ? "<none>" : "<max>";
+        return String.valueOf(s != null ? s : n != null ? n : Arrays.toString(b));
+    }
+}
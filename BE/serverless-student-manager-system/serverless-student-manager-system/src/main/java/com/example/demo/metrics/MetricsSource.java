@@ -0,0 +1,15 @@
+package com.example.demo.metrics;
+
+import java.util.Map;
+
+/**
+ * Thành phần muốn hiện số liệu (cache, hàng đợi...) trên /api/admin/metrics thì implement interface này.
+ */
+public interface MetricsSource {
+
+    /** Tên nhóm số liệu, VD: "callerCache". */
+    String metricsName();
+
+    /** Ảnh chụp số liệu hiện tại (chỉ đọc). */
+    Map<String, Object> metricsSnapshot();
+}
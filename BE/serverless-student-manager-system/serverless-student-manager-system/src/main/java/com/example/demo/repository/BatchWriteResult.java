@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Tổng kết 1 lần ghi theo lô (BatchWriteItem).
+ */
+@Data
+@Builder
+public class BatchWriteResult {
+    private int requested;      // Số item (sau khi bỏ trùng key)
+    private int written;        // Ghi thành công
+    private int failed;         // Hết lượt thử / lỗi
+    private int batchCalls;     // Tổng số lệnh BatchWriteItem đã gửi
+    private int retries;        // Số lần gửi lại phần UnprocessedItems
+    private long elapsedMillis;
+    private List<SchoolItem> failedItems;
+
+    public boolean isComplete() {
+        return failed == 0;
+    }
+}
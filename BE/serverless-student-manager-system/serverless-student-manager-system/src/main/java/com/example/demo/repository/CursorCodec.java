@@ -0,0 +1,76 @@
+package com.example.demo.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LastEvaluatedKey <-> cursor dạng chuỗi (JSON -> Base64 URL-safe).
+ * Key của bảng/GSI chỉ gồm attribute kiểu S hoặc N nên chỉ hỗ trợ 2 kiểu này.
+ * VD: {"PK":{"S":"CLASS#SE01"},"SK":{"S":"POST#123"}}
+ */
+public final class CursorCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Map<String, String>>> TYPE = new TypeReference<>() {
+    };
+
+    private CursorCodec() {
+    }
+
+    /** null/rỗng -> null (không còn trang sau). */
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        Map<String, Map<String, String>> raw = new LinkedHashMap<>();
+        for (Map.Entry<String, AttributeValue> e : lastEvaluatedKey.entrySet()) {
+            AttributeValue v = e.getValue();
+            if (v.s() != null) {
+                raw.put(e.getKey(), Map.of("S", v.s()));
+            } else if (v.n() != null) {
+                raw.put(e.getKey(), Map.of("N", v.n()));
+            } else {
+                throw new IllegalStateException("Key attribute không phải S/N: " + e.getKey());
+            }
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(raw));
+        } catch (Exception e) {
+            throw new IllegalStateException("Không mã hóa được cursor", e);
+        }
+    }
+
+    /** null/rỗng -> null (trang đầu). */
+    public static Map<String, AttributeValue> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        Map<String, Map<String, String>> raw;
+        try {
+            raw = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.trim()), TYPE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("cursor không hợp lệ");
+        }
+        if (raw == null || raw.isEmpty()) {
+            throw new IllegalArgumentException("cursor không hợp lệ");
+        }
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> e : raw.entrySet()) {
+            Map<String, String> typed = e.getValue();
+            if (typed != null && typed.get("S") != null) {
+                key.put(e.getKey(), AttributeValue.fromS(typed.get("S")));
+            } else if (typed != null && typed.get("N") != null) {
+                key.put(e.getKey(), AttributeValue.fromN(typed.get("N")));
+            } else {
+                throw new IllegalArgumentException("cursor không hợp lệ");
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.Class.ClassDto;
+import com.example.demo.dto.Lecturer.AssignmentDto;
+import com.example.demo.dto.Log.LogDto;
+import com.example.demo.dto.Post.PostDto;
+import com.example.demo.dto.User.UserDto;
+
+/**
+ * Field -> attribute của các DTO trả về trong API danh sách (xem {@link FieldProjection}).
+ * Phải khớp với hàm convert tương ứng: convertToClassDto, convertToAssignmentDto, mapToPostDto,
+ * convertToUserDto và LogDto trong AdminService.getAuditLogs.
+ */
+public final class DtoProjections {
+
+    private DtoProjections() {
+    }
+
+    public static final FieldProjection<UserDto> USER = FieldProjection.builder(UserDto.class)
+            .field("id", UserDto::getId, "id")
+            .field("name", UserDto::getName, "name")
+            .field("email", UserDto::getEmail, "email")
+            .field("dateOfBirth", UserDto::getDateOfBirth, "date_of_birth")
+            .field("role", UserDto::getRole, "role_name")
+            .field("codeUser", UserDto::getCodeUser, "codeUser")
+            .field("avatar", UserDto::getAvatar, "avatar")
+            .field("status", UserDto::getStatus, "status")
+            .build();
+
+    public static final FieldProjection<LogDto> LOG = FieldProjection.builder(LogDto.class)
+            .field("id", LogDto::getId, "id")
+            .field("userId", LogDto::getUserId, "actor_id")
+            .field("classId", LogDto::getClassId, "target_class_id")
+            .field("actionType", LogDto::getActionType, "action_type")
+            .field("details", LogDto::getDetails, "log_details")
+            .field("timestamp", LogDto::getTimestamp, "created_at")
+            .build();
+
+    public static final FieldProjection<ClassDto> CLASS = FieldProjection.builder(ClassDto.class)
+            .field("id", ClassDto::getId, "id")
+            .field("name", ClassDto::getName, "name")
+            .field("subjectId", ClassDto::getSubjectId, "subject_id")
+            .field("teacherId", ClassDto::getTeacherId, "teacher_id")
+            .field("room", ClassDto::getRoom, "room")
+            .field("semester", ClassDto::getSemester, "semester")
+            .field("academicYear", ClassDto::getAcademicYear, "academicYear")
+            .field("studentCount", ClassDto::getStudentCount, "studentCount")
+            .field("status", ClassDto::getStatus, "status")
+            .field("description", ClassDto::getDescription, "description")
+            .build();
+
+    public static final FieldProjection<AssignmentDto> ASSIGNMENT = FieldProjection.builder(AssignmentDto.class)
+            .field("id", AssignmentDto::getId, "id")
+            .field("classId", AssignmentDto::getClassId) // Cắt từ PK
+            .field("title", AssignmentDto::getTitle, "title")
+            .field("description", AssignmentDto::getDescription, "description")
+            .field("type", AssignmentDto::getType, "type")
+            .field("maxScore", AssignmentDto::getMaxScore, "max_score")
+            .field("weight", AssignmentDto::getWeight, "weight")
+            .field("deadline", AssignmentDto::getDeadline, "deadline")
+            .field("isPublished", AssignmentDto::getIsPublished, "is_published")
+            .field("createdAt", AssignmentDto::getCreatedAt, "created_at")
+            .field("updatedAt", AssignmentDto::getUpdatedAt, "updated_at")
+            .build();
+
+    // LecturerService và StudentService map Post hơi khác nhau -> lấy hợp của 2 bên
+    public static final FieldProjection<PostDto> POST = FieldProjection.builder(PostDto.class)
+            .field("id", PostDto::getId, "postId", "id")
+            .field("classId", PostDto::getClassId, "class_id")
+            .field("lecturerId", PostDto::getLecturerId, "uploaded_by", "senderId")
+            .field("title", PostDto::getTitle, "title")
+            .field("content", PostDto::getContent, "content")
+            .field("attachmentUrl", PostDto::getAttachmentUrl, "file_url")
+            .field("isPinned", PostDto::getIsPinned, "isPinned")
+            .field("likeCount", PostDto::getLikeCount, "likeCount")
+            .field("commentCount", PostDto::getCommentCount, "commentCount")
+            .field("createdAt", PostDto::getCreatedAt, "created_at")
+            .build();
+}
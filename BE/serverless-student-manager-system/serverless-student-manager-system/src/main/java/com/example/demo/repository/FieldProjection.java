@@ -0,0 +1,175 @@
+package com.example.demo.repository;
+
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Ánh xạ field của 1 DTO -> các attribute DynamoDB cần đọc để dựng field đó.
+ * Dùng cho tham số ?fields=id,name,... của các API danh sách:
+ *   - {@link Selection#applyTo} đẩy danh sách attribute xuống query (ProjectionExpression),
+ *   - {@link Selection#shape} chỉ trả về các field đã chọn.
+ * PK/SK luôn được đọc vì các hàm convert dùng để suy ra id.
+ */
+public final class FieldProjection<D> {
+
+    private static final List<String> KEY_ATTRIBUTES = List.of("PK", "SK");
+
+    private final String dtoName;
+    private final Map<String, Field<D>> fields;
+    private final Selection<D> all;
+
+    private FieldProjection(String dtoName, Map<String, Field<D>> fields) {
+        this.dtoName = dtoName;
+        this.fields = Collections.unmodifiableMap(fields);
+        this.all = new Selection<>(this, fields.keySet(), true);
+    }
+
+    public static <D> Builder<D> builder(Class<D> dtoType) {
+        return new Builder<>(dtoType.getSimpleName());
+    }
+
+    /** Tất cả field của DTO (mặc định khi không truyền ?fields=). */
+    public Selection<D> all() {
+        return all;
+    }
+
+    /**
+     * Parse tham số ?fields= (phân cách bằng dấu phẩy). Rỗng/null -> {@link #all()}.
+     * @throws IllegalArgumentException nếu có field không tồn tại trong DTO
+     */
+    public Selection<D> select(String fieldsParam) {
+        if (fieldsParam == null || fieldsParam.isBlank()) {
+            return all;
+        }
+        return only(fieldsParam.split(","));
+    }
+
+    /** Projection cố định cho caller nội bộ, VD: chỉ cần id + name. */
+    public Selection<D> only(String... names) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String raw : names) {
+            String name = raw.trim();
+            if (name.isEmpty()) continue;
+            if (!fields.containsKey(name)) {
+                throw new IllegalArgumentException("Trường không hợp lệ cho " + dtoName + ": '" + name
+                        + "'. Cho phép: " + String.join(", ", fields.keySet()));
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty() || selected.size() == fields.size()) {
+            return all;
+        }
+        return new Selection<>(this, selected, false);
+    }
+
+    // ==== Selection ====
+
+    public static final class Selection<D> {
+        private final FieldProjection<D> projection;
+        private final Set<String> fields;
+        private final boolean all;
+        private final List<String> attributes;
+
+        private Selection(FieldProjection<D> projection, Set<String> fields, boolean all) {
+            this.projection = projection;
+            this.fields = Collections.unmodifiableSet(new LinkedHashSet<>(fields));
+            this.all = all;
+
+            Set<String> attrs = new LinkedHashSet<>(KEY_ATTRIBUTES);
+            for (String field : fields) {
+                attrs.addAll(projection.fields.get(field).attributes);
+            }
+            this.attributes = List.copyOf(attrs);
+        }
+
+        public Set<String> getFields() {
+            return fields;
+        }
+
+        public boolean isAll() {
+            return all;
+        }
+
+        /** Attribute DynamoDB cần đọc (đã gồm PK, SK). */
+        public List<String> getAttributes() {
+            return attributes;
+        }
+
+        public QueryEnhancedRequest.Builder applyTo(QueryEnhancedRequest.Builder request) {
+            return request.attributesToProject(attributes);
+        }
+
+        public ScanEnhancedRequest.Builder applyTo(ScanEnhancedRequest.Builder request) {
+            return request.attributesToProject(attributes);
+        }
+
+        /** DTO -> Map chỉ gồm field đã chọn (giữ nguyên DTO khi chọn tất cả). */
+        public Object shape(D dto) {
+            return all ? dto : toMap(dto);
+        }
+
+        /** DTO -> Map theo đúng thứ tự field đã chọn (VD: cột CSV). */
+        public Map<String, Object> toMap(D dto) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (String field : fields) {
+                out.put(field, projection.fields.get(field).getter.apply(dto));
+            }
+            return out;
+        }
+
+        public List<?> shape(List<D> dtos) {
+            if (all) {
+                return dtos;
+            }
+            List<Object> out = new ArrayList<>(dtos.size());
+            for (D dto : dtos) {
+                out.add(shape(dto));
+            }
+            return out;
+        }
+    }
+
+    // ==== Builder ====
+
+    private static final class Field<D> {
+        private final Function<D, ?> getter;
+        private final List<String> attributes;
+
+        private Field(Function<D, ?> getter, List<String> attributes) {
+            this.getter = getter;
+            this.attributes = attributes;
+        }
+    }
+
+    public static final class Builder<D> {
+        private final String dtoName;
+        private final Map<String, Field<D>> fields = new LinkedHashMap<>();
+
+        private Builder(String dtoName) {
+            this.dtoName = dtoName;
+        }
+
+        /**
+         * @param name       tên field trong JSON trả về
+         * @param getter     getter của DTO
+         * @param attributes attribute DynamoDB mà hàm convert đọc để dựng field này (có thể rỗng nếu chỉ cần PK/SK)
+         */
+        public Builder<D> field(String name, Function<D, ?> getter, String... attributes) {
+            fields.put(name, new Field<>(getter, List.of(attributes)));
+            return this;
+        }
+
+        public FieldProjection<D> build() {
+            return new FieldProjection<>(dtoName, new LinkedHashMap<>(fields));
+        }
+    }
+}
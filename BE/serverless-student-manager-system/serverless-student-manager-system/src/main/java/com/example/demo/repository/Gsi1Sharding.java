@@ -0,0 +1,93 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chia partition GSI1 "nóng" thành nhiều shard khi ghi: TYPE#LOG -> TYPE#LOG#00 ... TYPE#LOG#07.
+ *
+ * Shard của item = hash(PK + SK) mod số shard, nên 1 item luôn nằm ở cùng 1 shard (ghi lại không đổi chỗ). Băm cả SK
+ * để các item chung PK vẫn được rải đều: mọi audit log trong ngày có cùng PK LOG#<yyyy-MM-dd>, băm theo PK thì cả
+ * ngày dồn về 1 shard TYPE#LOG#NN.
+ * {@link SchoolItemRepository} tự gắn hậu tố khi ghi item có GSI1PK là key được chia; đọc thì dùng
+ * {@link SchoolItemRepository#queryGsi1Sharded} (query song song mọi shard rồi trộn theo GSI1SK),
+ * service chỉ làm việc với key gốc. Partition gốc (chưa có hậu tố) vẫn được đọc cùng các shard cho dữ liệu cũ.
+ *
+ * Chỉ được tăng app.gsi1-shards.count: giảm đi thì item ở shard cao hơn sẽ không còn được đọc.
+ */
+@Component
+public class Gsi1Sharding {
+
+    private final int count;
+    private final Set<String> keys;
+    private final boolean readLegacy;
+
+    public Gsi1Sharding(@Value("${app.gsi1-shards.count:8}") int count,
+                        @Value("${app.gsi1-shards.keys:TYPE#CLASS,TYPE#LOG,ROLE#ADMIN,ROLE#LECTURER,ROLE#STUDENT}") List<String> keys,
+                        @Value("${app.gsi1-shards.read-legacy:true}") boolean readLegacy) {
+        if (count < 1 || count > 100) {
+            throw new IllegalArgumentException("app.gsi1-shards.count phải nằm trong khoảng 1-100");
+        }
+        this.count = count;
+        this.keys = Collections.unmodifiableSet(new LinkedHashSet<>(keys));
+        this.readLegacy = readLegacy;
+    }
+
+    /** Không chia shard (repository tạo ngoài Spring: benchmark, công cụ...). */
+    public static Gsi1Sharding none() {
+        return new Gsi1Sharding(1, Collections.emptyList(), true);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isSharded(String gsi1Pk) {
+        return count > 1 && gsi1Pk != null && keys.contains(gsi1Pk);
+    }
+
+    /** Gắn shard cho item sắp ghi nếu GSI1PK là key gốc được chia (đã có hậu tố thì giữ nguyên). */
+    public void assign(SchoolItem item) {
+        if (item == null || item.getPk() == null || !isSharded(item.getGsi1Pk())) return;
+        item.setGsi1Pk(shardKey(item.getGsi1Pk(), Math.floorMod(shardSource(item).hashCode(), count)));
+    }
+
+    /** Chuỗi quyết định shard: khóa chính đầy đủ của item (PK, SK). */
+    private static String shardSource(SchoolItem item) {
+        return item.getSk() == null ? item.getPk() : item.getPk() + "#" + item.getSk();
+    }
+
+    /** Mọi partition GSI1 phải đọc cho key gốc: các shard (+ partition gốc cho dữ liệu cũ). */
+    public List<String> partitions(String gsi1Pk) {
+        if (!isSharded(gsi1Pk)) return Collections.singletonList(gsi1Pk);
+        List<String> partitions = new ArrayList<>(count + 1);
+        for (int shard = 0; shard < count; shard++) {
+            partitions.add(shardKey(gsi1Pk, shard));
+        }
+        if (readLegacy) partitions.add(gsi1Pk);
+        return partitions;
+    }
+
+    /** Bỏ hậu tố shard: "ROLE#STUDENT#03" -> "ROLE#STUDENT"; key không chia giữ nguyên. */
+    public String logicalKey(String gsi1Pk) {
+        if (gsi1Pk == null || gsi1Pk.length() < 4) return gsi1Pk;
+        int hash = gsi1Pk.length() - 3;
+        if (gsi1Pk.charAt(hash) != '#'
+                || !Character.isDigit(gsi1Pk.charAt(hash + 1)) || !Character.isDigit(gsi1Pk.charAt(hash + 2))) {
+            return gsi1Pk;
+        }
+        String base = gsi1Pk.substring(0, hash);
+        return keys.contains(base) ? base : gsi1Pk;
+    }
+
+    private static String shardKey(String gsi1Pk, int shard) {
+        return String.format("%s#%02d", gsi1Pk, shard);
+    }
+}
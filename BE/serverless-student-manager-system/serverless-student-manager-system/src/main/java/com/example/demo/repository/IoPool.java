@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool thread (daemon) cho 1 loại lệnh DynamoDB chạy song song của {@link SchoolItemRepository}.
+ * Mỗi loại 1 pool riêng (BatchGet/BatchWrite, scatter-gather, UpdateItem hàng loạt) để 1 loại tải lớn không xếp hàng
+ * trước các loại khác. Task gọi từ chính 1 thread của pool được chạy luôn trên thread đó: task trong pool không bao giờ
+ * phải chờ task khác của cùng pool (không deadlock khi pool đã dùng hết thread).
+ */
+final class IoPool {
+
+    private static final ThreadLocal<IoPool> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+
+    IoPool(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(() -> {
+                CURRENT.set(this);
+                runnable.run();
+            }, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    <T> CompletableFuture<T> supply(Supplier<T> task) {
+        if (CURRENT.get() == this) {
+            // Đang ở trong pool: chạy luôn (lỗi vẫn trả qua future như khi chạy song song)
+            return CompletableFuture.supplyAsync(task, Runnable::run);
+        }
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
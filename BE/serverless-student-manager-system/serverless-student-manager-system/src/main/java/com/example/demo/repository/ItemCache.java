@@ -0,0 +1,153 @@
+package com.example.demo.repository;
+
+import com.example.demo.cache.TtlCache;
+import com.example.demo.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache L1 (trong 1 node) cho các item đọc lặp lại nhiều lần bằng GetItem:
+ *
+ *   CLASS#<id>    / INFO     (kiểm tra quyền, sĩ số, fetchClassDto...)
+ *   SUBJECT#<code>/ INFO
+ *   USER#<id>     / PROFILE
+ *
+ * Mỗi loại có TTL + kích thước riêng. Giá trị lưu là map AttributeValue (bất biến), mỗi lần đọc
+ * map lại thành SchoolItem mới nên service sửa item đọc được cũng không làm bẩn cache.
+ * Mọi lệnh ghi trong {@link SchoolItemRepository} xóa key tương ứng; TTL giới hạn độ cũ
+ * khi node khác ghi (mỗi instance có cache riêng).
+ */
+@Component
+public class ItemCache implements MetricsSource {
+
+    private final boolean enabled;
+    private final List<Policy> policies;
+    /** Tăng sau mỗi lần ghi vào key được cache; lần đọc nào bắt đầu trước đó thì không được ghi vào cache. */
+    private final AtomicLong writeStamp = new AtomicLong();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ItemCache(@Value("${app.item-cache.enabled:true}") boolean enabled,
+                     @Value("${app.item-cache.max-size:10000}") int maxSize,
+                     @Value("${app.item-cache.class-ttl-seconds:30}") long classTtlSeconds,
+                     @Value("${app.item-cache.subject-ttl-seconds:300}") long subjectTtlSeconds,
+                     @Value("${app.item-cache.user-ttl-seconds:60}") long userTtlSeconds) {
+        this.enabled = enabled;
+        List<Policy> list = new ArrayList<>();
+        list.add(new Policy("class", SchoolKeys.CLASS, SchoolKeys.INFO, maxSize, classTtlSeconds));
+        list.add(new Policy("subject", SchoolKeys.SUBJECT, SchoolKeys.INFO, maxSize, subjectTtlSeconds));
+        list.add(new Policy("user", SchoolKeys.USER, SchoolKeys.PROFILE, maxSize, userTtlSeconds));
+        this.policies = Collections.unmodifiableList(list);
+    }
+
+    /** Cache tắt: mọi key đều không được cache (dùng khi tạo repository ngoài Spring). */
+    public static ItemCache disabled() {
+        return new ItemCache(false, 1, 0, 0, 0);
+    }
+
+    /** Key này có được cache không. */
+    public boolean isCached(Key key) {
+        return policyFor(key) != null;
+    }
+
+    /** Lấy bản trong cache (null nếu không có / đã hết hạn / key không được cache). */
+    public Map<String, AttributeValue> get(Key key) {
+        Policy policy = policyFor(key);
+        return policy == null ? null : policy.cache.get(key);
+    }
+
+    /** Chụp mốc ghi TRƯỚC khi đọc DB, truyền lại cho {@link #put}. */
+    public long stamp() {
+        return writeStamp.get();
+    }
+
+    /** Ghi vào cache nếu từ lúc chụp mốc chưa có lệnh ghi nào (tránh nạp lại bản cũ sau khi vừa xóa). */
+    public void put(Key key, Map<String, AttributeValue> item, long stamp) {
+        Policy policy = policyFor(key);
+        if (policy == null || item == null) return;
+        if (writeStamp.get() == stamp) {
+            policy.cache.put(key, item);
+        }
+    }
+
+    public void invalidate(Key key) {
+        Policy policy = policyFor(key);
+        if (policy == null) return;
+        writeStamp.incrementAndGet();
+        policy.cache.invalidate(key);
+        invalidations.increment();
+    }
+
+    public void invalidate(String pk, String sk) {
+        if (pk != null && sk != null) {
+            invalidate(SchoolKeys.of(pk, sk));
+        }
+    }
+
+    public void clear() {
+        writeStamp.incrementAndGet();
+        policies.forEach(policy -> policy.cache.clear());
+    }
+
+    @Override
+    public String metricsName() {
+        return "itemCache";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("invalidations", invalidations.sum());
+        for (Policy policy : policies) {
+            Map<String, Object> stats = policy.cache.stats();
+            stats.put("ttlSeconds", policy.ttlSeconds);
+            snapshot.put(policy.name, stats);
+        }
+        return snapshot;
+    }
+
+    private Policy policyFor(Key key) {
+        if (!enabled || key == null) return null;
+        String pk = stringValue(key.partitionKeyValue());
+        if (pk == null || !key.sortKeyValue().isPresent()) return null;
+        String sk = stringValue(key.sortKeyValue().get());
+        for (Policy policy : policies) {
+            if (policy.matches(pk, sk)) return policy;
+        }
+        return null;
+    }
+
+    private static String stringValue(AttributeValue value) {
+        return value != null && value.type() == AttributeValue.Type.S ? value.s() : null;
+    }
+
+    private static final class Policy {
+        final String name;
+        final String pkPrefix;
+        final String sk;
+        final long ttlSeconds;
+        final TtlCache<Key, Map<String, AttributeValue>> cache;
+
+        Policy(String name, String pkPrefix, String sk, int maxSize, long ttlSeconds) {
+            this.name = name;
+            this.pkPrefix = pkPrefix;
+            this.sk = sk;
+            this.ttlSeconds = ttlSeconds;
+            this.cache = new TtlCache<>("itemCache." + name, Math.max(1, maxSize), ttlSeconds * 1000);
+        }
+
+        boolean matches(String pk, String sk) {
+            return ttlSeconds > 0 && this.sk.equals(sk) && pk.startsWith(pkPrefix);
+        }
+    }
+}
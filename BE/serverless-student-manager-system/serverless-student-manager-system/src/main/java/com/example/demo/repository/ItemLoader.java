@@ -0,0 +1,78 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loader kiểu DataLoader cho 1 request: gom key lại, đọc 1 lượt bằng BatchGetItem
+ * (qua {@link SchoolItemRepository#batchGetItems}) và nhớ kết quả - kể cả key không tồn tại -
+ * để lần hỏi sau không phải đọc lại.
+ *
+ * Không thread-safe, không dùng chung giữa các request (tạo mới bằng repository.newLoader()).
+ */
+public class ItemLoader {
+
+    private final SchoolItemRepository repository;
+    private final Map<Key, SchoolItem> memo = new HashMap<>();
+    private final Set<Key> pending = new LinkedHashSet<>();
+
+    ItemLoader(SchoolItemRepository repository) {
+        this.repository = repository;
+    }
+
+    /** Xếp key vào hàng đợi, chưa đọc DB. */
+    public ItemLoader queue(Key key) {
+        if (key != null && !memo.containsKey(key)) {
+            pending.add(key);
+        }
+        return this;
+    }
+
+    public ItemLoader queueAll(Collection<Key> keys) {
+        keys.forEach(this::queue);
+        return this;
+    }
+
+    /** Đọc tất cả key đang chờ bằng BatchGetItem. */
+    public void dispatch() {
+        if (pending.isEmpty()) return;
+        List<Key> batch = new ArrayList<>(pending);
+        pending.clear();
+        Map<Key, SchoolItem> found = repository.batchGetItems(batch);
+        for (Key key : batch) {
+            // Ghi cả null để không đọc lại key không tồn tại
+            memo.put(key, found.get(key));
+        }
+    }
+
+    /** Lấy 1 item (null nếu không có). Các key khác đang chờ được đọc chung 1 lượt. */
+    public SchoolItem load(Key key) {
+        if (key == null) return null;
+        if (!memo.containsKey(key)) {
+            pending.add(key);
+            dispatch();
+        }
+        return memo.get(key);
+    }
+
+    /** Lấy nhiều item; kết quả chỉ chứa các key tồn tại, giữ thứ tự đầu vào. */
+    public Map<Key, SchoolItem> loadAll(Collection<Key> keys) {
+        queueAll(keys);
+        dispatch();
+        Map<Key, SchoolItem> result = new LinkedHashMap<>();
+        for (Key key : keys) {
+            SchoolItem item = memo.get(key);
+            if (item != null) result.put(key, item);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import lombok.Getter;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Tham số phân trang chung cho API danh sách: ?limit=&cursor=
+ * cursor là LastEvaluatedKey của trang trước (đã mã hóa, xem {@link CursorCodec}).
+ */
+@Getter
+public final class PageRequest {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private final int limit;
+    private final Map<String, AttributeValue> exclusiveStartKey; // null = trang đầu
+
+    private PageRequest(int limit, Map<String, AttributeValue> exclusiveStartKey) {
+        this.limit = limit;
+        this.exclusiveStartKey = exclusiveStartKey;
+    }
+
+    /**
+     * @param limit  null -> DEFAULT_LIMIT
+     * @param cursor null/rỗng -> trang đầu
+     * @throws IllegalArgumentException nếu limit ngoài [1, MAX_LIMIT] hoặc cursor không hợp lệ
+     */
+    public static PageRequest of(Integer limit, String cursor) {
+        int size = limit != null ? limit : DEFAULT_LIMIT;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit phải nằm trong khoảng 1-" + MAX_LIMIT);
+        }
+        return new PageRequest(size, CursorCodec.decode(cursor));
+    }
+
+    public static PageRequest first(int limit) {
+        return of(limit, null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 1 trang kết quả + cursor để lấy trang tiếp theo (null = đã hết dữ liệu).
+ */
+@Data
+@AllArgsConstructor
+public class PageResult<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public <R> PageResult<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().map(mapper).collect(Collectors.toList());
+        return new PageResult<>(mapped, nextCursor);
+    }
+
+    /**
+     * Đọc lần lượt từng trang (mỗi trang `limit` item) và đưa cho consumer ngay khi có,
+     * không giữ lại trang cũ -> bộ nhớ chỉ phụ thuộc vào kích thước trang.
+     */
+    public static <T> void forEachPage(int limit, Function<PageRequest, PageResult<T>> fetch,
+                                       Consumer<List<T>> consumer) {
+        PageRequest page = PageRequest.first(limit);
+        while (true) {
+            PageResult<T> result = fetch.apply(page);
+            if (!result.getItems().isEmpty()) {
+                consumer.accept(result.getItems());
+            }
+            if (!result.hasMore()) {
+                return;
+            }
+            page = PageRequest.of(limit, result.getNextCursor());
+        }
+    }
+}
@@ -0,0 +1,739 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.DeleteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedResponse;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cửa ngõ DUY NHẤT vào bảng DynamoDB (Single Table) cho các service.
+ * Schema, DynamoDbTable và index GSI1 được tạo 1 lần khi khởi động (thay vì gọi
+ * TableSchema.fromBean mỗi lần dùng). Schema là {@link SchoolItemSchema} viết tay, không
+ * dùng reflection khi map item. Mọi lệnh ghi đều đi qua đây nên cache item ({@link ItemCache})
+ * được xóa đúng key ngay sau khi ghi, và GSI1PK "nóng" được gắn shard ({@link Gsi1Sharding}) trước khi ghi.
+ * Key chuẩn của từng loại item: xem {@link SchoolKeys}.
+ */
+@Repository
+@Slf4j
+public class SchoolItemRepository {
+
+    public static final String GSI1 = "GSI1";
+    /** Giới hạn số key của 1 lệnh BatchGetItem (DynamoDB). */
+    public static final int BATCH_GET_LIMIT = 100;
+    /** Giới hạn số item của 1 lệnh BatchWriteItem (DynamoDB). */
+    public static final int BATCH_WRITE_LIMIT = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    /** Số lệnh Query/Scan tối đa để gom đủ 1 trang khi có filter (giữ thời gian trả lời có giới hạn). */
+    private static final int MAX_FETCHES_PER_PAGE = 5;
+
+    private final DynamoDbClient lowLevelClient;
+    private final String tableName;
+    private final TableSchema<SchoolItem> schema;
+    private final DynamoDbTable<SchoolItem> table;
+    private final DynamoDbIndex<SchoolItem> gsi1;
+    /** BatchGetItem / BatchWriteItem theo lô. */
+    private final IoPool batchPool;
+    /** Query song song các shard / partition (scatter-gather). */
+    private final IoPool scatterPool;
+    /** UpdateItem hàng loạt ({@link #updateItems}). */
+    private final IoPool updatePool;
+    /** Số UpdateItem tối đa đang chạy của 1 lần gọi updateItems (1 lô lớn không chiếm hết pool). */
+    private final int updatesPerCall;
+    private final ItemCache itemCache;
+    private final Gsi1Sharding sharding;
+
+    /** Không có cache item, không chia shard GSI1 (benchmark, công cụ sinh dữ liệu...). */
+    public SchoolItemRepository(DynamoDbEnhancedClient enhancedClient,
+                                DynamoDbClient lowLevelClient,
+                                String tableName,
+                                int batchParallelism) {
+        this(enhancedClient, lowLevelClient, tableName, batchParallelism, batchParallelism, batchParallelism,
+                batchParallelism, ItemCache.disabled(), Gsi1Sharding.none());
+    }
+
+    @Autowired
+    public SchoolItemRepository(DynamoDbEnhancedClient enhancedClient,
+                                DynamoDbClient lowLevelClient,
+                                @Value("${aws.dynamodb.table-name}") String tableName,
+                                @Value("${app.dynamodb.batch-parallelism:4}") int batchParallelism,
+                                @Value("${app.dynamodb.scatter-parallelism:8}") int scatterParallelism,
+                                @Value("${app.dynamodb.update-parallelism:8}") int updateParallelism,
+                                @Value("${app.dynamodb.updates-per-call:4}") int updatesPerCall,
+                                ItemCache itemCache,
+                                Gsi1Sharding sharding) {
+        this.lowLevelClient = lowLevelClient;
+        this.itemCache = itemCache;
+        this.sharding = sharding;
+        this.tableName = tableName;
+        this.schema = SchoolItemSchema.create();
+        this.table = enhancedClient.table(tableName, schema);
+        this.gsi1 = table.index(GSI1);
+        this.batchPool = new IoPool("dynamo-batch", batchParallelism);
+        this.scatterPool = new IoPool("dynamo-scatter", scatterParallelism);
+        this.updatePool = new IoPool("dynamo-update", updateParallelism);
+        this.updatesPerCall = Math.max(1, updatesPerCall);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdown();
+        scatterPool.shutdown();
+        updatePool.shutdown();
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public TableSchema<SchoolItem> schema() {
+        return schema;
+    }
+
+    /** Index GSI1 (chỉ đọc). */
+    public DynamoDbIndex<SchoolItem> gsi1() {
+        return gsi1;
+    }
+
+    public Gsi1Sharding sharding() {
+        return sharding;
+    }
+
+    // ========================================================================
+    // ĐỌC
+    // ========================================================================
+
+    /** Đọc 1 item; CLASS/INFO, SUBJECT/INFO, USER/PROFILE được phục vụ từ {@link ItemCache} nếu còn hạn. */
+    public SchoolItem getItem(Key key) {
+        if (!itemCache.isCached(key)) {
+            return table.getItem(key);
+        }
+        Map<String, AttributeValue> cached = itemCache.get(key);
+        if (cached != null) {
+            return schema.mapToItem(cached);
+        }
+        long stamp = itemCache.stamp();
+        SchoolItem item = table.getItem(key);
+        if (item != null) {
+            itemCache.put(key, schema.itemToMap(item, true), stamp);
+        }
+        return item;
+    }
+
+    /**
+     * Đọc nhất quán (ConsistentRead), bỏ qua cache - dùng khi đọc item để sửa rồi ghi đè cả item,
+     * tránh ghi lại bản cũ mà node khác đã cập nhật.
+     */
+    public SchoolItem getItemForUpdate(Key key) {
+        return table.getItem(r -> r.key(key).consistentRead(true));
+    }
+
+    /**
+     * GetItem nhất quán (ConsistentRead, bỏ qua cache) chỉ lấy các attribute cho trước (ProjectionExpression) - dùng cho
+     * số version đọc trên mọi request (GetItem của client enhanced không có projection).
+     * @return item chỉ có các attribute đó, null nếu không tồn tại
+     */
+    public SchoolItem getAttributesForUpdate(Key key, String... attributes) {
+        Map<String, String> names = new HashMap<>();
+        StringBuilder projection = new StringBuilder();
+        for (int i = 0; i < attributes.length; i++) {
+            if (i > 0) projection.append(", ");
+            projection.append("#a").append(i);
+            names.put("#a" + i, attributes[i]);
+        }
+        GetItemResponse response = lowLevelClient.getItem(r -> r
+                .tableName(tableName)
+                .key(key.keyMap(schema, TableMetadata.primaryIndexName()))
+                .consistentRead(true)
+                .projectionExpression(projection.toString())
+                .expressionAttributeNames(names));
+        return response.hasItem() && !response.item().isEmpty() ? schema.mapToItem(response.item()) : null;
+    }
+
+    public SchoolItem getItem(GetItemEnhancedRequest request) {
+        return table.getItem(request);
+    }
+
+    public PageIterable<SchoolItem> query(QueryConditional queryConditional) {
+        return table.query(queryConditional);
+    }
+
+    public PageIterable<SchoolItem> query(QueryEnhancedRequest request) {
+        return table.query(request);
+    }
+
+    public PageIterable<SchoolItem> query(Consumer<QueryEnhancedRequest.Builder> request) {
+        return table.query(request);
+    }
+
+    public SdkIterable<Page<SchoolItem>> queryGsi1(QueryConditional queryConditional) {
+        return gsi1.query(queryConditional);
+    }
+
+    public SdkIterable<Page<SchoolItem>> queryGsi1(QueryEnhancedRequest request) {
+        return gsi1.query(request);
+    }
+
+    public SdkIterable<Page<SchoolItem>> queryGsi1(Consumer<QueryEnhancedRequest.Builder> request) {
+        return gsi1.query(request);
+    }
+
+    public PageIterable<SchoolItem> scan(ScanEnhancedRequest request) {
+        return table.scan(request);
+    }
+
+    public PageIterable<SchoolItem> scan(Consumer<ScanEnhancedRequest.Builder> request) {
+        return table.scan(request);
+    }
+
+    // ========================================================================
+    // PHÂN TRANG (limit + cursor)
+    // ========================================================================
+
+    /*
+     * Mỗi lệnh chỉ xin tối đa (limit - số item đã có) nên không bao giờ vượt limit và LastEvaluatedKey
+     * luôn trỏ đúng vị trí đã đọc. Với filter, DynamoDB có thể trả ít item hơn limit -> đọc tiếp,
+     * tối đa MAX_FETCHES_PER_PAGE lệnh; trang có thể ngắn hơn limit nhưng vẫn có nextCursor.
+     */
+
+    public PageResult<SchoolItem> queryPage(QueryEnhancedRequest.Builder request, PageRequest page) {
+        return fetchPage(page, (startKey, limit) ->
+                table.query(request.exclusiveStartKey(startKey).limit(limit).build()).iterator().next());
+    }
+
+    public PageResult<SchoolItem> queryGsi1Page(QueryEnhancedRequest.Builder request, PageRequest page) {
+        return fetchPage(page, (startKey, limit) ->
+                gsi1.query(request.exclusiveStartKey(startKey).limit(limit).build()).iterator().next());
+    }
+
+    public PageResult<SchoolItem> scanPage(ScanEnhancedRequest.Builder request, PageRequest page) {
+        return fetchPage(page, (startKey, limit) ->
+                table.scan(request.exclusiveStartKey(startKey).limit(limit).build()).iterator().next());
+    }
+
+    private PageResult<SchoolItem> fetchPage(PageRequest page,
+                                             BiFunction<Map<String, AttributeValue>, Integer, Page<SchoolItem>> fetch) {
+        RawPage raw = fetchPageFrom(page, page.getExclusiveStartKey(), fetch);
+        return new PageResult<>(raw.items, CursorCodec.encode(raw.lastEvaluatedKey));
+    }
+
+    private RawPage fetchPageFrom(PageRequest page, Map<String, AttributeValue> exclusiveStartKey,
+                                  BiFunction<Map<String, AttributeValue>, Integer, Page<SchoolItem>> fetch) {
+        List<SchoolItem> items = new ArrayList<>(page.getLimit());
+        Map<String, AttributeValue> startKey = exclusiveStartKey;
+        int fetches = 0;
+        do {
+            Page<SchoolItem> result = fetch.apply(startKey, page.getLimit() - items.size());
+            items.addAll(result.items());
+            startKey = result.lastEvaluatedKey();
+            fetches++;
+        } while (startKey != null && !startKey.isEmpty()
+                && items.size() < page.getLimit() && fetches < MAX_FETCHES_PER_PAGE);
+        return new RawPage(items, startKey == null || startKey.isEmpty() ? null : startKey);
+    }
+
+    /** Kết quả đọc 1 trang chưa mã hóa cursor (lastEvaluatedKey null = hết). */
+    static final class RawPage {
+        final List<SchoolItem> items;
+        final Map<String, AttributeValue> lastEvaluatedKey;
+
+        RawPage(List<SchoolItem> items, Map<String, AttributeValue> lastEvaluatedKey) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+        }
+    }
+
+    static final class ShardPage {
+        final String partition;
+        final RawPage page;
+
+        ShardPage(String partition, RawPage page) {
+            this.partition = partition;
+            this.page = page;
+        }
+    }
+
+    // ========================================================================
+    // GSI1 CHIA SHARD (scatter-gather)
+    // ========================================================================
+
+    /**
+     * Đọc hết 1 partition GSI1 theo key gốc, gồm mọi shard (thứ tự giữa các shard không xác định).
+     * @param condition partition thật (shard) -> điều kiện key
+     */
+    public List<SchoolItem> queryGsi1AllShards(String gsi1Pk, Function<String, QueryConditional> condition) {
+        List<SchoolItem> items = new ArrayList<>();
+        for (String partition : sharding.partitions(gsi1Pk)) {
+            for (Page<SchoolItem> page : gsi1.query(condition.apply(partition))) {
+                items.addAll(page.items());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 1 trang của partition GSI1 theo key gốc: query song song mọi shard (mỗi shard tối đa limit item),
+     * trộn theo GSI1SK (chiều theo scanIndexForward), lấy limit item đầu.
+     *
+     * Cursor giữ vị trí riêng của từng shard (key item cuối đã trả / LastEvaluatedKey); shard đã hết thì
+     * không có trong cursor. Shard dừng sớm vì filter chỉ được vượt qua khi các shard khác không còn item
+     * đứng trước vị trí nó đã đọc tới, nên trang có thể ngắn hơn limit nhưng không bỏ sót item.
+     *
+     * @param condition partition thật (shard) -> điều kiện key
+     * @param options   filter / projection / scanIndexForward... (không cần đặt queryConditional)
+     */
+    public PageResult<SchoolItem> queryGsi1Sharded(String gsi1Pk, Function<String, QueryConditional> condition,
+                                                   Consumer<QueryEnhancedRequest.Builder> options, PageRequest page) {
+        List<String> partitions = sharding.partitions(gsi1Pk);
+        if (partitions.size() == 1) {
+            QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder().queryConditional(condition.apply(gsi1Pk));
+            options.accept(request);
+            return queryGsi1Page(request, page);
+        }
+
+        return scatterGather(ShardCursor.GSI1, r -> gsi1.query(r).iterator().next(), partitions, condition, options, page);
+    }
+
+    /**
+     * 1 trang trộn từ nhiều partition của bảng chính (VD: bucket theo ngày LOG#2026-10-18, LOG#2026-10-19...):
+     * query song song, trộn theo SK - giống {@link #queryGsi1Sharded}. SK phải duy nhất giữa các partition
+     * để thứ tự trộn ổn định.
+     *
+     * @param condition partition -> điều kiện key
+     * @param options   filter / projection / scanIndexForward...
+     */
+    public PageResult<SchoolItem> queryPartitions(List<String> partitions, Function<String, QueryConditional> condition,
+                                                  Consumer<QueryEnhancedRequest.Builder> options, PageRequest page) {
+        if (partitions.isEmpty()) return new PageResult<>(new ArrayList<>(), null);
+        if (partitions.size() == 1) {
+            QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                    .queryConditional(condition.apply(partitions.get(0)));
+            options.accept(request);
+            return queryPage(request, page);
+        }
+        return scatterGather(ShardCursor.TABLE, r -> table.query(r).iterator().next(), partitions, condition, options, page);
+    }
+
+    private PageResult<SchoolItem> scatterGather(ShardCursor mode, Function<QueryEnhancedRequest, Page<SchoolItem>> query,
+                                                 List<String> partitions,
+                                                 Function<String, QueryConditional> condition,
+                                                 Consumer<QueryEnhancedRequest.Builder> options, PageRequest page) {
+        // Trang đầu: mọi partition bắt đầu từ đầu (null); trang sau: chỉ các partition còn trong cursor
+        Map<String, Map<String, AttributeValue>> starts = ShardCursor.decode(page.getExclusiveStartKey(), partitions);
+        List<String> active = new ArrayList<>(starts.keySet());
+        List<CompletableFuture<ShardPage>> futures = new ArrayList<>(active.size());
+        boolean forward = true;
+        for (String partition : active) {
+            QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder().queryConditional(condition.apply(partition));
+            options.accept(request);
+            mode.ensureKeysProjected(request);
+            forward = !Boolean.FALSE.equals(request.build().scanIndexForward());
+            PageRequest shardPage = PageRequest.first(page.getLimit());
+            Map<String, AttributeValue> start = starts.get(partition);
+            futures.add(scatterPool.supply(() -> new ShardPage(partition,
+                    fetchPageFrom(shardPage, start, (startKey, limit) ->
+                            query.apply(request.exclusiveStartKey(startKey).limit(limit).build())))));
+        }
+        List<ShardPage> shards = new ArrayList<>(active.size());
+        for (CompletableFuture<ShardPage> future : futures) {
+            try {
+                shards.add(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return mode.merge(shards, starts, page.getLimit(), forward);
+    }
+
+    // ========================================================================
+    // ĐỌC THEO LÔ (BatchGetItem)
+    // ========================================================================
+
+    /** Loader gom key + nhớ kết quả trong phạm vi 1 request. */
+    public ItemLoader newLoader() {
+        return new ItemLoader(this);
+    }
+
+    /**
+     * Đọc nhiều item bằng BatchGetItem: chia lô 100 key, các lô chạy song song,
+     * key chưa xử lý (UnprocessedKeys) được thử lại với backoff.
+     * @return map key -> item, chỉ chứa các key tồn tại
+     */
+    public Map<Key, SchoolItem> batchGetItems(Collection<Key> keys) {
+        List<Key> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        if (distinct.isEmpty()) return Collections.emptyMap();
+
+        // Key có trong cache item thì không cần đọc DB
+        Map<Key, SchoolItem> cachedItems = new HashMap<>();
+        distinct.removeIf(key -> {
+            Map<String, AttributeValue> cached = itemCache.get(key);
+            if (cached == null) return false;
+            cachedItems.put(key, schema.mapToItem(cached));
+            return true;
+        });
+        if (distinct.isEmpty()) return cachedItems;
+        long stamp = itemCache.stamp();
+        Map<Key, SchoolItem> fetched = batchGetUncached(distinct);
+        for (Map.Entry<Key, SchoolItem> entry : fetched.entrySet()) {
+            if (itemCache.isCached(entry.getKey())) {
+                itemCache.put(entry.getKey(), schema.itemToMap(entry.getValue(), true), stamp);
+            }
+        }
+        if (cachedItems.isEmpty()) return fetched;
+        cachedItems.putAll(fetched);
+        return cachedItems;
+    }
+
+    private Map<Key, SchoolItem> batchGetUncached(List<Key> distinct) {
+
+        List<List<Key>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += BATCH_GET_LIMIT) {
+            chunks.add(distinct.subList(i, Math.min(i + BATCH_GET_LIMIT, distinct.size())));
+        }
+        if (chunks.size() == 1) {
+            return batchGetChunk(chunks.get(0));
+        }
+
+        List<CompletableFuture<Map<Key, SchoolItem>>> futures = new ArrayList<>();
+        for (List<Key> chunk : chunks) {
+            futures.add(batchPool.supply(() -> batchGetChunk(chunk)));
+        }
+        Map<Key, SchoolItem> result = new HashMap<>();
+        for (CompletableFuture<Map<Key, SchoolItem>> future : futures) {
+            try {
+                result.putAll(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return result;
+    }
+
+    private Map<Key, SchoolItem> batchGetChunk(List<Key> chunk) {
+        Map<Key, SchoolItem> found = new HashMap<>();
+        List<Map<String, AttributeValue>> remaining = new ArrayList<>(chunk.size());
+        for (Key key : chunk) {
+            remaining.add(key.keyMap(schema, TableMetadata.primaryIndexName()));
+        }
+
+        for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+            if (attempt == MAX_BATCH_ATTEMPTS) {
+                // Vẫn bị throttle sau nhiều lần thử -> đọc lẻ từng key còn lại
+                log.warn("BatchGetItem còn {} key chưa xử lý sau {} lần thử, chuyển sang GetItem", remaining.size(), attempt);
+                for (Map<String, AttributeValue> keyMap : remaining) {
+                    Key key = SchoolKeys.of(keyMap.get("PK").s(), keyMap.get("SK").s());
+                    SchoolItem item = table.getItem(key);
+                    if (item != null) found.put(key, item);
+                }
+                break;
+            }
+            if (attempt > 0) {
+                backoff(attempt);
+            }
+
+            KeysAndAttributes request = KeysAndAttributes.builder().keys(remaining).build();
+            BatchGetItemResponse response = lowLevelClient.batchGetItem(r -> r.requestItems(Map.of(tableName, request)));
+            for (Map<String, AttributeValue> raw : response.responses().getOrDefault(tableName, Collections.emptyList())) {
+                SchoolItem item = schema.mapToItem(raw);
+                found.put(SchoolKeys.of(item.getPk(), item.getSk()), item);
+            }
+            KeysAndAttributes unprocessed = response.unprocessedKeys().get(tableName);
+            remaining = unprocessed == null ? Collections.emptyList() : new ArrayList<>(unprocessed.keys());
+        }
+        return found;
+    }
+
+    // ========================================================================
+    // GHI
+    // ========================================================================
+
+    /*
+     * Cache được xóa trong finally: lệnh ghi lỗi giữa chừng (VD: ConditionalCheckFailed, timeout)
+     * vẫn có thể đã ghi, nên coi như item đã đổi.
+     */
+
+    public void putItem(SchoolItem item) {
+        sharding.assign(item);
+        try {
+            table.putItem(item);
+        } finally {
+            itemCache.invalidate(item.getPk(), item.getSk());
+        }
+    }
+
+    /**
+     * Ghi đè item, trả về bản trước khi ghi (null = chưa có) ngay trong lệnh PutItem (ReturnValues ALL_OLD):
+     * không cần GetItem riêng để biết giá trị cũ, và không có ai ghi chen giữa lúc đọc và lúc ghi.
+     */
+    public SchoolItem putItemReturningOld(SchoolItem item) {
+        sharding.assign(item);
+        try {
+            PutItemEnhancedResponse<SchoolItem> response = table.putItemWithResponse(PutItemEnhancedRequest.builder(SchoolItem.class)
+                    .item(item)
+                    .returnValues(ReturnValue.ALL_OLD)
+                    .build());
+            return response.attributes();
+        } finally {
+            itemCache.invalidate(item.getPk(), item.getSk());
+        }
+    }
+
+    public void putItem(PutItemEnhancedRequest<SchoolItem> request) {
+        sharding.assign(request.item());
+        try {
+            table.putItem(request);
+        } finally {
+            itemCache.invalidate(request.item().getPk(), request.item().getSk());
+        }
+    }
+
+    public SchoolItem updateItem(SchoolItem item) {
+        sharding.assign(item);
+        try {
+            return table.updateItem(item);
+        } finally {
+            itemCache.invalidate(item.getPk(), item.getSk());
+        }
+    }
+
+    public SchoolItem updateItem(UpdateItemEnhancedRequest<SchoolItem> request) {
+        sharding.assign(request.item());
+        try {
+            return table.updateItem(request);
+        } finally {
+            itemCache.invalidate(request.item().getPk(), request.item().getSk());
+        }
+    }
+
+    public SchoolItem updateItem(Consumer<UpdateItemEnhancedRequest.Builder<SchoolItem>> request) {
+        UpdateItemEnhancedRequest.Builder<SchoolItem> builder = UpdateItemEnhancedRequest.builder(SchoolItem.class);
+        request.accept(builder);
+        return updateItem(builder.build());
+    }
+
+    /**
+     * UpdateItem mức thấp (SET a = a + :inc...) - tên bảng được điền tự động.
+     */
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        try {
+            return lowLevelClient.updateItem(request.toBuilder().tableName(tableName).build());
+        } finally {
+            invalidate(request.key());
+        }
+    }
+
+    public SchoolItem deleteItem(Key key) {
+        try {
+            return table.deleteItem(key);
+        } finally {
+            itemCache.invalidate(key);
+        }
+    }
+
+    public SchoolItem deleteItem(SchoolItem item) {
+        try {
+            return table.deleteItem(item);
+        } finally {
+            itemCache.invalidate(item.getPk(), item.getSk());
+        }
+    }
+
+    public SchoolItem deleteItem(DeleteItemEnhancedRequest request) {
+        try {
+            return table.deleteItem(request);
+        } finally {
+            itemCache.invalidate(request.key());
+        }
+    }
+
+    private void invalidate(Map<String, AttributeValue> keyMap) {
+        AttributeValue pk = keyMap.get("PK");
+        AttributeValue sk = keyMap.get("SK");
+        if (pk != null && sk != null) {
+            itemCache.invalidate(pk.s(), sk.s());
+        }
+    }
+
+    // ========================================================================
+    // GHI THEO LÔ (BatchWriteItem)
+    // ========================================================================
+
+    /**
+     * Ghi nhiều item bằng BatchWriteItem: chia lô 25 item, tối đa batch-parallelism lô chạy cùng lúc,
+     * UnprocessedItems được gửi lại với backoff. Lô bị lỗi không làm hỏng các lô khác -
+     * item không ghi được nằm trong {@link BatchWriteResult#getFailedItems()}.
+     * Item trùng key (PK+SK) chỉ giữ bản cuối cùng (BatchWriteItem không cho trùng key trong 1 lệnh).
+     */
+    public BatchWriteResult batchWriteItems(Collection<SchoolItem> items) {
+        long start = System.currentTimeMillis();
+        Map<Key, SchoolItem> distinct = new LinkedHashMap<>();
+        for (SchoolItem item : items) {
+            sharding.assign(item);
+            distinct.put(SchoolKeys.of(item.getPk(), item.getSk()), item);
+        }
+        List<SchoolItem> all = new ArrayList<>(distinct.values());
+        try {
+            return batchWriteDistinct(all, start);
+        } finally {
+            distinct.keySet().forEach(itemCache::invalidate);
+        }
+    }
+
+    private BatchWriteResult batchWriteDistinct(List<SchoolItem> all, long start) {
+        List<CompletableFuture<ChunkWrite>> futures = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += BATCH_WRITE_LIMIT) {
+            List<SchoolItem> chunk = all.subList(i, Math.min(i + BATCH_WRITE_LIMIT, all.size()));
+            futures.add(batchPool.supply(() -> batchWriteChunk(chunk)));
+        }
+
+        int batchCalls = 0;
+        int retries = 0;
+        List<SchoolItem> failedItems = new ArrayList<>();
+        for (CompletableFuture<ChunkWrite> future : futures) {
+            ChunkWrite chunk = future.join();
+            batchCalls += chunk.calls;
+            retries += Math.max(0, chunk.calls - 1);
+            failedItems.addAll(chunk.failed);
+        }
+        return BatchWriteResult.builder()
+                .requested(all.size())
+                .written(all.size() - failedItems.size())
+                .failed(failedItems.size())
+                .batchCalls(batchCalls)
+                .retries(retries)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .failedItems(failedItems)
+                .build();
+    }
+
+    private ChunkWrite batchWriteChunk(List<SchoolItem> chunk) {
+        ChunkWrite result = new ChunkWrite();
+        List<WriteRequest> remaining = new ArrayList<>(chunk.size());
+        for (SchoolItem item : chunk) {
+            remaining.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder().item(schema.itemToMap(item, true)).build())
+                    .build());
+        }
+
+        try {
+            for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+                if (attempt == MAX_BATCH_ATTEMPTS) {
+                    log.warn("BatchWriteItem còn {} item chưa xử lý sau {} lần thử", remaining.size(), attempt);
+                    result.failed.addAll(toItems(remaining));
+                    break;
+                }
+                if (attempt > 0) {
+                    backoff(attempt);
+                }
+                List<WriteRequest> request = remaining;
+                BatchWriteItemResponse response = lowLevelClient.batchWriteItem(r -> r.requestItems(Map.of(tableName, request)));
+                result.calls++;
+                List<WriteRequest> unprocessed = response.unprocessedItems().get(tableName);
+                remaining = unprocessed == null ? Collections.emptyList() : new ArrayList<>(unprocessed);
+            }
+        } catch (RuntimeException e) {
+            log.error("BatchWriteItem lỗi, {} item không được ghi", remaining.size(), e);
+            result.failed.addAll(toItems(remaining));
+        }
+        return result;
+    }
+
+    private List<SchoolItem> toItems(List<WriteRequest> requests) {
+        List<SchoolItem> items = new ArrayList<>(requests.size());
+        for (WriteRequest request : requests) {
+            items.add(schema.mapToItem(request.putRequest().item()));
+        }
+        return items;
+    }
+
+    private static final class ChunkWrite {
+        int calls;
+        final List<SchoolItem> failed = new ArrayList<>();
+    }
+
+    // ========================================================================
+    // CẬP NHẬT SONG SONG (nhiều UpdateItem)
+    // ========================================================================
+
+    /**
+     * Chạy nhiều UpdateItem mức thấp (thường có điều kiện) song song trên pool riêng (app.dynamodb.update-parallelism),
+     * mỗi lần gọi tối đa app.dynamodb.updates-per-call lệnh đang chạy để 1 lô lớn không xếp hàng trước các lô khác.
+     * DynamoDB không có UpdateItem theo lô: BatchWriteItem chỉ Put/Delete cả item và không có điều kiện,
+     * TransactWriteItems tối đa 100 item và 1 item lỗi là hỏng cả lô. Lệnh lỗi không làm hỏng lệnh khác.
+     * @return kết quả theo đúng thứ tự requests
+     */
+    public List<UpdateItemResult> updateItems(List<UpdateItemRequest> requests) {
+        Semaphore window = new Semaphore(updatesPerCall);
+        List<CompletableFuture<UpdateItemResult>> futures = new ArrayList<>(requests.size());
+        for (UpdateItemRequest request : requests) {
+            window.acquireUninterruptibly();
+            futures.add(updatePool.supply(() -> updateItem(request))
+                    .whenComplete((response, error) -> window.release())
+                    .handle((response, error) -> new UpdateItemResult(response, error == null ? null : unwrap(error))));
+        }
+        List<UpdateItemResult> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<UpdateItemResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(BASE_BACKOFF_MILLIS << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi chờ thử lại lệnh batch", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTag;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+/**
+ * TableSchema viết tay cho SchoolItem: getter/setter gọi thẳng qua method reference,
+ * không dùng Introspector / LambdaMetafactory như TableSchema.fromBean.
+ *
+ * Tên cột PHẢI khớp với annotation trong SchoolItem (PK, SK, GSI1PK, role_name, ...).
+ * Thêm field mới vào SchoolItem thì thêm 1 dòng ở đây - SchoolItemSchemaTest sẽ báo lỗi
+ * nếu hai bên lệch nhau.
+ */
+public final class SchoolItemSchema {
+
+    private static final String GSI1 = SchoolItemRepository.GSI1;
+
+    private SchoolItemSchema() {
+    }
+
+    public static TableSchema<SchoolItem> create() {
+        StaticTableSchema.Builder<SchoolItem> b = StaticTableSchema.builder(SchoolItem.class)
+                .newItemSupplier(SchoolItem::new);
+
+        // ==== 1. CÁC KHÓA (KEYS) ====
+        attribute(b, String.class, "PK", SchoolItem::getPk, SchoolItem::setPk, primaryPartitionKey());
+        attribute(b, String.class, "SK", SchoolItem::getSk, SchoolItem::setSk, primarySortKey());
+        attribute(b, String.class, "GSI1PK", SchoolItem::getGsi1Pk, SchoolItem::setGsi1Pk, secondaryPartitionKey(GSI1));
+        attribute(b, String.class, "GSI1SK", SchoolItem::getGsi1Sk, SchoolItem::setGsi1Sk, secondarySortKey(GSI1));
+
+        // ==== 2. THÔNG TIN CHUNG (COMMON FIELDS) ====
+        attribute(b, String.class, "id", SchoolItem::getId, SchoolItem::setId);
+        attribute(b, String.class, "name", SchoolItem::getName, SchoolItem::setName);
+        attribute(b, String.class, "description", SchoolItem::getDescription, SchoolItem::setDescription);
+        attribute(b, Integer.class, "status", SchoolItem::getStatus, SchoolItem::setStatus);
+        attribute(b, String.class, "created_at", SchoolItem::getCreatedAt, SchoolItem::setCreatedAt);
+        attribute(b, String.class, "updated_at", SchoolItem::getUpdatedAt, SchoolItem::setUpdatedAt);
+
+        // ==== 3. THÔNG TIN NGƯỜI DÙNG (USER PROFILE) ====
+        attribute(b, String.class, "email", SchoolItem::getEmail, SchoolItem::setEmail);
+        attribute(b, String.class, "role_name", SchoolItem::getRoleName, SchoolItem::setRoleName);
+        attribute(b, String.class, "codeUser", SchoolItem::getCodeUser, SchoolItem::setCodeUser);
+        attribute(b, String.class, "avatar", SchoolItem::getAvatar, SchoolItem::setAvatar);
+        attribute(b, String.class, "date_of_birth", SchoolItem::getDateOfBirth, SchoolItem::setDateOfBirth);
+
+        // ==== 4. THÔNG TIN LỚP HỌC & MÔN HỌC (CLASS & SUBJECT) ====
+        attribute(b, String.class, "codeSubject", SchoolItem::getCodeSubject, SchoolItem::setCodeSubject);
+        attribute(b, Integer.class, "credits", SchoolItem::getCredits, SchoolItem::setCredits);
+        attribute(b, String.class, "department", SchoolItem::getDepartment, SchoolItem::setDepartment);
+        attribute(b, String.class, "semester", SchoolItem::getSemester, SchoolItem::setSemester);
+        attribute(b, String.class, "academicYear", SchoolItem::getAcademicYear, SchoolItem::setAcademicYear);
+        attribute(b, String.class, "room", SchoolItem::getRoom, SchoolItem::setRoom);
+        attribute(b, String.class, "subject_id", SchoolItem::getSubjectId, SchoolItem::setSubjectId);
+        attribute(b, String.class, "teacher_id", SchoolItem::getTeacherId, SchoolItem::setTeacherId);
+        attribute(b, String.class, "password", SchoolItem::getPassword, SchoolItem::setPassword);
+        attribute(b, Integer.class, "studentCount", SchoolItem::getStudentCount, SchoolItem::setStudentCount);
+        attribute(b, String.class, "studentName", SchoolItem::getStudentName, SchoolItem::setStudentName);
+        attribute(b, String.class, "teacherName", SchoolItem::getTeacherName, SchoolItem::setTeacherName);
+        attribute(b, String.class, "student_id", SchoolItem::getStudentId, SchoolItem::setStudentId);
+        attribute(b, String.class, "prerequisites", SchoolItem::getPrerequisites, SchoolItem::setPrerequisites);
+
+        // ==== 5. ENROLLMENT (GHI DANH) ====
+        attribute(b, String.class, "joined_at", SchoolItem::getJoinedAt, SchoolItem::setJoinedAt);
+
+        // ==== 6. ASSIGNMENTS & NOTIFICATIONS (BÀI TẬP & THÔNG BÁO) ====
+        attribute(b, String.class, "title", SchoolItem::getTitle, SchoolItem::setTitle);
+        attribute(b, String.class, "content", SchoolItem::getContent, SchoolItem::setContent);
+        attribute(b, String.class, "type", SchoolItem::getType, SchoolItem::setType);
+        attribute(b, Double.class, "weight", SchoolItem::getWeight, SchoolItem::setWeight);
+        attribute(b, Double.class, "max_score", SchoolItem::getMaxScore, SchoolItem::setMaxScore);
+        attribute(b, String.class, "deadline", SchoolItem::getDeadline, SchoolItem::setDeadline);
+        attribute(b, Boolean.class, "is_published", SchoolItem::getIsPublished, SchoolItem::setIsPublished);
+
+        // ==== 7. SUBMISSIONS & FILE MATERIAL ====
+        attribute(b, String.class, "file_url", SchoolItem::getFileUrl, SchoolItem::setFileUrl);
+        attribute(b, String.class, "file_name", SchoolItem::getFileName, SchoolItem::setFileName);
+        attribute(b, String.class, "file_type", SchoolItem::getFileType, SchoolItem::setFileType);
+        attribute(b, String.class, "uploaded_by", SchoolItem::getUploadedBy, SchoolItem::setUploadedBy);
+        attribute(b, String.class, "submitted_at", SchoolItem::getSubmittedAt, SchoolItem::setSubmittedAt);
+        attribute(b, Double.class, "score", SchoolItem::getScore, SchoolItem::setScore);
+        attribute(b, String.class, "feedback", SchoolItem::getFeedback, SchoolItem::setFeedback);
+        attribute(b, Boolean.class, "is_read", SchoolItem::getIsRead, SchoolItem::setIsRead);
+        attribute(b, String.class, "gradedAt", SchoolItem::getGradedAt, SchoolItem::setGradedAt);
+
+        // ==== 8a. POSTS & COMMENTS ====
+        attribute(b, String.class, "postId", SchoolItem::getPostId, SchoolItem::setPostId);
+        attribute(b, String.class, "parentId", SchoolItem::getParentId, SchoolItem::setParentId);
+        attribute(b, String.class, "senderId", SchoolItem::getSenderId, SchoolItem::setSenderId);
+        attribute(b, Boolean.class, "isPinned", SchoolItem::getIsPinned, SchoolItem::setIsPinned);
+        attribute(b, Integer.class, "likeCount", SchoolItem::getLikeCount, SchoolItem::setLikeCount);
+        attribute(b, Integer.class, "commentCount", SchoolItem::getCommentCount, SchoolItem::setCommentCount);
+
+        // ==== 7b. BẢNG XẾP HẠNG LỚP ====
+        attribute(b, String.class, "leaderboard", SchoolItem::getLeaderboard, SchoolItem::setLeaderboard);
+        attribute(b, Integer.class, "version", SchoolItem::getVersion, SchoolItem::setVersion);
+
+        // ==== 9. AUDIT LOGS (LỊCH SỬ HOẠT ĐỘNG) ====
+        attribute(b, String.class, "action_type", SchoolItem::getActionType, SchoolItem::setActionType);
+        attribute(b, String.class, "log_details", SchoolItem::getLogDetails, SchoolItem::setLogDetails);
+        attribute(b, String.class, "target_class_id", SchoolItem::getTargetClassId, SchoolItem::setTargetClassId);
+        attribute(b, String.class, "actor_id", SchoolItem::getActorId, SchoolItem::setActorId);
+
+        // ==== 10. THÔNG BÁO LỚP (CLASS NOTIFICATIONS) ====
+        attribute(b, String.class, "class_id", SchoolItem::getClassId, SchoolItem::setClassId);
+        attribute(b, String.class, "sent_by", SchoolItem::getSentBy, SchoolItem::setSentBy);
+        attribute(b, String.class, "sent_at", SchoolItem::getSentAt, SchoolItem::setSentAt);
+
+        return b.build();
+    }
+
+    private static <R> void attribute(StaticTableSchema.Builder<SchoolItem> builder,
+                                      Class<R> type,
+                                      String name,
+                                      Function<SchoolItem, R> getter,
+                                      BiConsumer<SchoolItem, R> setter,
+                                      StaticAttributeTag... tags) {
+        builder.addAttribute(type, a -> a.name(name).getter(getter).setter(setter).tags(tags));
+    }
+}
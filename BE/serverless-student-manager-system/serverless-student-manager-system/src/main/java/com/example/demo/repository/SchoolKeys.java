@@ -0,0 +1,130 @@
+package com.example.demo.repository;
+
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+/**
+ * Key chuẩn của từng loại item trong Single Table.
+ * Các hàm nhận được cả id thô ("SE01") lẫn id đã có prefix ("USER#SE01").
+ *
+ *   USER#<id>            / PROFILE
+ *   CLASS#<id>           / INFO | STUDENT#<studentId> | POST#<postId>
+ *   SUBJECT#<code>       / INFO
+ *   ASSIGNMENT#<classId> / INFO#<assignmentId> | SUBMISSION#<assignmentId>#<studentId>
+ *   POST#<postId>        / COMMENT#<commentId>
+ *   REACTION#<entityId>  / USER#<userId>
+ */
+public final class SchoolKeys {
+
+    public static final String USER = "USER#";
+    public static final String CLASS = "CLASS#";
+    public static final String SUBJECT = "SUBJECT#";
+    public static final String ASSIGNMENT = "ASSIGNMENT#";
+    public static final String POST = "POST#";
+    public static final String COMMENT = "COMMENT#";
+    public static final String REACTION = "REACTION#";
+    public static final String STUDENT = "STUDENT#";
+    public static final String SUBMISSION = "SUBMISSION#";
+    public static final String INFO = "INFO";
+    public static final String INFO_PREFIX = "INFO#";
+    public static final String PROFILE = "PROFILE";
+
+    private SchoolKeys() {
+    }
+
+    // ==== Prefix helpers ====
+
+    /** Thêm prefix nếu chưa có. */
+    public static String withPrefix(String prefix, String id) {
+        if (id == null) return null;
+        return id.startsWith(prefix) ? id : prefix + id;
+    }
+
+    /** Bỏ prefix nếu có. */
+    public static String stripPrefix(String prefix, String value) {
+        if (value == null) return null;
+        return value.startsWith(prefix) ? value.substring(prefix.length()) : value;
+    }
+
+    public static String userPk(String userId) {
+        return withPrefix(USER, userId);
+    }
+
+    public static String classPk(String classId) {
+        return withPrefix(CLASS, classId);
+    }
+
+    public static String subjectPk(String code) {
+        return withPrefix(SUBJECT, code);
+    }
+
+    public static String assignmentPk(String classId) {
+        return ASSIGNMENT + stripPrefix(CLASS, classId);
+    }
+
+    // ==== Keys ====
+
+    public static Key of(String pk, String sk) {
+        return Key.builder().partitionValue(pk).sortValue(sk).build();
+    }
+
+    public static Key userProfile(String userId) {
+        return of(userPk(userId), PROFILE);
+    }
+
+    public static Key classInfo(String classId) {
+        return of(classPk(classId), INFO);
+    }
+
+    public static Key enrollment(String classId, String studentId) {
+        return of(classPk(classId), STUDENT + stripPrefix(USER, studentId));
+    }
+
+    public static Key subjectInfo(String code) {
+        return of(subjectPk(code), INFO);
+    }
+
+    public static Key assignmentInfo(String classId, String assignmentId) {
+        return of(assignmentPk(classId), INFO_PREFIX + assignmentId);
+    }
+
+    public static String submissionSk(String assignmentId, String studentId) {
+        return SUBMISSION + assignmentId + "#" + studentId;
+    }
+
+    public static Key submission(String classId, String assignmentId, String studentId) {
+        return of(assignmentPk(classId), submissionSk(assignmentId, studentId));
+    }
+
+    public static Key post(String classId, String postId) {
+        return of(classPk(classId), POST + postId);
+    }
+
+    public static Key comment(String postId, String commentId) {
+        return of(POST + postId, COMMENT + commentId);
+    }
+
+    public static Key reaction(String entityId, String userId) {
+        return of(REACTION + entityId, userPk(userId));
+    }
+
+    // ==== Parsing ====
+
+    /**
+     * SUBMISSION#<assignmentId>#<studentId> -> studentId (null nếu sai định dạng).
+     * Không dùng split để tránh tạo mảng trên đường nóng.
+     */
+    public static String studentIdFromSubmissionSk(String sk) {
+        if (sk == null || !sk.startsWith(SUBMISSION)) return null;
+        int sep = sk.indexOf('#', SUBMISSION.length());
+        if (sep < 0 || sep == sk.length() - 1) return null;
+        return sk.substring(sep + 1);
+    }
+
+    /** SUBMISSION#<assignmentId>#<studentId> -> assignmentId (null nếu sai định dạng). */
+    public static String assignmentIdFromSubmissionSk(String sk) {
+        if (sk == null || !sk.startsWith(SUBMISSION)) return null;
+        int sep = sk.indexOf('#', SUBMISSION.length());
+        if (sep < 0) return null;
+        return sk.substring(SUBMISSION.length(), sep);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository.RawPage;
+import com.example.demo.repository.SchoolItemRepository.ShardPage;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trộn trang của nhiều partition + cursor nhiều partition cho {@link SchoolItemRepository#queryGsi1Sharded}
+ * (shard GSI1, trộn theo GSI1SK) và {@link SchoolItemRepository#queryPartitions} (partition bảng chính, trộn theo SK).
+ *
+ * Cursor vẫn là map phẳng mã hóa bằng {@link CursorCodec}, mỗi partition còn dữ liệu có:
+ *   "<partition>"          = ""   (partition chưa đọc item nào - bắt đầu từ đầu)
+ *   "<partition>|<attr>"   = ...  (ExclusiveStartKey của partition: GSI1PK, GSI1SK, PK, SK hoặc PK, SK)
+ * Partition không có trong cursor là đã hết.
+ */
+enum ShardCursor {
+
+    GSI1("GSI1SK", List.of("GSI1PK", "GSI1SK", "PK", "SK")),
+    TABLE("SK", List.of("PK", "SK"));
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortAttribute;
+    private final List<String> keyAttributes;
+
+    ShardCursor(String sortAttribute, List<String> keyAttributes) {
+        this.sortAttribute = sortAttribute;
+        this.keyAttributes = keyAttributes;
+    }
+
+    /** partition -> ExclusiveStartKey (null = từ đầu) của các shard còn phải đọc; cursor null = mọi shard. */
+    static Map<String, Map<String, AttributeValue>> decode(Map<String, AttributeValue> cursor, List<String> partitions) {
+        Map<String, Map<String, AttributeValue>> starts = new LinkedHashMap<>();
+        if (cursor == null) {
+            partitions.forEach(partition -> starts.put(partition, null));
+            return starts;
+        }
+        for (Map.Entry<String, AttributeValue> e : cursor.entrySet()) {
+            int separator = e.getKey().lastIndexOf(SEPARATOR);
+            String partition = separator < 0 ? e.getKey() : e.getKey().substring(0, separator);
+            if (!partitions.contains(partition)) {
+                throw new IllegalArgumentException("cursor không hợp lệ");
+            }
+            if (separator < 0) {
+                starts.putIfAbsent(partition, null);
+            } else {
+                Map<String, AttributeValue> start = starts.get(partition);
+                if (start == null) {
+                    start = new LinkedHashMap<>();
+                    starts.put(partition, start);
+                }
+                start.put(e.getKey().substring(separator + 1), e.getValue());
+            }
+        }
+        // Giữ thứ tự shard cố định (thứ tự ưu tiên khi GSI1SK bằng nhau)
+        Map<String, Map<String, AttributeValue>> ordered = new LinkedHashMap<>();
+        for (String partition : partitions) {
+            if (starts.containsKey(partition)) ordered.put(partition, starts.get(partition));
+        }
+        return ordered;
+    }
+
+    /** Cần các key trong item để trộn và làm cursor: thêm vào ProjectionExpression nếu có. */
+    void ensureKeysProjected(QueryEnhancedRequest.Builder request) {
+        List<String> projected = request.build().attributesToProject();
+        if (projected == null || projected.isEmpty()) return;
+        List<String> attributes = new ArrayList<>(projected);
+        for (String key : keyAttributes) {
+            if (!attributes.contains(key)) attributes.add(key);
+        }
+        request.attributesToProject(attributes);
+    }
+
+    PageResult<SchoolItem> merge(List<ShardPage> shards, Map<String, Map<String, AttributeValue>> starts,
+                                        int limit, boolean forward) {
+        Comparator<String> order = forward ? Comparator.naturalOrder() : Comparator.reverseOrder();
+
+        // Partition còn dữ liệu chưa đọc: không được trả item đứng sau vị trí nó đã đọc tới
+        String bound = null;
+        for (ShardPage shard : shards) {
+            Map<String, AttributeValue> last = shard.page.lastEvaluatedKey;
+            if (last == null) continue;
+            String position = sortKey(last.get(sortAttribute));
+            if (bound == null || order.compare(position, bound) < 0) bound = position;
+        }
+
+        int[] consumed = new int[shards.size()];
+        List<SchoolItem> items = new ArrayList<>(limit);
+        while (items.size() < limit) {
+            int best = -1;
+            String bestKey = null;
+            for (int i = 0; i < shards.size(); i++) {
+                List<SchoolItem> shardItems = shards.get(i).page.items;
+                if (consumed[i] == shardItems.size()) continue;
+                String key = sortKey(shardItems.get(consumed[i]));
+                if (best < 0 || order.compare(key, bestKey) < 0) {
+                    best = i;
+                    bestKey = key;
+                }
+            }
+            if (best < 0 || (bound != null && order.compare(bestKey, bound) > 0)) break;
+            items.add(shards.get(best).page.items.get(consumed[best]++));
+        }
+
+        Map<String, AttributeValue> cursor = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardPage shard = shards.get(i);
+            RawPage page = shard.page;
+            Map<String, AttributeValue> next;
+            if (consumed[i] == page.items.size()) {
+                next = page.lastEvaluatedKey;
+                if (next == null) continue; // shard đã hết
+            } else if (consumed[i] > 0) {
+                next = keyOf(page.items.get(consumed[i] - 1));
+            } else {
+                next = starts.get(shard.partition);
+            }
+            if (next == null) {
+                cursor.put(shard.partition, AttributeValue.fromS(""));
+            } else {
+                next.forEach((attr, value) -> cursor.put(shard.partition + SEPARATOR + attr, value));
+            }
+        }
+        return new PageResult<>(items, CursorCodec.encode(cursor));
+    }
+
+    private Map<String, AttributeValue> keyOf(SchoolItem item) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        if (this == GSI1) {
+            key.put("GSI1PK", AttributeValue.fromS(item.getGsi1Pk()));
+            key.put("GSI1SK", AttributeValue.fromS(item.getGsi1Sk()));
+        }
+        key.put("PK", AttributeValue.fromS(item.getPk()));
+        key.put("SK", AttributeValue.fromS(item.getSk()));
+        return key;
+    }
+
+    private static String sortKey(AttributeValue value) {
+        return value == null || value.s() == null ? "" : value.s();
+    }
+
+    private String sortKey(SchoolItem item) {
+        String value = this == GSI1 ? item.getGsi1Sk() : item.getSk();
+        return value == null ? "" : value;
+    }
+}
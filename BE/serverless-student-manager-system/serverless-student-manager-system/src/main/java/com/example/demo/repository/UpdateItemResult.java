@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+/**
+ * Kết quả 1 lệnh trong {@link SchoolItemRepository#updateItems}: response nếu thành công, lỗi nếu không
+ * (VD: ConditionalCheckFailedException khi điều kiện sai).
+ */
+@Getter
+@AllArgsConstructor
+public class UpdateItemResult {
+    private final UpdateItemResponse response;
+    private final RuntimeException error;
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -3,13 +3,9 @@ package com.example.demo.search.SearchParam;
 import com.example.demo.dto.Search.SearchResultDto;
 import com.example.demo.entity.SchoolItem;
 import com.example.demo.search.ISearchService;
+import com.example.demo.service.ClassDirectory;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.enhanced.dynamodb.*;
-import software.amazon.awssdk.enhanced.dynamodb.model.Page;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,51 +15,25 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ClassSearchStrategy implements ISearchService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
+    private final ClassDirectory classDirectory;
 
     @Override
     public boolean supports(String type) {
         return "classes".equalsIgnoreCase(type);
     }
 
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
-
+    /** Tìm trên danh bạ lớp trong bộ nhớ ({@link ClassDirectory}): tên bắt đầu bằng keyword, lọc semester nếu có. */
     @Override
     public List<SearchResultDto> search(String keyword, Map<String, Object> filters) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        DynamoDbIndex<SchoolItem> index = table.index("GSI1");
-
-
-        String prefix = "NAME#" + (keyword != null ? keyword : "");
-
-        QueryConditional queryConditional = QueryConditional.sortBeginsWith(k -> k
-                .partitionValue("TYPE#CLASS")  // GSI1PK
-                .sortValue(prefix)             // GSI1SK (Chỉ truyền chuỗi "NAME#...", ko dùng lambda)
-        );
-        Expression filterExpression = null;
-        if (filters != null && filters.containsKey("semester")) {
-            String sem = (String) filters.get("semester");
-            // Cú pháp: attribute_name = :value
-            filterExpression = Expression.builder()
-                    .expression("#sem = :sem")
-                    .putExpressionName("#sem", "semester")
-                    .putExpressionValue(":sem", AttributeValue.builder().s(sem).build())
-                    .build();
-        }
-
-        // 3. Query
-        List<SearchResultDto> results = new ArrayList<>();
-
-        var queryRequest = software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest.builder()
-                .queryConditional(queryConditional)
-                .filterExpression(filterExpression) // Add filter nếu có
+        String semester = filters != null && filters.containsKey("semester") ? (String) filters.get("semester") : null;
+        ClassDirectory.Query query = ClassDirectory.Query.builder()
+                .namePrefix(keyword)
+                .semester(semester)
                 .build();
 
-        for (Page<SchoolItem> page : index.query(queryRequest)) {
-            for (SchoolItem item : page.items()) {
-                results.add(mapToDto(item));
-            }
+        List<SearchResultDto> results = new ArrayList<>();
+        for (SchoolItem item : classDirectory.list(query)) {
+            results.add(mapToDto(item));
         }
         return results;
     }
@@ -3,17 +3,11 @@ package com.example.demo.search.SearchParam;
 import com.example.demo.dto.Search.SearchResultDto;
 import com.example.demo.entity.SchoolItem;
 import com.example.demo.search.ISearchService;
+import com.example.demo.service.SubjectCatalog;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.enhanced.dynamodb.*;
-import software.amazon.awssdk.enhanced.dynamodb.model.Page;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,69 +15,28 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SubjectSearchStrategy implements ISearchService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
+    private final SubjectCatalog subjectCatalog;
+
     @Override
     public boolean supports(String type) {
         return "subject".equalsIgnoreCase(type) || "subjects".equalsIgnoreCase(type);
     }
+    /** Tìm trên bản sao danh mục môn học trong bộ nhớ ({@link SubjectCatalog}), không gọi DynamoDB. */
     @Override
     public List<SearchResultDto> search(String keyword, Map<String, Object> filters) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        DynamoDbIndex<SchoolItem> index = table.index("GSI1");
-        String gsi1Pk = "TYPE#SUBJECT";
-        QueryConditional queryConditional;
-        if (keyword != null && !keyword.isEmpty()) {
-            String prefix = "NAME#" + keyword.toLowerCase();
-            queryConditional = QueryConditional.sortBeginsWith(k -> k
-                    .partitionValue(gsi1Pk)
-                    .sortValue(prefix)
-            );
-        } else {
-            queryConditional = QueryConditional.keyEqualTo(k -> k.partitionValue(gsi1Pk));
-        }
-        Map<String, AttributeValue> expressionValues = new HashMap<>();
-        Map<String, String> expressionNames = new HashMap<>();
-        List<String> filterExpressions = new ArrayList<>();
-
-        // Filter: Department
-        if (filters.containsKey("department")) {
-            String dept = (String) filters.get("department");
-            filterExpressions.add("#dept = :deptVal");
-            expressionNames.put("#dept", "department");
-            expressionValues.put(":deptVal", AttributeValue.builder().s(dept).build());
-        }
+        String department = filters.containsKey("department") ? (String) filters.get("department") : null;
 
         // Filter: Status (Xử lý ép kiểu an toàn)
+        Integer status = null;
         if (filters.containsKey("status")) {
             Object statusObj = filters.get("status");
             // Kiểm tra xem nó là Integer hay String để parse cho đúng
-            Integer status = (statusObj instanceof Integer) ? (Integer) statusObj : Integer.parseInt(statusObj.toString());
-
-            filterExpressions.add("#sts = :stsVal");
-            expressionNames.put("#sts", "status");
-            expressionValues.put(":stsVal", AttributeValue.builder().n(status.toString()).build());
-        }
-        Expression filterExpression = null;
-        if (!filterExpressions.isEmpty()) {
-            String finalExpression = String.join(" AND ", filterExpressions);
-            filterExpression = Expression.builder()
-                    .expression(finalExpression)
-                    .expressionValues(expressionValues)
-                    .expressionNames(expressionNames)
-                    .build();
+            status = (statusObj instanceof Integer) ? (Integer) statusObj : Integer.parseInt(statusObj.toString());
         }
-        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
-                .queryConditional(queryConditional)
-                .filterExpression(filterExpression)
-                .build();
 
         List<SearchResultDto> results = new ArrayList<>();
-        for (Page<SchoolItem> page : index.query(queryRequest)) {
-            for (SchoolItem item : page.items()) {
-                results.add(mapToDto(item));
-            }
+        for (SchoolItem item : subjectCatalog.search(keyword, department, status)) {
+            results.add(mapToDto(item));
         }
         return results;
     }
@@ -2,18 +2,14 @@ package com.example.demo.search.SearchParam;
 
 import com.example.demo.dto.Search.SearchResultDto;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository;
 import com.example.demo.search.ISearchService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -21,10 +17,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserSearchStrategy implements ISearchService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
-
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
+    private final SchoolItemRepository repository;
 
     @Override
     public boolean supports(String type) {
@@ -36,9 +29,6 @@ public class UserSearchStrategy implements ISearchService {
 
     @Override
     public List<SearchResultDto> search(String keyword, Map<String, Object> filters) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        DynamoDbIndex<SchoolItem> index = table.index("GSI1");
-
         // FIX LOGIC: Xác định Role dựa vào filter được truyền từ Controller
         // Controller cần đảm bảo truyền type hoặc role vào trong map filters khi gọi searchService
         String roleType = "STUDENT"; // Default
@@ -56,19 +46,16 @@ public class UserSearchStrategy implements ISearchService {
         String normalizedKeyword = (keyword != null) ? keyword.toLowerCase() : "";
         String prefixInfo = "NAME#" + normalizedKeyword;
 
-        QueryConditional queryConditional = QueryConditional.sortBeginsWith(k -> k
-                .partitionValue(gsi1PkValue)
-                .sortValue(prefixInfo)
-        );
-
         List<SearchResultDto> results = new ArrayList<>();
 
         // Sử dụng try-catch để tránh lỗi nếu index không tồn tại hoặc lỗi mạng
         try {
-            for (Page<SchoolItem> page : index.query(queryConditional)) {
-                for (SchoolItem item : page.items()) {
-                    results.add(mapToDto(item));
-                }
+            // ROLE#... được chia shard khi ghi: đọc mọi shard rồi sắp lại theo tên (GSI1SK)
+            List<SchoolItem> items = repository.queryGsi1AllShards(gsi1PkValue,
+                    partition -> QueryConditional.sortBeginsWith(k -> k.partitionValue(partition).sortValue(prefixInfo)));
+            items.sort(Comparator.comparing(SchoolItem::getGsi1Sk, Comparator.nullsLast(Comparator.naturalOrder())));
+            for (SchoolItem item : items) {
+                results.add(mapToDto(item));
             }
         } catch (Exception e) {
             // Log lỗi nếu cần
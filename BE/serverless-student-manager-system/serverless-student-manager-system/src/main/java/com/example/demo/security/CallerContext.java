@@ -0,0 +1,33 @@
+package com.example.demo.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Thông tin người gọi API, resolve 1 lần mỗi request từ token.
+ * Controller chỉ cần khai báo tham số kiểu CallerContext là được Spring truyền vào.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallerContext {
+    private String email;
+    private String uuid;        // claim sub của Cognito
+    private String id;          // ID trong DB (USER#<id>)
+    private String codeUser;    // SE..., GV...
+    private String role;        // role_name trong DB
+    private String name;
+
+    /**
+     * Mã người dùng (SE/GV...) bắt buộc phải có, dùng cho các API student/lecturer.
+     */
+    public String requireCodeUser() {
+        if (codeUser == null || codeUser.isEmpty()) {
+            throw new IllegalArgumentException("Không tìm thấy mã người dùng (codeUser) cho email: " + email);
+        }
+        return codeUser;
+    }
+}
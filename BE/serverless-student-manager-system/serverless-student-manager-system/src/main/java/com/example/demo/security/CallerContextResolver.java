@@ -0,0 +1,164 @@
+package com.example.demo.security;
+
+import com.example.demo.cache.TtlCache;
+import com.example.demo.dto.User.UserDto;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Resolve tham số CallerContext cho controller.
+ * Thứ tự lấy claims: JWT đã được Spring Security xác thực (nếu có email) -> header user-idToken.
+ * Kết quả được cache theo jti (hoặc sub) tới khi token hết hạn (exp), tối đa max-ttl-seconds,
+ * nên các request sau với cùng token không phải đọc profile lại.
+ */
+@Component
+public class CallerContextResolver implements HandlerMethodArgumentResolver, MetricsSource {
+
+    public static final String ID_TOKEN_HEADER = "user-idToken";
+    private static final String REQUEST_ATTRIBUTE = CallerContext.class.getName();
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final TtlCache<String, CallerContext> cache;
+    private final long maxTtlMillis;
+
+    public CallerContextResolver(UserService userService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.caller-cache.max-size:10000}") int maxSize,
+                                 @Value("${app.caller-cache.max-ttl-seconds:900}") long maxTtlSeconds) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.maxTtlMillis = maxTtlSeconds * 1000;
+        this.cache = new TtlCache<>("callerCache", maxSize, this.maxTtlMillis);
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CallerContext.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        // 1 request chỉ resolve 1 lần (VD: filter/interceptor đã resolve trước đó)
+        Object existing = webRequest.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (existing instanceof CallerContext) {
+            return existing;
+        }
+
+        CallerContext caller = resolve(claimsOf(webRequest));
+        webRequest.setAttribute(REQUEST_ATTRIBUTE, caller, RequestAttributes.SCOPE_REQUEST);
+        return caller;
+    }
+
+    private CallerContext resolve(Map<String, Object> claims) {
+        String email = stringClaim(claims, "email");
+        if (email == null || email.isEmpty()) {
+            throw new CallerResolutionException("Token không chứa email. Vui lòng gửi kèm ID Token (header 'user-idToken').");
+        }
+        String sub = stringClaim(claims, "sub");
+        String jti = stringClaim(claims, "jti");
+        String cacheKey = jti != null ? "jti:" + jti : (sub != null ? "sub:" + sub : null);
+
+        if (cacheKey != null) {
+            CallerContext cached = cache.get(cacheKey);
+            // Token tự giải mã chưa chắc đã được ký -> chỉ dùng cache khi email khớp
+            if (cached != null && email.equalsIgnoreCase(cached.getEmail())) {
+                return cached;
+            }
+        }
+
+        UserDto profile = userService.getMyProfile(email);
+        if (profile == null) {
+            throw new CallerResolutionException("Không tìm thấy người dùng với email: " + email);
+        }
+        CallerContext caller = CallerContext.builder()
+                .email(email)
+                .uuid(sub)
+                .id(profile.getId())
+                .codeUser(profile.getCodeUser())
+                .role(profile.getRole())
+                .name(profile.getName())
+                .build();
+
+        if (cacheKey != null) {
+            cache.put(cacheKey, caller, expiresAt(claims));
+        }
+        return caller;
+    }
+
+    private Map<String, Object> claimsOf(NativeWebRequest webRequest) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Jwt jwt
+                && jwt.getClaimAsString("email") != null) {
+            return jwt.getClaims();
+        }
+
+        String idToken = webRequest.getHeader(ID_TOKEN_HEADER);
+        if (idToken == null || idToken.isEmpty()) {
+            throw new CallerResolutionException("Vui lòng gửi kèm header '" + ID_TOKEN_HEADER + "' để xác thực.");
+        }
+        return decodePayload(idToken);
+    }
+
+    private Map<String, Object> decodePayload(String token) {
+        String cleanToken = token.startsWith("Bearer ") ? token.substring(7) : token;
+        String[] parts = cleanToken.split("\\.");
+        if (parts.length < 2) {
+            throw new CallerResolutionException("Token không hợp lệ");
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> claims = objectMapper.readValue(payload, Map.class);
+            return claims;
+        } catch (Exception e) {
+            throw new CallerResolutionException("Lỗi xác thực ID Token: " + e.getMessage());
+        }
+    }
+
+    private long expiresAt(Map<String, Object> claims) {
+        long cap = System.currentTimeMillis() + maxTtlMillis;
+        Object exp = claims.get("exp");
+        long expMillis;
+        if (exp instanceof Instant instant) {
+            expMillis = instant.toEpochMilli();
+        } else if (exp instanceof Number number) {
+            expMillis = number.longValue() * 1000;
+        } else {
+            return cap;
+        }
+        return Math.min(expMillis, cap);
+    }
+
+    private static String stringClaim(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String metricsName() {
+        return cache.getName();
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.security;
+
+/**
+ * Không xác định được người gọi từ token (thiếu header, token sai định dạng, không có email...).
+ */
+public class CallerResolutionException extends RuntimeException {
+    public CallerResolutionException(String message) {
+        super(message);
+    }
+}
@@ -13,6 +13,12 @@ import com.example.demo.dto.Subjects.UpdateSubjectDto;
 import com.example.demo.dto.Search.SubjectDto;
 import com.example.demo.dto.User.UserDto;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.DtoProjections;
+import com.example.demo.repository.FieldProjection;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -41,15 +47,21 @@ import java.util.stream.Collectors;
 @Slf4j  
 public class AdminService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
+    private final SchoolItemRepository repository;
     private final CognitoIdentityProviderClient cognitoClient;
     private final ObjectMapper objectMapper;
     private final EventBridgeClient eventBridgeClient;
+    private final UserEmailIndex userEmailIndex;
+    private final NotificationDispatcher notificationDispatcher;
+    private final SubjectCatalog subjectCatalog;
+    private final UserSearchIndex userSearchIndex;
+    private final ClassDirectory classDirectory;
+    private final ClassLinkIndex classLinkIndex;
+    private final AuditLogPipeline auditLog;
+    private final AuditLogStore auditLogStore;
 
     @Value("${aws.cognito.user-pool-id}")
     private String userPoolId;
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
     @Value("${aws.eventbridge.bus-name:default}")
     private String eventBusName;
 
@@ -94,7 +106,6 @@ public class AdminService {
         } catch (CognitoIdentityProviderException e) {
             throw new RuntimeException("Lỗi Cognito: " + e.awsErrorDetails().errorMessage());
         }
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         String finalId;
         if (request.getCodeUser() != null && !request.getCodeUser().isEmpty()) {
             finalId = request.getCodeUser().toUpperCase(); // Ví dụ: SE182088
@@ -118,16 +129,17 @@ public class AdminService {
         newItem.setStatus(1);
         newItem.setDateOfBirth(storageDateOfBirth);
 
-        table.putItem(newItem);
+        repository.putItem(newItem);
+        userEmailIndex.register(newItem);
+        userSearchIndex.put(newItem);
 
         return finalId;
     }
 
     public SubjectDto updateSubject(String codeSubject, UpdateSubjectDto request) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         String pk = "SUBJECT#" + codeSubject;
-        Key key = Key.builder().partitionValue(pk).sortValue("INFO").build();
-        SchoolItem item = table.getItem(key);
+        Key key = SchoolKeys.of(pk, "INFO");
+        SchoolItem item = repository.getItemForUpdate(key);
         if (item == null) {
             throw new IllegalArgumentException("Không tìm thấy môn học có mã: " + codeSubject);
         }
@@ -144,23 +156,18 @@ public class AdminService {
             item.setGsi1Sk("NAME#" + request.getName().toLowerCase());
         }
         item.setUpdatedAt(java.time.Instant.now().toString());
-        table.updateItem(item);
+        repository.updateItem(item);
+        subjectCatalog.put(item);
         return convertToSubjectDto(item);
     }
     public SubjectDto getSubjectByCode(String codeSubject) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        Key key = Key.builder()
-                .partitionValue("SUBJECT#" + codeSubject)
-                .sortValue("INFO")
-                .build();
-        SchoolItem item = table.getItem(key);
+        SchoolItem item = subjectCatalog.find(codeSubject);
         if (item == null) {
             throw new IllegalArgumentException("Không tìm thấy môn học với mã: " + codeSubject);
         }
         return convertToSubjectDto(item);
     }
     public SubjectDto createSubject(CreateSubjectDto request) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         if (request.getCodeSubject() == null || request.getCodeSubject().trim().isEmpty()) {
             throw new IllegalArgumentException("Mã môn học (codeSubject) không được để trống.");
         }
@@ -172,8 +179,8 @@ public class AdminService {
         }
         String cleanCode = request.getCodeSubject().toUpperCase().trim();
         String pk = "SUBJECT#" + cleanCode;
-        Key key = Key.builder().partitionValue(pk).sortValue("INFO").build();
-        if (table.getItem(key) != null) {
+        Key key = SchoolKeys.of(pk, "INFO");
+        if (repository.getItem(key) != null) {
             throw new IllegalArgumentException("Môn học với mã " + cleanCode + " đã tồn tại trong hệ thống.");
         }
         SchoolItem item = new SchoolItem();
@@ -192,137 +199,70 @@ public class AdminService {
         String now = Instant.now().toString();
         item.setCreatedAt(now);
         item.setUpdatedAt(now);
-        table.putItem(item);
+        repository.putItem(item);
+        subjectCatalog.put(item);
         logActivity("ADMIN", "CREATE_SUBJECT", "Tạo môn học mới: " + cleanCode + " - " + request.getName(), null);
         return convertToSubjectDto(item);
     }
 
     public void softDeleteSubject(String codeSubject) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        Key key = Key.builder()
-                .partitionValue("SUBJECT#" + codeSubject)
-                .sortValue("INFO")
-                .build();
-        SchoolItem item = table.getItem(key);
+        Key key = SchoolKeys.subjectInfo(codeSubject);
+        SchoolItem item = repository.getItemForUpdate(key);
 
         if (item == null) {
             throw new IllegalArgumentException("Không tìm thấy môn học: " + codeSubject);
         }
         item.setStatus(0);
         item.setUpdatedAt(java.time.Instant.now().toString());
-        table.updateItem(item);
-        System.out.println("LOG: Admin đã xóa mềm môn học " + codeSubject);
+        repository.updateItem(item);
+        subjectCatalog.put(item);
+        logActivity("ADMIN", "DELETE_SUBJECT", "Đã xóa mềm môn học: " + codeSubject, null);
     }
 
-    public List<UserDto> searchUsers(Integer roleId, String keyword) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        DynamoDbIndex<SchoolItem> index = table.index("GSI1");
-        Expression filterExpression = null;
-        if (keyword != null && !keyword.isEmpty()) {
-            String kw = keyword.toLowerCase(); // Chuyển về chữ thường để tìm tương đối
-            String exp = "contains(GSI1SK, :kw) OR contains(email, :kw) OR contains(codeUser, :kw)";
-
-            filterExpression = Expression.builder()
-                    .expression(exp)
-                    .putExpressionValue(":kw", AttributeValue.builder().s(kw).build())
-                    .build();
-        }
-        List<SchoolItem> items = new ArrayList<>();
-        if (roleId != null) {
-            String roleKey = Role.fromId(roleId).getSearchKey();
-            QueryConditional queryConditional = QueryConditional.keyEqualTo(k -> k.partitionValue(roleKey));
-            var queryRequest = software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest.builder()
-                    .queryConditional(queryConditional)
-                    .filterExpression(filterExpression) // Gắn bộ lọc keyword
-                    .build();
-            for (Page<SchoolItem> page : index.query(queryRequest)) {
-                items.addAll(page.items());
-            }
+    /** Tìm user trên chỉ mục trigram trong bộ nhớ ({@link UserSearchIndex}), không scan bảng. */
+    public PageResult<UserDto> searchUsers(Integer roleId, String keyword, PageRequest page) {
+        String roleKey = roleId != null ? Role.fromId(roleId).getSearchKey() : null;
+        return userSearchIndex.search(roleKey, keyword, page).map(this::convertToUserDto);
+    }
 
-        } else {
-            var scanBuilder = software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest.builder();
+    /**
+     * Tìm lớp qua danh bạ lớp trong bộ nhớ (lọc bằng bitmap, không query GSI1). DTO luôn đầy đủ; chọn field (fields=...)
+     * áp dụng ở controller.
+     */
+    public PageResult<ClassDto> searchClasses(String subjectId, String teacherId, String keyword, Integer status,
+                                              PageRequest page) {
+        ClassDirectory.Query query = ClassDirectory.Query.builder()
+                .subjectId(subjectId)
+                .teacherId(teacherId)
+                .keyword(keyword)
+                .status(status)
+                .build();
+        return classDirectory.search(query, page).map(this::convertToClassDto);
+    }
 
-            if (filterExpression != null) {
-                scanBuilder.filterExpression(filterExpression);
-            }
-            for (Page<SchoolItem> page : table.scan(scanBuilder.build())) {
-                for (SchoolItem item : page.items()) {
-                    if (item.getPk() != null && item.getPk().startsWith("USER#")) {
-                        items.add(item);
-                    }
-                }
-            }
-        }
-        return items.stream()
-                .map(this::convertToUserDto) // Hàm helper ở cuối file AdminService
+    /** Lớp của 1 môn: 1 Query vào partition SUBJECT#<mã> (item liên kết CLASS#...). */
+    public List<ClassDto> getClassesOfSubject(String codeSubject) {
+        return classLinkIndex.classesOfSubject(codeSubject).stream()
+                .map(this::convertToClassDto)
                 .collect(Collectors.toList());
     }
 
-    public List<ClassDto> searchClasses(String subjectId, String teacherId, String keyword, Integer status) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        DynamoDbIndex<SchoolItem> index = table.index("GSI1");
-        QueryConditional queryConditional = QueryConditional.keyEqualTo(k -> k.partitionValue("TYPE#CLASS"));
-        List<String> expressions = new ArrayList<>();
-        Map<String, AttributeValue> values = new HashMap<>();
-        Map<String, String> names = new HashMap<>();
-        if (subjectId != null && !subjectId.isEmpty()) {
-            String subKey = subjectId.startsWith("SUBJECT#") ? subjectId : "SUBJECT#" + subjectId;
-            expressions.add("subject_id = :subId");
-            values.put(":subId", AttributeValue.builder().s(subKey).build());
-        }
-        if (teacherId != null && !teacherId.isEmpty()) {
-            String teachKey = teacherId.startsWith("USER#") ? teacherId : "USER#" + teacherId;
-            expressions.add("teacher_id = :teachId");
-            values.put(":teachId", AttributeValue.builder().s(teachKey).build());
-        }
-        if (status != null) {
-            expressions.add("#st = :status");
-            values.put(":status", AttributeValue.builder().n(String.valueOf(status)).build());
-            names.put("#st", "status");
-        }
-        if (keyword != null && !keyword.isEmpty()) {
-            expressions.add("contains(#n, :kw)");
-            values.put(":kw", AttributeValue.builder().s(keyword).build());
-            names.put("#n", "name");
-        }
-        Expression.Builder expressionBuilder = Expression.builder();
-        if (!expressions.isEmpty()) {
-            String finalExp = String.join(" AND ", expressions);
-            expressionBuilder.expression(finalExp);
-            expressionBuilder.expressionValues(values);
-            if (!names.isEmpty()) {
-                expressionBuilder.expressionNames(names);
-            }
-        }
-
-        var queryRequestBuilder = software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest.builder()
-                .queryConditional(queryConditional)
-                .limit(1000);
-        if (!expressions.isEmpty()) {
-            queryRequestBuilder.filterExpression(expressionBuilder.build());
-        }
-
-        List<SchoolItem> items = new ArrayList<>();
-
-        for (Page<SchoolItem> page : index.query(queryRequestBuilder.build())) {
-            items.addAll(page.items());
-        }
-
-        return items.stream()
+    /** Lớp mở trong 1 kỳ học: 1 Query vào partition SEMESTER#<kỳ>. */
+    public List<ClassDto> getClassesOfSemester(String semester) {
+        return classLinkIndex.classesOfSemester(semester).stream()
                 .map(this::convertToClassDto)
                 .collect(Collectors.toList());
     }
 
     public ClassDto updateClass(String classId, UpdateClassDto request) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-
         String pk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
-        Key key = Key.builder().partitionValue(pk).sortValue("INFO").build();
+        Key key = SchoolKeys.of(pk, "INFO");
 
-        SchoolItem classItem = table.getItem(key);
+        SchoolItem classItem = repository.getItemForUpdate(key);
         if (classItem == null) {
             throw new IllegalArgumentException("Không tìm thấy lớp học có ID: " + classId);
         }
+        List<Key> previousLinks = classLinkIndex.linkKeys(classItem);
         if (request.getTeacherId() != null && !request.getTeacherId().isEmpty()) {
 
             String newTeacherPk = request.getTeacherId().startsWith("USER#")
@@ -331,17 +271,13 @@ public class AdminService {
 
             String oldTeacherPk = classItem.getTeacherId();
             if (!newTeacherPk.equals(oldTeacherPk)) {
-                createNotification(
-                        table,
-                        newTeacherPk,
+                createNotification(newTeacherPk,
                         "Phân công giảng dạy mới",
                         "Bạn vừa được phân công dạy lớp: " + classItem.getName(),
                         "CLASS_ASSIGNMENT"
                 );
                 if (oldTeacherPk != null && !oldTeacherPk.isEmpty()) {
-                    createNotification(
-                            table,
-                            oldTeacherPk,
+                    createNotification(oldTeacherPk,
                             "Thay đổi phân công giảng dạy",
                             "Bạn đã bị hủy phân công khỏi lớp: " + classItem.getName(),
                             "CLASS_ASSIGNMENT"
@@ -365,7 +301,9 @@ public class AdminService {
             classItem.setGsi1Sk("NAME#" + request.getName().toLowerCase());
         }
         classItem.setUpdatedAt(Instant.now().toString());
-        table.updateItem(classItem);
+        repository.updateItem(classItem);
+        classDirectory.put(classItem);
+        classLinkIndex.update(previousLinks, classItem);
         String detail = "Cập nhật lớp " + classItem.getName();
         if (request.getTeacherId() != null) detail += ". GV mới: " + request.getTeacherId();
         logActivity("ADMIN", "UPDATE_CLASS", detail, classId);
@@ -373,11 +311,10 @@ public class AdminService {
     }
 
     public void deactivateClass(String classId) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         String pk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
-        Key key = Key.builder().partitionValue(pk).sortValue("INFO").build();
+        Key key = SchoolKeys.of(pk, "INFO");
 
-        SchoolItem classItem = table.getItem(key);
+        SchoolItem classItem = repository.getItemForUpdate(key);
         if (classItem == null) {
             throw new IllegalArgumentException("Không tìm thấy lớp học có ID: " + classId);
         }
@@ -385,37 +322,38 @@ public class AdminService {
         classItem.setStatus(0);
         classItem.setUpdatedAt(Instant.now().toString());
         logActivity("ADMIN", "DEACTIVATE_CLASS", "Đã hủy hoạt động lớp: " + classItem.getName(), classId);
-        table.updateItem(classItem);
+        repository.updateItem(classItem);
+        classDirectory.put(classItem);
     }
 
     public void deactivateUser(String userId) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         String pk = userId.startsWith("USER#") ? userId : "USER#" + userId;
-        Key key = Key.builder().partitionValue(pk).sortValue("PROFILE").build();
+        Key key = SchoolKeys.of(pk, "PROFILE");
 
-        SchoolItem userItem = table.getItem(key);
+        SchoolItem userItem = repository.getItemForUpdate(key);
         if (userItem == null) {
             throw new IllegalArgumentException("Không tìm thấy user với ID: " + userId);
         }
         userItem.setStatus(0);
         userItem.setUpdatedAt(Instant.now().toString());
-        table.updateItem(userItem);
+        repository.updateItem(userItem);
+        userSearchIndex.put(userItem);
         logActivity("ADMIN", "DEACTIVATE_USER", "Đã khóa tài khoản: " + userItem.getEmail(), null);
     }
     //
 
     public void updateStatusId(String userId, int status) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         String cleanId = userId.replace("USER#", "").trim();
         String pk = "USER#" + cleanId;
-        Key key = Key.builder().partitionValue(pk).sortValue("PROFILE").build();
-        SchoolItem userItem = table.getItem(key);
+        Key key = SchoolKeys.of(pk, "PROFILE");
+        SchoolItem userItem = repository.getItemForUpdate(key);
         if (userItem == null) {
             throw new IllegalArgumentException("Không tìm thấy user với ID: " + cleanId);
         }
         userItem.setStatus(status);
         userItem.setUpdatedAt(Instant.now().toString());
-        table.updateItem(userItem);
+        repository.updateItem(userItem);
+        userSearchIndex.put(userItem);
         String actionType = (status == 1) ? "ACTIVATE_USER" : "DEACTIVATE_USER";
         String actionDesc = (status == 1)
                 ? "Đã mở khóa tài khoản: " + userItem.getEmail()
@@ -427,8 +365,6 @@ public class AdminService {
     // 4. API GỬI THÔNG BÁO THỦ CÔNG (MANUAL)
     // ========================================================================
     public void sendManualNotification(String senderName, SendNotificationDto request) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-
         String now = Instant.now().toString();
         SchoolItem notification = new SchoolItem();
 
@@ -458,49 +394,17 @@ public class AdminService {
 
         if (request.getClassId() != null) notification.setClassId(request.getClassId());
 
-        table.putItem(notification);
+        repository.putItem(notification);
     }
 
-    public List<LogDto> getAuditLogs(String userId, String classId, String date) {
-        // 1. Tự khai báo biến table (Theo cách bạn muốn)
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-        DynamoDbIndex<SchoolItem> index = table.index("GSI1");
-        QueryConditional queryConditional = QueryConditional.keyEqualTo(k -> k.partitionValue("TYPE#LOG"));
-
-        List<String> expressions = new ArrayList<>();
-        Map<String, AttributeValue> values = new HashMap<>();
-
-        if (userId != null && !userId.isEmpty()) {
-            String actorKey = userId.startsWith("USER#") ? userId : "USER#" + userId;
-            expressions.add("actor_id = :uid");
-            values.put(":uid", AttributeValue.builder().s(actorKey).build());
-        }
-        if (classId != null && !classId.isEmpty()) {
-            String classKey = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
-            expressions.add("target_class_id = :cid");
-            values.put(":cid", AttributeValue.builder().s(classKey).build());
-        }
-        if (date != null && !date.isEmpty()) {
-            expressions.add("contains(GSI1SK, :dt)");
-            values.put(":dt", AttributeValue.builder().s(date).build());
-        }
-
-        Expression.Builder builder = Expression.builder();
-        if (!expressions.isEmpty()) {
-            builder.expression(String.join(" AND ", expressions));
-            builder.expressionValues(values);
-        }
-
-        QueryEnhancedRequest.Builder req = QueryEnhancedRequest.builder()
-                .queryConditional(queryConditional).scanIndexForward(false).limit(1000);
-        if (!expressions.isEmpty()) req.filterExpression(builder.build());
-
-        List<SchoolItem> items = new ArrayList<>();
-        for (Page<SchoolItem> page : index.query(req.build())) {
-            items.addAll(page.items());
-        }
-
-        return items.stream().map(item -> LogDto.builder()
+    public PageResult<LogDto> getAuditLogs(String userId, String classId, String date, PageRequest page) {
+        return getAuditLogs(userId, classId, date, null, null, DtoProjections.LOG.all(), page);
+    }
+    public PageResult<LogDto> getAuditLogs(String userId, String classId, String date, String from, String to,
+                                           FieldProjection.Selection<LogDto> fields, PageRequest page) {
+        // Lớp / người / khoảng ngày đều là Query theo key (AuditLogStore), không còn filter trên cả partition TYPE#LOG
+        PageResult<SchoolItem> logs = auditLogStore.query(userId, classId, date, from, to, fields::applyTo, page);
+        return logs.map(item -> LogDto.builder()
                 .id(item.getId())
                 .userId(item.getActorId() != null ? item.getActorId().replace("USER#", "") : null)
                 .classId(item.getTargetClassId() != null ? item.getTargetClassId().replace("CLASS#", "") : null)
@@ -508,19 +412,18 @@ public class AdminService {
                 .details(item.getLogDetails())
                 .timestamp(item.getCreatedAt())
                 .build()
-        ).collect(Collectors.toList());
+        );
     }
 
     public void enrollStudent(EnrollStudentDto request) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
         // 1. Chuẩn hóa ID (Thêm/Bỏ prefix để khớp với DB)
         String classPk = request.getClassId().startsWith("CLASS#") ? request.getClassId() : "CLASS#" + request.getClassId();
         String studentIdRaw = request.getStudentId().startsWith("USER#") ? request.getStudentId().replace("USER#", "") : request.getStudentId();
         String studentPk = "USER#" + studentIdRaw;
 
         // 2. Kiểm tra Lớp học (Tồn tại & Status & Sĩ số)
-        Key classKey = Key.builder().partitionValue(classPk).sortValue("INFO").build();
-        SchoolItem classItem = table.getItem(classKey);
+        Key classKey = SchoolKeys.of(classPk, "INFO");
+        SchoolItem classItem = repository.getItemForUpdate(classKey);
 
         if (classItem == null) {
             throw new IllegalArgumentException("Lớp học không tồn tại: " + request.getClassId());
@@ -538,8 +441,8 @@ public class AdminService {
         }
 
         // 3. Kiểm tra Sinh viên (Tồn tại trong hệ thống không?)
-        Key studentKey = Key.builder().partitionValue(studentPk).sortValue("PROFILE").build();
-        SchoolItem studentItem = table.getItem(studentKey);
+        Key studentKey = SchoolKeys.of(studentPk, "PROFILE");
+        SchoolItem studentItem = repository.getItem(studentKey);
 
         if (studentItem == null) {
             throw new IllegalArgumentException("Sinh viên không tồn tại: " + request.getStudentId());
@@ -547,8 +450,8 @@ public class AdminService {
 
         // 4. Kiểm tra đã Enroll chưa (Tránh trùng lặp)
         // PK=CLASS#... SK=STUDENT#...
-        Key enrollmentKey = Key.builder().partitionValue(classPk).sortValue("STUDENT#" + studentIdRaw).build();
-        if (table.getItem(enrollmentKey) != null) {
+        Key enrollmentKey = SchoolKeys.of(classPk, "STUDENT#" + studentIdRaw);
+        if (repository.getItem(enrollmentKey) != null) {
             throw new IllegalArgumentException("Sinh viên này đã có trong lớp rồi.");
         }
 
@@ -564,17 +467,16 @@ public class AdminService {
         enrollment.setJoinedAt(Instant.now().toString());
         enrollment.setStatus(1); // 1 = Enrolled (Active)
 
-        table.putItem(enrollment);
+        repository.putItem(enrollment);
 
         // 6. CẬP NHẬT SĨ SỐ LỚP (+1)
         classItem.setStudentCount(currentCount + 1);
         classItem.setUpdatedAt(Instant.now().toString());
-        table.updateItem(classItem);
+        repository.updateItem(classItem);
+        classDirectory.put(classItem);
 
         // 7. GỬI THÔNG BÁO CHO SINH VIÊN (Dùng hàm helper có sẵn)
-        createNotification(
-                table,
-                studentPk,
+        createNotification(studentPk,
                 "Đăng ký lớp thành công",
                 "Bạn đã được thêm vào lớp " + classItem.getName() + ". Hãy kiểm tra lịch học nhé!",
                 "CLASS_ENROLLMENT"
@@ -585,8 +487,6 @@ public class AdminService {
     }
 
     public void createClass(CreateClassRequest request) {
-        DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-
         // --- SỬA Ở ĐÂY ---
         // 1. Chỉ lấy mã Random, KHÔNG thêm chữ "CLASS_" vào biến này
         String uniqueCode = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
@@ -632,7 +532,9 @@ public class AdminService {
         item.setUpdatedAt(now);
 
         try {
-            table.putItem(item);
+            repository.putItem(item);
+            classDirectory.put(item);
+            classLinkIndex.register(item);
             log.info("Successfully created class: {}", classId);
         } catch (Exception e) {
             log.error("Error creating class", e);
@@ -643,7 +545,7 @@ public class AdminService {
     }
 
     // --- HELPER CHUNG: createNotification (Đã tổng quát hóa) ---
-    private void createNotification(DynamoDbTable<SchoolItem> table, String userId, String title, String content, String type) {
+    private void createNotification(String userId, String title, String content, String type) {
         SchoolItem noti = new SchoolItem();
         noti.setPk(userId);
         noti.setSk("NOTI#" + Instant.now().toString());
@@ -655,10 +557,10 @@ public class AdminService {
         noti.setIsRead(false);
         noti.setCreatedAt(Instant.now().toString());
 
-        table.putItem(noti);
+        notificationDispatcher.dispatch(type, List.of(noti));
     }
 
-    private void createAssignmentNotification(DynamoDbTable<SchoolItem> table, String teacherPk, String title, String content) {
+    private void createAssignmentNotification(String teacherPk, String title, String content) {
         SchoolItem noti = new SchoolItem();
         noti.setPk(teacherPk);
         noti.setSk("NOTI#" + Instant.now().toString());
@@ -670,7 +572,7 @@ public class AdminService {
         noti.setIsRead(false);
         noti.setCreatedAt(Instant.now().toString());
 
-        table.putItem(noti);
+        notificationDispatcher.dispatch("CLASS_ASSIGNMENT", List.of(noti));
     }
 
     // Hàm phụ trợ Convert (Helper)
@@ -758,51 +660,33 @@ public class AdminService {
     // HELPER: GHI LOG HOẠT ĐỘNG (Dùng để gọi trong các hàm Update/Delete)
     // ========================================================================
     public void logActivity(String actorId, String actionType, String details, String targetClassId) {
-        System.out.println("--- START LOGGING ---");
-        System.out.println("Table Name: " + tableName); // 1. Kiểm tra xem tên bảng có null không?
-
-        try {
-            SchoolItem logItem = new SchoolItem();
-            String logId = UUID.randomUUID().toString();
-            String timestamp = Instant.now().toString();
-
-            // Mapping Keys
-            logItem.setPk("LOG#" + logId);
-            logItem.setSk("INFO");
-
-            // Mapping GSI (Quan trọng để tìm kiếm sau này)
-            logItem.setGsi1Pk("TYPE#LOG");
-            logItem.setGsi1Sk("TIMESTAMP#" + timestamp);
+        SchoolItem logItem = new SchoolItem();
+        String logId = UUID.randomUUID().toString();
+        String timestamp = Instant.now().toString();
 
-            logItem.setId(logId);
+        logItem.setId(logId);
 
-            // Xử lý logic Actor (Người thực hiện)
-            String finalActorId = (actorId == null) ? "UNKNOWN" :
-                    (actorId.startsWith("USER#") || actorId.equals("ADMIN") ? actorId : "USER#" + actorId);
-            logItem.setActorId(finalActorId);
+        // Xử lý logic Actor (Người thực hiện)
+        String finalActorId = (actorId == null) ? "UNKNOWN" :
+                (actorId.startsWith("USER#") || actorId.equals("ADMIN") ? actorId : "USER#" + actorId);
+        logItem.setActorId(finalActorId);
 
-            logItem.setActionType(actionType);
-            logItem.setLogDetails(details);
+        logItem.setActionType(actionType);
+        logItem.setLogDetails(details);
 
-            // Xử lý Target Class
-            if (targetClassId != null) {
-                String finalClassId = targetClassId.startsWith("CLASS#") ? targetClassId : "CLASS#" + targetClassId;
-                logItem.setTargetClassId(finalClassId);
-            }
-
-            logItem.setCreatedAt(timestamp);
-
-            System.out.println("Item to save: " + logItem.toString()); // 2. Kiểm tra dữ liệu trước khi lưu
-
-            // Lưu vào DB
-            DynamoDbTable<SchoolItem> table = dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-            table.putItem(logItem);
+        // Xử lý Target Class
+        if (targetClassId != null) {
+            String finalClassId = targetClassId.startsWith("CLASS#") ? targetClassId : "CLASS#" + targetClassId;
+            logItem.setTargetClassId(finalClassId);
+        }
 
-            System.out.println("LOG SUCCESS: Đã ghi log " + actionType);
+        logItem.setCreatedAt(timestamp);
 
-        } catch (Exception e) {
-            System.err.println("!!! LOG ERROR !!!");
-            e.printStackTrace(); // 3. In toàn bộ Stack Trace để thấy rõ lỗi gì
+        // Key (bucket ngày + item kề theo người / lớp) do AuditLogStore đặt;
+        // ghi ở background theo lô (AuditLogPipeline), request không chờ DynamoDB
+        for (SchoolItem row : AuditLogStore.rowsOf(logItem)) {
+            auditLog.submit(row);
         }
+        log.debug("Đưa audit log {} vào hàng đợi", actionType);
     }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.repository.BatchWriteResult;
+import com.example.demo.repository.SchoolItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ghi audit log (LOG#...) ở background: request chỉ đưa item vào hàng đợi không khóa rồi trả về ngay,
+ * 1 thread "audit-log-flusher" gom và ghi bằng BatchWriteItem mỗi app.audit-log.flush-millis
+ * hoặc ngay khi đủ 25 item (giới hạn 1 lệnh BatchWriteItem).
+ *
+ * Hàng đợi đầy (app.audit-log.capacity) thì xử lý theo app.audit-log.overflow:
+ *   CALLER_RUNS  - request tự ghi đồng bộ như trước (mặc định, không mất log)
+ *   DROP_OLDEST  - bỏ item cũ nhất trong hàng đợi
+ *   DROP_NEWEST  - bỏ item mới
+ * Item của lô không ghi được (hết lượt thử / lỗi) được ghi lại từng cái bằng PutItem; chỉ lỗi cả lần đó mới tính failed.
+ * Khi tắt ứng dụng, thread flusher ghi nốt hàng đợi (tối đa app.audit-log.shutdown-timeout-millis); log đến sau đó
+ * được chính request ghi thẳng.
+ */
+@Service
+@Slf4j
+public class AuditLogPipeline implements MetricsSource {
+
+    /** Số item tối đa của 1 lệnh BatchWriteItem. */
+    static final int BATCH_SIZE = 25;
+
+    public enum OverflowPolicy { CALLER_RUNS, DROP_OLDEST, DROP_NEWEST }
+
+    private final SchoolItemRepository repository;
+    private final int capacity;
+    private final long flushNanos;
+    private final long shutdownTimeoutMillis;
+    private final OverflowPolicy overflow;
+
+    private final ConcurrentLinkedQueue<SchoolItem> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushMillisTotal = new LongAdder();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private volatile long lastFlushMillis;
+
+    public AuditLogPipeline(SchoolItemRepository repository,
+                            @Value("${app.audit-log.capacity:10000}") int capacity,
+                            @Value("${app.audit-log.flush-millis:200}") long flushMillis,
+                            @Value("${app.audit-log.shutdown-timeout-millis:5000}") long shutdownTimeoutMillis,
+                            @Value("${app.audit-log.overflow:CALLER_RUNS}") String overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("app.audit-log.capacity phải >= 1");
+        }
+        if (flushMillis < 1) {
+            throw new IllegalArgumentException("app.audit-log.flush-millis phải >= 1");
+        }
+        this.repository = repository;
+        this.capacity = capacity;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.overflow = OverflowPolicy.valueOf(overflow.trim().toUpperCase(Locale.ROOT));
+        this.flusher = new Thread(this::runFlusher, "audit-log-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // =========================================================
+    // 1. ĐƯA VÀO HÀNG ĐỢI (gọi từ request)
+    // =========================================================
+    public void submit(SchoolItem logItem) {
+        if (!running) {
+            // Đang tắt ứng dụng: flusher không nhận thêm -> ghi thẳng
+            writeDirect(logItem);
+            return;
+        }
+        while (!reserve()) {
+            switch (overflow) {
+                case CALLER_RUNS:
+                    callerRuns.increment();
+                    writeDirect(logItem);
+                    return;
+                case DROP_NEWEST:
+                    dropped.increment();
+                    log.warn("Hàng đợi audit log đầy ({}), bỏ log {}", capacity, logItem.getActionType());
+                    return;
+                case DROP_OLDEST:
+                    if (queue.poll() != null) {
+                        depth.decrementAndGet();
+                        dropped.increment();
+                    }
+                    break;
+            }
+        }
+        queue.offer(logItem);
+        enqueued.increment();
+        if (!running) {
+            // shutdown() chen giữa lần kiểm tra đầu và offer: flusher có thể đã thoát -> tự ghi nốt hàng đợi
+            flushAvailable();
+            return;
+        }
+        if (depth.get() >= BATCH_SIZE) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /** Giữ 1 chỗ trong hàng đợi; false = đầy. */
+    private boolean reserve() {
+        int current = depth.incrementAndGet();
+        if (current > capacity) {
+            depth.decrementAndGet();
+            return false;
+        }
+        maxDepth.accumulateAndGet(current, Math::max);
+        return true;
+    }
+
+    private void writeDirect(SchoolItem logItem) {
+        try {
+            repository.putItem(logItem);
+            written.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Ghi audit log {} thất bại", logItem.getActionType(), e);
+        }
+    }
+
+    // =========================================================
+    // 2. THREAD FLUSHER
+    // =========================================================
+    private void runFlusher() {
+        while (running || depth.get() > 0) {
+            if (running && depth.get() < BATCH_SIZE) {
+                LockSupport.parkNanos(this, flushNanos);
+            }
+            flushAvailable();
+        }
+    }
+
+    /** Ghi hết những gì đang có trong hàng đợi, mỗi lần 1 lệnh BatchWriteItem (<= 25 item). */
+    private void flushAvailable() {
+        List<SchoolItem> batch = new ArrayList<>(BATCH_SIZE);
+        SchoolItem item;
+        while ((item = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(item);
+            if (batch.size() == BATCH_SIZE) {
+                flush(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<SchoolItem> batch) {
+        long start = System.nanoTime();
+        List<SchoolItem> unwritten;
+        try {
+            BatchWriteResult result = repository.batchWriteItems(batch);
+            written.add(result.getWritten());
+            unwritten = result.getFailedItems();
+        } catch (RuntimeException e) {
+            log.error("Ghi {} audit log theo lô thất bại, ghi lại từng log", batch.size(), e);
+            unwritten = batch;
+        }
+        if (!unwritten.isEmpty()) {
+            // Lô hết lượt thử (throttle / lỗi): ghi lại từng item bằng PutItem trước khi bỏ cuộc
+            log.warn("{}/{} audit log chưa ghi được theo lô, ghi lại từng log", unwritten.size(), batch.size());
+            retried.add(unwritten.size());
+            for (SchoolItem item : unwritten) {
+                writeDirect(item);
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        flushes.increment();
+        flushMillisTotal.add(millis);
+        maxFlushMillis.accumulateAndGet(millis, Math::max);
+        lastFlushMillis = millis;
+    }
+
+    // =========================================================
+    // 3. TẮT ỨNG DỤNG: ghi nốt hàng đợi
+    // =========================================================
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!flusher.isAlive()) {
+            // Log được offer sau vòng cuối của flusher
+            flushAvailable();
+        }
+        int remaining = depth.get();
+        if (remaining > 0) {
+            log.warn("Hết {} ms chờ ghi audit log, còn {} log chưa ghi", shutdownTimeoutMillis, remaining);
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "auditLog";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        long flushCount = flushes.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("queueDepth", depth.get());
+        snapshot.put("maxQueueDepth", maxDepth.get());
+        snapshot.put("capacity", capacity);
+        snapshot.put("overflowPolicy", overflow.name());
+        snapshot.put("enqueued", enqueued.sum());
+        snapshot.put("written", written.sum());
+        snapshot.put("failed", failed.sum());
+        snapshot.put("retried", retried.sum());
+        snapshot.put("dropped", dropped.sum());
+        snapshot.put("callerRuns", callerRuns.sum());
+        snapshot.put("flushes", flushCount);
+        snapshot.put("avgFlushMillis", flushCount == 0 ? 0.0 : (double) flushMillisTotal.sum() / flushCount);
+        snapshot.put("maxFlushMillis", maxFlushMillis.get());
+        snapshot.put("lastFlushMillis", lastFlushMillis);
+        return snapshot;
+    }
+}
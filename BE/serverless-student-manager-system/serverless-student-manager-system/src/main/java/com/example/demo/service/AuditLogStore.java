@@ -0,0 +1,251 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.BatchWriteResult;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lưu audit log theo bucket ngày + item kề theo người thực hiện / lớp, cùng SK LOG#<thời điểm ISO>#<id>:
+ *
+ *   LOG#<yyyy-MM-dd>   / LOG#<ts>#<id>   (bản chính, GSI1 TYPE#LOG để xem toàn bộ mới nhất trước)
+ *   ACTOR#<mã người>   / LOG#<ts>#<id>   (USER# được bỏ: ACTOR#ADMIN, ACTOR#<uuid>)
+ *   CLASS#<id lớp>     / LOG#<ts>#<id>   (chỉ khi log gắn với lớp, nằm cùng partition với CLASS#/INFO)
+ *
+ * Mỗi item là bản sao đủ thuộc tính log nên đọc chỉ cần Query, không BatchGetItem. Lọc theo ngày là khoảng SK
+ * (between) trên từng bucket, các bucket query song song qua {@link SchoolItemRepository#queryPartitions};
+ * lọc theo người / lớp là 1 partition. Log là bất biến nên không có luồng sửa.
+ */
+@Service
+@Slf4j
+public class AuditLogStore {
+
+    public static final String LOG_PREFIX = "LOG#";
+    public static final String ACTOR_PREFIX = "ACTOR#";
+    public static final String GSI1_PK = "TYPE#LOG";
+    /** SK của log kiểu cũ (LOG#<uuid>/INFO, trước khi chia bucket). */
+    static final String LEGACY_SK = "INFO";
+    /** Lớn hơn mọi ký tự trong thời điểm ISO: "LOG#2026-10-18~" là cận trên của cả ngày. */
+    private static final String RANGE_END = "~";
+
+    private final SchoolItemRepository repository;
+    private final int maxRangeDays;
+
+    public AuditLogStore(SchoolItemRepository repository,
+                         @Value("${app.audit-log.max-range-days:93}") int maxRangeDays) {
+        this.repository = repository;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    // =========================================================
+    // 1. TRUY VẤN
+    // =========================================================
+
+    /**
+     * 1 trang log mới nhất trước.
+     * @param actorId "USER#..."/"..."/"ADMIN" hoặc null
+     * @param classId "CLASS#..."/"..." hoặc null
+     * @param day     1 ngày (YYYY-MM-DD) hoặc 1 tháng (YYYY-MM); không dùng cùng from/to
+     * @param from    ngày bắt đầu (YYYY-MM-DD, tính cả ngày đó); null = từ đầu
+     * @param to      ngày kết thúc (YYYY-MM-DD, tính cả ngày đó); null = hôm nay (UTC)
+     */
+    public PageResult<SchoolItem> query(String actorId, String classId, String day, String from, String to,
+                                        Consumer<QueryEnhancedRequest.Builder> projection, PageRequest page) {
+        LocalDate[] range = parseRange(day, from, to);
+        String lower = range[0] == null ? LOG_PREFIX : LOG_PREFIX + range[0];
+        String upper = LOG_PREFIX + (range[1] == null ? "" : range[1]) + RANGE_END;
+        Function<String, QueryConditional> condition = partition -> QueryConditional.sortBetween(
+                k -> k.partitionValue(partition).sortValue(lower),
+                k -> k.partitionValue(partition).sortValue(upper));
+
+        String actorPk = actorPk(actorId);
+        String classPk = classId == null || classId.isBlank() ? null : SchoolKeys.classPk(classId.trim());
+
+        // Lớp + người: partition của lớp, lọc người bằng filter (log 1 lớp ít hơn log 1 người)
+        Expression actorFilter = classPk != null && actorPk != null ? Expression.builder()
+                .expression("actor_id IN (:a1, :a2)")
+                .putExpressionValue(":a1", AttributeValue.fromS(SchoolKeys.stripPrefix(ACTOR_PREFIX, actorPk)))
+                .putExpressionValue(":a2", AttributeValue.fromS(SchoolKeys.USER + SchoolKeys.stripPrefix(ACTOR_PREFIX, actorPk)))
+                .build() : null;
+        Consumer<QueryEnhancedRequest.Builder> options = req -> {
+            req.scanIndexForward(false).filterExpression(actorFilter);
+            projection.accept(req);
+        };
+
+        if (classPk != null || actorPk != null) {
+            String partition = classPk != null ? classPk : actorPk;
+            return repository.queryPartitions(List.of(partition), condition, options, page);
+        }
+        if (range[0] != null) {
+            return repository.queryPartitions(buckets(range[0], range[1]), condition, options, page);
+        }
+        // Không lọc gì: toàn bộ log qua GSI1 (đã chia shard), mới nhất trước
+        return repository.queryGsi1Sharded(GSI1_PK,
+                partition -> QueryConditional.keyEqualTo(k -> k.partitionValue(partition)),
+                req -> {
+                    req.scanIndexForward(false);
+                    projection.accept(req);
+                },
+                page);
+    }
+
+    /** Bucket ngày mới nhất trước (cùng chiều trộn). */
+    private List<String> buckets(LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxRangeDays) {
+            throw new IllegalArgumentException("Khoảng ngày tối đa " + maxRangeDays + " ngày");
+        }
+        List<String> buckets = new ArrayList<>((int) days);
+        for (LocalDate d = to; !d.isBefore(from); d = d.minusDays(1)) {
+            buckets.add(LOG_PREFIX + d);
+        }
+        return buckets;
+    }
+
+    /** [from, to] - from null khi không lọc ngày. */
+    private static LocalDate[] parseRange(String day, String from, String to) {
+        boolean hasDay = day != null && !day.isBlank();
+        boolean hasRange = (from != null && !from.isBlank()) || (to != null && !to.isBlank());
+        if (hasDay && hasRange) {
+            throw new IllegalArgumentException("Không dùng timestamp cùng from/to");
+        }
+        if (hasDay) {
+            String value = day.trim();
+            try {
+                if (value.length() == 7) {
+                    YearMonth month = YearMonth.parse(value);
+                    return new LocalDate[]{month.atDay(1), month.atEndOfMonth()};
+                }
+                LocalDate date = LocalDate.parse(value);
+                return new LocalDate[]{date, date};
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("timestamp phải có dạng YYYY-MM-DD hoặc YYYY-MM");
+            }
+        }
+        if (!hasRange) {
+            return new LocalDate[]{null, null};
+        }
+        LocalDate start = parseDay("from", from);
+        LocalDate end = to == null || to.isBlank() ? LocalDate.now(ZoneOffset.UTC) : parseDay("to", to);
+        if (start != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("from phải trước hoặc bằng to");
+        }
+        return new LocalDate[]{start, end};
+    }
+
+    private static LocalDate parseDay(String name, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Thiếu " + name);
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " phải có dạng YYYY-MM-DD");
+        }
+    }
+
+    // =========================================================
+    // 2. BACKFILL log kiểu cũ (LOG#<uuid>/INFO)
+    // =========================================================
+    public int backfill() {
+        List<SchoolItem> rows = new ArrayList<>();
+        Map<Key, List<SchoolItem>> legacy = new LinkedHashMap<>();
+        for (SchoolItem item : repository.queryGsi1AllShards(GSI1_PK,
+                partition -> QueryConditional.keyEqualTo(k -> k.partitionValue(partition)))) {
+            if (!LEGACY_SK.equals(item.getSk())) continue;
+            List<SchoolItem> copies = rowsOf(item);
+            rows.addAll(copies);
+            legacy.put(SchoolKeys.of(item.getPk(), item.getSk()), copies);
+        }
+        BatchWriteResult result = repository.batchWriteItems(rows);
+        Set<Key> failed = new HashSet<>();
+        for (SchoolItem item : result.getFailedItems()) {
+            failed.add(SchoolKeys.of(item.getPk(), item.getSk()));
+        }
+        // Chỉ xóa bản cũ khi mọi bản mới của nó đã ghi xong: lỗi / chạy lại giữa chừng vẫn an toàn
+        int moved = 0;
+        for (Map.Entry<Key, List<SchoolItem>> entry : legacy.entrySet()) {
+            boolean written = entry.getValue().stream()
+                    .noneMatch(row -> failed.contains(SchoolKeys.of(row.getPk(), row.getSk())));
+            if (!written) continue;
+            repository.deleteItem(entry.getKey());
+            moved++;
+        }
+        if (moved < legacy.size()) {
+            log.warn("Còn {} audit log cũ chưa chuyển được (ghi bản mới lỗi), chạy lại backfill", legacy.size() - moved);
+        }
+        log.info("Chuyển {} audit log cũ sang bucket ngày ({} item)", moved, result.getWritten());
+        return moved;
+    }
+
+    // =========================================================
+    // KEY
+    // =========================================================
+
+    /**
+     * Các item cần ghi cho 1 log (cần id, createdAt; actorId / targetClassId nếu có); dùng chung cho
+     * AdminService.logActivity và bộ sinh dữ liệu.
+     */
+    public static List<SchoolItem> rowsOf(SchoolItem log) {
+        String createdAt = log.getCreatedAt();
+        String sk = LOG_PREFIX + createdAt + "#" + log.getId();
+        List<SchoolItem> rows = new ArrayList<>(3);
+
+        SchoolItem main = copy(log, LOG_PREFIX + createdAt.substring(0, 10), sk);
+        main.setGsi1Pk(GSI1_PK);
+        main.setGsi1Sk("TIMESTAMP#" + createdAt);
+        rows.add(main);
+
+        String actorPk = actorPk(log.getActorId());
+        if (actorPk != null) {
+            rows.add(copy(log, actorPk, sk));
+        }
+        if (log.getTargetClassId() != null && !log.getTargetClassId().isBlank()) {
+            rows.add(copy(log, SchoolKeys.classPk(log.getTargetClassId()), sk));
+        }
+        return rows;
+    }
+
+    /** ACTOR#<mã, bỏ USER#>: actor_id trong log là "ADMIN" hoặc "USER#<uuid>". */
+    static String actorPk(String actorId) {
+        if (actorId == null || actorId.isBlank()) return null;
+        return ACTOR_PREFIX + SchoolKeys.stripPrefix(SchoolKeys.USER, actorId.trim());
+    }
+
+    private static SchoolItem copy(SchoolItem log, String pk, String sk) {
+        SchoolItem row = new SchoolItem();
+        row.setPk(pk);
+        row.setSk(sk);
+        row.setId(log.getId());
+        row.setActorId(log.getActorId());
+        row.setActionType(log.getActionType());
+        row.setLogDetails(log.getLogDetails());
+        row.setTargetClassId(log.getTargetClassId());
+        row.setCreatedAt(log.getCreatedAt());
+        return row;
+    }
+}
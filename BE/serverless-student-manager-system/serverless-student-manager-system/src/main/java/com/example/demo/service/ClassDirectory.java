@@ -0,0 +1,423 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.repository.CursorCodec;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Danh bạ lớp học trong bộ nhớ (mọi item GSI1 = TYPE#CLASS) để lọc nhiều điều kiện mà không đọc cả partition.
+ *
+ * Lớp được sắp theo (GSI1SK = NAME#tên viết thường, PK) - cùng thứ tự với query GSI1 - và id của lớp chính là
+ * vị trí trong thứ tự đó. Mỗi giá trị semester / subject / teacher / status và mỗi từ trong tên có 1 BitSet
+ * các id; lọc = AND các BitSet, trang = duyệt nextSetBit từ sau vị trí cursor nên thứ tự luôn ổn định.
+ *
+ * Node ghi lớp gọi {@link #put}: đổi sĩ số / trạng thái / giảng viên... chỉ sửa bit của lớp đó;
+ * tạo lớp hoặc đổi tên (đổi vị trí sắp xếp) thì đánh lại id cả danh bạ. Toàn bộ danh bạ được nạp lại từ GSI1
+ * sau mỗi app.class-directory.refresh-seconds để thấy thay đổi từ node khác.
+ */
+@Service
+@Slf4j
+public class ClassDirectory implements MetricsSource {
+
+    public static final String GSI1_PK = "TYPE#CLASS";
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing((Entry e) -> e.sortKey).thenComparing(e -> e.pk);
+
+    private final SchoolItemRepository repository;
+    private final long refreshMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state;   // null = chưa nạp
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reorders = new LongAdder();
+
+    public ClassDirectory(SchoolItemRepository repository,
+                          @Value("${app.class-directory.refresh-seconds:300}") long refreshSeconds) {
+        this.repository = repository;
+        this.refreshMillis = refreshSeconds * 1000;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Không chặn khởi động; lần tìm đầu tiên sẽ nạp lại
+            log.warn("Không nạp được danh bạ lớp lúc khởi động: {}", e.getMessage());
+        }
+    }
+
+    /** Điều kiện lọc; field null/rỗng = không lọc. */
+    @Getter
+    @Builder
+    public static class Query {
+        private final String semester;
+        private final String subjectId;   // "SWP391" hoặc "SUBJECT#SWP391"
+        private final String teacherId;   // "GV01" hoặc "USER#GV01", không phân biệt hoa thường
+        private final Integer status;
+        /** Mỗi từ của keyword phải nằm trong 1 từ của tên lớp (không phân biệt hoa thường / dấu). */
+        private final String keyword;
+        /** Tên lớp bắt đầu bằng chuỗi này (không phân biệt hoa thường) - như query GSI1SK begins_with NAME#... */
+        private final String namePrefix;
+    }
+
+    // =========================================================
+    // 1. TÌM KIẾM
+    // =========================================================
+
+    public PageResult<SchoolItem> search(Query query, PageRequest page) {
+        searches.increment();
+        ensureFresh();
+        String[] after = decodeCursor(page.getExclusiveStartKey());
+
+        List<SchoolItem> items = new ArrayList<>(page.getLimit());
+        String nextCursor = null;
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.evaluate(query);
+            int from = after == null ? 0 : state.positionAfter(after[0], after[1]);
+            int lastId = -1;
+            for (int id = matches.nextSetBit(from); id >= 0; id = matches.nextSetBit(id + 1)) {
+                // Còn lớp khớp sau trang đầy -> trả cursor = lớp cuối trang
+                if (items.size() == page.getLimit()) {
+                    nextCursor = encodeCursor(state.entries.get(lastId));
+                    break;
+                }
+                items.add(repository.schema().mapToItem(state.entries.get(id).attributes));
+                lastId = id;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new PageResult<>(items, nextCursor);
+    }
+
+    /** Mọi lớp khớp điều kiện, theo thứ tự tên (dùng cho danh sách không phân trang). */
+    public List<SchoolItem> list(Query query) {
+        searches.increment();
+        ensureFresh();
+        List<SchoolItem> items = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.evaluate(query);
+            for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+                items.add(repository.schema().mapToItem(state.entries.get(id).attributes));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // =========================================================
+    // 2. CẬP NHẬT (gọi sau khi ghi CLASS#/INFO xuống DB)
+    // =========================================================
+
+    public void put(SchoolItem classItem) {
+        if (classItem == null || classItem.getPk() == null || !classItem.getPk().startsWith(SchoolKeys.CLASS)
+                || !SchoolKeys.INFO.equals(classItem.getSk())) {
+            return;
+        }
+        Entry entry = new Entry(classItem, repository.schema().itemToMap(classItem, true));
+        lock.writeLock().lock();
+        try {
+            // Chưa nạp lần nào -> lần nạp đầu tiên sẽ có lớp này
+            if (state == null) return;
+            if (!state.replaceInPlace(entry)) {
+                List<Entry> all = new ArrayList<>(state.entries);
+                Integer previous = state.idByPk.get(entry.pk);
+                if (previous != null) {
+                    all.set(previous, entry);
+                } else {
+                    all.add(entry);
+                }
+                state = new State(all, state.loadedAt);
+                reorders.increment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Nạp lại toàn bộ từ GSI1 (giữ write lock: lệnh ghi song song chờ nạp xong rồi áp lên bản mới). */
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (SchoolItem item : repository.queryGsi1AllShards(GSI1_PK,
+                    partition -> QueryConditional.keyEqualTo(k -> k.partitionValue(partition)))) {
+                entries.add(new Entry(item, repository.schema().itemToMap(item, true)));
+            }
+            state = new State(entries, System.currentTimeMillis());
+            reloads.increment();
+            log.info("Đã nạp danh bạ lớp: {} lớp, {} từ trong tên", entries.size(), state.byToken.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        lock.readLock().lock();
+        try {
+            if (state != null && System.currentTimeMillis() - state.loadedAt < refreshMillis) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            // Luồng khác vừa nạp xong thì thôi
+            if (state != null && System.currentTimeMillis() - state.loadedAt < refreshMillis) return;
+            if (state == null) {
+                reload();
+            } else {
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    // Tạm dùng bản cũ, thử lại ở lần hết hạn kế tiếp
+                    log.warn("Nạp lại danh bạ lớp lỗi, dùng bản cũ: {}", e.getMessage());
+                    state.loadedAt = System.currentTimeMillis();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // =========================================================
+    // 3. CURSOR (GSI1SK + PK của lớp cuối trang trước)
+    // =========================================================
+
+    private static String encodeCursor(Entry last) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put("GSI1SK", AttributeValue.fromS(last.sortKey));
+        key.put("PK", AttributeValue.fromS(last.pk));
+        return CursorCodec.encode(key);
+    }
+
+    private static String[] decodeCursor(Map<String, AttributeValue> key) {
+        if (key == null) return null;
+        AttributeValue sortKey = key.get("GSI1SK");
+        AttributeValue pk = key.get("PK");
+        if (sortKey == null || sortKey.s() == null || pk == null || pk.s() == null) {
+            throw new IllegalArgumentException("cursor không hợp lệ");
+        }
+        return new String[]{sortKey.s(), pk.s()};
+    }
+
+    @Override
+    public String metricsName() {
+        return "classDirectory";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("classes", state == null ? 0 : state.entries.size());
+            stats.put("semesters", state == null ? 0 : state.bySemester.size());
+            stats.put("subjects", state == null ? 0 : state.bySubject.size());
+            stats.put("teachers", state == null ? 0 : state.byTeacher.size());
+            stats.put("nameTokens", state == null ? 0 : state.byToken.size());
+            stats.put("loadedAt", state == null ? null : state.loadedAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searches.sum());
+        stats.put("reloads", reloads.sum());
+        stats.put("reorders", reorders.sum());
+        return stats;
+    }
+
+    // =========================================================
+    // 4. CẤU TRÚC
+    // =========================================================
+
+    static String subjectKey(String subjectId) {
+        return subjectId == null || subjectId.isBlank() ? null : SchoolKeys.subjectPk(subjectId.trim());
+    }
+
+    static String teacherKey(String teacherId) {
+        return teacherId == null || teacherId.isBlank() ? null : SchoolKeys.userPk(teacherId.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static final class Entry {
+        final String pk;
+        final String sortKey;
+        final String semester;
+        final String subject;
+        final String teacher;
+        final Integer status;
+        final List<String> tokens;
+        final Map<String, AttributeValue> attributes;
+
+        Entry(SchoolItem item, Map<String, AttributeValue> attributes) {
+            this.pk = item.getPk();
+            String name = item.getName() == null ? "" : item.getName();
+            this.sortKey = item.getGsi1Sk() != null ? item.getGsi1Sk() : "NAME#" + name.toLowerCase();
+            this.semester = item.getSemester();
+            this.subject = subjectKey(item.getSubjectId());
+            this.teacher = teacherKey(item.getTeacherId());
+            this.status = item.getStatus();
+            this.tokens = tokenize(name);
+            this.attributes = Collections.unmodifiableMap(attributes);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : UserSearchIndex.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /** Trạng thái danh bạ; đọc dưới read lock, sửa dưới write lock. */
+    private static final class State {
+        final List<Entry> entries;
+        final Map<String, Integer> idByPk = new HashMap<>();
+        final BitSet all = new BitSet();
+        final Map<String, BitSet> bySemester = new HashMap<>();
+        final Map<String, BitSet> bySubject = new HashMap<>();
+        final Map<String, BitSet> byTeacher = new HashMap<>();
+        final Map<Integer, BitSet> byStatus = new HashMap<>();
+        final TreeMap<String, BitSet> byToken = new TreeMap<>();
+        long loadedAt;
+
+        State(Collection<Entry> source, long loadedAt) {
+            this.loadedAt = loadedAt;
+            Map<String, Entry> distinct = new HashMap<>();
+            for (Entry entry : source) {
+                distinct.put(entry.pk, entry);
+            }
+            this.entries = new ArrayList<>(distinct.values());
+            entries.sort(ORDER);
+            for (int id = 0; id < entries.size(); id++) {
+                idByPk.put(entries.get(id).pk, id);
+                index(id, entries.get(id), true);
+            }
+        }
+
+        /** Thay lớp đã có mà không đổi vị trí sắp xếp; false nếu cần đánh lại id. */
+        boolean replaceInPlace(Entry entry) {
+            Integer id = idByPk.get(entry.pk);
+            if (id == null) return false;
+            Entry old = entries.get(id);
+            if (!old.sortKey.equals(entry.sortKey)) return false;
+            index(id, old, false);
+            entries.set(id, entry);
+            index(id, entry, true);
+            return true;
+        }
+
+        private void index(int id, Entry entry, boolean set) {
+            all.set(id, set);
+            mark(bySemester, entry.semester, id, set);
+            mark(bySubject, entry.subject, id, set);
+            mark(byTeacher, entry.teacher, id, set);
+            mark(byStatus, entry.status, id, set);
+            for (String token : entry.tokens) {
+                mark(byToken, token, id, set);
+            }
+        }
+
+        private static <K> void mark(Map<K, BitSet> index, K value, int id, boolean set) {
+            if (value == null) return;
+            if (set) {
+                index.computeIfAbsent(value, k -> new BitSet()).set(id);
+                return;
+            }
+            BitSet bits = index.get(value);
+            if (bits == null) return;
+            bits.clear(id);
+            if (bits.isEmpty()) index.remove(value);
+        }
+
+        BitSet evaluate(Query query) {
+            List<BitSet> required = new ArrayList<>();
+            if (query.getSemester() != null && !query.getSemester().isBlank()) {
+                required.add(bySemester.get(query.getSemester()));
+            }
+            String subject = subjectKey(query.getSubjectId());
+            if (subject != null) required.add(bySubject.get(subject));
+            String teacher = teacherKey(query.getTeacherId());
+            if (teacher != null) required.add(byTeacher.get(teacher));
+            if (query.getStatus() != null) required.add(byStatus.get(query.getStatus()));
+            if (query.getNamePrefix() != null && !query.getNamePrefix().isEmpty()) {
+                // Lớp đã sắp theo GSI1SK nên lớp cùng tiền tố nằm liền nhau
+                String prefix = "NAME#" + query.getNamePrefix().toLowerCase();
+                BitSet range = new BitSet();
+                range.set(positionAfter(prefix, ""), positionAfter(prefix + Character.MAX_VALUE, ""));
+                required.add(range);
+            }
+            for (String token : tokenize(query.getKeyword())) {
+                required.add(tokenMatches(token));
+            }
+
+            if (required.isEmpty()) return all;
+            if (required.contains(null)) return new BitSet();
+            // AND từ tập nhỏ nhất để các bước sau rẻ hơn
+            required.sort(Comparator.comparingInt(BitSet::cardinality));
+            BitSet result = (BitSet) required.get(0).clone();
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result.and(required.get(i));
+            }
+            return result;
+        }
+
+        /** OR các BitSet của mọi từ trong tên có chứa token (từ điển nhỏ nên duyệt thẳng). */
+        private BitSet tokenMatches(String token) {
+            BitSet exact = byToken.get(token);
+            BitSet union = null;
+            for (Map.Entry<String, BitSet> e : byToken.entrySet()) {
+                if (e.getValue() == exact || !e.getKey().contains(token)) continue;
+                if (union == null) union = exact == null ? new BitSet() : (BitSet) exact.clone();
+                union.or(e.getValue());
+            }
+            return union != null ? union : exact;
+        }
+
+        /** Id đầu tiên đứng sau (sortKey, pk) trong thứ tự sắp xếp. */
+        int positionAfter(String sortKey, String pk) {
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                Entry e = entries.get(mid);
+                int cmp = e.sortKey.compareTo(sortKey);
+                if (cmp == 0) cmp = e.pk.compareTo(pk);
+                if (cmp <= 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
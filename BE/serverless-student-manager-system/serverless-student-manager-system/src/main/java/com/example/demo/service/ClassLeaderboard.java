@@ -0,0 +1,437 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bảng xếp hạng tổng điểm có trọng số ({@link Gradebook}, thang 10) của lớp, lưu sẵn trong 1 item CLASS#<id>/LEADERBOARD:
+ *
+ *   leaderboard = "SE01:8.275;SE07:8.275;SE03:6.1"   (tổng giảm dần, cùng điểm thì theo mã SV; ký tự ; : % trong mã SV
+ *                                                    được ghi thành %3B %3A %25)
+ *   version     = số lần ghi (khóa lạc quan; cũng là version điểm của lớp mà GradebookEngine dùng làm khóa cache)
+ *
+ * Chấm điểm / nộp lại bài gọi {@link #applyScoreChanges} (qua GradebookEngine) với chênh lệch phần đóng góp của các bài
+ * nộp (chấm cả lớp cũng chỉ 1 lần ghi): đọc item (ConsistentRead), cộng chênh lệch vào tổng của sinh viên, ghi lại có điều kiện version chưa đổi (xung đột
+ * thì đọc lại, thử tối đa {@value #MAX_ATTEMPTS} lần). Đọc không chạm tới SUBMISSION#: bản đã giải mã được giữ theo
+ * version, mỗi lần đọc chỉ lấy attribute version; hạng của 1 sinh viên là tìm nhị phân trên mảng đã sắp xếp.
+ *
+ * Hạng kiểu thi đấu (1, 2, 2, 4). Chỉ sinh viên đã từng được chấm mới có trong bảng.
+ * Đổi trọng số / cột điểm hoặc bảng lệch thì GradebookEngine tính lại toàn bộ và ghi đè bằng {@link #replace}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassLeaderboard implements MetricsSource {
+
+    public static final String SK = "LEADERBOARD";
+    static final int MAX_ATTEMPTS = 5;
+    private static final String ENTRY_SEPARATOR = ";";
+    private static final char SCORE_SEPARATOR = ':';
+    private static final char ESCAPE = '%';
+
+    private final SchoolItemRepository repository;
+    /** classPk -> bảng đã giải mã của version gần nhất node này thấy. */
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder decodes = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+
+    // =========================================================
+    // 1. ĐỌC
+    // =========================================================
+
+    /** Bảng hiện tại của lớp (rỗng nếu chưa chấm bài nào). */
+    public Board board(String classId) {
+        String classPk = SchoolKeys.classPk(classId);
+        Key key = SchoolKeys.of(classPk, SK);
+        reads.increment();
+
+        // Trùng version bản đang giữ thì không phải tải + giải mã lại chuỗi bảng
+        int version = version(classPk);
+        if (version == 0) return Board.EMPTY;
+        Board cached = boards.get(classPk);
+        if (cached != null && cached.version == version) return cached;
+
+        SchoolItem item = repository.getItem(key);
+        if (item == null) return Board.EMPTY;
+        decodes.increment();
+        return remember(classPk, Board.decode(item.getLeaderboard(), version(item)));
+    }
+
+    /**
+     * Version hiện tại của bảng (0 = lớp chưa có bảng). GetItem nhất quán chỉ lấy attribute version: GradebookEngine
+     * dùng số này để quyết định bảng điểm trong cache còn đúng không, nên không được đọc bản cũ.
+     */
+    public int version(String classId) {
+        SchoolItem head = repository.getAttributesForUpdate(SchoolKeys.of(SchoolKeys.classPk(classId), SK), "version");
+        return head == null ? 0 : version(head);
+    }
+
+    // =========================================================
+    // 2. GHI (gọi sau khi đã ghi điểm của bài nộp)
+    // =========================================================
+
+    /**
+     * Cộng chênh lệch phần đóng góp (mã SV -> mới - cũ) vào tổng của từng sinh viên trong 1 lần ghi, luôn tăng
+     * version đúng 1 (map rỗng: bài nộp đổi mà điểm không đổi -> chỉ tăng version cho cache bảng điểm). SV có trong
+     * map mà chưa có trong bảng thì được thêm vào (kể cả chênh lệch 0: vừa được chấm 0 điểm).
+     * @return bảng vừa ghi (version - 1 là bản nó được cộng vào); null nếu hết lượt thử: chênh lệch KHÔNG được áp,
+     *         người gọi phải tính lại cả lớp (GradebookEngine.recordSubmissions gọi rebuild)
+     */
+    public Board applyScoreChanges(String classId, Map<String, Double> deltas) {
+        String classPk = SchoolKeys.classPk(classId);
+        Key key = SchoolKeys.of(classPk, SK);
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            SchoolItem current = repository.getItemForUpdate(key);
+            Board board = current == null ? Board.EMPTY : Board.decode(current.getLeaderboard(), version(current));
+            Board next = board.addAll(deltas);
+
+            Expression condition = current == null
+                    ? Expression.builder().expression("attribute_not_exists(PK)").build()
+                    : Expression.builder().expression("version = :v")
+                            .putExpressionValue(":v", AttributeValue.fromN(String.valueOf(board.version)))
+                            .build();
+            try {
+                repository.putItem(PutItemEnhancedRequest.builder(SchoolItem.class)
+                        .item(toItem(classPk, next))
+                        .conditionExpression(condition)
+                        .build());
+                writes.increment();
+                return remember(classPk, next);
+            } catch (ConditionalCheckFailedException e) {
+                // Người khác vừa ghi bảng của lớp -> đọc lại và áp chênh lệch lên bản mới
+                conflicts.increment();
+            }
+        }
+        failedWrites.increment();
+        log.error("Không cập nhật được bảng xếp hạng {} cho {} SV sau {} lần thử", classPk, deltas.size(), MAX_ATTEMPTS);
+        return null;
+    }
+
+    // =========================================================
+    // 3. GHI ĐÈ toàn bộ (đổi trọng số / cột điểm, dữ liệu cũ, sửa lệch)
+    // =========================================================
+
+    /**
+     * Ghi đè bảng bằng tổng đã tính lại nếu version vẫn là expectedVersion (0 = chưa có bảng).
+     * @return bảng mới, null nếu có người ghi bảng trong lúc tính (gọi lại với dữ liệu mới)
+     */
+    public Board replace(String classId, Map<String, Double> totals, int expectedVersion) {
+        String classPk = SchoolKeys.classPk(classId);
+        Board board = Board.fromTotals(totals, expectedVersion + 1);
+        Expression condition = expectedVersion == 0
+                ? Expression.builder().expression("attribute_not_exists(PK)").build()
+                : Expression.builder().expression("version = :v")
+                        .putExpressionValue(":v", AttributeValue.fromN(String.valueOf(expectedVersion)))
+                        .build();
+        try {
+            repository.putItem(PutItemEnhancedRequest.builder(SchoolItem.class)
+                    .item(toItem(classPk, board))
+                    .conditionExpression(condition)
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            conflicts.increment();
+            return null;
+        }
+        writes.increment();
+        return remember(classPk, board);
+    }
+
+    /** Item bảng xếp hạng từ tổng điểm của lớp ({@link Gradebook#totals()}; dùng chung cho bộ sinh dữ liệu). */
+    public static SchoolItem itemOf(String classId, Map<String, Double> totals) {
+        SchoolItem item = toItem(SchoolKeys.classPk(classId), Board.fromTotals(totals, 1));
+        // Bộ sinh dữ liệu cần tất định
+        item.setUpdatedAt(null);
+        return item;
+    }
+
+    private static SchoolItem toItem(String classPk, Board board) {
+        SchoolItem item = new SchoolItem();
+        item.setPk(classPk);
+        item.setSk(SK);
+        item.setLeaderboard(board.encode());
+        item.setVersion(board.version);
+        item.setUpdatedAt(Instant.now().toString());
+        return item;
+    }
+
+    private Board remember(String classPk, Board board) {
+        boards.merge(classPk, board, (old, candidate) -> candidate.version >= old.version ? candidate : old);
+        return board;
+    }
+
+    private static int version(SchoolItem item) {
+        return item.getVersion() == null ? 0 : item.getVersion();
+    }
+
+    @Override
+    public String metricsName() {
+        return "classLeaderboard";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("cachedBoards", boards.size());
+        snapshot.put("reads", reads.sum());
+        snapshot.put("decodes", decodes.sum());
+        snapshot.put("writes", writes.sum());
+        snapshot.put("conflicts", conflicts.sum());
+        snapshot.put("failedWrites", failedWrites.sum());
+        return snapshot;
+    }
+
+    // =========================================================
+    // BẢNG (bất biến)
+    // =========================================================
+
+    /** 1 dòng của bảng: hạng (1 = cao nhất), mã SV, tổng điểm. */
+    public static final class Entry {
+        private final int rank;
+        private final String studentId;
+        private final double total;
+
+        Entry(int rank, String studentId, double total) {
+            this.rank = rank;
+            this.studentId = studentId;
+            this.total = total;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public double getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Mảng mã SV + tổng điểm đã sắp xếp và vị trí của từng SV; mỗi lần sửa tạo bảng mới (O(n)),
+     * đọc hạng / top-N / lân cận không phải sắp xếp lại.
+     */
+    public static final class Board {
+
+        static final Board EMPTY = new Board(new String[0], new double[0], 0);
+
+        private final String[] ids;
+        private final double[] totals;
+        private final Map<String, Integer> positions;
+        private final int version;
+
+        private Board(String[] ids, double[] totals, int version) {
+            this.ids = ids;
+            this.totals = totals;
+            this.version = version;
+            this.positions = new HashMap<>(ids.length * 2);
+            for (int i = 0; i < ids.length; i++) {
+                positions.put(ids[i], i);
+            }
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        /** Hạng của sinh viên, null nếu chưa có trong bảng. Tìm nhị phân vị trí đầu tiên cùng điểm (hạng đồng hạng). */
+        public Entry entryOf(String studentId) {
+            Integer position = positions.get(studentId);
+            return position == null ? null : entryAt(position);
+        }
+
+        /** n sinh viên đứng đầu. */
+        public List<Entry> top(int n) {
+            return range(0, Math.min(n, ids.length));
+        }
+
+        /** Tối đa k sinh viên đứng trước và k sinh viên đứng sau (gồm cả sinh viên đó); rỗng nếu chưa có trong bảng. */
+        public List<Entry> around(String studentId, int k) {
+            Integer position = positions.get(studentId);
+            if (position == null) return Collections.emptyList();
+            return range(Math.max(0, position - k), Math.min(ids.length, position + k + 1));
+        }
+
+        /** Toàn bộ bảng theo thứ tự hạng. */
+        public List<Entry> all() {
+            return range(0, ids.length);
+        }
+
+        private List<Entry> range(int from, int to) {
+            List<Entry> entries = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                entries.add(entryAt(i));
+            }
+            return entries;
+        }
+
+        private Entry entryAt(int position) {
+            return new Entry(firstWithTotal(totals[position], position) + 1, ids[position], totals[position]);
+        }
+
+        /** Vị trí đầu tiên trong [0, position] có tổng điểm bằng total (mảng giảm dần). */
+        private int firstWithTotal(double total, int position) {
+            int low = 0;
+            int high = position;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (totals[mid] > total) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /** Bảng mới (version + 1) sau khi cộng delta vào tổng của sinh viên (thêm vào nếu chưa có). */
+        Board add(String studentId, double delta) {
+            Integer position = positions.get(studentId);
+            double total = round((position == null ? 0 : totals[position]) + delta);
+
+            int size = ids.length - (position == null ? 0 : 1);
+            String[] nextIds = new String[size + 1];
+            double[] nextTotals = new double[size + 1];
+            int out = 0;
+            boolean inserted = false;
+            for (int i = 0; i < ids.length; i++) {
+                if (position != null && i == position) continue;
+                if (!inserted && before(total, studentId, totals[i], ids[i])) {
+                    nextIds[out] = studentId;
+                    nextTotals[out++] = total;
+                    inserted = true;
+                }
+                nextIds[out] = ids[i];
+                nextTotals[out++] = totals[i];
+            }
+            if (!inserted) {
+                nextIds[out] = studentId;
+                nextTotals[out] = total;
+            }
+            return new Board(nextIds, nextTotals, version + 1);
+        }
+
+        /** Bảng mới (version + 1) sau khi cộng chênh lệch của nhiều sinh viên (rỗng = cùng nội dung). */
+        Board addAll(Map<String, Double> deltas) {
+            if (deltas.isEmpty()) return new Board(ids, totals, version + 1);
+            if (deltas.size() == 1) {
+                Map.Entry<String, Double> only = deltas.entrySet().iterator().next();
+                return add(only.getKey(), only.getValue());
+            }
+            Map<String, Double> next = new HashMap<>((ids.length + deltas.size()) * 2);
+            for (int i = 0; i < ids.length; i++) {
+                next.put(ids[i], totals[i]);
+            }
+            deltas.forEach((id, delta) -> next.merge(id, delta, Double::sum));
+            return fromTotals(next, version + 1);
+        }
+
+        private static boolean before(double total, String id, double otherTotal, String otherId) {
+            return total > otherTotal || (total == otherTotal && id.compareTo(otherId) < 0);
+        }
+
+        String encode() {
+            StringBuilder sb = new StringBuilder(ids.length * 16);
+            for (int i = 0; i < ids.length; i++) {
+                if (i > 0) sb.append(ENTRY_SEPARATOR);
+                escape(ids[i], sb);
+                sb.append(SCORE_SEPARATOR).append(format(totals[i]));
+            }
+            return sb.toString();
+        }
+
+        static Board decode(String encoded, int version) {
+            if (encoded == null || encoded.isEmpty()) return new Board(new String[0], new double[0], version);
+            String[] parts = encoded.split(ENTRY_SEPARATOR);
+            String[] ids = new String[parts.length];
+            double[] totals = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                int sep = parts[i].lastIndexOf(SCORE_SEPARATOR);
+                ids[i] = unescape(parts[i].substring(0, sep));
+                totals[i] = Double.parseDouble(parts[i].substring(sep + 1));
+            }
+            return new Board(ids, totals, version);
+        }
+
+        static Board fromTotals(Map<String, Double> totals, int version) {
+            Map<String, Double> rounded = new HashMap<>(totals.size() * 2);
+            totals.forEach((id, total) -> rounded.put(id, round(total)));
+            String[] ids = rounded.keySet().toArray(new String[0]);
+            Arrays.sort(ids, (a, b) -> {
+                int byTotal = Double.compare(rounded.get(b), rounded.get(a));
+                return byTotal != 0 ? byTotal : a.compareTo(b);
+            });
+            double[] sorted = new double[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                sorted[i] = rounded.get(ids[i]);
+            }
+            return new Board(ids, sorted, version);
+        }
+
+        /** Mã SV chứa ký tự phân cách: ; : % -> %3B %3A %25 (mã thường ghi nguyên, bảng đã lưu vẫn đọc được). */
+        private static void escape(String id, StringBuilder sb) {
+            for (int i = 0; i < id.length(); i++) {
+                char c = id.charAt(i);
+                if (c == ';') sb.append("%3B");
+                else if (c == SCORE_SEPARATOR) sb.append("%3A");
+                else if (c == ESCAPE) sb.append("%25");
+                else sb.append(c);
+            }
+        }
+
+        private static String unescape(String id) {
+            if (id.indexOf(ESCAPE) < 0) return id;
+            StringBuilder sb = new StringBuilder(id.length());
+            for (int i = 0; i < id.length(); i++) {
+                String code = id.charAt(i) == ESCAPE && i + 3 <= id.length() ? id.substring(i, i + 3) : null;
+                if ("%3B".equals(code)) sb.append(';');
+                else if ("%3A".equals(code)) sb.append(SCORE_SEPARATOR);
+                else if ("%25".equals(code)) sb.append(ESCAPE);
+                else {
+                    sb.append(id.charAt(i));
+                    continue;
+                }
+                i += 2;
+            }
+            return sb.toString();
+        }
+
+        /** Làm tròn như {@link Gradebook} để cộng trừ lặp lại không tích lũy sai số dấu phẩy động. */
+        private static double round(double value) {
+            return Gradebook.round(value);
+        }
+
+        private static String format(double value) {
+            return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+}
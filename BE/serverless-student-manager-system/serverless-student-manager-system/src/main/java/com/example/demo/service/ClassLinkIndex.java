@@ -0,0 +1,182 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Đường truy cập lớp theo giảng viên / môn / kỳ học bằng item liên kết (adjacency list), không cần GSI mới:
+ *
+ *   TEACHER#<mã GV>    / SEMESTER#<kỳ>#CLASS#<id>   (lớp của tôi, lọc kỳ bằng begins_with)
+ *   SUBJECT#<mã môn>   / CLASS#<id>                 (nằm cùng partition với SUBJECT#/INFO)
+ *   SEMESTER#<kỳ>      / CLASS#<id>
+ *
+ * Mỗi truy vấn là 1 Query vào đúng partition rồi 1 BatchGetItem các CLASS#/INFO (đi qua cache item).
+ * Item liên kết chỉ giữ id lớp, nên chỉ phải ghi lại khi đổi giảng viên / môn / kỳ (tạo lớp, sửa lớp).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassLinkIndex {
+
+    public static final String TEACHER_PREFIX = "TEACHER#";
+    public static final String SEMESTER_PREFIX = "SEMESTER#";
+    /** Kỳ học dùng trong key khi lớp chưa có semester. */
+    public static final String NO_SEMESTER = "_";
+
+    private final SchoolItemRepository repository;
+
+    // =========================================================
+    // 1. TRUY VẤN
+    // =========================================================
+
+    /** Lớp của giảng viên ("GV01" hoặc "USER#GV01"); semester null/rỗng = mọi kỳ. */
+    public List<SchoolItem> classesOfTeacher(String teacherId, String semester) {
+        String pk = teacherPk(teacherId);
+        if (pk == null) return new ArrayList<>();
+        String prefix = semester == null || semester.isBlank()
+                ? SEMESTER_PREFIX
+                : SEMESTER_PREFIX + semester.trim() + "#" + SchoolKeys.CLASS;
+        return load(pk, prefix);
+    }
+
+    /** Lớp của môn ("SWP391" hoặc "SUBJECT#SWP391"). */
+    public List<SchoolItem> classesOfSubject(String subjectId) {
+        if (subjectId == null || subjectId.isBlank()) return new ArrayList<>();
+        return load(SchoolKeys.subjectPk(subjectId.trim()), SchoolKeys.CLASS);
+    }
+
+    /** Lớp mở trong kỳ học. */
+    public List<SchoolItem> classesOfSemester(String semester) {
+        if (semester == null || semester.isBlank()) return new ArrayList<>();
+        return load(SEMESTER_PREFIX + semester.trim(), SchoolKeys.CLASS);
+    }
+
+    private List<SchoolItem> load(String pk, String skPrefix) {
+        List<Key> classKeys = new ArrayList<>();
+        QueryConditional condition = QueryConditional.sortBeginsWith(k -> k.partitionValue(pk).sortValue(skPrefix));
+        for (Page<SchoolItem> page : repository.query(condition)) {
+            for (SchoolItem link : page.items()) {
+                if (link.getId() != null) classKeys.add(SchoolKeys.classInfo(link.getId()));
+            }
+        }
+        Map<Key, SchoolItem> classes = repository.batchGetItems(classKeys);
+        List<SchoolItem> result = new ArrayList<>(classes.size());
+        for (Key key : classKeys) {
+            SchoolItem item = classes.get(key);
+            if (item != null) {
+                result.add(item);
+            } else {
+                // Lớp đã bị xóa cứng mà liên kết còn sót -> bỏ qua
+                log.warn("Liên kết {} trỏ tới lớp không tồn tại: {}", pk, key.partitionKeyValue().s());
+            }
+        }
+        return result;
+    }
+
+    // =========================================================
+    // 2. GHI LIÊN KẾT (gọi sau khi ghi CLASS#/INFO)
+    // =========================================================
+
+    /** Key các item liên kết của lớp ở trạng thái hiện tại (chụp trước khi sửa lớp để truyền cho {@link #update}). */
+    public List<Key> linkKeys(SchoolItem classItem) {
+        List<Key> keys = new ArrayList<>();
+        for (SchoolItem link : linksOf(classItem)) {
+            keys.add(SchoolKeys.of(link.getPk(), link.getSk()));
+        }
+        return keys;
+    }
+
+    /** Ghi liên kết cho lớp mới tạo. */
+    public void register(SchoolItem classItem) {
+        for (SchoolItem link : linksOf(classItem)) {
+            repository.putItem(link);
+        }
+    }
+
+    /** Sau khi sửa lớp: xóa liên kết không còn đúng, ghi liên kết mới (không đổi thì không ghi gì). */
+    public void update(List<Key> previous, SchoolItem classItem) {
+        Map<Key, SchoolItem> current = new LinkedHashMap<>();
+        for (SchoolItem link : linksOf(classItem)) {
+            current.put(SchoolKeys.of(link.getPk(), link.getSk()), link);
+        }
+        for (Key key : previous) {
+            if (current.remove(key) == null) {
+                repository.deleteItem(key);
+            }
+        }
+        for (SchoolItem link : current.values()) {
+            repository.putItem(link);
+        }
+    }
+
+    // =========================================================
+    // 3. BACKFILL cho các lớp đã tồn tại
+    // =========================================================
+    public int backfill() {
+        int classes = 0;
+        List<SchoolItem> links = new ArrayList<>();
+        for (SchoolItem classItem : repository.queryGsi1AllShards(ClassDirectory.GSI1_PK,
+                partition -> QueryConditional.keyEqualTo(k -> k.partitionValue(partition)))) {
+            links.addAll(linksOf(classItem));
+            classes++;
+        }
+        // Ghi đè cùng nội dung nên chạy lại nhiều lần vẫn an toàn
+        repository.batchWriteItems(links);
+        log.info("Backfill liên kết lớp xong: {} lớp, {} item liên kết", classes, links.size());
+        return links.size();
+    }
+
+    // =========================================================
+    // KEY
+    // =========================================================
+
+    /** Các item liên kết của 1 lớp (CLASS#id/INFO); dùng chung cho bộ sinh dữ liệu. */
+    public static List<SchoolItem> linksOf(SchoolItem classItem) {
+        List<SchoolItem> links = new ArrayList<>();
+        if (classItem == null || classItem.getPk() == null || !classItem.getPk().startsWith(SchoolKeys.CLASS)) {
+            return links;
+        }
+        String classId = SchoolKeys.stripPrefix(SchoolKeys.CLASS, classItem.getPk());
+        String semester = classItem.getSemester() == null || classItem.getSemester().isBlank()
+                ? NO_SEMESTER : classItem.getSemester().trim();
+
+        String teacherPk = teacherPk(classItem.getTeacherId());
+        if (teacherPk != null) {
+            links.add(link(teacherPk, SEMESTER_PREFIX + semester + "#" + classItem.getPk(), classId));
+        }
+        if (classItem.getSubjectId() != null && !classItem.getSubjectId().isBlank()) {
+            links.add(link(SchoolKeys.subjectPk(classItem.getSubjectId().trim()), classItem.getPk(), classId));
+        }
+        links.add(link(SEMESTER_PREFIX + semester, classItem.getPk(), classId));
+        return links;
+    }
+
+    /** TEACHER#<mã GV viết hoa, bỏ USER#>: teacherId trong lớp có lúc là "GV01", có lúc là "USER#gv01". */
+    static String teacherPk(String teacherId) {
+        if (teacherId == null || teacherId.isBlank()) return null;
+        String code = SchoolKeys.stripPrefix(SchoolKeys.USER, teacherId.trim().toUpperCase(Locale.ROOT));
+        return TEACHER_PREFIX + code;
+    }
+
+    private static SchoolItem link(String pk, String sk, String classId) {
+        SchoolItem link = new SchoolItem();
+        link.setPk(pk);
+        link.setSk(sk);
+        // Chỉ giữ id lớp: item liên kết không được mang attribute của lớp để các filter/scan không bắt nhầm
+        link.setId(classId);
+        return link;
+    }
+}
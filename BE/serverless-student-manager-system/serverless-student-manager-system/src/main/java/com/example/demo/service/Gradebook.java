@@ -0,0 +1,367 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolKeys;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bảng điểm của 1 lớp dựng từ partition ASSIGNMENT#<lớp> (INFO#bt + SUBMISSION#bt#sv), bất biến:
+ *
+ *   scores[sv][bt]  = điểm thô (NaN = chưa nộp / chưa chấm)
+ *   states[sv][bt]  = cờ bài nộp ({@link #SUBMITTED}, {@link #LATE}; 0 = chưa nộp)
+ *   factors[bt]     = trọng số chuẩn hóa / điểm tối đa: tổng = Σ scores × factors, thang 10
+ *   totals[sv]      = tổng có trọng số (bài thiếu tính 0)
+ *
+ * Chỉ tính cột điểm đã công bố (is_published = true như trang bài tập của sinh viên; bài nháp / đã xóa mềm không vào tổng). Trọng số chuẩn hóa
+ * theo tổng trọng số các cột đang tính (lớp mới có 2 cột 20% + 30% thì mỗi cột là 40% / 60%); không cột nào có
+ * trọng số thì chia đều. Thiếu max_score thì coi là 10.
+ *
+ * Điểm đóng góp của 1 bài làm tròn 4 chữ số trước khi cộng, nên tổng không phụ thuộc thứ tự cộng và khớp với bảng
+ * xếp hạng cộng dồn từng bài ({@link ClassLeaderboard}).
+ */
+public final class Gradebook {
+
+    /** Thang điểm của tổng. */
+    public static final double SCALE = 10.0;
+    static final double DEFAULT_MAX_SCORE = 10.0;
+    /** Cờ trong states: đã có bài nộp (kể cả bài GV tạo khi chấm cho SV chưa nộp). */
+    public static final byte SUBMITTED = 1;
+    /** Cờ trong states: nộp muộn (type = "late"). */
+    public static final byte LATE = 2;
+
+    private final String classId;
+    private final int version;
+    private final Columns columns;
+    private final String[] studentIds;
+    private final double[][] scores;
+    private final byte[][] states;
+    private final double[] totals;
+    private final int[] gradedCounts;
+    private final Map<String, Integer> studentIndex;
+
+    private Gradebook(String classId, int version, Columns columns, String[] studentIds, double[][] scores,
+                      byte[][] states) {
+        this.classId = classId;
+        this.version = version;
+        this.columns = columns;
+        this.studentIds = studentIds;
+        this.scores = scores;
+        this.states = states;
+        this.totals = new double[studentIds.length];
+        this.gradedCounts = new int[studentIds.length];
+        this.studentIndex = new HashMap<>(studentIds.length * 2);
+        for (int s = 0; s < studentIds.length; s++) {
+            studentIndex.put(studentIds[s], s);
+            double total = 0;
+            int graded = 0;
+            double[] row = scores[s];
+            for (int a = 0; a < row.length; a++) {
+                if (Double.isNaN(row[a])) continue;
+                total += columns.contribution(a, row[a]);
+                graded++;
+            }
+            totals[s] = round(total);
+            gradedCounts[s] = graded;
+        }
+    }
+
+    // =========================================================
+    // DỰNG TỪ ITEM
+    // =========================================================
+
+    /**
+     * Dựng bảng điểm từ các item của partition ASSIGNMENT#<lớp> (thứ tự bất kỳ; item khác loại bị bỏ qua).
+     * Bài nộp của bài tập không còn / không được tính bị bỏ qua.
+     */
+    public static Gradebook of(String classId, Iterable<SchoolItem> rows, int version) {
+        List<SchoolItem> assignments = new ArrayList<>();
+        List<SchoolItem> submissions = new ArrayList<>();
+        for (SchoolItem row : rows) {
+            String sk = row.getSk();
+            if (sk == null) continue;
+            if (sk.startsWith(SchoolKeys.INFO_PREFIX)) {
+                if (row.getId() == null) row.setId(sk.substring(SchoolKeys.INFO_PREFIX.length()));
+                if (Boolean.TRUE.equals(row.getIsPublished())) assignments.add(row);
+            } else if (sk.startsWith(SchoolKeys.SUBMISSION)) {
+                submissions.add(row);
+            }
+        }
+        Columns columns = new Columns(assignments);
+
+        // Hàng theo mã SV; mỗi SV 1 mảng điểm khởi tạo NaN (chưa có điểm) + 1 mảng cờ
+        TreeMap<String, Integer> rowOf = new TreeMap<>();
+        List<double[]> scoreRows = new ArrayList<>();
+        List<byte[]> stateRows = new ArrayList<>();
+        for (SchoolItem submission : submissions) {
+            int column = columns.indexOf(SchoolKeys.assignmentIdFromSubmissionSk(submission.getSk()));
+            String studentId = studentIdOf(submission);
+            if (column < 0 || studentId == null) continue;
+            int row = rowOf.computeIfAbsent(studentId, id -> {
+                scoreRows.add(columns.emptyRow());
+                stateRows.add(new byte[columns.ids.length]);
+                return scoreRows.size() - 1;
+            });
+            if (submission.getScore() != null) scoreRows.get(row)[column] = submission.getScore();
+            stateRows.get(row)[column] = stateOf(submission);
+        }
+        String[] studentIds = rowOf.keySet().toArray(new String[0]);
+        double[][] scores = new double[studentIds.length][];
+        byte[][] states = new byte[studentIds.length][];
+        for (int s = 0; s < studentIds.length; s++) {
+            int row = rowOf.get(studentIds[s]);
+            scores[s] = scoreRows.get(row);
+            states[s] = stateRows.get(row);
+        }
+        return new Gradebook(SchoolKeys.stripPrefix(SchoolKeys.CLASS, classId), version, columns, studentIds, scores,
+                states);
+    }
+
+    static String studentIdOf(SchoolItem submission) {
+        return submission.getStudentId() != null
+                ? submission.getStudentId()
+                : SchoolKeys.studentIdFromSubmissionSk(submission.getSk());
+    }
+
+    private static byte stateOf(SchoolItem submission) {
+        return (byte) (SUBMITTED | ("late".equals(submission.getType()) ? LATE : 0));
+    }
+
+    /** Cùng dữ liệu, gắn version mới (sau khi chính bảng này được ghi thành bảng xếp hạng). */
+    Gradebook withVersion(int version) {
+        return version == this.version ? this : new Gradebook(classId, version, columns, studentIds, scores, states);
+    }
+
+    /**
+     * Bảng mới sau khi 1 bài nộp vừa được ghi (nộp / nộp lại / chấm), gắn version mới; không phải Query lại partition.
+     */
+    Gradebook withSubmission(SchoolItem submission, int version) {
+        return withSubmissions(Collections.singletonList(submission), version);
+    }
+
+    /**
+     * Bảng mới sau khi các bài nộp vừa được ghi (VD: chấm cả lớp 1 lần), gắn version mới; chỉ chép lại mảng tham chiếu
+     * và các hàng bị đổi (mỗi hàng 1 lần), SV mới được chèn giữ thứ tự mã SV. Bài không được tính bị bỏ qua.
+     */
+    Gradebook withSubmissions(Collection<SchoolItem> submissions, int version) {
+        double[][] nextScores = scores.clone();
+        byte[][] nextStates = states.clone();
+        boolean[] copied = new boolean[studentIds.length];
+        // SV chưa có hàng: gom riêng theo mã rồi trộn vào cuối
+        TreeMap<String, double[]> addedScores = new TreeMap<>();
+        Map<String, byte[]> addedStates = new HashMap<>();
+        for (SchoolItem submission : submissions) {
+            int column = columns.indexOf(SchoolKeys.assignmentIdFromSubmissionSk(submission.getSk()));
+            String studentId = studentIdOf(submission);
+            if (column < 0 || studentId == null) continue;
+            int row = rowOf(studentId);
+            double[] scoreRow;
+            byte[] stateRow;
+            if (row >= 0) {
+                if (!copied[row]) {
+                    nextScores[row] = scores[row].clone();
+                    nextStates[row] = states[row].clone();
+                    copied[row] = true;
+                }
+                scoreRow = nextScores[row];
+                stateRow = nextStates[row];
+            } else {
+                scoreRow = addedScores.computeIfAbsent(studentId, id -> columns.emptyRow());
+                stateRow = addedStates.computeIfAbsent(studentId, id -> new byte[columns.ids.length]);
+            }
+            scoreRow[column] = submission.getScore() == null ? Double.NaN : submission.getScore();
+            stateRow[column] = stateOf(submission);
+        }
+        if (addedScores.isEmpty()) {
+            return new Gradebook(classId, version, columns, studentIds, nextScores, nextStates);
+        }
+
+        int size = studentIds.length + addedScores.size();
+        String[] ids = new String[size];
+        double[][] mergedScores = new double[size][];
+        byte[][] mergedStates = new byte[size][];
+        Iterator<Map.Entry<String, double[]>> added = addedScores.entrySet().iterator();
+        Map.Entry<String, double[]> next = added.next();
+        int existing = 0;
+        for (int out = 0; out < size; out++) {
+            if (next != null && (existing == studentIds.length || next.getKey().compareTo(studentIds[existing]) < 0)) {
+                ids[out] = next.getKey();
+                mergedScores[out] = next.getValue();
+                mergedStates[out] = addedStates.get(next.getKey());
+                next = added.hasNext() ? added.next() : null;
+            } else {
+                ids[out] = studentIds[existing];
+                mergedScores[out] = nextScores[existing];
+                mergedStates[out] = nextStates[existing++];
+            }
+        }
+        return new Gradebook(classId, version, columns, ids, mergedScores, mergedStates);
+    }
+
+    // =========================================================
+    // ĐỌC
+    // =========================================================
+
+    public String getClassId() {
+        return classId;
+    }
+
+    /** Version bảng xếp hạng của lớp lúc dựng (khóa cache). */
+    public int getVersion() {
+        return version;
+    }
+
+    public int assignmentCount() {
+        return columns.ids.length;
+    }
+
+    public int studentCount() {
+        return studentIds.length;
+    }
+
+    public List<String> assignmentIds() {
+        return Collections.unmodifiableList(Arrays.asList(columns.ids));
+    }
+
+    public String assignmentTitle(int column) {
+        return columns.titles[column];
+    }
+
+    public double weight(int column) {
+        return columns.weights[column];
+    }
+
+    public double maxScore(int column) {
+        return columns.maxScores[column];
+    }
+
+    public List<String> studentIds() {
+        return Collections.unmodifiableList(Arrays.asList(studentIds));
+    }
+
+    /** Cột của bài tập, -1 nếu bài không được tính. */
+    public int columnOf(String assignmentId) {
+        return columns.indexOf(assignmentId);
+    }
+
+    /** Hàng của sinh viên, -1 nếu chưa có bài nộp nào. */
+    public int rowOf(String studentId) {
+        Integer row = studentIndex.get(studentId);
+        return row == null ? -1 : row;
+    }
+
+    /** Điểm thô, NaN nếu chưa nộp / chưa chấm. */
+    public double score(int row, int column) {
+        return scores[row][column];
+    }
+
+    /** Cờ bài nộp ({@link #SUBMITTED} | {@link #LATE}), 0 nếu chưa nộp. */
+    public byte state(int row, int column) {
+        return states[row][column];
+    }
+
+    public String deadline(int column) {
+        return columns.deadlines[column];
+    }
+
+    /** Tổng có trọng số (thang 10) của sinh viên; null nếu chưa được chấm bài nào. */
+    public Double total(String studentId) {
+        int row = rowOf(studentId);
+        return row < 0 || gradedCounts[row] == 0 ? null : totals[row];
+    }
+
+    /** Số bài đã có điểm của sinh viên. */
+    public int gradedCount(String studentId) {
+        int row = rowOf(studentId);
+        return row < 0 ? 0 : gradedCounts[row];
+    }
+
+    /** Tổng của mọi sinh viên đã được chấm ít nhất 1 bài (dùng dựng bảng xếp hạng). */
+    public Map<String, Double> totals() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int s = 0; s < studentIds.length; s++) {
+            if (gradedCounts[s] > 0) result.put(studentIds[s], totals[s]);
+        }
+        return result;
+    }
+
+    /** Phần đóng góp vào tổng của 1 điểm ở bài tập; null nếu chưa có điểm hoặc bài không được tính. */
+    public Double contribution(String assignmentId, Double score) {
+        int column = columnOf(assignmentId);
+        if (score == null || column < 0) return null;
+        return columns.contribution(column, score);
+    }
+
+    /** Làm tròn 4 chữ số (cùng quy tắc với bảng xếp hạng). */
+    static double round(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+
+    /** Các cột điểm được tính (bất biến, dùng chung giữa các version chỉ khác điểm). */
+    private static final class Columns {
+        private final String[] ids;
+        private final String[] titles;
+        private final String[] deadlines;
+        private final double[] weights;
+        private final double[] maxScores;
+        private final double[] factors;
+        private final Map<String, Integer> index;
+
+        Columns(List<SchoolItem> assignments) {
+            // Cột theo hạn nộp rồi mã bài (ổn định giữa các lần dựng)
+            assignments.sort((x, y) -> {
+                int byDeadline = String.valueOf(x.getDeadline()).compareTo(String.valueOf(y.getDeadline()));
+                return byDeadline != 0 ? byDeadline : x.getId().compareTo(y.getId());
+            });
+            int count = assignments.size();
+            ids = new String[count];
+            titles = new String[count];
+            deadlines = new String[count];
+            weights = new double[count];
+            maxScores = new double[count];
+            factors = new double[count];
+            index = new HashMap<>(count * 2);
+
+            double weightSum = 0;
+            for (int a = 0; a < count; a++) {
+                SchoolItem assignment = assignments.get(a);
+                ids[a] = assignment.getId();
+                titles[a] = assignment.getTitle();
+                deadlines[a] = assignment.getDeadline();
+                weights[a] = assignment.getWeight() != null && assignment.getWeight() > 0 ? assignment.getWeight() : 0;
+                maxScores[a] = assignment.getMaxScore() != null && assignment.getMaxScore() > 0
+                        ? assignment.getMaxScore() : DEFAULT_MAX_SCORE;
+                weightSum += weights[a];
+                index.put(ids[a], a);
+            }
+            for (int a = 0; a < count; a++) {
+                double share = weightSum > 0 ? weights[a] / weightSum : 1.0 / count;
+                factors[a] = share * SCALE / maxScores[a];
+            }
+        }
+
+        int indexOf(String assignmentId) {
+            Integer column = assignmentId == null ? null : index.get(assignmentId);
+            return column == null ? -1 : column;
+        }
+
+        double[] emptyRow() {
+            double[] row = new double[ids.length];
+            Arrays.fill(row, Double.NaN);
+            return row;
+        }
+
+        double contribution(int column, double score) {
+            return round(score * factors[column]);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.TtlCache;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tính bảng điểm có trọng số ({@link Gradebook}) của lớp từ 1 Query trên partition ASSIGNMENT#<lớp>
+ * (INFO# + SUBMISSION# cùng lượt, chỉ lấy các attribute cần cho điểm), cache theo version điểm của lớp.
+ *
+ * Version bảng điểm của lớp là version của item CLASS#<id>/LEADERBOARD: mọi lần ghi bài nộp / điểm
+ * ({@link #recordSubmissions}) và đổi cột điểm ({@link #assignmentsChanged}) đều ghi item này nên version tăng; mỗi lần
+ * đọc chỉ lấy attribute version, trùng bản cache thì không Query lại. Bảng xếp hạng lớp giữ cùng tổng có trọng số
+ * với bảng điểm.
+ */
+@Service
+@Slf4j
+public class GradebookEngine implements MetricsSource {
+
+    /** Số lần thử ghi đè bảng xếp hạng khi có người chấm điểm trong lúc tính lại. */
+    static final int MAX_REBUILD_ATTEMPTS = 3;
+    private static final String[] PROJECTION = {
+            "PK", "SK", "id", "title", "weight", "max_score", "is_published", "deadline", "student_id", "score", "type"};
+
+    private final SchoolItemRepository repository;
+    private final ClassLeaderboard classLeaderboard;
+    /** classPk -> bảng điểm của version gần nhất node này đã tính. */
+    private final TtlCache<String, Gradebook> cache;
+    /** classPk có bảng xếp hạng lệch (cộng chênh lệch / tính lại lỗi): tính lại ở lần đọc / ghi kế tiếp trên node này. */
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rowsLoaded = new LongAdder();
+    private final LongAdder loadMillisTotal = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder fallbackRebuilds = new LongAdder();
+
+    public GradebookEngine(SchoolItemRepository repository,
+                           ClassLeaderboard classLeaderboard,
+                           @Value("${app.gradebook.cache-size:500}") int cacheSize,
+                           @Value("${app.gradebook.cache-ttl-seconds:600}") long cacheTtlSeconds) {
+        this.repository = repository;
+        this.classLeaderboard = classLeaderboard;
+        this.cache = new TtlCache<>("gradebook", Math.max(1, cacheSize), cacheTtlSeconds * 1000);
+    }
+
+    // =========================================================
+    // 1. ĐỌC
+    // =========================================================
+
+    /** Bảng điểm hiện tại của lớp ("CLASS#..." hoặc id). */
+    public Gradebook gradebook(String classId) {
+        String classPk = SchoolKeys.classPk(classId);
+        if (stale.contains(classPk)) {
+            repair(classPk);
+        }
+        int version = classLeaderboard.version(classPk);
+        Gradebook cached = cache.get(classPk);
+        if (cached != null && cached.getVersion() == version) {
+            hits.increment();
+            return cached;
+        }
+        // Đọc version TRƯỚC khi Query: có ghi chen giữa thì version đã tăng, lần sau sẽ tính lại
+        Gradebook gradebook = load(classPk, version);
+        cache.put(classPk, gradebook);
+        return gradebook;
+    }
+
+    private Gradebook load(String classPk, int version) {
+        long start = System.nanoTime();
+        String assignmentPk = SchoolKeys.assignmentPk(classPk);
+        List<SchoolItem> rows = new ArrayList<>();
+        for (Page<SchoolItem> page : repository.query(r -> r
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(assignmentPk)))
+                .attributesToProject(PROJECTION))) {
+            rows.addAll(page.items());
+        }
+        Gradebook gradebook = Gradebook.of(classPk, rows, version);
+        loads.increment();
+        rowsLoaded.add(rows.size());
+        loadMillisTotal.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return gradebook;
+    }
+
+    // =========================================================
+    // 2. GHI (gọi sau khi đã ghi bài nộp / bài tập)
+    // =========================================================
+
+    /**
+     * Bài nộp vừa được ghi (nộp, nộp lại, chấm điểm); oldScore = điểm trước khi ghi (null = chưa chấm / chưa có bài).
+     * Xem {@link #recordSubmissions}.
+     */
+    public void recordSubmission(String classId, SchoolItem submission, Double oldScore) {
+        recordSubmissions(classId, Collections.singletonList(submission),
+                Collections.singletonMap(submission.getSk(), oldScore));
+    }
+
+    /**
+     * Các bài nộp của lớp vừa được ghi (VD: chấm cả lớp 1 lần); oldScores = SK bài nộp -> điểm trước khi ghi (thiếu /
+     * null = chưa chấm). Cộng chênh lệch phần đóng góp vào bảng xếp hạng trong 1 lần ghi (điểm không đổi thì chỉ tăng
+     * version). Không ai ghi chen giữa thì bảng điểm trong cache được sửa đúng các ô đó và lên version mới, lần đọc
+     * sau không phải Query lại partition (chấm cả lớp liên tục vẫn trúng cache). Bài nộp đã được ghi trước khi gọi nên
+     * lỗi ở đây không ném ra ngoài: lớp được đánh dấu để tính lại ở lần đọc / ghi sau.
+     */
+    public void recordSubmissions(String classId, List<SchoolItem> submissions, Map<String, Double> oldScores) {
+        String classPk = SchoolKeys.classPk(classId);
+        try {
+            applySubmissions(classPk, submissions, oldScores);
+        } catch (RuntimeException e) {
+            // Không làm hỏng thao tác đã ghi bài nộp: tổng lệch được sửa khi tính lại
+            stale.add(classPk);
+            log.error("Không cập nhật được bảng điểm lớp {}, sẽ tính lại", classPk, e);
+        }
+    }
+
+    private void applySubmissions(String classPk, List<SchoolItem> submissions, Map<String, Double> oldScores) {
+        boolean scoreChanged = submissions.stream()
+                .anyMatch(submission -> !Objects.equals(oldScores.get(submission.getSk()), submission.getScore()));
+        // Nộp / nộp lại chưa chấm (điểm không đổi) thì không có chênh lệch để tính: chỉ dùng bảng điểm đang có trong
+        // cache, không Query partition lớp khi cache nguội
+        Gradebook gradebook = scoreChanged ? gradebook(classPk) : cache.get(classPk);
+        List<SchoolItem> counted = new ArrayList<>(submissions.size());
+        Map<String, Double> deltas = new HashMap<>();
+        for (SchoolItem submission : submissions) {
+            String assignmentId = SchoolKeys.assignmentIdFromSubmissionSk(submission.getSk());
+            String studentId = Gradebook.studentIdOf(submission);
+            // Bài không được tính vào bảng điểm (nháp / đã xóa mềm)
+            if (studentId == null || studentId.isBlank()) continue;
+            if (gradebook != null && gradebook.columnOf(assignmentId) < 0) continue;
+            counted.add(submission);
+            Double oldScore = oldScores.get(submission.getSk());
+            Double newScore = submission.getScore();
+            if (Objects.equals(oldScore, newScore)) continue;
+            Double oldContribution = gradebook.contribution(assignmentId, oldScore);
+            Double newContribution = gradebook.contribution(assignmentId, newScore);
+            double delta = (newContribution == null ? 0 : newContribution) - (oldContribution == null ? 0 : oldContribution);
+            deltas.merge(studentId, delta, Double::sum);
+        }
+        if (counted.isEmpty()) return;
+
+        ClassLeaderboard.Board board = classLeaderboard.applyScoreChanges(classPk, deltas);
+        if (board == null) {
+            // Hết lượt thử, chênh lệch chưa được áp: điểm đã ghi nên tính lại cả lớp từ bài nộp thay vì bỏ qua
+            fallbackRebuilds.increment();
+            repair(classPk);
+            return;
+        }
+        if (gradebook != null && board.getVersion() == gradebook.getVersion() + 1) {
+            cache.put(classPk, gradebook.withSubmissions(counted, board.getVersion()));
+            patches.increment();
+        }
+    }
+
+    /** Cột điểm của lớp vừa thêm / xóa / đổi trọng số, điểm tối đa hoặc công bố: mọi tổng phải tính lại. */
+    public void assignmentsChanged(String classId) {
+        try {
+            rebuild(classId);
+        } catch (RuntimeException e) {
+            // Không làm hỏng thao tác trên bài tập: tổng cũ còn dùng được tới khi rebuild lại
+            log.error("Không tính lại được bảng điểm lớp {}", classId, e);
+        }
+    }
+
+    // =========================================================
+    // 3. TÍNH LẠI từ bài nộp (đổi cột điểm, dữ liệu cũ, sửa lệch)
+    // =========================================================
+    public Gradebook rebuild(String classId) {
+        String classPk = SchoolKeys.classPk(classId);
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            int version = classLeaderboard.version(classPk);
+            Gradebook gradebook = load(classPk, version);
+            ClassLeaderboard.Board board = classLeaderboard.replace(classPk, gradebook.totals(), version);
+            if (board != null) {
+                rebuilds.increment();
+                Gradebook current = gradebook.withVersion(board.getVersion());
+                cache.put(classPk, current);
+                log.info("Tính lại bảng điểm {}: {} sinh viên x {} cột", classPk,
+                        gradebook.studentCount(), gradebook.assignmentCount());
+                return current;
+            }
+            // Có người vừa chấm điểm -> đọc lại để không ghi đè mất điểm đó
+        }
+        throw new IllegalStateException("Lớp " + classPk + " đang được chấm điểm liên tục, thử tính lại sau");
+    }
+
+    /** Tính lại lớp có bảng xếp hạng lệch; lỗi thì giữ trong danh sách lệch để lần đọc / ghi sau thử lại. */
+    private void repair(String classPk) {
+        stale.remove(classPk);
+        try {
+            rebuild(classPk);
+        } catch (RuntimeException e) {
+            stale.add(classPk);
+            log.error("Không tính lại được bảng điểm lớp {}, thử lại ở lần đọc / ghi sau", classPk, e);
+        }
+    }
+
+    /** Dựng lại bảng điểm + bảng xếp hạng cho mọi lớp (chạy lại vẫn an toàn). */
+    public int backfill() {
+        int classes = 0;
+        for (SchoolItem classItem : repository.queryGsi1AllShards(ClassDirectory.GSI1_PK,
+                partition -> QueryConditional.keyEqualTo(k -> k.partitionValue(partition)))) {
+            rebuild(classItem.getPk());
+            classes++;
+        }
+        log.info("Backfill bảng điểm xong: {} lớp", classes);
+        return classes;
+    }
+
+    @Override
+    public String metricsName() {
+        return "gradebook";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        long loadCount = loads.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("cachedClasses", cache.size());
+        snapshot.put("hits", hits.sum());
+        snapshot.put("loads", loadCount);
+        snapshot.put("rowsLoaded", rowsLoaded.sum());
+        snapshot.put("avgLoadMillis", loadCount == 0 ? 0.0 : (double) loadMillisTotal.sum() / loadCount);
+        snapshot.put("patches", patches.sum());
+        snapshot.put("rebuilds", rebuilds.sum());
+        snapshot.put("fallbackRebuilds", fallbackRebuilds.sum());
+        snapshot.put("staleClasses", stale.size());
+        return snapshot;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.demo.service;
 import com.example.demo.dto.Class.ClassDto;
 import com.example.demo.dto.Class.CreateClassRequest;
 import com.example.demo.dto.Class.UpdateClassDto;
+import com.example.demo.dto.Grade.BulkGradeResultDto;
+import com.example.demo.dto.Grade.BulkGradeRowResult;
 import com.example.demo.dto.Grade.GradeSubmissionDto;
 import com.example.demo.dto.Lecturer.*;
 import com.example.demo.dto.Notification.CreateNotificationRequest;
@@ -10,20 +12,29 @@ import com.example.demo.dto.Post.CreateCommentRequest;
 import com.example.demo.dto.Post.CreatePostRequest;
 import com.example.demo.dto.Post.PostDto;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.DtoProjections;
+import com.example.demo.repository.FieldProjection;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import com.example.demo.repository.UpdateItemResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 
 import java.time.Instant;
 import java.util.*;
@@ -34,71 +45,35 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LecturerService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
+    private final SchoolItemRepository repository;
     private final S3Service s3Service;
 
-    private final DynamoDbClient standardClient;
+    private final NotificationDispatcher notificationDispatcher;
+    private final ClassDirectory classDirectory;
+    private final ClassLinkIndex classLinkIndex;
+    private final ClassLeaderboard classLeaderboard;
+    private final GradebookEngine gradebookEngine;
     @Autowired
     private EmailService emailService;
 
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
-
-    // Helper: Lấy bảng
-    private DynamoDbTable<SchoolItem> getTable() {
-        return dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-    }
-
     public List<ClassDto> getClassesForLecturer(
             String teacherId, String keyword, Integer status, String semester) {
-
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        QueryConditional condition = QueryConditional.keyEqualTo(
-                k -> k.partitionValue("TYPE#CLASS")
-        );
-
-        List<SchoolItem> items = table.index("GSI1")
-                .query(q -> q.queryConditional(condition))
-                .stream()
-                .flatMap(p -> p.items().stream())
-                .peek(i -> log.info("DB teacherId='{}' (len={}) | INPUT='{}' (len={})",
-                        i.getTeacherId(),
-                        i.getTeacherId() == null ? -1 : i.getTeacherId().length(),
-                        teacherId,
-                        teacherId == null ? -1 : teacherId.length()
-                ))
-                .filter(i ->
-                        i.getTeacherId() != null &&
-                                i.getTeacherId().trim().equalsIgnoreCase(teacherId.trim())
-                )
+        // 1 Query vào partition TEACHER#<mã GV> (lọc kỳ bằng begins_with) thay vì đọc mọi lớp của trường
+        return classLinkIndex.classesOfTeacher(teacherId, semester).stream()
                 .filter(i -> status == null ||
                         (i.getStatus() != null && i.getStatus().equals(status)))
-                .filter(i -> semester == null ||
-                        semester.isBlank() ||
-                        semester.equals(i.getSemester()))
-                .collect(Collectors.toList());
-
-        return items.stream()
                 .map(this::convertToClassDto)
                 .collect(Collectors.toList());
     }
 
-
-
-
     public ClassDto updateClassForLecturer(String classId, UpdateClassDto request, String teacherId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        Key key = Key.builder()
-                .partitionValue("CLASS#" + classId)
-                .sortValue("INFO")
-                .build();
+        Key key = SchoolKeys.classInfo(classId);
 
-        SchoolItem item = table.getItem(key);
+        SchoolItem item = repository.getItemForUpdate(key);
         if (item == null) {
             throw new IllegalArgumentException("Lớp học không tồn tại: " + classId);
         }
+        List<Key> previousLinks = classLinkIndex.linkKeys(item);
 
         // Verify: lớp thuộc giáo viên
         // TODO: Compare item.teacherId với teacherId từ token
@@ -133,7 +108,9 @@ public class LecturerService {
         }
 
         item.setUpdatedAt(Instant.now().toString());
-        table.updateItem(item);
+        repository.updateItem(item);
+        classDirectory.put(item);
+        classLinkIndex.update(previousLinks, item);
         log.info("✏️ [LECTURER] Updated class {} by teacher {}", classId, teacherId);
 
         // Trigger EventBridge event nếu cần (optional)
@@ -142,13 +119,8 @@ public class LecturerService {
         return convertToClassDto(item);
     }
     public void deactivateClassForLecturer(String classId, String teacherId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        Key key = Key.builder()
-                .partitionValue("CLASS#" + classId)
-                .sortValue("INFO")
-                .build();
-        SchoolItem item = table.getItem(key);
+        Key key = SchoolKeys.classInfo(classId);
+        SchoolItem item = repository.getItemForUpdate(key);
 
         // 1. Kiểm tra tồn tại
         if (item == null) {
@@ -167,7 +139,8 @@ public class LecturerService {
         // 3. Logic update status (Soft delete)
         item.setStatus(0);
         item.setUpdatedAt(Instant.now().toString());
-        table.updateItem(item);
+        repository.updateItem(item);
+        classDirectory.put(item);
 
         log.info("🗑️ [LECTURER] Soft deleted (deactivated) class {} by teacher {}", classId, teacherId);
 
@@ -179,14 +152,9 @@ public class LecturerService {
     // ========================================================================
 
     public List<StudentInClassDto> getStudentsInClass(String classId, String keyword, String status, String teacherId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // Verify: lớp thuộc giáo viên
-        Key classKey = Key.builder()
-                .partitionValue("CLASS#" + classId)
-                .sortValue("INFO")
-                .build();
-        SchoolItem classItem = table.getItem(classKey);
+        Key classKey = SchoolKeys.classInfo(classId);
+        SchoolItem classItem = repository.getItem(classKey);
         if (classItem == null) {
             throw new IllegalArgumentException("Lớp học không tồn tại: " + classId);
         }
@@ -198,24 +166,29 @@ public class LecturerService {
                         .sortValue("STUDENT#")
         );
 
-        List<StudentInClassDto> results = table.query(r -> r.queryConditional(condition))
+        List<SchoolItem> enrollments = repository.query(r -> r.queryConditional(condition))
                 .stream()
                 .flatMap(page -> page.items().stream())
+                .collect(Collectors.toList());
+
+        // Lấy profile của cả lớp 1 lượt (BatchGetItem) thay vì GetItem từng sinh viên
+        Map<Key, SchoolItem> profiles = loadStudentProfiles(enrollments);
+        // Tổng có trọng số của cả lớp (1 Query partition ASSIGNMENT#, cache theo version điểm)
+        Gradebook gradebook = gradebookEngine.gradebook(classId);
+
+        List<StudentInClassDto> results = enrollments.stream()
                 .map(item -> {
                     // Extract studentId từ SK (SK = "STUDENT#SE182088")
-                    String sk = item.getSk();
-                    String studentId = sk != null && sk.contains("#") ? sk.split("#")[1] : "";
-                    
-                    // Get student profile thông qua GSI1PK
-                    String studentProfileId = item.getGsi1Pk(); // GSI1PK = "USER#SE182088"
-                    SchoolItem studentProfile = getStudentProfile(studentProfileId);
-                    
+                    String studentId = Objects.toString(enrollmentStudentId(item), "");
+                    SchoolItem studentProfile = profiles.get(studentProfileKey(item));
+
                     return StudentInClassDto.builder()
                             .studentId(studentId)
                             .studentCode(studentId)
                             .studentName(studentProfile != null ? studentProfile.getName() : "Unknown")
                             .email(studentProfile != null ? studentProfile.getEmail() : "")
                             .joinedAt(item.getJoinedAt())
+                            .totalScore(gradebook.total(studentId))
                             .status("enrolled")
                             .build();
                 })
@@ -243,35 +216,41 @@ public class LecturerService {
         return results;
     }
     
-    // Helper: Lấy profile sinh viên
-    private SchoolItem getStudentProfile(String studentPk) {
-        try {
-            DynamoDbTable<SchoolItem> table = getTable();
-            Key profileKey = Key.builder()
-                    .partitionValue(studentPk)
-                    .sortValue("PROFILE")
-                    .build();
-            return table.getItem(profileKey);
-        } catch (Exception e) {
-            log.warn("Could not fetch student profile: " + studentPk, e);
-            return null;
-        }
+    /**
+     * Bảng điểm cả lớp (sinh viên đang học × cột điểm): 1 Query partition ASSIGNMENT# (cache theo version,
+     * xem {@link GradebookEngine}) + 1 Query ghi danh + 1 BatchGetItem profile.
+     */
+    public GradebookGrid getGradebookGrid(String classId, String teacherCode) {
+        checkClassOwnership(classId, teacherCode);
+        List<StudentInClassDto> students = getStudentsInClass(classId, null, null, teacherCode);
+        return new GradebookGrid(gradebookEngine.gradebook(classId), students);
     }
 
-    // Helper: Tính tổng điểm sinh viên
-    private Double calculateStudentTotalScore(String studentId, String classId) {
-        DynamoDbTable<SchoolItem> table = getTable();
+    // Helper: studentId của 1 dòng ghi danh (cắt từ SK = "STUDENT#SE182088", không có thì lấy field studentId)
+    private String enrollmentStudentId(SchoolItem enrollment) {
+        String sk = enrollment.getSk();
+        if (sk != null && sk.startsWith(SchoolKeys.STUDENT)) return sk.substring(SchoolKeys.STUDENT.length());
+        return enrollment.getStudentId();
+    }
 
-        QueryConditional condition = QueryConditional.sortBeginsWith(k ->
-                k.partitionValue("ASSIGNMENT#" + classId)
-                        .sortValue("GRADE#" + studentId)
-        );
+    // Helper: Key profile của sinh viên trong 1 dòng ghi danh (GSI1PK = "USER#SE182088")
+    private Key studentProfileKey(SchoolItem enrollment) {
+        String userPk = enrollment.getGsi1Pk() != null ? enrollment.getGsi1Pk() : enrollmentStudentId(enrollment);
+        return userPk == null || userPk.isEmpty() ? null : SchoolKeys.userProfile(userPk);
+    }
 
-        return table.query(r -> r.queryConditional(condition))
-                .stream()
-                .flatMap(page -> page.items().stream())
-                .mapToDouble(item -> item.getScore() != null ? item.getScore() : 0.0)
-                .sum();
+    // Helper: Lấy profile của nhiều sinh viên bằng BatchGetItem (lỗi -> coi như không có profile)
+    private Map<Key, SchoolItem> loadStudentProfiles(List<SchoolItem> enrollments) {
+        List<Key> keys = enrollments.stream()
+                .map(this::studentProfileKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        try {
+            return repository.newLoader().loadAll(keys);
+        } catch (Exception e) {
+            log.warn("Could not fetch student profiles ({} keys)", keys.size(), e);
+            return Collections.emptyMap();
+        }
     }
 
     // ========================================================================
@@ -282,8 +261,6 @@ public class LecturerService {
      * Tạo bài tập
      */
     public AssignmentDto createAssignment(String classId, CreateAssignmentDto request) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         String assignmentId = "ASS_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         String now = Instant.now().toString();
 
@@ -305,7 +282,11 @@ public class LecturerService {
         item.setCreatedAt(now);
         item.setUpdatedAt(now);
 
-        table.putItem(item);
+        repository.putItem(item);
+        if (Boolean.TRUE.equals(item.getIsPublished())) {
+            // Thêm cột điểm được tính -> trọng số chuẩn hóa của các cột khác đổi
+            gradebookEngine.assignmentsChanged(classId);
+        }
         log.info("Created assignment {} in class {}", assignmentId, classId);
 
         return convertToAssignmentDto(item);
@@ -315,16 +296,18 @@ public class LecturerService {
      * Lấy danh sách bài tập của lớp
      */
     public List<AssignmentDto> getAssignmentsByClass(String classId) {
-        DynamoDbTable<SchoolItem> table = getTable();
+        return getAssignmentsByClass(classId, DtoProjections.ASSIGNMENT.all());
+    }
 
+    public List<AssignmentDto> getAssignmentsByClass(String classId, FieldProjection.Selection<AssignmentDto> fields) {
         // Query: GSI1PK = CLASS#{classId}, SK bắt đầu với ASSIGNMENT#
         QueryConditional condition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("CLASS#" + classId)
                         .sortValue("ASSIGNMENT#")
         );
 
-        return table.index("GSI1")
-                .query(r -> r.queryConditional(condition))
+        return repository.gsi1()
+                .query(r -> fields.applyTo(r.queryConditional(condition)))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .map(this::convertToAssignmentDto)
@@ -344,15 +327,10 @@ public class LecturerService {
      * @throws IllegalArgumentException nếu assignment không tồn tại hoặc weight không hợp lệ
      */
     public AssignmentDto updateAssignment(String classId, String assignmentId, UpdateAssignmentDto request) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. Lấy assignment từ database
-        Key key = Key.builder()
-                .partitionValue("ASSIGNMENT#" + classId)
-                .sortValue("INFO#" + assignmentId)
-                .build();
+        Key key = SchoolKeys.assignmentInfo(classId, assignmentId);
 
-        SchoolItem item = table.getItem(key);
+        SchoolItem item = repository.getItem(key);
         if (item == null) {
             throw new IllegalArgumentException("Bài tập không tồn tại: " + assignmentId);
         }
@@ -419,10 +397,11 @@ public class LecturerService {
 
         // 6. Cập nhật timestamp
         item.setUpdatedAt(Instant.now().toString());
-        table.updateItem(item);
+        repository.updateItem(item);
 
         // 7. Trigger EventBridge nếu thay đổi ảnh hưởng submissions (optional)
         if (affectsSubmissions) {
+            gradebookEngine.assignmentsChanged(classId);
             triggerAssignmentUpdateEvent(classId, assignmentId, changeLog);
         }
 
@@ -436,8 +415,6 @@ public class LecturerService {
      * (không tính assignment đang update, thêm weight mới của nó)
      */
     private double calculateTotalWeight(String classId, String currentAssignmentId, double newWeight) {
-        DynamoDbTable<SchoolItem> table = getTable();
-        
         // Query tất cả assignments của class
         QueryConditional assignmentCondition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("ASSIGNMENT#" + classId)
@@ -446,7 +423,7 @@ public class LecturerService {
 
         double totalWeight = newWeight; // Thêm weight mới của assignment đang update
 
-        List<SchoolItem> assignments = table.query(r -> r.queryConditional(assignmentCondition))
+        List<SchoolItem> assignments = repository.query(r -> r.queryConditional(assignmentCondition))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .toList();
@@ -483,14 +460,9 @@ public class LecturerService {
      * - Nếu đã có submissions → set is_published = false (soft delete)
      */
     public void deleteAssignment(String classId, String assignmentId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        Key key = Key.builder()
-                .partitionValue("ASSIGNMENT#" + classId)
-                .sortValue("INFO#" + assignmentId)
-                .build();
+        Key key = SchoolKeys.assignmentInfo(classId, assignmentId);
 
-        SchoolItem assignment = table.getItem(key);
+        SchoolItem assignment = repository.getItem(key);
         if (assignment == null) {
             throw new IllegalArgumentException("Bài tập không tồn tại: " + assignmentId);
         }
@@ -502,7 +474,7 @@ public class LecturerService {
                         .sortValue("SUBMISSION#" + assignmentId)
         );
 
-        long submissionCount = table.query(r -> r.queryConditional(submissionCondition))
+        long submissionCount = repository.query(r -> r.queryConditional(submissionCondition))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .count();
@@ -511,13 +483,14 @@ public class LecturerService {
             // Nếu có submissions → soft delete (set is_published = false)
             assignment.setIsPublished(false);
             assignment.setUpdatedAt(Instant.now().toString());
-            table.updateItem(assignment);
+            repository.updateItem(assignment);
             log.info("Soft deleted assignment {} - set is_published=false ({} submissions found)", assignmentId, submissionCount);
         } else {
             // Nếu không có submissions → hard delete
-            table.deleteItem(key);
+            repository.deleteItem(key);
             log.info("Hard deleted assignment {} (no submissions)", assignmentId);
         }
+        gradebookEngine.assignmentsChanged(classId);
     }
 
     // ========================================================================
@@ -528,19 +501,20 @@ public class LecturerService {
      * Cập nhật điểm cho một sinh viên
      */
     public void gradeStudentSubmission(String classId, String assignmentId, String teacherCode, GradeSubmissionDto dto) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. BẢO MẬT: Check quyền sở hữu lớp
         checkClassOwnership(classId, teacherCode);
 
         // 2. CHECK ASSIGNMENT TỒN TẠI
-        Key assignmentKey = Key.builder()
-                .partitionValue("ASSIGNMENT#" + classId)
-                .sortValue("INFO#" + assignmentId)
-                .build();
-        if (table.getItem(assignmentKey) == null) {
+        Key assignmentKey = SchoolKeys.assignmentInfo(classId, assignmentId);
+        SchoolItem assignment = repository.getItem(assignmentKey);
+        if (assignment == null) {
             throw new IllegalArgumentException("Bài tập không tồn tại!");
         }
+        // Cùng thang điểm với chấm hàng loạt: 0..max_score của bài tập
+        double maxScore = maxScoreOf(assignment);
+        if (dto.getScore() == null || dto.getScore() < 0 || dto.getScore() > maxScore) {
+            throw new IllegalArgumentException("Điểm số phải từ 0 đến " + maxScore);
+        }
 
         // 3. CHECK STUDENT ENROLLED (Optional nhưng nên có)
         // Query item STUDENT#{studentId} trong partition CLASS#{classId} để chắc chắn SV có trong lớp
@@ -550,12 +524,9 @@ public class LecturerService {
         // Submission Key: PK=ASSIGNMENT#{classId}, SK=SUBMISSION#{assignmentId}#{studentId}
         String submissionSk = "SUBMISSION#" + assignmentId + "#" + dto.getStudentId();
 
-        Key submissionKey = Key.builder()
-                .partitionValue("ASSIGNMENT#" + classId)
-                .sortValue(submissionSk)
-                .build();
+        Key submissionKey = SchoolKeys.of("ASSIGNMENT#" + classId, submissionSk);
 
-        SchoolItem submission = table.getItem(submissionKey);
+        SchoolItem submission = repository.getItem(submissionKey);
 
         if (submission == null) {
             // CASE: Sinh viên chưa nộp bài nhưng GV muốn chấm (VD: cho 0 điểm vì không nộp)
@@ -573,60 +544,197 @@ public class LecturerService {
         }
 
         // 5. CẬP NHẬT ĐIỂM SỐ & FEEDBACK
-        if (dto.getScore() < 0 || dto.getScore() > 10) {
-            throw new IllegalArgumentException("Điểm số phải từ 0 đến 10");
-        }
-
         submission.setScore(dto.getScore());
         submission.setFeedback(dto.getFeedback());
         submission.setStatus(1); // Cập nhật trạng thái
         submission.setUpdatedAt(Instant.now().toString()); // Graded At
 
-        // 6. LƯU XUỐNG DB
-        table.putItem(submission);
+        // 6. LƯU XUỐNG DB (điểm cũ lấy từ bản bị ghi đè - ALL_OLD - chứ không từ lần đọc ở trên, có thể đã cũ)
+        SchoolItem previous = repository.putItemReturningOld(submission);
+        gradebookEngine.recordSubmission(classId, submission, previous != null ? previous.getScore() : null);
 
         // 7. Trigger Notification (EventBridge/SNS) - Optional
         log.info("✅ Graded student {} for assignment {}: Score {}", dto.getStudentId(), assignmentId, dto.getScore());
     }
     // Hàm phụ trợ tính tổng trọng số
     private double calculateTotalWeightOfClass(String classId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // Query lấy tất cả Assignment của lớp (SK bắt đầu bằng INFO#)
         QueryConditional condition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("ASSIGNMENT#" + classId).sortValue("INFO#")
         );
 
-        return table.query(condition).items().stream()
+        return repository.query(condition).items().stream()
                 .mapToDouble(item -> item.getWeight() != null ? item.getWeight() : 0.0)
                 .sum();
     }
     /**
-     * Lấy danh sách điểm của bài tập
+     * Chấm 1 bài nộp đã có: cùng kiểm tra thang điểm và cùng UpdateItem chỉ các attribute điểm như chấm hàng loạt.
+     * Điểm cũ cho bảng xếp hạng lấy từ ALL_OLD của chính lệnh ghi.
      */
     public void processGradeUpdate(String classIdInput, String assignmentId, String teacherCode, GradeSubmissionDto gradeDto) {
-        DynamoDbTable<SchoolItem> table = getTable();
         checkClassOwnership(classIdInput, teacherCode);
         String rawClassId = classIdInput.replace("CLASS#", "");
-        String assignmentPk = "ASSIGNMENT#" + rawClassId;
-
         String rawAssignmentId = assignmentId.replace("INFO#", "").replace("ASSIGNMENT#", "");
-        String submissionSk = "SUBMISSION#" + rawAssignmentId + "#" + gradeDto.getStudentId();
 
-        Key key = Key.builder()
-                .partitionValue(assignmentPk)
-                .sortValue(submissionSk)
-                .build();
+        SchoolItem assignment = repository.getItem(SchoolKeys.assignmentInfo(rawClassId, rawAssignmentId));
+        if (assignment == null) {
+            throw new IllegalArgumentException("Bài tập không tồn tại!");
+        }
+        double maxScore = maxScoreOf(assignment);
+        if (gradeDto.getScore() == null || gradeDto.getScore() < 0 || gradeDto.getScore() > maxScore) {
+            throw new IllegalArgumentException("Điểm số phải từ 0 đến " + maxScore);
+        }
 
-        SchoolItem submission = table.getItem(key);
-        if (submission == null) {
+        String gradedAt = Instant.now().toString();
+        UpdateItemResponse response;
+        try {
+            response = repository.updateItem(gradeRequest(SchoolKeys.assignmentPk(rawClassId),
+                    SchoolKeys.submissionSk(rawAssignmentId, gradeDto.getStudentId()),
+                    gradeDto.getScore(), gradeDto.getFeedback(), gradedAt));
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalArgumentException("Sinh viên này chưa nộp bài, không thể chấm điểm.");
         }
+        SchoolItem submission = repository.schema().mapToItem(response.attributes());
+        Double previousScore = submission.getScore();
         submission.setScore(gradeDto.getScore());
         submission.setFeedback(gradeDto.getFeedback());
-        submission.setGradedAt(java.time.Instant.now().toString());
+        submission.setGradedAt(gradedAt);
         submission.setStatus(2);
-        table.updateItem(submission);
+        gradebookEngine.recordSubmission(rawClassId, submission, previousScore);
+    }
+
+    /** Số dòng tối đa của 1 lần chấm hàng loạt. */
+    static final int MAX_BULK_GRADES = 1000;
+
+    /**
+     * Chấm điểm nhiều sinh viên của 1 bài tập trong 1 lần gọi. Quyền sở hữu lớp và bài tập chỉ kiểm tra 1 lần; mỗi dòng
+     * là 1 UpdateItem có điều kiện (bài nộp phải tồn tại) chỉ ghi score / feedback / gradedAt / status, các lệnh chạy
+     * song song. Dòng lỗi không làm hỏng dòng khác. Bảng xếp hạng + bảng điểm được cập nhật 1 lần cho cả lô.
+     */
+    public BulkGradeResultDto bulkGradeSubmissions(String classIdInput, String assignmentId, String teacherCode,
+                                                   List<GradeSubmissionDto> grades) {
+        long start = System.currentTimeMillis();
+        if (grades == null || grades.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách điểm trống");
+        }
+        if (grades.size() > MAX_BULK_GRADES) {
+            throw new IllegalArgumentException("Tối đa " + MAX_BULK_GRADES + " dòng mỗi lần chấm");
+        }
+        checkClassOwnership(classIdInput, teacherCode);
+        String rawClassId = SchoolKeys.stripPrefix(SchoolKeys.CLASS, classIdInput);
+        String rawAssignmentId = assignmentId.replace("INFO#", "").replace("ASSIGNMENT#", "");
+        SchoolItem assignment = repository.getItem(SchoolKeys.assignmentInfo(rawClassId, rawAssignmentId));
+        if (assignment == null) {
+            throw new IllegalArgumentException("Bài tập không tồn tại!");
+        }
+        double maxScore = maxScoreOf(assignment);
+        String assignmentPk = SchoolKeys.assignmentPk(rawClassId);
+        String gradedAt = Instant.now().toString();
+
+        // 1. Kiểm tra từng dòng, dòng hợp lệ thành 1 UpdateItem
+        BulkGradeRowResult[] results = new BulkGradeRowResult[grades.size()];
+        List<Integer> rows = new ArrayList<>();
+        List<UpdateItemRequest> requests = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < grades.size(); i++) {
+            GradeSubmissionDto grade = grades.get(i);
+            String studentId = grade == null || grade.getStudentId() == null ? null : grade.getStudentId().trim();
+            String error = null;
+            if (studentId == null || studentId.isEmpty()) {
+                error = "Thiếu studentId";
+            } else if (grade.getAssignmentId() != null && !grade.getAssignmentId().equals(assignmentId)) {
+                error = "Assignment ID không khớp";
+            } else if (grade.getScore() == null || grade.getScore() < 0 || grade.getScore() > maxScore) {
+                error = "Điểm số phải từ 0 đến " + maxScore;
+            } else if (!seen.add(studentId)) {
+                error = "Sinh viên bị lặp trong danh sách";
+            }
+            if (error != null) {
+                results[i] = BulkGradeRowResult.builder().studentId(studentId).success(false).error(error).build();
+                continue;
+            }
+            rows.add(i);
+            requests.add(gradeRequest(assignmentPk, SchoolKeys.submissionSk(rawAssignmentId, studentId),
+                    grade.getScore(), grade.getFeedback(), gradedAt));
+        }
+
+        // 2. Ghi song song; ALL_OLD trả bài nộp trước khi chấm (điểm cũ + dữ liệu cho bảng điểm)
+        List<UpdateItemResult> outcomes = repository.updateItems(requests);
+        List<SchoolItem> graded = new ArrayList<>(outcomes.size());
+        Map<String, Double> previousScores = new HashMap<>();
+        for (int r = 0; r < outcomes.size(); r++) {
+            int i = rows.get(r);
+            GradeSubmissionDto grade = grades.get(i);
+            String studentId = grade.getStudentId().trim();
+            UpdateItemResult outcome = outcomes.get(r);
+            if (!outcome.isSuccess()) {
+                String error = outcome.getError() instanceof ConditionalCheckFailedException
+                        ? "Sinh viên này chưa nộp bài, không thể chấm điểm."
+                        : "Lỗi ghi điểm: " + outcome.getError().getMessage();
+                if (!(outcome.getError() instanceof ConditionalCheckFailedException)) {
+                    log.error("Chấm điểm hàng loạt lỗi (Student: {})", studentId, outcome.getError());
+                }
+                results[i] = BulkGradeRowResult.builder().studentId(studentId).success(false).error(error).build();
+                continue;
+            }
+            SchoolItem submission = repository.schema().mapToItem(outcome.getResponse().attributes());
+            Double previousScore = submission.getScore();
+            previousScores.put(submission.getSk(), previousScore);
+            submission.setScore(grade.getScore());
+            submission.setFeedback(grade.getFeedback());
+            submission.setGradedAt(gradedAt);
+            submission.setStatus(2);
+            graded.add(submission);
+            results[i] = BulkGradeRowResult.builder()
+                    .studentId(studentId).success(true).previousScore(previousScore).score(grade.getScore()).build();
+        }
+
+        // 3. Bảng xếp hạng + bảng điểm: 1 lần cho cả lô
+        if (!graded.isEmpty()) {
+            gradebookEngine.recordSubmissions(rawClassId, graded, previousScores);
+        }
+        log.info("✅ Bulk graded assignment {}: {}/{} rows", rawAssignmentId, graded.size(), grades.size());
+        return BulkGradeResultDto.builder()
+                .requested(grades.size())
+                .graded(graded.size())
+                .failed(grades.size() - graded.size())
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /** Điểm tối đa của bài tập (thiếu max_score thì như bảng điểm: thang 10). */
+    private static double maxScoreOf(SchoolItem assignment) {
+        return assignment.getMaxScore() != null ? assignment.getMaxScore() : Gradebook.DEFAULT_MAX_SCORE;
+    }
+
+    /** UpdateItem chỉ các attribute điểm, bài nộp phải tồn tại; feedback null thì xóa như chấm từng bài. */
+    private static UpdateItemRequest gradeRequest(String assignmentPk, String submissionSk, Double score,
+                                                  String feedback, String gradedAt) {
+        Map<String, AttributeValue> keyMap = new HashMap<>();
+        keyMap.put("PK", AttributeValue.builder().s(assignmentPk).build());
+        keyMap.put("SK", AttributeValue.builder().s(submissionSk).build());
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":score", AttributeValue.builder().n(String.valueOf(score)).build());
+        values.put(":gradedAt", AttributeValue.builder().s(gradedAt).build());
+        values.put(":status", AttributeValue.builder().n("2").build());
+        String update = "SET score = :score, gradedAt = :gradedAt, #status = :status";
+        if (feedback != null) {
+            values.put(":feedback", AttributeValue.builder().s(feedback).build());
+            update += ", feedback = :feedback";
+        } else {
+            update += " REMOVE feedback";
+        }
+
+        return UpdateItemRequest.builder()
+                .key(keyMap)
+                .conditionExpression("attribute_exists(PK)")
+                .updateExpression(update)
+                .expressionAttributeNames(Collections.singletonMap("#status", "status"))
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.ALL_OLD)
+                .build();
     }
 
     // ========================================================================
@@ -637,7 +745,6 @@ public class LecturerService {
     public PostDto createClassPost(String classId, String teacherCode, CreatePostRequest request) {
         checkClassOwnership(classId, teacherCode);
 
-        DynamoDbTable<SchoolItem> table = getTable();
         String postId = UUID.randomUUID().toString();
         String now = Instant.now().toString();
 
@@ -671,20 +778,19 @@ public class LecturerService {
         post.setIsPinned(request.getPinned() != null ? request.getPinned() : false);
         post.setType("POST");
 
-        table.putItem(post);
+        repository.putItem(post);
 
         return mapToPostDto(post);
     }
 
     public List<PostDto> listPosts(String classId) {
-        DynamoDbTable<SchoolItem> table = getTable();
         String pk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
 
         QueryConditional qc = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue(pk).sortValue("POST#")
         );
 
-        return table.query(r -> r.queryConditional(qc))
+        return repository.query(r -> DtoProjections.POST.all().applyTo(r.queryConditional(qc)))
                 .items().stream()
                 .map(this::mapToPostDto) // <--- Gọi hàm map vừa viết ở trên
                 // Sắp xếp bài mới nhất lên đầu
@@ -722,8 +828,6 @@ public class LecturerService {
     }
 
     public void createComment(String postId, String senderId, CreateCommentRequest request) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. TÌM BÀI VIẾT GỐC & CHECK QUYỀN
         // Logic này giữ nguyên như bạn viết (Rất tốt)
         SchoolItem post = findPostById(postId);
@@ -773,7 +877,7 @@ public class LecturerService {
         comment.setLikeCount(0);
 
         // 3. LƯU XUỐNG DB
-        table.putItem(comment);
+        repository.putItem(comment);
 
         // 4. CẬP NHẬT BIẾN ĐẾM COMMENT (Atomic Counter)
         // Bạn nên có hàm này để tăng số lượng comment ở bài Post gốc lên 1
@@ -799,15 +903,14 @@ public class LecturerService {
 
             // 4. Request
             UpdateItemRequest request = UpdateItemRequest.builder()
-                    .tableName(tableName) // Tên bảng lấy từ @Value
                     .key(keyMap)
                     .updateExpression("SET #cnt = if_not_exists(#cnt, :zero) + :val")
                     .expressionAttributeNames(names)
                     .expressionAttributeValues(values)
                     .build();
 
-            // 5. QUAN TRỌNG: Dùng standardClient để chạy
-            standardClient.updateItem(request);
+            // 5. Repository tự điền tên bảng và chạy bằng client mức thấp
+            repository.updateItem(request);
 
         } catch (Exception e) {
             e.printStackTrace(); // In lỗi ra xem nếu có
@@ -815,15 +918,10 @@ public class LecturerService {
     }
     // --- Helper: Tìm Post theo ID ---
     public SchoolItem findUserByUuid(String uuid) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // Key: PK = USER#{uuid}, SK = PROFILE
-        Key key = Key.builder()
-                .partitionValue("USER#" + uuid)
-                .sortValue("PROFILE")
-                .build();
+        Key key = SchoolKeys.userProfile(uuid);
 
-        SchoolItem user = table.getItem(key);
+        SchoolItem user = repository.getItem(key);
 
         if (user == null) {
             throw new IllegalArgumentException("Không tìm thấy User với UUID: " + uuid);
@@ -832,24 +930,18 @@ public class LecturerService {
     }
     // Hàm phụ trợ tìm Post bằng ID (Dùng GSI1)
     private SchoolItem findPostById(String postId) {
-        DynamoDbTable<SchoolItem> table = getTable();
         QueryConditional condition = QueryConditional.keyEqualTo(k ->
                 k.partitionValue("POST#" + postId).sortValue("INFO"));
 
-        return table.index("GSI1").query(condition).stream()
+        return repository.gsi1().query(condition).stream()
                 .flatMap(p -> p.items().stream())
                 .findFirst().orElse(null);
     }
     private void checkStudentEnrollment(String classId, String studentId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // Logic Enroll: PK = CLASS#{classId}, SK = STUDENT#{studentId}
-        Key key = Key.builder()
-                .partitionValue("CLASS#" + classId)
-                .sortValue("STUDENT#" + studentId)
-                .build();
+        Key key = SchoolKeys.enrollment(classId, studentId);
 
-        if (table.getItem(key) == null) {
+        if (repository.getItem(key) == null) {
             // Nếu không tìm thấy -> Chưa tham gia lớp -> Chặn
             log.warn("🚨 SECURITY: Student '{}' tried to comment in class '{}' but is not enrolled.", studentId, classId);
             throw new SecurityException("Bạn chưa tham gia lớp học này, không được phép bình luận.");
@@ -859,14 +951,12 @@ public class LecturerService {
      * Lấy danh sách bài viết của lớp
      */
     public List<Map<String, Object>> getPostsByClass(String classId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         QueryConditional condition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("CLASS#" + classId)
                         .sortValue("POST#")
         );
 
-        return table.query(r -> r.queryConditional(condition).scanIndexForward(false))
+        return repository.query(r -> r.queryConditional(condition).scanIndexForward(false))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .map(item -> {
@@ -884,14 +974,12 @@ public class LecturerService {
      * Lấy bình luận của bài viết
      */
     public List<Map<String, String>> getCommentsByPost(String postId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         QueryConditional condition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("POST#" + postId)
                         .sortValue("COMMENT#")
         );
 
-        return table.query(r -> r.queryConditional(condition))
+        return repository.query(r -> r.queryConditional(condition))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .map(item -> {
@@ -936,14 +1024,9 @@ public class LecturerService {
      * Xóa bài viết
      */
     public void deletePost(String classId, String postId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        Key key = Key.builder()
-                .partitionValue("CLASS#" + classId)
-                .sortValue("POST#" + postId)
-                .build();
+        Key key = SchoolKeys.post(classId, postId);
 
-        table.deleteItem(key);
+        repository.deleteItem(key);
         log.info("Deleted post {}", postId);
     }
 
@@ -951,27 +1034,20 @@ public class LecturerService {
      * Xóa bình luận
      */
     public void deleteComment(String postId, String commentId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        Key key = Key.builder()
-                .partitionValue("POST#" + postId)
-                .sortValue("COMMENT#" + commentId)
-                .build();
+        Key key = SchoolKeys.comment(postId, commentId);
 
-        table.deleteItem(key);
+        repository.deleteItem(key);
         log.info("Deleted comment {}", commentId);
     }
 
     // Helper: Đếm số comment
     private long getCommentCount(String postId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         QueryConditional condition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("POST#" + postId)
                         .sortValue("COMMENT#")
         );
 
-        return table.query(r -> r.queryConditional(condition))
+        return repository.query(r -> r.queryConditional(condition))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .count();
@@ -982,28 +1058,46 @@ public class LecturerService {
     // ========================================================================
 
     /**
-     * Lấy ranking sinh viên trong lớp (sắp xếp theo điểm tổng)
+     * Lấy ranking sinh viên trong lớp (sắp xếp theo điểm tổng).
+     * Thứ tự + tổng điểm lấy từ bảng xếp hạng của lớp (ClassLeaderboard), không đọc lại bài nộp;
+     * sinh viên chưa được chấm bài nào xếp cuối, totalScore = null.
      */
     public List<RankingDto> getRankingByClass(String classId) {
         // Note: teacherId không cần ở đây, vì đây là helper method
         // Trong thực tế, nên pass teacherId từ controller
         List<StudentInClassDto> students = getStudentsInClass(classId, null, null, null);
+        Map<String, StudentInClassDto> byId = new LinkedHashMap<>();
+        for (StudentInClassDto student : students) {
+            byId.put(student.getStudentId(), student);
+        }
 
-        return students.stream()
-                .sorted((s1, s2) -> Double.compare(s2.getTotalScore(), s1.getTotalScore()))
-                .mapToInt(s -> students.indexOf(s) + 1) // Tính rank từ vị trí trong list
-                .boxed()
-                .map(rank -> {
-                    StudentInClassDto student = students.get(rank - 1);
-                    return RankingDto.builder()
-                            .rank(rank)
-                            .studentId(student.getStudentId())
-                            .studentCode(student.getStudentCode())
-                            .studentName(student.getStudentName())
-                            .totalScore(student.getTotalScore())
-                            .build();
-                })
-                .collect(Collectors.toList());
+        List<RankingDto> ranking = new ArrayList<>(students.size());
+        int rank = 0;
+        double previousTotal = Double.NaN;
+        for (ClassLeaderboard.Entry entry : classLeaderboard.board(classId).all()) {
+            StudentInClassDto student = byId.remove(entry.getStudentId());
+            if (student == null) continue; // đã rời lớp -> không tính hạng
+            // Hạng trong số sinh viên còn trong lớp, cùng điểm thì đồng hạng
+            if (entry.getTotal() != previousTotal) rank = ranking.size() + 1;
+            previousTotal = entry.getTotal();
+            ranking.add(RankingDto.builder()
+                    .rank(rank)
+                    .studentId(student.getStudentId())
+                    .studentCode(student.getStudentCode())
+                    .studentName(student.getStudentName())
+                    .totalScore(entry.getTotal())
+                    .build());
+        }
+        int unranked = ranking.size() + 1;
+        for (StudentInClassDto student : byId.values()) {
+            ranking.add(RankingDto.builder()
+                    .rank(unranked)
+                    .studentId(student.getStudentId())
+                    .studentCode(student.getStudentCode())
+                    .studentName(student.getStudentName())
+                    .build());
+        }
+        return ranking;
     }
 
     // ========================================================================
@@ -1047,13 +1141,9 @@ public class LecturerService {
                 .build();
     }
     public String getTeacherCodeFromUuid(String uuid) {
-        DynamoDbTable<SchoolItem> table = getTable();
         try {
-            Key key = Key.builder()
-                    .partitionValue("USER#" + uuid)
-                    .sortValue("PROFILE")
-                    .build();
-            SchoolItem user = table.getItem(key);
+            Key key = SchoolKeys.userProfile(uuid);
+            SchoolItem user = repository.getItem(key);
 
             if (user == null) {
                 log.error("❌ Không tìm thấy user trong DB với PK: USER#{}", uuid);
@@ -1070,15 +1160,10 @@ public class LecturerService {
      * Nếu không phải -> Ném lỗi SecurityException (Dừng chương trình ngay).
      */
     private void checkClassOwnership(String classId, String teacherId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. Lấy thông tin lớp học từ DB
-        Key key = Key.builder()
-                .partitionValue("CLASS#" + classId)
-                .sortValue("INFO")
-                .build();
+        Key key = SchoolKeys.classInfo(classId);
 
-        SchoolItem classItem = table.getItem(key);
+        SchoolItem classItem = repository.getItem(key);
 
         // 2. Kiểm tra tồn tại
         if (classItem == null) {
@@ -1110,7 +1195,6 @@ public class LecturerService {
 
 
     public void sendClassNotification(String teacherCode, CreateNotificationRequest request) {
-        DynamoDbTable<SchoolItem> table = getTable();
         String classId = request.getClassId();
         checkClassOwnership(classId, teacherCode);
 
@@ -1119,7 +1203,7 @@ public class LecturerService {
                 k.partitionValue("CLASS#" + classId).sortValue("STUDENT#")
         );
 
-        List<SchoolItem> enrollments = table.query(r -> r.queryConditional(condition))
+        List<SchoolItem> enrollments = repository.query(r -> r.queryConditional(condition))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .collect(Collectors.toList());
@@ -1129,18 +1213,21 @@ public class LecturerService {
             return;
         }
 
+        // Profile của các sinh viên mà enrollment không lưu email: đọc chung 1 lượt (BatchGetItem)
+        Map<Key, SchoolItem> profiles = loadStudentProfiles(enrollments.stream()
+                .filter(e -> e.getEmail() == null || e.getEmail().isEmpty())
+                .collect(Collectors.toList()));
+
         String now = Instant.now().toString();
         String notiId = UUID.randomUUID().toString();
         // Dùng Set để tránh trùng Email
         Set<String> emailSet = new HashSet<>();
+        List<SchoolItem> notifications = new ArrayList<>(enrollments.size());
 
         // --- VÒNG LẶP DUY NHẤT ---
         for (SchoolItem enrollment : enrollments) {
             // 1. Lấy ID sinh viên
-            String studentId = enrollment.getStudentId();
-            if (studentId == null && enrollment.getSk().startsWith("STUDENT#")) {
-                studentId = enrollment.getSk().substring(8); // Cắt chuỗi lấy ID
-            }
+            String studentId = enrollmentStudentId(enrollment);
 
             if (studentId == null) continue;
 
@@ -1157,15 +1244,14 @@ public class LecturerService {
             noti.setSentAt(now);
             noti.setSentBy(teacherCode);
 
-            table.putItem(noti); // Lưu Noti
+            notifications.add(noti); // Gom lại, ghi 1 lượt bằng BatchWriteItem bên dưới
 
             // 3. Tìm Email (Ưu tiên lấy luôn từ enrollment nếu có, đỡ tốn tiền query DB)
             String studentEmail = enrollment.getEmail();
 
-            // Nếu enrollment không lưu email, mới phải query bảng User (Tốn thêm 1 read unit)
+            // Nếu enrollment không lưu email thì lấy từ profile đã đọc sẵn ở trên
             if (studentEmail == null || studentEmail.isEmpty()) {
-                Key profileKey = Key.builder().partitionValue("USER#" + studentId).sortValue("PROFILE").build();
-                SchoolItem profile = table.getItem(profileKey);
+                SchoolItem profile = profiles.get(studentProfileKey(enrollment));
                 if (profile != null) {
                     studentEmail = profile.getEmail();
                 }
@@ -1176,7 +1262,10 @@ public class LecturerService {
             }
         }
 
-        // 4. Gửi Email Bulk
+        // 4. Ghi Noti ở background (lô 25 item) - request không chờ
+        notificationDispatcher.dispatch("class " + classId, notifications);
+
+        // 5. Gửi Email Bulk
         if (!emailSet.isEmpty()) {
             String subject = "[" + classId + "] " + request.getTitle();
             // Convert Set -> List
@@ -1184,12 +1273,11 @@ public class LecturerService {
         }
     }
     // Giả sử các dependency cần thiết đã được @Autowired
-// private DynamoDbTable<SchoolItem> table;
+// private SchoolItemRepository repository;
 // private LecturerService lecturerService; // Để check ownership
 
-    public List<AssignmentSubmissionResponse> getSubmissions(String lecturerCode, String classIdInput, String assignmentId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
+    public PageResult<AssignmentSubmissionResponse> getSubmissions(String lecturerCode, String classIdInput,
+                                                                   String assignmentId, PageRequest page) {
         // 1. Check quyền (Dùng code GV lấy từ Controller)
         checkClassOwnership(classIdInput, lecturerCode);
 
@@ -1206,12 +1294,10 @@ public class LecturerService {
                 k.partitionValue(assignmentPk).sortValue(skPrefix)
         );
 
-        List<SchoolItem> items = table.query(r -> r.queryConditional(qc))
-                .items().stream()
-                .collect(Collectors.toList());
+        PageResult<SchoolItem> items = repository.queryPage(QueryEnhancedRequest.builder().queryConditional(qc), page);
 
         // 4. Map DTO
-        return items.stream().map(item -> {
+        return items.map(item -> {
             // Tách ID sinh viên từ SK
             String[] parts = item.getSk().split("#");
             String studentId = parts.length >= 3 ? parts[parts.length - 1] : "Unknown";
@@ -1233,7 +1319,7 @@ public class LecturerService {
                     .createdAt(item.getCreatedAt())
                     .updatedAt(item.getUpdatedAt())
                     .build();
-        }).collect(Collectors.toList());
+        });
     }
 
     // Hàm Helper: Trích xuất Student ID từ Sort Key
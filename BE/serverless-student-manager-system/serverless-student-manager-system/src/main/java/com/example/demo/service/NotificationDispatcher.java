@@ -0,0 +1,36 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.BatchWriteResult;
+import com.example.demo.repository.SchoolItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ghi thông báo (NOTI#...) ở background bằng BatchWriteItem để request HTTP không phải chờ.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private final SchoolItemRepository repository;
+
+    @Async
+    public CompletableFuture<BatchWriteResult> dispatch(String label, List<SchoolItem> notifications) {
+        BatchWriteResult result = repository.batchWriteItems(notifications);
+        if (result.isComplete()) {
+            log.info("🔔 [NOTI] {}: ghi {} thông báo, {} lệnh batch, {} lần thử lại, {} ms",
+                    label, result.getWritten(), result.getBatchCalls(), result.getRetries(), result.getElapsedMillis());
+        } else {
+            log.error("🔔 [NOTI] {}: {}/{} thông báo KHÔNG ghi được (PK đầu tiên: {})",
+                    label, result.getFailed(), result.getRequested(), result.getFailedItems().get(0).getPk());
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+}
@@ -1,14 +1,12 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 
 import java.util.ArrayList;
@@ -21,14 +19,9 @@ import java.util.stream.Collectors;
 @Slf4j // 1. Dùng Logger thay vì System.out
 public class SchoolService {
 
-    private final DynamoDbEnhancedClient enhancedClient;
-
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
-
-    private DynamoDbTable<SchoolItem> getTable() {
-        return enhancedClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-    }
+    private final SchoolItemRepository repository;
+    private final UserEmailIndex userEmailIndex;
+    private final UserSearchIndex userSearchIndex;
 
     // ========================================================================
     // 1. CÁC HÀM GHI DỮ LIỆU (WRITE)
@@ -38,18 +31,17 @@ public class SchoolService {
      * Lưu thông tin User mới
      */
     public void saveUser(SchoolItem user) {
-        getTable().putItem(user);
+        repository.putItem(user);
+        userEmailIndex.register(user);
+        userSearchIndex.put(user);
         log.info("Đã lưu User thành công vào DynamoDB: {}", user.getPk());
     }
     public SchoolItem getUserProfile(String userId) {
         String pk = userId.startsWith("USER#") ? userId : "USER#" + userId;
 
-        Key key = Key.builder()
-                .partitionValue(pk)
-                .sortValue("PROFILE")
-                .build();
+        Key key = SchoolKeys.of(pk, "PROFILE");
 
-        return getTable().getItem(key);
+        return repository.getItem(key);
     }
 
 
@@ -57,12 +49,9 @@ public class SchoolService {
         // Tương tự, xử lý prefix cho an toàn
         String pk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
 
-        Key key = Key.builder()
-                .partitionValue(pk)
-                .sortValue("INFO")
-                .build();
+        Key key = SchoolKeys.of(pk, "INFO");
 
-        return getTable().getItem(key);
+        return repository.getItem(key);
     }
 
     public List<SchoolItem> getStudentClasses(String studentId) {
@@ -72,7 +61,7 @@ public class SchoolService {
                 k.partitionValue(partitionKeyVal));
 
         // Query và map kết quả ra List (Viết kiểu Java Stream cho gọn)
-        return getTable().index("GSI1")
+        return repository.gsi1()
                 .query(r -> r.queryConditional(queryConditional))
                 .stream()
                 .flatMap(page -> page.items().stream())
@@ -80,16 +69,14 @@ public class SchoolService {
                 .collect(Collectors.toList());
     }
     public List<SchoolItem> getNotifications(String userId) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. LẤY THÔNG BÁO RIÊNG
         String pkUser = userId.startsWith("USER#") ? userId : "USER#" + userId;
         QueryConditional userQc = QueryConditional.sortBeginsWith(k -> k.partitionValue(pkUser).sortValue("NOTI#"));
-        List<SchoolItem> userNotis = table.query(r -> r.queryConditional(userQc)).items().stream().collect(Collectors.toList());
+        List<SchoolItem> userNotis = repository.query(r -> r.queryConditional(userQc)).items().stream().collect(Collectors.toList());
 
         // 2. LẤY THÔNG BÁO HỆ THỐNG
         QueryConditional systemQc = QueryConditional.sortBeginsWith(k -> k.partitionValue("NOTI#SYSTEM").sortValue("NOTI#"));
-        List<SchoolItem> systemNotis = table.query(r -> r.queryConditional(systemQc)).items().stream().collect(Collectors.toList());
+        List<SchoolItem> systemNotis = repository.query(r -> r.queryConditional(systemQc)).items().stream().collect(Collectors.toList());
 
         // 3. GỘP LẠI & SẮP XẾP (Đã fix lỗi Null)
         List<SchoolItem> allNotis = new ArrayList<>();
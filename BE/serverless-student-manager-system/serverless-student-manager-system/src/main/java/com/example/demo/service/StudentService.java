@@ -10,14 +10,19 @@ import com.example.demo.dto.Post.ReactionRequest;
 import com.example.demo.dto.Search.SearchResultDto;
 import com.example.demo.dto.Student.*;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.FieldProjection;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.time.Instant;
@@ -29,27 +34,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class StudentService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
+    private final SchoolItemRepository repository;
     private final AdminService adminService;
     private final S3Service s3Service;
-
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
-
-    private DynamoDbTable<SchoolItem> table() {
-        return dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-    }
-
-    private DynamoDbIndex<SchoolItem> gsi1() {
-        return table().index("GSI1");
-    }
+    private final SubjectCatalog subjectCatalog;
+    private final ClassDirectory classDirectory;
+    private final ClassLeaderboard classLeaderboard;
+    private final GradebookEngine gradebookEngine;
 
     // ========================= CLASSES & ENROLLMENT =========================
     public List<ClassDto> getEnrolledClasses(String studentId, String classFilter) {
         String gsiPk = studentId.startsWith("USER#") ? studentId : "USER#" + studentId;
         QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue(gsiPk));
 
-        List<SchoolItem> enrollmentItems = gsi1().query(r -> r.queryConditional(qc))
+        List<SchoolItem> enrollmentItems = repository.gsi1().query(r -> r.queryConditional(qc))
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .filter(item -> item.getGsi1Sk() != null && item.getGsi1Sk().startsWith("CLASS#"))
@@ -80,8 +78,7 @@ public class StudentService {
         String studentRaw = studentPk.replace("USER#", "");
 
         // 1. Lấy thông tin lớp
-        Key classKey = Key.builder().partitionValue(classPk).sortValue("INFO").build();
-        SchoolItem classItem = table().getItem(classKey);
+        SchoolItem classItem = repository.getItemForUpdate(SchoolKeys.classInfo(classPk));
         if (classItem == null) throw new IllegalArgumentException("Lớp học không tồn tại");
 
         // 2. Check Active
@@ -95,8 +92,8 @@ public class StudentService {
             throw new IllegalArgumentException("Lớp học không ở trạng thái mở");
         }
 
-        Key enrollKey = Key.builder().partitionValue(classPk).sortValue("STUDENT#" + studentRaw).build();
-        SchoolItem existing = table().getItem(enrollKey);
+        Key enrollKey = SchoolKeys.enrollment(classPk, studentRaw);
+        SchoolItem existing = repository.getItem(enrollKey);
 
         // --- ENROLL ---
         if ("enroll".equals(action)) {
@@ -112,10 +109,10 @@ public class StudentService {
 
             // Check Prerequisites
             if (classItem.getSubjectId() != null) {
-                SchoolItem subject = table().getItem(Key.builder().partitionValue(classItem.getSubjectId()).sortValue("INFO").build());
+                SchoolItem subject = subjectCatalog.find(classItem.getSubjectId());
                 if (subject != null && subject.getPrerequisites() != null && !subject.getPrerequisites().isEmpty()) {
                     List<String> prerequisites = Arrays.asList(subject.getPrerequisites().split(","));
-                    List<SchoolItem> completedSubjects = gsi1().query(r -> r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(studentPk))))
+                    List<SchoolItem> completedSubjects = repository.gsi1().query(r -> r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(studentPk))))
                             .stream()
                             .flatMap(page -> page.items().stream())
                             .filter(item -> item.getSk().startsWith("SUBJECT#") && Integer.valueOf(1).equals(item.getStatus()))
@@ -141,13 +138,13 @@ public class StudentService {
             enrollment.setGsi1Sk(classPk);
             enrollment.setJoinedAt(Instant.now().toString());
             enrollment.setStatus(1);
-            table().putItem(enrollment);
+            repository.putItem(enrollment);
 
             // --- UNENROLL ---
         } else {
             if (existing == null) throw new IllegalArgumentException("Bạn chưa tham gia lớp này");
             incrementStudentCount(classItem, false);
-            table().deleteItem(enrollKey);
+            repository.deleteItem(enrollKey);
         }
     }
 
@@ -179,26 +176,24 @@ public class StudentService {
                         .expressionValues(values)
                         .expressionNames(names)
                         .build();
-                table().updateItem(r -> r.item(classItem).conditionExpression(conditionExp));
+                repository.updateItem(r -> r.item(classItem).conditionExpression(conditionExp));
             } else {
-                table().updateItem(classItem);
+                repository.updateItem(classItem);
             }
         } catch (Exception e) {
             throw new IllegalArgumentException("Không thể cập nhật sĩ số lớp (Có thể lớp đã đầy hoặc dữ liệu thay đổi).");
         }
+        classDirectory.put(classItem);
     }
 
     // ========================= ASSIGNMENTS =========================
     public void submitAssignment(String studentId, SubmitAssignmentRequest request) {
-        DynamoDbTable<SchoolItem> table = table();
         String classId = request.getClass_id();
         String assignmentId = request.getAssignmentId();
 
         // 1. Kiểm tra Assignment tồn tại
-        String assignmentPk = "ASSIGNMENT#" + classId;
-        String assignmentSk = "INFO#" + assignmentId;
-        Key assignmentKey = Key.builder().partitionValue(assignmentPk).sortValue(assignmentSk).build();
-        SchoolItem assignment = table.getItem(assignmentKey);
+        String assignmentPk = SchoolKeys.assignmentPk(classId);
+        SchoolItem assignment = repository.getItem(SchoolKeys.assignmentInfo(classId, assignmentId));
 
         if (assignment == null) throw new IllegalArgumentException("Assignment không tồn tại");
 
@@ -222,7 +217,7 @@ public class StudentService {
         boolean isLate = isLateSubmission(assignment.getDeadline(), now);
 
         // 5. Tạo Submission Item
-        String submissionSk = "SUBMISSION#" + assignmentId + "#" + studentId;
+        String submissionSk = SchoolKeys.submissionSk(assignmentId, studentId);
 
         SchoolItem submission = new SchoolItem();
         submission.setPk(assignmentPk);
@@ -244,21 +239,21 @@ public class StudentService {
         submission.setStatus(1); // Thường nộp xong status là 1 (Active/Submitted)
         submission.setCreatedAt(now);
 
-        // 6. Lưu xuống DB
-        table.putItem(submission);
+        // 6. Lưu xuống DB (ghi đè bài cũ nếu có -> lấy lại bản cũ ngay trong lệnh ghi để trừ điểm cũ khỏi tổng)
+        SchoolItem previous = repository.putItemReturningOld(submission);
+        gradebookEngine.recordSubmission(classId, submission, previous != null ? previous.getScore() : null);
 
         log.info("Student {} submitted assignment {}. File: {}", studentId, assignmentId, fileName);
     }
 
     public StudentSubmissionResponse getPersonalSubmission(String studentId, String assignmentId) {
-        DynamoDbTable<SchoolItem> table = table();
         String gsiPk = "USER#" + studentId;
         String gsiSk = "SUBMISSION#" + assignmentId;
 
         log.info("🔍 Querying Submission: PK=[{}] | SK=[{}]", gsiPk, gsiSk);
         QueryConditional queryConditional = QueryConditional.keyEqualTo(k -> k.partitionValue(gsiPk).sortValue(gsiSk));
 
-        SchoolItem submissionItem = table.index("GSI1").query(queryConditional)
+        SchoolItem submissionItem = repository.gsi1().query(queryConditional)
                 .stream()
                 .flatMap(page -> page.items().stream())
                 .findFirst()
@@ -279,13 +274,11 @@ public class StudentService {
     }
 
     public void updateSubmission(String studentId, SubmitAssignmentRequest request) {
-        DynamoDbTable<SchoolItem> table = table();
         String classId = request.getClass_id();
         String assignmentId = request.getAssignmentId();
 
         // 1. Kiểm tra Assignment tồn tại
-        Key assKey = Key.builder().partitionValue("ASSIGNMENT#" + classId).sortValue("INFO#" + assignmentId).build();
-        SchoolItem assignment = table.getItem(assKey);
+        SchoolItem assignment = repository.getItem(SchoolKeys.assignmentInfo(classId, assignmentId));
         if (assignment == null) throw new IllegalArgumentException("Bài tập không tồn tại");
 
         // 2. Kiểm tra Enrollment (Fix lỗi prefix nếu cần)
@@ -293,9 +286,8 @@ public class StudentService {
         ensureEnrolled(classPk, studentId);
 
         // 3. Lấy bài nộp cũ (Old Submission)
-        String submissionSk = "SUBMISSION#" + assignmentId + "#" + studentId;
-        Key subKey = Key.builder().partitionValue("ASSIGNMENT#" + classId).sortValue(submissionSk).build();
-        SchoolItem oldSubmission = table.getItem(subKey);
+        String submissionSk = SchoolKeys.submissionSk(assignmentId, studentId);
+        SchoolItem oldSubmission = repository.getItem(SchoolKeys.submission(classId, assignmentId, studentId));
 
         if (oldSubmission == null) {
             throw new IllegalArgumentException("Chưa có bài nộp nào để cập nhật. Hãy dùng API nộp mới.");
@@ -353,19 +345,21 @@ public class StudentService {
         submission.setType(isLate ? "late" : "on_time");
         submission.setStatus(1); // Active
 
-        table.putItem(submission);
+        // Điểm cũ bị xóa -> trừ khỏi tổng điểm trên bảng xếp hạng cho tới khi chấm lại. Điểm cũ lấy từ bản ghi đè
+        // (ALL_OLD), không lấy từ oldSubmission: điểm chấm xen giữa lúc đọc và lúc ghi vẫn được trừ đúng
+        SchoolItem previous = repository.putItemReturningOld(submission);
+        gradebookEngine.recordSubmission(classId, submission, previous != null ? previous.getScore() : null);
         log.info("Student {} updated submission for {}. New File: {}", studentId, assignmentId, finalFileName);
     }
 
     public List<StudentAssignmentResponse> getStudentAssignments(String studentId, String classIdInput) {
-        DynamoDbTable<SchoolItem> table = table();
         String classPk = classIdInput.startsWith("CLASS#") ? classIdInput : "CLASS#" + classIdInput;
         ensureEnrolled(classPk, studentId);
 
         String assignmentPk = classPk.replace("CLASS#", "ASSIGNMENT#");
         QueryConditional queryConditional = QueryConditional.sortBeginsWith(k -> k.partitionValue(assignmentPk).sortValue("INFO#"));
 
-        List<SchoolItem> items = table.query(r -> r.queryConditional(queryConditional))
+        List<SchoolItem> items = repository.query(r -> r.queryConditional(queryConditional))
                 .items().stream()
                 .filter(item -> Boolean.TRUE.equals(item.getIsPublished()))
                 .collect(Collectors.toList());
@@ -396,17 +390,35 @@ public class StudentService {
     }
 
     // ========================= NOTIFICATIONS & SEARCH =========================
-    public List<NotificationDto> getNotifications(String userId, String type, String classId) {
+    public PageResult<NotificationDto> getNotifications(String userId, String type, String classId, PageRequest page) {
         String pk = userId.startsWith("USER#") ? userId : "USER#" + userId;
-        QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue(pk));
-        List<SchoolItem> items = table().query(r -> r.queryConditional(qc).scanIndexForward(false))
-                .items().stream()
-                .filter(i -> i.getSk() != null && i.getSk().startsWith("NOTI#"))
-                .collect(Collectors.toList());
+        QueryConditional qc = QueryConditional.sortBeginsWith(k -> k.partitionValue(pk).sortValue("NOTI#"));
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(qc)
+                .scanIndexForward(false);
 
-        return items.stream()
-                .filter(i -> type == null || type.isEmpty() || type.equalsIgnoreCase(i.getType()))
-                .filter(i -> classId == null || classId.isEmpty() || classId.equalsIgnoreCase(i.getClassId()))
+        // Lọc type/class_id trên DynamoDB để mỗi trang đã là kết quả cuối
+        List<String> expressions = new ArrayList<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        if (type != null && !type.isEmpty()) {
+            expressions.add("#tp = :type");
+            names.put("#tp", "type");
+            values.put(":type", AttributeValue.builder().s(type).build());
+        }
+        if (classId != null && !classId.isEmpty()) {
+            expressions.add("class_id = :cid");
+            values.put(":cid", AttributeValue.builder().s(classId).build());
+        }
+        if (!expressions.isEmpty()) {
+            Expression.Builder filter = Expression.builder()
+                    .expression(String.join(" AND ", expressions))
+                    .expressionValues(values);
+            if (!names.isEmpty()) filter.expressionNames(names);
+            request.filterExpression(filter.build());
+        }
+
+        return repository.queryPage(request, page)
                 .map(i -> NotificationDto.builder()
                         .id(i.getSk())
                         .title(i.getTitle())
@@ -417,16 +429,17 @@ public class StudentService {
                         .classId(i.getClassId())
                         .sentBy(i.getSentBy())
                         .sentAt(i.getSentAt())
-                        .build())
-                .collect(Collectors.toList());
+                        .build());
     }
 
     public List<SearchResultDto> searchForStudent(String type, String keyword, Map<String, Object> filters) {
         if ("classes".equalsIgnoreCase(type)) {
+            // Tìm kiếm nhanh: chỉ lấy trang đầu
             List<ClassDto> classes = adminService.searchClasses(
                     (String) filters.getOrDefault("subject_id", null),
                     (String) filters.getOrDefault("teacher_id", null),
-                    keyword, 1);
+                    keyword, 1,
+                    PageRequest.first(PageRequest.DEFAULT_LIMIT)).getItems();
             return classes.stream()
                     .filter(c -> c.getStudentCount() == null || c.getStudentCount() < 40)
                     .map(c -> SearchResultDto.builder()
@@ -440,7 +453,7 @@ public class StudentService {
                     .collect(Collectors.toList());
         }
         if ("teachers".equalsIgnoreCase(type)) {
-            return adminService.searchUsers(2, keyword).stream()
+            return adminService.searchUsers(2, keyword, PageRequest.first(PageRequest.DEFAULT_LIMIT)).getItems().stream()
                     .map(u -> SearchResultDto.builder()
                             .id(u.getId())
                             .title(u.getName())
@@ -459,39 +472,44 @@ public class StudentService {
         String classPk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
         ensureEnrolled(classPk, studentId);
 
-        QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue(classPk));
-        Map<String, Double> scoreMap = new HashMap<>();
+        // Bảng xếp hạng lưu sẵn của lớp: tra hạng O(log n), không đọc bài nộp
+        ClassLeaderboard.Board board = classLeaderboard.board(classPk);
+        return toRankingDto(board, studentId);
+    }
 
-        for (Page<SchoolItem> page : table().query(qc)) {
-            for (SchoolItem item : page.items()) {
-                if (item.getSk() != null && item.getSk().contains("SUBMISSION#")) {
-                    String[] parts = item.getSk().split("SUBMISSION#");
-                    if (parts.length == 2) {
-                        String sid = parts[1];
-                        double sc = item.getScore() != null ? item.getScore() : 0.0;
-                        scoreMap.merge(sid, sc, Double::sum);
-                    }
-                }
-            }
+    /**
+     * Hạng của sinh viên + top đầu bảng + các bạn xếp ngay trên / dưới.
+     * @param top    số sinh viên đầu bảng (0 = không lấy)
+     * @param around số sinh viên mỗi phía quanh mình (0 = không lấy)
+     */
+    public Map<String, Object> getLeaderboard(String classId, String studentId, int top, int around) {
+        if (top < 0 || top > 100 || around < 0 || around > 20) {
+            throw new IllegalArgumentException("top phải từ 0-100, around phải từ 0-20");
         }
+        String classPk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
+        ensureEnrolled(classPk, studentId);
 
-        List<Map.Entry<String, Double>> sorted = scoreMap.entrySet().stream()
-                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-                .collect(Collectors.toList());
+        ClassLeaderboard.Board board = classLeaderboard.board(classPk);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("me", toRankingDto(board, studentId));
+        result.put("total_students", board.size());
+        result.put("top", board.top(top).stream().map(this::toRankingDto).collect(Collectors.toList()));
+        result.put("around", board.around(studentId, around).stream().map(this::toRankingDto).collect(Collectors.toList()));
+        return result;
+    }
 
-        int rank = 0;
-        double myScore = scoreMap.getOrDefault(studentId, 0.0);
-        for (int i = 0; i < sorted.size(); i++) {
-            if (sorted.get(i).getKey().equals(studentId)) {
-                rank = i + 1;
-                break;
-            }
-        }
-        if (rank == 0 && !sorted.isEmpty()) {
-            rank = sorted.size();
+    private RankingDto toRankingDto(ClassLeaderboard.Board board, String studentId) {
+        ClassLeaderboard.Entry entry = board.entryOf(studentId);
+        if (entry == null) {
+            // Chưa được chấm bài nào -> đứng sau mọi sinh viên đã có điểm
+            return RankingDto.builder().studentId(studentId).rank(board.size() + 1).score(0.0).recommendations("").build();
         }
+        return toRankingDto(entry);
+    }
 
-        return RankingDto.builder().studentId(studentId).rank(rank).score(myScore).recommendations("").build();
+    private RankingDto toRankingDto(ClassLeaderboard.Entry entry) {
+        return RankingDto.builder().studentId(entry.getStudentId()).rank(entry.getRank()).score(entry.getTotal())
+                .recommendations("").build();
     }
 
     // ========================= POSTS & COMMENTS =========================
@@ -500,7 +518,7 @@ public class StudentService {
         String classPk = request.getClassId().startsWith("CLASS#") ? request.getClassId() : "CLASS#" + request.getClassId();
 
         // 2. Validate Lớp học tồn tại
-        SchoolItem classItem = table().getItem(Key.builder().partitionValue(classPk).sortValue("INFO").build());
+        SchoolItem classItem = repository.getItem(SchoolKeys.classInfo(classPk));
         if (classItem == null) throw new IllegalArgumentException("Class not found");
 
         // 3. Logic kiểm tra quyền đăng bài (Giữ nguyên logic cũ của bạn)
@@ -547,7 +565,7 @@ public class StudentService {
         }
 
         // 6. Lưu xuống DB
-        table().putItem(post);
+        repository.putItem(post);
 
         return mapToPostDto(post);
     }
@@ -591,7 +609,7 @@ public class StudentService {
         }
 
         // 4. Lưu Comment xuống DB
-        table().putItem(comment);
+        repository.putItem(comment);
 
         // 5. Tăng biến đếm Comment cho bài Post (Atomic Counter)
         incrementCommentCount(post.getPk(), post.getSk(), 1);
@@ -599,19 +617,20 @@ public class StudentService {
         return mapToCommentDto(comment);
     }
 
-    public List<PostDto> listPosts(String classId) {
+    public PageResult<PostDto> listPosts(String classId, FieldProjection.Selection<PostDto> fields, PageRequest page) {
         String classPk = classId.startsWith("CLASS#") ? classId : "CLASS#" + classId;
-        QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue(classPk));
-        return table().query(r -> r.queryConditional(qc).scanIndexForward(false))
-                .items().stream()
-                .filter(i -> i.getSk() != null && i.getSk().startsWith("POST#"))
-                .map(this::mapToPostDto)
-                .collect(Collectors.toList());
+        // Chỉ lấy SK bắt đầu bằng POST# (không kéo item khác của lớp như STUDENT#...)
+        QueryConditional qc = QueryConditional.sortBeginsWith(k -> k.partitionValue(classPk).sortValue("POST#"));
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(qc)
+                .scanIndexForward(false);
+        fields.applyTo(request);
+        return repository.queryPage(request, page).map(this::mapToPostDto);
     }
 
     public List<CommentDto> listComments(String postId) {
         QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue("POST#" + postId));
-        return table().query(qc).items().stream()
+        return repository.query(qc).items().stream()
                 .filter(i -> i.getSk() != null && i.getSk().startsWith("COMMENT#"))
                 .sorted(Comparator.comparing(SchoolItem::getCreatedAt, Comparator.nullsLast(String::compareTo)).reversed())
                 .map(this::mapToCommentDto)
@@ -625,12 +644,12 @@ public class StudentService {
         if (!"LECTURER".equalsIgnoreCase(role) && !isOwner) {
             throw new IllegalArgumentException("Không có quyền xóa bài viết này");
         }
-        table().deleteItem(Key.builder().partitionValue(post.getPk()).sortValue(post.getSk()).build());
+        repository.deleteItem(SchoolKeys.of(post.getPk(), post.getSk()));
 
         QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue("POST#" + postId));
-        for (Page<SchoolItem> page : table().query(qc)) {
+        for (Page<SchoolItem> page : repository.query(qc)) {
             for (SchoolItem item : page.items()) {
-                table().deleteItem(item);
+                repository.deleteItem(item);
             }
         }
     }
@@ -642,7 +661,7 @@ public class StudentService {
         if (!isOwner && !"LECTURER".equalsIgnoreCase(role)) {
             throw new IllegalArgumentException("Không có quyền xóa comment này");
         }
-        table().deleteItem(comment);
+        repository.deleteItem(comment);
         if (comment.getPostId() != null) {
             SchoolItem post = fetchPostById(comment.getPostId());
             if (post != null) incrementCommentCount(post.getPk(), post.getSk(), -1);
@@ -654,17 +673,17 @@ public class StudentService {
         if (entity == null) throw new IllegalArgumentException("Entity không tồn tại");
         String pk = "REACTION#" + request.getEntityId();
         String sk = userId.startsWith("USER#") ? userId : "USER#" + userId;
-        Key reactionKey = Key.builder().partitionValue(pk).sortValue(sk).build();
+        Key reactionKey = SchoolKeys.of(pk, sk);
 
         if ("add".equalsIgnoreCase(request.getAction())) {
             SchoolItem reaction = new SchoolItem();
             reaction.setPk(pk);
             reaction.setSk(sk);
             reaction.setCreatedAt(Instant.now().toString());
-            table().putItem(reaction);
+            repository.putItem(reaction);
             adjustLikeCount(entity, 1);
         } else if ("remove".equalsIgnoreCase(request.getAction())) {
-            table().deleteItem(reactionKey);
+            repository.deleteItem(reactionKey);
             adjustLikeCount(entity, -1);
         } else {
             throw new IllegalArgumentException("Action không hợp lệ");
@@ -673,15 +692,13 @@ public class StudentService {
     }
 
     public List<CommentDto> getCommentsByPost(String postId) {
-        DynamoDbTable<SchoolItem> table = table();
-
         // Query: PK = POST#<id>, SK bắt đầu bằng COMMENT#
         QueryConditional condition = QueryConditional.sortBeginsWith(k ->
                 k.partitionValue("POST#" + postId)
                         .sortValue("COMMENT#")
         );
 
-        return table.query(r -> r.queryConditional(condition))
+        return repository.query(r -> r.queryConditional(condition))
                 .items().stream()
                 .map(this::mapToCommentDto) // <--- Gọi hàm map chuẩn ở trên
                 .sorted(Comparator.comparing(CommentDto::getCreatedAt)) // Sắp xếp cũ -> mới
@@ -723,19 +740,18 @@ public class StudentService {
 
     private ClassDto fetchClassDto(String classPk) {
         if (classPk == null) return null;
-        Key key = Key.builder().partitionValue(classPk).sortValue("INFO").build();
-        SchoolItem item = table().getItem(key);
+        SchoolItem item = repository.getItem(SchoolKeys.classInfo(classPk));
         if (item == null) return null;
 
         String subjectName = null;
         if (item.getSubjectId() != null) {
-            SchoolItem subject = table().getItem(Key.builder().partitionValue(item.getSubjectId()).sortValue("INFO").build());
+            SchoolItem subject = subjectCatalog.find(item.getSubjectId());
             subjectName = (subject != null) ? subject.getName() : null;
         }
 
         String lecturerName = null;
         if (item.getTeacherId() != null) {
-            SchoolItem teacher = table().getItem(Key.builder().partitionValue(item.getTeacherId()).sortValue("PROFILE").build());
+            SchoolItem teacher = repository.getItem(SchoolKeys.userProfile(item.getTeacherId()));
             lecturerName = (teacher != null) ? teacher.getName() : null;
         }
 
@@ -759,19 +775,19 @@ public class StudentService {
     private SchoolItem fetchPostById(String postId) {
         QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue("POST#" + postId));
         QueryConditional idxQc = QueryConditional.keyEqualTo(k -> k.partitionValue("POST#" + postId));
-        for (Page<SchoolItem> page : gsi1().query(idxQc)) {
+        for (Page<SchoolItem> page : repository.gsi1().query(idxQc)) {
             for (SchoolItem item : page.items()) {
-                return table().getItem(Key.builder().partitionValue(item.getPk()).sortValue(item.getSk()).build());
+                return repository.getItem(SchoolKeys.of(item.getPk(), item.getSk()));
             }
         }
-        return table().query(qc).items().stream().findFirst().orElse(null);
+        return repository.query(qc).items().stream().findFirst().orElse(null);
     }
 
     private SchoolItem fetchCommentById(String commentId) {
         QueryConditional idxQc = QueryConditional.keyEqualTo(k -> k.partitionValue("COMMENT#" + commentId));
-        for (Page<SchoolItem> page : gsi1().query(idxQc)) {
+        for (Page<SchoolItem> page : repository.gsi1().query(idxQc)) {
             for (SchoolItem item : page.items()) {
-                return table().getItem(Key.builder().partitionValue(item.getPk()).sortValue(item.getSk()).build());
+                return repository.getItem(SchoolKeys.of(item.getPk(), item.getSk()));
             }
         }
         return null;
@@ -784,12 +800,7 @@ public class StudentService {
     }
 
     private void ensureEnrolled(String classIdInput, String studentId) {
-        String pk = classIdInput.startsWith("CLASS#") ? classIdInput : "CLASS#" + classIdInput;
-        String rawStudentId = studentId.startsWith("USER#") ? studentId.replace("USER#", "") : studentId;
-        String sk = "STUDENT#" + rawStudentId;
-
-        Key key = Key.builder().partitionValue(pk).sortValue(sk).build();
-        SchoolItem enrollment = table().getItem(key);
+        SchoolItem enrollment = repository.getItem(SchoolKeys.enrollment(classIdInput, studentId));
 
         if (enrollment == null) throw new SecurityException("Bạn chưa tham gia lớp này.");
 
@@ -802,7 +813,7 @@ public class StudentService {
     }
 
     private void ensureEnrolledOrTeacher(String classPk, String userId) {
-        SchoolItem classItem = table().getItem(Key.builder().partitionValue(classPk).sortValue("INFO").build());
+        SchoolItem classItem = repository.getItem(SchoolKeys.classInfo(classPk));
         if (classItem == null) throw new IllegalArgumentException("Class not found: " + classPk);
         String teacherId = classItem.getTeacherId() != null ? classItem.getTeacherId().replace("USER#", "") : null;
         String normalizedUserId = userId != null && userId.startsWith("USER#") ? userId.replace("USER#", "") : userId;
@@ -812,18 +823,18 @@ public class StudentService {
     }
 
     private void incrementCommentCount(String pk, String sk, int delta) {
-        SchoolItem post = table().getItem(Key.builder().partitionValue(pk).sortValue(sk).build());
+        SchoolItem post = repository.getItem(SchoolKeys.of(pk, sk));
         if (post == null) return;
         int next = Math.max(0, (post.getCommentCount() != null ? post.getCommentCount() : 0) + delta);
         post.setCommentCount(next);
-        table().updateItem(post);
+        repository.updateItem(post);
     }
 
     private void adjustLikeCount(SchoolItem entity, int delta) {
         int current = entity.getLikeCount() != null ? entity.getLikeCount() : 0;
         int next = Math.max(0, current + delta);
         entity.setLikeCount(next);
-        table().updateItem(entity);
+        repository.updateItem(entity);
     }
 
     private boolean isLateSubmission(String deadline, String submittedAt) {
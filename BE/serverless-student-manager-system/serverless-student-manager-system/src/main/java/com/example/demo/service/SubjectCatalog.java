@@ -0,0 +1,289 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bản sao toàn bộ danh mục môn học (GSI1 = TYPE#SUBJECT) trong bộ nhớ của node.
+ * Danh mục nhỏ và ít đổi nên tìm kiếm / tra cứu môn học không cần gọi DynamoDB:
+ * - Index tiền tố (TreeMap) theo tên và theo mã, viết thường.
+ * - Nhóm theo department và status để lọc không phải duyệt cả danh mục.
+ *
+ * Nạp lúc khởi động; node ghi môn học cập nhật bản sao ngay ({@link #put}); thay đổi từ node khác
+ * được thấy sau khi bản sao hết hạn (app.subject-catalog.refresh-seconds) và được nạp lại.
+ * Bản sao là ảnh chụp bất biến, thay nguyên cả ảnh khi đổi nên đọc không cần khóa.
+ * Item được lưu dạng map AttributeValue, mỗi lần trả ra là SchoolItem mới.
+ */
+@Service
+@Slf4j
+public class SubjectCatalog implements MetricsSource {
+
+    public static final String GSI1_PK = "TYPE#SUBJECT";
+
+    private final SchoolItemRepository repository;
+    private final long refreshMillis;
+
+    private volatile Snapshot snapshot;
+    private final Object reloadLock = new Object();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupMisses = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    public SubjectCatalog(SchoolItemRepository repository,
+                          @Value("${app.subject-catalog.refresh-seconds:300}") long refreshSeconds) {
+        this.repository = repository;
+        this.refreshMillis = refreshSeconds * 1000;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Không chặn khởi động; lần dùng đầu tiên sẽ nạp lại
+            log.warn("Không nạp được danh mục môn học lúc khởi động: {}", e.getMessage());
+        }
+    }
+
+    // =========================================================
+    // 1. TRA CỨU
+    // =========================================================
+
+    /**
+     * Môn học theo mã ("SWP391" hoặc "SUBJECT#SWP391"), null nếu không có.
+     * Không có trong bản sao thì đọc DB 1 lần (môn vừa được node khác tạo) rồi bổ sung vào bản sao.
+     */
+    public SchoolItem find(String code) {
+        if (code == null || code.isEmpty()) return null;
+        lookups.increment();
+        String pk = SchoolKeys.subjectPk(code.trim());
+        Entry entry = current().byPk.get(pk);
+        if (entry != null) {
+            return entry.toItem(repository);
+        }
+        lookupMisses.increment();
+        SchoolItem item = repository.getItem(SchoolKeys.subjectInfo(pk));
+        if (item != null) {
+            put(item);
+        }
+        return item;
+    }
+
+    /**
+     * Tìm môn học: tên hoặc mã bắt đầu bằng keyword (không phân biệt hoa thường),
+     * lọc theo department / status nếu có. Kết quả sắp theo tên như khi query GSI1 (NAME#...).
+     */
+    public List<SchoolItem> search(String keyword, String department, Integer status) {
+        searches.increment();
+        Snapshot current = current();
+
+        // Chọn tập ứng viên nhỏ nhất rồi lọc phần còn lại
+        Collection<Entry> candidates = current.byName.values();
+        if (department != null) {
+            candidates = smaller(candidates, current.byDepartment.getOrDefault(department, Collections.emptyList()));
+        }
+        if (status != null) {
+            candidates = smaller(candidates, current.byStatus.getOrDefault(status, Collections.emptyList()));
+        }
+        String prefix = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (!prefix.isEmpty()) {
+            candidates = smaller(candidates, current.matchPrefix(prefix));
+        }
+
+        Predicate<Entry> filter = entry -> (department == null || department.equals(entry.department))
+                && (status == null || status.equals(entry.status))
+                && (prefix.isEmpty() || entry.nameKey.startsWith(prefix) || entry.codeKey.startsWith(prefix));
+        List<SchoolItem> result = new ArrayList<>();
+        for (Entry entry : candidates) {
+            if (filter.test(entry)) {
+                result.add(entry.toItem(repository));
+            }
+        }
+        return result;
+    }
+
+    // =========================================================
+    // 2. CẬP NHẬT (gọi sau khi ghi môn học xuống DB)
+    // =========================================================
+
+    /** Thêm / thay 1 môn học trong bản sao bằng item vừa ghi. */
+    public void put(SchoolItem subject) {
+        if (subject == null || subject.getPk() == null || !subject.getPk().startsWith(SchoolKeys.SUBJECT)) return;
+        Entry entry = new Entry(repository.schema().itemToMap(subject, true), subject);
+        synchronized (reloadLock) {
+            Snapshot current = snapshot;
+            // Chưa nạp lần nào -> lần nạp đầu tiên sẽ có môn này
+            if (current == null) return;
+            Map<String, Entry> next = new HashMap<>(current.byPk);
+            next.put(entry.pk, entry);
+            snapshot = new Snapshot(next.values(), current.loadedAt);
+        }
+    }
+
+    /** Nạp lại toàn bộ danh mục từ GSI1. */
+    public void reload() {
+        synchronized (reloadLock) {
+            List<Entry> entries = new ArrayList<>();
+            for (Page<SchoolItem> page : repository.queryGsi1(QueryConditional.keyEqualTo(k -> k.partitionValue(GSI1_PK)))) {
+                for (SchoolItem item : page.items()) {
+                    entries.add(new Entry(repository.schema().itemToMap(item, true), item));
+                }
+            }
+            snapshot = new Snapshot(entries, System.currentTimeMillis());
+            reloads.increment();
+            log.info("Đã nạp danh mục môn học: {} môn", entries.size());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < refreshMillis) {
+            return current;
+        }
+        synchronized (reloadLock) {
+            // Luồng khác vừa nạp xong thì dùng luôn
+            if (snapshot == current) {
+                if (current == null) {
+                    reload();
+                } else {
+                    try {
+                        reload();
+                    } catch (RuntimeException e) {
+                        // Tạm dùng bản cũ, thử lại ở lần hết hạn kế tiếp
+                        log.warn("Nạp lại danh mục môn học lỗi, dùng bản cũ: {}", e.getMessage());
+                        snapshot = new Snapshot(current.byPk.values(), System.currentTimeMillis());
+                    }
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private static Collection<Entry> smaller(Collection<Entry> a, Collection<Entry> b) {
+        return b.size() < a.size() ? b : a;
+    }
+
+    @Override
+    public String metricsName() {
+        return "subjectCatalog";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subjects", current == null ? 0 : current.byPk.size());
+        stats.put("loadedAt", current == null ? null : current.loadedAt);
+        stats.put("lookups", lookups.sum());
+        stats.put("lookupMisses", lookupMisses.sum());
+        stats.put("searches", searches.sum());
+        stats.put("reloads", reloads.sum());
+        if (current != null) {
+            Map<String, Integer> departments = new TreeMap<>();
+            current.byDepartment.forEach((dept, list) -> departments.put(dept, list.size()));
+            Map<Integer, Integer> statuses = new TreeMap<>();
+            current.byStatus.forEach((sts, list) -> statuses.put(sts, list.size()));
+            stats.put("departments", departments);
+            stats.put("statuses", statuses);
+        }
+        return stats;
+    }
+
+    // =========================================================
+    // ẢNH CHỤP BẤT BIẾN
+    // =========================================================
+
+    private static final class Entry {
+        final String pk;
+        final String nameKey;   // tên viết thường
+        final String codeKey;   // mã viết thường
+        final String department;
+        final Integer status;
+        final Map<String, AttributeValue> attributes;
+
+        Entry(Map<String, AttributeValue> attributes, SchoolItem item) {
+            this.pk = item.getPk();
+            this.nameKey = item.getName() == null ? "" : item.getName().toLowerCase(Locale.ROOT);
+            String code = item.getCodeSubject() != null ? item.getCodeSubject() : SchoolKeys.stripPrefix(SchoolKeys.SUBJECT, pk);
+            this.codeKey = code.toLowerCase(Locale.ROOT);
+            this.department = item.getDepartment();
+            this.status = item.getStatus();
+            this.attributes = Collections.unmodifiableMap(attributes);
+        }
+
+        SchoolItem toItem(SchoolItemRepository repository) {
+            return repository.schema().mapToItem(attributes);
+        }
+
+        /** Khóa sắp xếp duy nhất: tên rồi PK (2 môn có thể trùng tên). */
+        String sortKey() {
+            return nameKey + '\0' + pk;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::sortKey);
+
+        final long loadedAt;
+        final Map<String, Entry> byPk = new HashMap<>();
+        final NavigableMap<String, Entry> byName = new TreeMap<>();
+        final NavigableMap<String, Entry> byCode = new TreeMap<>();
+        final Map<String, List<Entry>> byDepartment = new HashMap<>();
+        final Map<Integer, List<Entry>> byStatus = new HashMap<>();
+
+        Snapshot(Collection<Entry> entries, long loadedAt) {
+            this.loadedAt = loadedAt;
+            for (Entry entry : entries) {
+                byPk.put(entry.pk, entry);
+            }
+            List<Entry> sorted = new ArrayList<>(byPk.values());
+            sorted.sort(BY_NAME);
+            for (Entry entry : sorted) {
+                byName.put(entry.sortKey(), entry);
+                byCode.put(entry.codeKey + '\0' + entry.pk, entry);
+                if (entry.department != null) {
+                    byDepartment.computeIfAbsent(entry.department, k -> new ArrayList<>()).add(entry);
+                }
+                if (entry.status != null) {
+                    byStatus.computeIfAbsent(entry.status, k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+
+        /** Môn có tên hoặc mã bắt đầu bằng prefix (đã viết thường), sắp theo tên. */
+        Collection<Entry> matchPrefix(String prefix) {
+            Collection<Entry> byNamePrefix = byName.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+            Collection<Entry> byCodePrefix = byCode.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+            if (byCodePrefix.isEmpty()) return byNamePrefix;
+            TreeMap<String, Entry> merged = new TreeMap<>();
+            byNamePrefix.forEach(entry -> merged.put(entry.sortKey(), entry));
+            byCodePrefix.forEach(entry -> merged.put(entry.sortKey(), entry));
+            return merged.values();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chỉ mục Email -> Profile.
+ * Mỗi user có thêm 1 item trỏ: PK = EMAIL#<email viết thường>, SK = USER, id = id của user.
+ * Tìm profile theo email = 2 lần GetItem. User tạo trước khi có index được ghi con trỏ bằng {@link #backfill()}
+ * (POST /api/admin/maintenance/email-index/backfill); trước khi chạy, {@link #resolveProfile} scan 1 lần cho mỗi email
+ * chưa có con trỏ rồi giữ email để các lần sau chỉ còn GetItem.
+ *
+ * Email của user không đổi (là username Cognito) và user chỉ bị khóa chứ không bị xóa, nên con trỏ không bao giờ phải
+ * dời hay xóa; con trỏ tới profile không còn tồn tại được {@link #claim} thay thế.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserEmailIndex {
+
+    public static final String EMAIL_PREFIX = "EMAIL#";
+    public static final String POINTER_SK = "USER";
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+    private static final Comparator<SchoolItem> EARLIEST = Comparator
+            .comparing(SchoolItem::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(SchoolItem::getPk);
+
+    private final SchoolItemRepository repository;
+
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // =========================================================
+    // 1. TÌM PROFILE THEO EMAIL
+    // =========================================================
+
+    /** Profile theo email (null nếu chưa có con trỏ). User tạo trước khi có index: chạy {@link #backfill()} 1 lần. */
+    public SchoolItem findProfileByEmail(String email) {
+        String normalized = normalize(email);
+        if (normalized == null || normalized.isEmpty()) return null;
+
+        SchoolItem pointer = repository.getItem(pointerKey(normalized));
+        if (pointer == null || pointer.getId() == null) return null;
+        SchoolItem profile = repository.getItem(SchoolKeys.userProfile(pointer.getId()));
+        if (profile == null) {
+            log.warn("Con trỏ email {} trỏ tới user không tồn tại: {}", normalized, pointer.getId());
+        }
+        return profile;
+    }
+
+    /**
+     * Như {@link #findProfileByEmail}, nhưng email chưa có con trỏ thì tìm profile bằng scan (user cũ chưa backfill) và
+     * giữ email cho profile đó. Gọi trước khi coi email là user mới, để user cũ không bị tạo trùng profile.
+     * @return profile đang giữ email, null nếu không user nào dùng email này
+     */
+    public SchoolItem resolveProfile(String email) {
+        SchoolItem profile = findProfileByEmail(email);
+        if (profile != null) return profile;
+        String normalized = normalize(email);
+        if (normalized == null || normalized.isEmpty()) return null;
+
+        SchoolItem legacy = null;
+        int matches = 0;
+        for (SchoolItem candidate : scanProfiles()) {
+            if (!normalized.equals(normalize(candidate.getEmail()))) continue;
+            matches++;
+            // Email trùng giữa nhiều user cũ: chọn cố định user tạo sớm nhất
+            if (legacy == null || EARLIEST.compare(candidate, legacy) < 0) legacy = candidate;
+        }
+        if (legacy == null) return null;
+        if (matches > 1) {
+            log.warn("Email {} có {} profile, giữ email cho {}", normalized, matches, legacy.getPk());
+        }
+        log.info("Ghi con trỏ email {} cho user chưa backfill {}", normalized, legacy.getPk());
+        return claim(legacy);
+    }
+
+    // =========================================================
+    // 2. GHI CON TRỎ (gọi từ các luồng tạo user, SAU khi đã ghi profile)
+    // =========================================================
+    public void register(SchoolItem profile) {
+        SchoolItem pointer = toPointer(profile);
+        if (pointer == null) return;
+        repository.putItem(pointer);
+    }
+
+    /**
+     * Giữ email cho profile đã ghi (dùng cho auto-register Google): chỉ ghi con trỏ khi email chưa có chủ, hoặc con
+     * trỏ đang trỏ tới profile không còn tồn tại. Profile luôn được ghi trước con trỏ, nên con trỏ đã có thì profile của
+     * nó đọc nhất quán là thấy.
+     * @return profile đang giữ email: chính profile nếu giữ được, profile của user khác nếu email đã có chủ
+     */
+    public SchoolItem claim(SchoolItem profile) {
+        SchoolItem pointer = toPointer(profile);
+        if (pointer == null) {
+            throw new IllegalArgumentException("Profile thiếu email");
+        }
+        Key key = SchoolKeys.of(pointer.getPk(), pointer.getSk());
+        Expression condition = Expression.builder().expression("attribute_not_exists(PK)").build();
+        for (int attempt = 1; attempt <= MAX_CLAIM_ATTEMPTS; attempt++) {
+            try {
+                repository.putItem(PutItemEnhancedRequest.builder(SchoolItem.class)
+                        .item(pointer)
+                        .conditionExpression(condition)
+                        .build());
+                return profile;
+            } catch (ConditionalCheckFailedException e) {
+                // Email đã có chủ -> dùng user đó, trừ khi con trỏ đã cũ (profile bị xóa)
+            }
+            SchoolItem current = repository.getItemForUpdate(key);
+            if (current == null || current.getId() == null) {
+                condition = Expression.builder().expression("attribute_not_exists(PK)").build();
+                continue;
+            }
+            SchoolItem owner = repository.getItemForUpdate(SchoolKeys.userProfile(current.getId()));
+            if (owner != null) return owner;
+            log.warn("Thay con trỏ email cũ {} -> {} (user {} không còn)", key.partitionKeyValue().s(),
+                    pointer.getId(), current.getId());
+            condition = Expression.builder()
+                    .expression("id = :stale")
+                    .putExpressionValue(":stale", AttributeValue.fromS(current.getId()))
+                    .build();
+        }
+        throw new IllegalStateException("Email " + profile.getEmail() + " đang được đăng ký, thử lại sau");
+    }
+
+    // =========================================================
+    // 3. BACKFILL cho các user đã tồn tại
+    // =========================================================
+
+    /**
+     * Giữ email cho mọi profile chưa có con trỏ, cùng điều kiện với {@link #claim}: con trỏ đã có chủ không bị ghi đè,
+     * email trùng giữa nhiều user chỉ được ghi log. Chạy lại vẫn an toàn.
+     * @return số con trỏ được ghi
+     */
+    public int backfill() {
+        int written = 0;
+        int collisions = 0;
+        int failed = 0;
+        for (SchoolItem profile : scanProfiles()) {
+            SchoolItem pointer = toPointer(profile);
+            if (pointer == null) continue;
+            SchoolItem existing = repository.getItem(SchoolKeys.of(pointer.getPk(), pointer.getSk()));
+            if (existing != null && pointer.getId().equals(existing.getId())) continue;
+            SchoolItem owner;
+            try {
+                owner = claim(profile);
+            } catch (IllegalStateException e) {
+                failed++;
+                log.warn("Backfill email index: {}", e.getMessage());
+                continue;
+            }
+            if (owner == profile) {
+                written++;
+            } else if (!profile.getPk().equals(owner.getPk())) {
+                collisions++;
+                log.warn("Email {} trùng: đã thuộc {}, bỏ qua {}", normalize(profile.getEmail()), owner.getPk(),
+                        profile.getPk());
+            }
+        }
+        log.info("Backfill email index xong: {} con trỏ được ghi, {} email trùng, {} lỗi", written, collisions, failed);
+        return written;
+    }
+
+    private Iterable<SchoolItem> scanProfiles() {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":userPrefix", AttributeValue.builder().s("USER#").build());
+        values.put(":profile", AttributeValue.builder().s("PROFILE").build());
+        Expression filter = Expression.builder()
+                .expression("begins_with(PK, :userPrefix) AND SK = :profile AND attribute_exists(email)")
+                .expressionValues(values)
+                .build();
+        return repository.scan(r -> r.filterExpression(filter)).items();
+    }
+
+    private SchoolItem toPointer(SchoolItem profile) {
+        if (profile == null || profile.getEmail() == null || profile.getPk() == null) return null;
+        if (!profile.getPk().startsWith("USER#")) return null;
+
+        SchoolItem pointer = new SchoolItem();
+        pointer.setPk(EMAIL_PREFIX + normalize(profile.getEmail()));
+        pointer.setSk(POINTER_SK);
+        // Không copy email sang con trỏ để các scan lọc theo email không bắt nhầm item này
+        pointer.setId(profile.getPk().substring("USER#".length()));
+        return pointer;
+    }
+
+    private static Key pointerKey(String normalizedEmail) {
+        return SchoolKeys.of(EMAIL_PREFIX + normalizedEmail, POINTER_SK);
+    }
+}
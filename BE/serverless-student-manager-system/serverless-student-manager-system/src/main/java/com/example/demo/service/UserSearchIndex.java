@@ -0,0 +1,488 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.metrics.MetricsSource;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.CursorCodec;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import javax.annotation.PreDestroy;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục tìm user trong bộ nhớ: inverted index trigram (3 ký tự liên tiếp) trên name, email, codeUser
+ * của mọi USER#/PROFILE, đã viết thường + bỏ dấu ("Nguyễn Văn Đức" -> "nguyen van duc").
+ *
+ * Tìm keyword >= 3 ký tự = giao các posting list của trigram trong keyword rồi kiểm tra lại bằng contains;
+ * keyword ngắn hơn thì duyệt tuần tự (vẫn trong bộ nhớ). Kết quả xếp hạng: khớp cả field > đầu field >
+ * đầu 1 từ > giữa chuỗi; cùng mức thì codeUser > email > name, rồi theo tên.
+ *
+ * Nguồn dựng lại là scan bảng (lúc khởi động và sau mỗi app.user-search.refresh-seconds, chạy nền);
+ * các luồng tạo/sửa/khóa user gọi {@link #put} để node đó thấy thay đổi ngay.
+ */
+@Service
+@Slf4j
+public class UserSearchIndex implements MetricsSource {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt((Hit h) -> -h.score)
+            .thenComparing(h -> h.doc.nameKey)
+            .thenComparing(h -> h.doc.pk);
+
+    private final SchoolItemRepository repository;
+    private final long refreshMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-search-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private State state;                          // null = chưa dựng lần nào
+    private CompletableFuture<Void> rebuilding;   // != null khi đang dựng lại
+    private List<Doc> changedWhileRebuilding = new ArrayList<>();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public UserSearchIndex(SchoolItemRepository repository,
+                           @Value("${app.user-search.refresh-seconds:600}") long refreshSeconds) {
+        this.repository = repository;
+        this.refreshMillis = refreshSeconds * 1000;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildAsync();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /** Chuẩn hóa để so khớp: viết thường, bỏ dấu tiếng Việt (đ -> d). */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String decomposed = Normalizer.normalize(text.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+    }
+
+    // =========================================================
+    // 1. TÌM KIẾM
+    // =========================================================
+
+    /**
+     * @param roleKey GSI1PK của vai trò (VD: "ROLE#STUDENT"), null = mọi vai trò
+     * @param keyword null/rỗng = liệt kê theo tên
+     */
+    public PageResult<SchoolItem> search(String roleKey, String keyword, PageRequest page) {
+        searches.increment();
+        State current = awaitState();
+        Hit after = decodeCursor(page.getExclusiveStartKey());
+        String query = normalize(keyword);
+
+        // Giữ limit + 1 hit tốt nhất sau cursor (heap ngược: phần tử đầu là hit kém nhất)
+        int keep = page.getLimit() + 1;
+        PriorityQueue<Hit> best = new PriorityQueue<>(keep + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            int[] candidates = query.length() >= 3 ? current.candidates(query) : null;
+            int count = candidates != null ? candidates.length : current.docs.size();
+            for (int i = 0; i < count; i++) {
+                Doc doc = current.docs.get(candidates != null ? candidates[i] : i);
+                if (doc.dead || (roleKey != null && !roleKey.equals(doc.roleKey))) continue;
+                int score = query.isEmpty() ? 0 : doc.score(query);
+                if (score < 0) continue;
+                Hit hit = new Hit(score, doc);
+                if (after != null && RANKING.compare(hit, after) <= 0) continue;
+                best.add(hit);
+                if (best.size() > keep) best.poll();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        String nextCursor = null;
+        if (hits.size() > page.getLimit()) {
+            hits = hits.subList(0, page.getLimit());
+            nextCursor = encodeCursor(hits.get(hits.size() - 1));
+        }
+        List<SchoolItem> items = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            items.add(repository.schema().mapToItem(hit.doc.attributes));
+        }
+        return new PageResult<>(items, nextCursor);
+    }
+
+    // =========================================================
+    // 2. CẬP NHẬT (gọi sau khi ghi profile xuống DB)
+    // =========================================================
+
+    public void put(SchoolItem profile) {
+        if (profile == null || profile.getPk() == null || !profile.getPk().startsWith(SchoolKeys.USER)
+                || !SchoolKeys.PROFILE.equals(profile.getSk())) {
+            return;
+        }
+        Doc doc = new Doc(profile, roleKeyOf(profile), repository.schema().itemToMap(profile, true));
+        lock.writeLock().lock();
+        try {
+            if (rebuilding != null) {
+                changedWhileRebuilding.add(doc);
+            }
+            if (state != null) {
+                state.add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Dựng lại từ scan ở luồng nền; đang dựng thì trả về lần dựng hiện tại. */
+    public CompletableFuture<Void> rebuildAsync() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding == null) {
+                changedWhileRebuilding = new ArrayList<>();
+                rebuilding = CompletableFuture.runAsync(this::rebuild, rebuilder);
+            }
+            return rebuilding;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        State next = new State();
+        try {
+            Map<String, AttributeValue> values = new HashMap<>();
+            values.put(":userPrefix", AttributeValue.builder().s(SchoolKeys.USER).build());
+            values.put(":profile", AttributeValue.builder().s(SchoolKeys.PROFILE).build());
+            Expression filter = Expression.builder()
+                    .expression("begins_with(PK, :userPrefix) AND SK = :profile")
+                    .expressionValues(values)
+                    .build();
+            for (SchoolItem profile : repository.scan(r -> r.filterExpression(filter)).items()) {
+                next.add(new Doc(profile, roleKeyOf(profile), repository.schema().itemToMap(profile, true)));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Dựng chỉ mục tìm user lỗi: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                rebuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Ghi xảy ra trong lúc scan có thể chưa nằm trong kết quả scan -> áp lại
+            for (Doc changed : changedWhileRebuilding) {
+                next.add(changed.copy());
+            }
+            next.builtAt = System.currentTimeMillis();
+            state = next;
+            rebuilding = null;
+            changedWhileRebuilding = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuilds.increment();
+        lastRebuildMillis = System.currentTimeMillis() - start;
+        log.info("Đã dựng chỉ mục tìm user: {} profile, {} trigram, {} ms",
+                next.live, next.postings.size(), lastRebuildMillis);
+    }
+
+    /** Lần đầu: chờ dựng xong. Sau đó: dùng bản hiện tại, hết hạn thì dựng lại ở nền. */
+    private State awaitState() {
+        State current;
+        boolean expired;
+        lock.readLock().lock();
+        try {
+            current = state;
+            expired = current != null && rebuilding == null
+                    && System.currentTimeMillis() - current.builtAt >= refreshMillis;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (current != null) {
+            if (expired) rebuildAsync();
+            return current;
+        }
+        try {
+            rebuildAsync().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Chỉ mục tìm user chưa sẵn sàng", e.getCause());
+        }
+        lock.readLock().lock();
+        try {
+            return state;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =========================================================
+    // 3. CURSOR (vị trí hit cuối của trang trước)
+    // =========================================================
+
+    private static String encodeCursor(Hit last) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put("score", AttributeValue.fromN(String.valueOf(last.score)));
+        key.put("name", AttributeValue.fromS(last.doc.nameKey));
+        key.put("PK", AttributeValue.fromS(last.doc.pk));
+        return CursorCodec.encode(key);
+    }
+
+    private static Hit decodeCursor(Map<String, AttributeValue> key) {
+        if (key == null) return null;
+        AttributeValue score = key.get("score");
+        AttributeValue name = key.get("name");
+        AttributeValue pk = key.get("PK");
+        if (score == null || score.n() == null || name == null || name.s() == null || pk == null || pk.s() == null) {
+            throw new IllegalArgumentException("cursor không hợp lệ");
+        }
+        try {
+            return new Hit(Integer.parseInt(score.n()), new Doc(pk.s(), name.s()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("cursor không hợp lệ");
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "userSearchIndex";
+    }
+
+    @Override
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("profiles", state == null ? 0 : state.live);
+            stats.put("deadDocs", state == null ? 0 : state.docs.size() - state.live);
+            stats.put("trigrams", state == null ? 0 : state.postings.size());
+            stats.put("builtAt", state == null ? null : state.builtAt);
+            stats.put("rebuilding", rebuilding != null);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searches.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    /** Vai trò theo key gốc ("ROLE#STUDENT"), bỏ hậu tố shard GSI1 nếu có. */
+    private String roleKeyOf(SchoolItem profile) {
+        return repository.sharding().logicalKey(profile.getGsi1Pk());
+    }
+
+    // =========================================================
+    // 4. CẤU TRÚC CHỈ MỤC
+    // =========================================================
+
+    private static final class Doc {
+        final String pk;
+        final String roleKey;
+        final String nameKey;
+        final String emailKey;
+        final String codeKey;
+        final Map<String, AttributeValue> attributes;
+        boolean dead;   // đã có bản mới hơn (chỉ đổi khi giữ write lock)
+
+        Doc(SchoolItem profile, String roleKey, Map<String, AttributeValue> attributes) {
+            this.pk = profile.getPk();
+            this.roleKey = roleKey;
+            this.nameKey = normalize(profile.getName());
+            this.emailKey = normalize(profile.getEmail());
+            this.codeKey = normalize(profile.getCodeUser());
+            this.attributes = Collections.unmodifiableMap(attributes);
+        }
+
+        private Doc(String pk, String roleKey, String nameKey, String emailKey, String codeKey,
+                    Map<String, AttributeValue> attributes) {
+            this.pk = pk;
+            this.roleKey = roleKey;
+            this.nameKey = nameKey;
+            this.emailKey = emailKey;
+            this.codeKey = codeKey;
+            this.attributes = attributes;
+        }
+
+        /** Doc giả chỉ để so sánh vị trí cursor. */
+        Doc(String pk, String nameKey) {
+            this(pk, null, nameKey, "", "", Collections.emptyMap());
+        }
+
+        /** Bản sao cho State khác (cờ dead là riêng của từng State). */
+        Doc copy() {
+            return new Doc(pk, roleKey, nameKey, emailKey, codeKey, attributes);
+        }
+
+        /** Điểm khớp (càng cao càng tốt), -1 nếu không field nào chứa query. */
+        int score(String query) {
+            int best = -1;
+            best = Math.max(best, fieldScore(codeKey, query, 2));
+            best = Math.max(best, fieldScore(emailKey, query, 1));
+            best = Math.max(best, fieldScore(nameKey, query, 0));
+            return best;
+        }
+
+        private static int fieldScore(String field, String query, int fieldBonus) {
+            int at = field.indexOf(query);
+            if (at < 0) return -1;
+            int match;
+            if (field.length() == query.length()) {
+                match = 4;          // khớp cả field
+            } else if (at == 0) {
+                match = 3;          // đầu field
+            } else if (isWordStart(field, query, at)) {
+                match = 2;          // đầu 1 từ
+            } else {
+                match = 1;          // giữa chuỗi
+            }
+            return match * 3 + fieldBonus;
+        }
+
+        private static boolean isWordStart(String field, String query, int from) {
+            for (int at = from; at >= 0; at = field.indexOf(query, at + 1)) {
+                char before = field.charAt(at - 1);
+                if (before == ' ' || before == '.' || before == '@' || before == '_' || before == '-') return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Hit {
+        final int score;
+        final Doc doc;
+
+        Hit(int score, Doc doc) {
+            this.score = score;
+            this.doc = doc;
+        }
+    }
+
+    /** Trạng thái chỉ mục; đọc dưới read lock, sửa dưới write lock (hoặc khi chưa công bố). */
+    private static final class State {
+        final List<Doc> docs = new ArrayList<>();
+        final Map<String, Integer> idByPk = new HashMap<>();
+        final Map<Long, IntList> postings = new HashMap<>();
+        int live;
+        long builtAt;
+
+        void add(Doc doc) {
+            Integer previous = idByPk.get(doc.pk);
+            if (previous != null) {
+                docs.get(previous).dead = true;
+                live--;
+            }
+            int id = docs.size();
+            docs.add(doc);
+            idByPk.put(doc.pk, id);
+            live++;
+            index(id, doc.nameKey);
+            index(id, doc.emailKey);
+            index(id, doc.codeKey);
+            if (docs.size() > 1024 && docs.size() > live * 2) {
+                compact();
+            }
+        }
+
+        private void index(int id, String text) {
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                // id tăng dần nên posting list luôn được sắp xếp; bỏ qua nếu trigram lặp trong cùng doc
+                postings.computeIfAbsent(trigram(text, i), k -> new IntList()).addIfLast(id);
+            }
+        }
+
+        /** Bỏ các doc đã chết, đánh lại id. */
+        private void compact() {
+            List<Doc> alive = new ArrayList<>(live);
+            for (Doc doc : docs) {
+                if (!doc.dead) alive.add(doc);
+            }
+            docs.clear();
+            idByPk.clear();
+            postings.clear();
+            live = 0;
+            alive.forEach(this::add);
+        }
+
+        /** Id các doc chứa mọi trigram của query (tăng dần). */
+        int[] candidates(String query) {
+            List<IntList> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= query.length(); i++) {
+                IntList list = postings.get(trigram(query, i));
+                if (list == null) return new int[0];
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+            int size = result.length;
+            for (int l = 1; l < lists.size() && size > 0; l++) {
+                size = intersect(result, size, lists.get(l));
+            }
+            return size == result.length ? result : Arrays.copyOf(result, size);
+        }
+
+        private static int intersect(int[] into, int size, IntList other) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < size && j < other.size; i++) {
+                int target = into[i];
+                while (j < other.size && other.values[j] < target) j++;
+                if (j < other.size && other.values[j] == target) into[kept++] = target;
+            }
+            return kept;
+        }
+
+        private static long trigram(String text, int at) {
+            return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -3,53 +3,33 @@ package com.example.demo.service;
 import com.example.demo.dto.User.UpdateProfileRequest;
 import com.example.demo.dto.User.UserDto;
 import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.Expression;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
-import java.util.Collections;
 import java.util.UUID; // <--- Cần thêm import này
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
-    private final DynamoDbEnhancedClient dynamoDbClient;
+    private final SchoolItemRepository repository;
+    private final UserEmailIndex userEmailIndex;
+    private final UserSearchIndex userSearchIndex;
     // private final S3Service s3Service; // Nếu không dùng S3Service ở đây có thể bỏ
 
-    @Value("${aws.dynamodb.table-name}")
-    private String tableName;
 
-    // Helper lấy bảng
-    private DynamoDbTable<SchoolItem> getTable() {
-        return dynamoDbClient.table(tableName, TableSchema.fromBean(SchoolItem.class));
-    }
 
     // =========================================================
     // 1. GET PROFILE (Tích hợp Auto-Register cho Google)
     // =========================================================
     public UserDto getMyProfile(String email) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
-        // 1. Tìm User trong DB bằng Email
-        AttributeValue emailVal = AttributeValue.builder().s(email).build();
-        Expression filter = Expression.builder()
-                .expression("email = :emailVal")
-                .expressionValues(Collections.singletonMap(":emailVal", emailVal))
-                .build();
-
-        // Dùng scan để tìm (do PK là UUID, không biết trước)
-        SchoolItem userItem = table.scan(r -> r.filterExpression(filter))
-                .items().stream().findFirst()
-                .orElse(null);
+        // 1. Tìm User trong DB bằng Email (qua con trỏ EMAIL#...; user cũ chưa có con trỏ: scan 1 lần rồi ghi con trỏ)
+        SchoolItem userItem = userEmailIndex.resolveProfile(email);
 
         // 2. [QUAN TRỌNG] Logic cho Google Login
-        // Nếu tìm không thấy -> Nghĩa là user mới login Google lần đầu -> TẠO LUÔN
+        // Không user nào (kể cả user cũ chưa backfill) dùng email này -> user mới login Google lần đầu -> TẠO LUÔN
         if (userItem == null) {
             return createGoogleUserInDb(email);
         }
@@ -62,8 +42,6 @@ public class UserService {
     // HÀM MỚI: Tự động tạo User Google vào DB
     // =========================================================
     private UserDto createGoogleUserInDb(String email) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. Tạo ID mới
         String newUuid = UUID.randomUUID().toString();
 
@@ -92,10 +70,25 @@ public class UserService {
 
         newUser.setCreatedAt(java.time.Instant.now().toString());
 
-        // 6. Lưu vào DB
-        table.putItem(newUser);
+        // 6. Lưu profile trước, giữ email sau (con trỏ có điều kiện chỉ trỏ tới profile đã ghi xong):
+        //    2 request đầu tiên song song thì bên thua xóa profile vừa ghi và dùng user của bên thắng
+        repository.putItem(newUser);
+        SchoolItem owner;
+        try {
+            owner = userEmailIndex.claim(newUser);
+        } catch (RuntimeException e) {
+            repository.deleteItem(SchoolKeys.of(newUser.getPk(), newUser.getSk()));
+            throw e;
+        }
+        if (owner != newUser) {
+            repository.deleteItem(SchoolKeys.of(newUser.getPk(), newUser.getSk()));
+            return convertToUserDto(owner);
+        }
+
+        // 7. Index tìm kiếm
+        userSearchIndex.put(newUser);
 
-        // 7. Trả về DTO ngay để FE hiển thị
+        // 8. Trả về DTO ngay để FE hiển thị
         return convertToUserDto(newUser);
     }
 
@@ -103,18 +96,16 @@ public class UserService {
     // 2. UPDATE PROFILE
     // =========================================================
     public UserDto updateProfile(String email, UpdateProfileRequest request) {
-        DynamoDbTable<SchoolItem> table = getTable();
-
         // 1. Tìm User
-        AttributeValue emailVal = AttributeValue.builder().s(email).build();
-        Expression filter = Expression.builder()
-                .expression("email = :emailVal")
-                .expressionValues(Collections.singletonMap(":emailVal", emailVal))
-                .build();
-
-        SchoolItem userItem = table.scan(r -> r.filterExpression(filter))
-                .items().stream().findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        SchoolItem found = userEmailIndex.resolveProfile(email);
+        if (found == null) {
+            throw new IllegalArgumentException("User not found");
+        }
+        // Profile có thể lấy từ cache -> đọc lại bản mới nhất trước khi ghi đè cả item
+        SchoolItem userItem = repository.getItemForUpdate(SchoolKeys.of(found.getPk(), found.getSk()));
+        if (userItem == null) {
+            throw new IllegalArgumentException("User not found");
+        }
 
         // 2. Cập nhật thông tin
         boolean isNameChanged = false;
@@ -140,7 +131,8 @@ public class UserService {
         userItem.setUpdatedAt(java.time.Instant.now().toString());
 
         // 4. Lưu xuống DB
-        table.updateItem(userItem);
+        repository.updateItem(userItem);
+        userSearchIndex.put(userItem);
 
         return convertToUserDto(userItem);
     }
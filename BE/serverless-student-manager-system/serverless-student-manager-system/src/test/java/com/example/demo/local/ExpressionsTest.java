@@ -0,0 +1,186 @@
+package com.example.demo.local;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parse + tính Condition / KeyCondition / Update / Projection expression giống DynamoDB thật.
+ */
+class ExpressionsTest {
+
+    private static final Map<String, AttributeValue> ITEM = Map.of(
+            "PK", s("CLASS#C1"),
+            "SK", s("SUBMISSION#A1#SV01"),
+            "score", n("7.5"),
+            "status", n("1"),
+            "title", s("Bài tập 1"),
+            "tags", AttributeValue.builder().ss("a", "b").build(),
+            "meta", AttributeValue.builder().m(Map.of("files", AttributeValue.builder().l(s("x.pdf"), s("y.pdf")).build())).build());
+
+    // =========================================================
+    // CONDITION / FILTER
+    // =========================================================
+
+    @Test
+    void comparisonsWithPlaceholders() {
+        assertTrue(test("#s >= :min AND #s < :max", Map.of("#s", "score"), Map.of(":min", n("7.5"), ":max", n("8"))));
+        assertFalse(test("score > :v", Map.of(), Map.of(":v", n("7.5"))));
+        assertTrue(test("title <> :v", Map.of(), Map.of(":v", s("Bài tập 2"))));
+        // So sánh khác kiểu: không khớp (không ném lỗi)
+        assertFalse(test("score = :v", Map.of(), Map.of(":v", s("7.5"))));
+    }
+
+    @Test
+    void numbersCompareByValueNotByText() {
+        assertTrue(test("score = :v", Map.of(), Map.of(":v", n("7.50"))));
+        assertTrue(test("score < :v", Map.of(), Map.of(":v", n("10"))));
+    }
+
+    @Test
+    void andOrNotFollowPrecedenceAndParentheses() {
+        Map<String, AttributeValue> values = Map.of(":one", n("1"), ":two", n("2"), ":low", n("5"));
+        // AND chặt hơn OR: status = 2 OR (status = 1 AND score > 5)
+        assertTrue(test("status = :two OR status = :one AND score > :low", Map.of(), values));
+        assertFalse(test("(status = :two OR status = :one) AND NOT score > :low", Map.of(), values));
+    }
+
+    @Test
+    void betweenIsInclusive() {
+        assertTrue(test("score BETWEEN :a AND :b", Map.of(), Map.of(":a", n("7.5"), ":b", n("9"))));
+        assertTrue(test("score BETWEEN :a AND :b", Map.of(), Map.of(":a", n("1"), ":b", n("7.5"))));
+        assertFalse(test("score BETWEEN :a AND :b", Map.of(), Map.of(":a", n("8"), ":b", n("9"))));
+    }
+
+    @Test
+    void inListAndFunctions() {
+        assertTrue(test("status IN (:a, :b)", Map.of(), Map.of(":a", n("2"), ":b", n("1"))));
+        assertTrue(test("begins_with(SK, :p)", Map.of(), Map.of(":p", s("SUBMISSION#A1#"))));
+        assertFalse(test("begins_with(SK, :p)", Map.of(), Map.of(":p", s("SUBMISSION#A2#"))));
+        assertTrue(test("contains(tags, :t) AND contains(title, :w)", Map.of(), Map.of(":t", s("a"), ":w", s("tập"))));
+        assertTrue(test("attribute_exists(score) AND attribute_not_exists(feedback)", Map.of(), Map.of()));
+        assertTrue(test("attribute_type(tags, :t)", Map.of(), Map.of(":t", s("SS"))));
+        assertTrue(test("size(meta.files) = :n", Map.of(), Map.of(":n", n("2"))));
+        assertTrue(test("meta.files[1] = :f", Map.of(), Map.of(":f", s("y.pdf"))));
+    }
+
+    @Test
+    void conditionOnMissingItemSeesNoAttributes() {
+        Expressions.Condition notExists = Expressions.parseCondition("attribute_not_exists(PK)", Map.of(), Map.of());
+        assertTrue(notExists.test(Collections.emptyMap()));
+        assertFalse(notExists.test(ITEM));
+    }
+
+    @Test
+    void malformedExpressionIsValidationError() {
+        assertThrows(DynamoDbException.class, () -> test("score >", Map.of(), Map.of()));
+        assertThrows(DynamoDbException.class, () -> test("score = :missing", Map.of(), Map.of()));
+        assertThrows(DynamoDbException.class, () -> test("#missing = :v", Map.of(), Map.of(":v", n("1"))));
+    }
+
+    // =========================================================
+    // KEY CONDITION
+    // =========================================================
+
+    @Test
+    void keyConditionSplitsPartitionAndSortBounds() {
+        Expressions.KeyCondition key = Expressions.parseKeyCondition("PK = :pk AND SK BETWEEN :a AND :b", Map.of(),
+                Map.of(":pk", s("CLASS#C1"), ":a", s("A"), ":b", s("M")), "PK", "SK");
+        assertEquals(s("CLASS#C1"), key.partitionValue);
+        assertEquals(s("A"), key.lowerBound());
+        assertEquals(s("M"), key.upperBound());
+
+        Expressions.KeyCondition prefix = Expressions.parseKeyCondition("PK = :pk AND begins_with(SK, :p)", Map.of(),
+                Map.of(":pk", s("CLASS#C1"), ":p", s("SUBMISSION#")), "PK", "SK");
+        assertEquals(s("SUBMISSION#"), prefix.lowerBound());
+        assertNull(prefix.upperBound());
+        assertTrue(prefix.sortCondition.test(ITEM));
+    }
+
+    @Test
+    void keyConditionRejectsNonKeyOrMissingPartition() {
+        assertThrows(DynamoDbException.class, () -> Expressions.parseKeyCondition("SK = :v", Map.of(),
+                Map.of(":v", s("INFO")), "PK", "SK"));
+        assertThrows(DynamoDbException.class, () -> Expressions.parseKeyCondition("PK = :pk AND score > :v", Map.of(),
+                Map.of(":pk", s("CLASS#C1"), ":v", n("1")), "PK", "SK"));
+        assertThrows(DynamoDbException.class, () -> Expressions.parseKeyCondition("PK = :pk OR SK = :v", Map.of(),
+                Map.of(":pk", s("CLASS#C1"), ":v", s("INFO")), "PK", "SK"));
+    }
+
+    // =========================================================
+    // UPDATE
+    // =========================================================
+
+    @Test
+    void updateEvaluatesRightHandSidesOnOriginalItem() {
+        Expressions.Update update = Expressions.parseUpdate(
+                "SET score = score + :d, status = :s, history = list_append(if_not_exists(history, :empty), :h) REMOVE title",
+                Map.of(), Map.of(":d", n("2"), ":s", n("2"), ":empty", AttributeValue.builder().l(List.of()).build(),
+                        ":h", AttributeValue.builder().l(s("7.5")).build()));
+        Map<String, AttributeValue> updated = update.apply(ITEM);
+
+        assertEquals(n("9.5"), updated.get("score"));
+        assertEquals(n("2"), updated.get("status"));
+        assertEquals(List.of(s("7.5")), updated.get("history").l());
+        assertFalse(updated.containsKey("title"));
+        // Item gốc không bị sửa
+        assertEquals(n("7.5"), ITEM.get("score"));
+        assertEquals(List.of("score", "status", "history", "title"), List.copyOf(update.touchedAttributes()));
+    }
+
+    @Test
+    void addAndDeleteOnNumbersAndSets() {
+        Expressions.Update add = Expressions.parseUpdate("ADD #v :one, tags :more", Map.of("#v", "version"),
+                Map.of(":one", n("1"), ":more", AttributeValue.builder().ss("b", "c").build()));
+        Map<String, AttributeValue> added = add.apply(ITEM);
+        // ADD vào attribute chưa có = bắt đầu từ 0; ADD vào set = hợp
+        assertEquals(n("1"), added.get("version"));
+        assertEquals(Set.of("a", "b", "c"), Set.copyOf(added.get("tags").ss()));
+
+        Expressions.Update delete = Expressions.parseUpdate("DELETE tags :gone", Map.of(),
+                Map.of(":gone", AttributeValue.builder().ss("a", "b").build()));
+        // Xóa hết phần tử thì attribute biến mất (DynamoDB không lưu set rỗng)
+        assertFalse(delete.apply(ITEM).containsKey("tags"));
+    }
+
+    @Test
+    void setFromMissingAttributeIsValidationError() {
+        Expressions.Update update = Expressions.parseUpdate("SET score = missing + :d", Map.of(), Map.of(":d", n("1")));
+        assertThrows(DynamoDbException.class, () -> update.apply(ITEM));
+    }
+
+    // =========================================================
+    // PROJECTION
+    // =========================================================
+
+    @Test
+    void projectionKeepsTopLevelAttributes() {
+        List<Expressions.Path> paths = Expressions.parseProjection("#k, score, meta.files[0]", Map.of("#k", "PK"));
+        Map<String, AttributeValue> projected = Expressions.project(ITEM, paths);
+        assertEquals(Map.of("PK", ITEM.get("PK"), "score", ITEM.get("score"), "meta", ITEM.get("meta")), projected);
+        assertEquals(ITEM, Expressions.project(ITEM, null));
+    }
+
+    private static boolean test(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        return Expressions.parseCondition(expression, names, values).test(ITEM);
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue n(String value) {
+        return AttributeValue.builder().n(value).build();
+    }
+}
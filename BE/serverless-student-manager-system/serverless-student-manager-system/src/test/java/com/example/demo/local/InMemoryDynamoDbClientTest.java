@@ -0,0 +1,206 @@
+package com.example.demo.local;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.demo.local.InMemoryTableTest.item;
+import static com.example.demo.local.InMemoryTableTest.key;
+import static com.example.demo.local.InMemoryTableTest.s;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hành vi của client giống DynamoDB: điều kiện ghi, ReturnValues, Query qua GSI với Limit / LastEvaluatedKey.
+ */
+class InMemoryDynamoDbClientTest {
+
+    private static final String TABLE = "T";
+
+    private final InMemoryDynamoDbClient client = new InMemoryDynamoDbClient();
+
+    InMemoryDynamoDbClientTest() {
+        client.createTable(InMemoryTableTest.tableRequest(TABLE));
+    }
+
+    // =========================================================
+    // GHI CÓ ĐIỀU KIỆN
+    // =========================================================
+
+    @Test
+    void conditionalPutFailsWhenItemExists() {
+        put(item("USER#SV01", "PROFILE", null, null, null), "attribute_not_exists(PK)");
+
+        assertThrows(ConditionalCheckFailedException.class,
+                () -> put(item("USER#SV01", "PROFILE", null, null, 1), "attribute_not_exists(PK)"));
+        // Ghi lỗi thì item giữ nguyên
+        assertFalse(get("USER#SV01", "PROFILE").containsKey("score"));
+    }
+
+    @Test
+    void putReturnsOldItemOnlyWhenAsked() {
+        assertTrue(client.putItem(r -> r.tableName(TABLE).item(item("CLASS#C1", "INFO", null, null, 1))
+                .returnValues(ReturnValue.ALL_OLD)).attributes().isEmpty());
+
+        PutItemResponse replaced = client.putItem(r -> r.tableName(TABLE).item(item("CLASS#C1", "INFO", null, null, 2))
+                .returnValues(ReturnValue.ALL_OLD));
+        assertEquals("1", replaced.attributes().get("score").n());
+
+        PutItemResponse silent = client.putItem(r -> r.tableName(TABLE).item(item("CLASS#C1", "INFO", null, null, 3)));
+        assertTrue(silent.attributes().isEmpty());
+    }
+
+    @Test
+    void conditionalUpdateChecksCurrentVersion() {
+        put(item("CLASS#C1", "LEADERBOARD", null, null, null), null);
+        UpdateItemResponse first = update("CLASS#C1", "LEADERBOARD", "attribute_not_exists(version) OR version = :v",
+                Map.of(":v", n("0"), ":one", n("1")), ReturnValue.ALL_NEW);
+        assertEquals("1", first.attributes().get("version").n());
+
+        // Người thứ 2 còn giữ version 0 -> xung đột
+        assertThrows(ConditionalCheckFailedException.class, () -> update("CLASS#C1", "LEADERBOARD",
+                "attribute_not_exists(version) OR version = :v", Map.of(":v", n("0"), ":one", n("1")), ReturnValue.NONE));
+        assertEquals("1", get("CLASS#C1", "LEADERBOARD").get("version").n());
+    }
+
+    @Test
+    void updateOnMissingItemCreatesItOrFailsOnCondition() {
+        assertThrows(ConditionalCheckFailedException.class, () -> update("CLASS#C9", "INFO", "attribute_exists(PK)",
+                Map.of(":one", n("1")), ReturnValue.NONE));
+        assertTrue(client.getItem(r -> r.tableName(TABLE).key(key("CLASS#C9", "INFO"))).item().isEmpty());
+
+        UpdateItemResponse created = update("CLASS#C9", "INFO", null, Map.of(":one", n("1")), ReturnValue.UPDATED_NEW);
+        assertEquals(Map.of("version", n("1")), created.attributes());
+    }
+
+    @Test
+    void updatingKeyAttributeIsRejected() {
+        put(item("CLASS#C1", "INFO", null, null, null), null);
+        assertThrows(DynamoDbException.class, () -> client.updateItem(r -> r.tableName(TABLE)
+                .key(key("CLASS#C1", "INFO"))
+                .updateExpression("SET SK = :v")
+                .expressionAttributeValues(Map.of(":v", s("OTHER")))));
+    }
+
+    // =========================================================
+    // QUERY
+    // =========================================================
+
+    @Test
+    void gsiQueryPagesWithLastEvaluatedKeyWithoutGapsOrDuplicates() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Nhiều item trùng GSI1SK: LastEvaluatedKey phải phân biệt bằng key bảng
+            String pk = "ASSIGNMENT#C" + (i % 5);
+            String sk = "SUBMISSION#A" + (i / 5) + "#SV01";
+            put(item(pk, sk, "USER#SV01", "SUBMISSION#A" + (i / 5), null), null);
+        }
+        for (int a = 0; a < 5; a++) {
+            for (int c = 0; c < 5; c++) expected.add("ASSIGNMENT#C" + c + "/SUBMISSION#A" + a + "#SV01");
+        }
+
+        List<String> seen = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        int pages = 0;
+        do {
+            Map<String, AttributeValue> start = startKey;
+            QueryResponse page = client.query(r -> r.tableName(TABLE).indexName(InMemoryTableTest.GSI1)
+                    .keyConditionExpression("GSI1PK = :pk AND begins_with(GSI1SK, :p)")
+                    .expressionAttributeValues(Map.of(":pk", s("USER#SV01"), ":p", s("SUBMISSION#")))
+                    .limit(7)
+                    .exclusiveStartKey(start));
+            page.items().forEach(item -> seen.add(item.get("PK").s() + "/" + item.get("SK").s()));
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+            pages++;
+        } while (startKey != null);
+
+        assertEquals(expected, seen);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void betweenOnSortKeyAndReverseOrder() {
+        for (String sk : new String[]{"LOG#2024-01-01", "LOG#2024-01-15", "LOG#2024-02-01", "LOG#2024-03-01"}) {
+            put(item("ACTOR#GV01", sk, null, null, null), null);
+        }
+        QueryResponse response = client.query(r -> r.tableName(TABLE)
+                .keyConditionExpression("PK = :pk AND SK BETWEEN :from AND :to")
+                .expressionAttributeValues(Map.of(":pk", s("ACTOR#GV01"),
+                        ":from", s("LOG#2024-01-15"), ":to", s("LOG#2024-02-01")))
+                .scanIndexForward(false));
+        assertEquals(List.of("LOG#2024-02-01", "LOG#2024-01-15"), sortKeys(response));
+    }
+
+    @Test
+    void limitCountsItemsReadBeforeFilter() {
+        for (int i = 0; i < 6; i++) {
+            put(item("CLASS#C1", "STUDENT#SV0" + i, null, null, i), null);
+        }
+        QueryResponse response = client.query(r -> r.tableName(TABLE)
+                .keyConditionExpression("PK = :pk")
+                .filterExpression("score >= :min")
+                .expressionAttributeValues(Map.of(":pk", s("CLASS#C1"), ":min", n("2")))
+                .limit(3));
+        // Đọc 3 item (SV00..SV02), chỉ SV02 qua filter; vẫn còn trang sau
+        assertEquals(3, response.scannedCount());
+        assertEquals(List.of("STUDENT#SV02"), sortKeys(response));
+        assertEquals("STUDENT#SV02", response.lastEvaluatedKey().get("SK").s());
+    }
+
+    @Test
+    void keysOnlyIndexAndConsistentReadRules() {
+        put(item("CLASS#C1", "STUDENT#SV01", null, null, 8), null);
+        QueryRequest.Builder request = QueryRequest.builder().tableName(TABLE).indexName(InMemoryTableTest.BY_SCORE)
+                .keyConditionExpression("PK = :pk AND score > :min")
+                .expressionAttributeValues(Map.of(":pk", s("CLASS#C1"), ":min", n("5")));
+
+        QueryResponse response = client.query(request.build());
+        assertEquals(1, response.count());
+        assertNull(response.items().get(0).get("title"));
+
+        assertThrows(DynamoDbException.class, () -> client.query(request.consistentRead(true).build()));
+    }
+
+    // =========================================================
+
+    private void put(Map<String, AttributeValue> item, String condition) {
+        client.putItem(r -> r.tableName(TABLE).item(item).conditionExpression(condition));
+    }
+
+    private UpdateItemResponse update(String pk, String sk, String condition, Map<String, AttributeValue> values,
+                                      ReturnValue returnValue) {
+        return client.updateItem(r -> r.tableName(TABLE)
+                .key(key(pk, sk))
+                .updateExpression("ADD version :one")
+                .conditionExpression(condition)
+                .expressionAttributeValues(values)
+                .returnValues(returnValue));
+    }
+
+    private Map<String, AttributeValue> get(String pk, String sk) {
+        return client.getItem(r -> r.tableName(TABLE).key(key(pk, sk)).consistentRead(true)).item();
+    }
+
+    private static List<String> sortKeys(QueryResponse response) {
+        List<String> out = new ArrayList<>();
+        response.items().forEach(item -> out.add(item.get("SK").s()));
+        return out;
+    }
+
+    private static AttributeValue n(String value) {
+        return AttributeValue.builder().n(value).build();
+    }
+}
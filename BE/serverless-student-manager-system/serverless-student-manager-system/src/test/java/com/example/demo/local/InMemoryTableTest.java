@@ -0,0 +1,186 @@
+package com.example.demo.local;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Lưu trữ của 1 bảng: thứ tự sort key, GSI thưa (sparse), projection của index, ExclusiveStartKey.
+ */
+class InMemoryTableTest {
+
+    static final String GSI1 = "GSI1";
+    static final String BY_SCORE = "BY_SCORE";
+
+    private final InMemoryTable table = new InMemoryTable(tableRequest("T"));
+
+    @Test
+    void putReturnsOldItemAndReplacesIndexEntries() {
+        assertNull(table.put(item("CLASS#C1", "STUDENT#SV01", "USER#SV01", "CLASS#C1", 5)));
+        Map<String, AttributeValue> old = table.put(item("CLASS#C1", "STUDENT#SV01", "USER#SV01", "CLASS#C2", 6));
+
+        assertEquals(s("CLASS#C1"), old.get("GSI1SK"));
+        assertEquals(1, table.itemCount());
+        // Bản cũ phải rời khỏi index, không còn 2 entry cho cùng 1 item
+        assertEquals(List.of("CLASS#C2"), values(table.partition(table.index(GSI1), s("USER#SV01"), true, null, null), "GSI1SK"));
+    }
+
+    @Test
+    void partitionIsOrderedBySortKeyInBothDirections() {
+        for (String sk : new String[]{"STUDENT#SV03", "INFO", "STUDENT#SV01", "STUDENT#SV02"}) {
+            table.put(item("CLASS#C1", sk, null, null, null));
+        }
+        table.put(item("CLASS#C2", "INFO", null, null, null));
+
+        assertEquals(List.of("INFO", "STUDENT#SV01", "STUDENT#SV02", "STUDENT#SV03"),
+                values(table.partition(null, s("CLASS#C1"), true, null, null), "SK"));
+        assertEquals(List.of("STUDENT#SV03", "STUDENT#SV02", "STUDENT#SV01", "INFO"),
+                values(table.partition(null, s("CLASS#C1"), false, null, null), "SK"));
+        // from: bắt đầu từ sort key (gồm cả nó); startAfter: sau key đó
+        assertEquals(List.of("STUDENT#SV02", "STUDENT#SV03"),
+                values(table.partition(null, s("CLASS#C1"), true, null, s("STUDENT#SV02")), "SK"));
+        assertEquals(List.of("STUDENT#SV03"), values(table.partition(null, s("CLASS#C1"), true,
+                key("CLASS#C1", "STUDENT#SV02"), null), "SK"));
+        assertEquals(List.of(), values(table.partition(null, s("CLASS#C9"), true, null, null), "SK"));
+    }
+
+    @Test
+    void indexIsSparseAndBreaksTiesByTableKey() {
+        table.put(item("ASSIGNMENT#C1", "SUBMISSION#A1#SV02", "USER#SV02", "SUBMISSION#A1", null));
+        table.put(item("ASSIGNMENT#C2", "SUBMISSION#A1#SV02", "USER#SV02", "SUBMISSION#A1", null));
+        table.put(item("ASSIGNMENT#C1", "SUBMISSION#A0#SV02", "USER#SV02", "SUBMISSION#A0", null));
+        // Thiếu GSI1SK -> không vào GSI1
+        table.put(item("ASSIGNMENT#C1", "INFO#A1", "USER#SV02", null, null));
+
+        InMemoryTable.Index gsi = table.index(GSI1);
+        List<Map<String, AttributeValue>> items = list(table.partition(gsi, s("USER#SV02"), true, null, null));
+        assertEquals(List.of("SUBMISSION#A0", "SUBMISSION#A1", "SUBMISSION#A1"), values(items.iterator(), "GSI1SK"));
+        assertEquals(List.of("ASSIGNMENT#C1", "ASSIGNMENT#C1", "ASSIGNMENT#C2"), values(items.iterator(), "PK"));
+
+        // Tiếp tục sau item thứ 2 (trùng GSI1SK với item thứ 3): không lặp, không sót
+        Map<String, AttributeValue> last = table.lastEvaluatedKey(gsi, items.get(1));
+        assertEquals(4, last.size());
+        assertEquals(List.of("ASSIGNMENT#C2"), values(table.partition(gsi, s("USER#SV02"), true, last, null), "PK"));
+    }
+
+    @Test
+    void numericIndexKeyOrdersByValueAndProjectsKeysOnly() {
+        table.put(item("CLASS#C1", "STUDENT#SV01", null, null, 9));
+        table.put(item("CLASS#C1", "STUDENT#SV02", null, null, 10));
+        table.put(item("CLASS#C1", "STUDENT#SV03", null, null, 1.5));
+
+        InMemoryTable.Index index = table.index(BY_SCORE);
+        List<Map<String, AttributeValue>> items = list(table.partition(index, s("CLASS#C1"), true, null, null));
+        assertEquals(List.of("1.5", "9", "10"), values(items.iterator(), "score"));
+
+        Map<String, AttributeValue> projected = table.projectForIndex(index, items.get(0));
+        assertEquals(List.of("PK", "SK", "score"), new ArrayList<>(projected.keySet()));
+    }
+
+    @Test
+    void scanWithSegmentsCoversEveryItemOnce() {
+        for (int i = 0; i < 40; i++) {
+            table.put(item("CLASS#C" + i, "INFO", null, null, null));
+        }
+        List<String> all = new ArrayList<>();
+        for (int segment = 0; segment < 4; segment++) {
+            all.addAll(values(table.scan(null, null, segment, 4), "PK"));
+        }
+        assertEquals(40, all.size());
+        assertEquals(40, all.stream().distinct().count());
+    }
+
+    @Test
+    void invalidKeysAreValidationErrors() {
+        Map<String, AttributeValue> missingSort = new LinkedHashMap<>();
+        missingSort.put("PK", s("CLASS#C1"));
+        assertThrows(DynamoDbException.class, () -> table.put(missingSort));
+
+        Map<String, AttributeValue> wrongType = item("CLASS#C1", "INFO", null, "CLASS#C1", null);
+        wrongType.put("GSI1PK", AttributeValue.builder().n("1").build());
+        assertThrows(DynamoDbException.class, () -> table.put(wrongType));
+
+        assertThrows(DynamoDbException.class, () -> table.exactKey(item("CLASS#C1", "INFO", "USER#SV01", null, null)));
+        assertThrows(DynamoDbException.class, () -> table.index("MISSING"));
+    }
+
+    // =========================================================
+
+    /** PK/SK + GSI1 (ALL) + BY_SCORE (PK, score kiểu N, KEYS_ONLY). */
+    static CreateTableRequest tableRequest(String name) {
+        return CreateTableRequest.builder()
+                .tableName(name)
+                .attributeDefinitions(attribute("PK", ScalarAttributeType.S), attribute("SK", ScalarAttributeType.S),
+                        attribute("GSI1PK", ScalarAttributeType.S), attribute("GSI1SK", ScalarAttributeType.S),
+                        attribute("score", ScalarAttributeType.N))
+                .keySchema(key("PK", KeyType.HASH), key("SK", KeyType.RANGE))
+                .globalSecondaryIndexes(
+                        GlobalSecondaryIndex.builder().indexName(GSI1)
+                                .keySchema(key("GSI1PK", KeyType.HASH), key("GSI1SK", KeyType.RANGE))
+                                .projection(p -> p.projectionType(ProjectionType.ALL)).build(),
+                        GlobalSecondaryIndex.builder().indexName(BY_SCORE)
+                                .keySchema(key("PK", KeyType.HASH), key("score", KeyType.RANGE))
+                                .projection(p -> p.projectionType(ProjectionType.KEYS_ONLY)).build())
+                .build();
+    }
+
+    static Map<String, AttributeValue> item(String pk, String sk, String gsi1Pk, String gsi1Sk, Number score) {
+        Map<String, AttributeValue> item = key(pk, sk);
+        if (gsi1Pk != null) item.put("GSI1PK", s(gsi1Pk));
+        if (gsi1Sk != null) item.put("GSI1SK", s(gsi1Sk));
+        if (score != null) item.put("score", AttributeValue.builder().n(score.toString()).build());
+        item.put("title", s("item " + pk + "/" + sk));
+        return item;
+    }
+
+    static Map<String, AttributeValue> key(String pk, String sk) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put("PK", s(pk));
+        key.put("SK", s(sk));
+        return key;
+    }
+
+    static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static List<Map<String, AttributeValue>> list(Iterator<Map<String, AttributeValue>> items) {
+        List<Map<String, AttributeValue>> out = new ArrayList<>();
+        items.forEachRemaining(out::add);
+        return out;
+    }
+
+    private static List<String> values(Iterator<Map<String, AttributeValue>> items, String attribute) {
+        List<String> out = new ArrayList<>();
+        items.forEachRemaining(item -> {
+            AttributeValue v = item.get(attribute);
+            out.add(v.s() != null ? v.s() : v.n());
+        });
+        return out;
+    }
+
+    private static AttributeDefinition attribute(String name, ScalarAttributeType type) {
+        return AttributeDefinition.builder().attributeName(name).attributeType(type).build();
+    }
+
+    private static KeySchemaElement key(String name, KeyType type) {
+        return KeySchemaElement.builder().attributeName(name).keyType(type).build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Gắn shard khi ghi và danh sách partition phải đọc cho 1 key gốc.
+ */
+class Gsi1ShardingTest {
+
+    private final Gsi1Sharding sharding = new Gsi1Sharding(4, List.of("TYPE#LOG", "ROLE#STUDENT"), true);
+
+    @Test
+    void assignIsStablePerItemKey() {
+        SchoolItem first = item("LOG#2026-10-18", "TYPE#LOG");
+        SchoolItem again = item("LOG#2026-10-18", "TYPE#LOG");
+        sharding.assign(first);
+        sharding.assign(again);
+
+        assertEquals(first.getGsi1Pk(), again.getGsi1Pk());
+        assertTrue(sharding.partitions("TYPE#LOG").contains(first.getGsi1Pk()));
+        // Gán lại item đã có hậu tố không đổi shard
+        sharding.assign(first);
+        assertEquals(again.getGsi1Pk(), first.getGsi1Pk());
+    }
+
+    @Test
+    void assignSpreadsItemsOverEveryShard() {
+        long used = java.util.stream.IntStream.range(0, 200)
+                .mapToObj(i -> {
+                    SchoolItem item = item("USER#SV" + i, "ROLE#STUDENT");
+                    sharding.assign(item);
+                    return item.getGsi1Pk();
+                })
+                .distinct()
+                .count();
+        assertEquals(4, used);
+    }
+
+    @Test
+    void oneDaysAuditLogsSpreadOverEveryShard() {
+        // Bản chính của mọi log trong ngày chung PK (bucket ngày), chỉ khác SK
+        long used = java.util.stream.IntStream.range(0, 200)
+                .mapToObj(i -> {
+                    SchoolItem item = item("LOG#2026-10-18", "TYPE#LOG");
+                    item.setSk(String.format("LOG#2026-10-18T10:%02d:%02d.000Z#log-%d", i / 60, i % 60, i));
+                    sharding.assign(item);
+                    return item.getGsi1Pk();
+                })
+                .distinct()
+                .count();
+        assertEquals(4, used);
+    }
+
+    @Test
+    void keysNotConfiguredAreLeftAlone() {
+        SchoolItem item = item("CLASS#C1", "TYPE#CLASS");
+        sharding.assign(item);
+        assertEquals("TYPE#CLASS", item.getGsi1Pk());
+        assertEquals(List.of("TYPE#CLASS"), sharding.partitions("TYPE#CLASS"));
+
+        SchoolItem unsharded = item("LOG#1", "TYPE#LOG");
+        Gsi1Sharding.none().assign(unsharded);
+        assertEquals("TYPE#LOG", unsharded.getGsi1Pk());
+    }
+
+    @Test
+    void partitionsIncludeLegacyKeyOnlyWhenReadingLegacy() {
+        assertEquals(List.of("TYPE#LOG#00", "TYPE#LOG#01", "TYPE#LOG#02", "TYPE#LOG#03", "TYPE#LOG"),
+                sharding.partitions("TYPE#LOG"));
+        assertEquals(List.of("TYPE#LOG#00", "TYPE#LOG#01", "TYPE#LOG#02", "TYPE#LOG#03"),
+                new Gsi1Sharding(4, List.of("TYPE#LOG"), false).partitions("TYPE#LOG"));
+    }
+
+    @Test
+    void logicalKeyStripsOnlyShardSuffixOfConfiguredKeys() {
+        assertEquals("ROLE#STUDENT", sharding.logicalKey("ROLE#STUDENT#03"));
+        assertEquals("ROLE#STUDENT", sharding.logicalKey("ROLE#STUDENT"));
+        assertEquals("CLASS#C1#01", sharding.logicalKey("CLASS#C1#01"));
+        assertEquals("ROLE#STUDENT#3a", sharding.logicalKey("ROLE#STUDENT#3a"));
+        assertFalse(sharding.isSharded(null));
+    }
+
+    @Test
+    void rejectsInvalidShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new Gsi1Sharding(0, List.of("TYPE#LOG"), true));
+        assertThrows(IllegalArgumentException.class, () -> new Gsi1Sharding(101, List.of("TYPE#LOG"), true));
+    }
+
+    private static SchoolItem item(String pk, String gsi1Pk) {
+        SchoolItem item = new SchoolItem();
+        item.setPk(pk);
+        item.setSk("INFO");
+        item.setGsi1Pk(gsi1Pk);
+        return item;
+    }
+}
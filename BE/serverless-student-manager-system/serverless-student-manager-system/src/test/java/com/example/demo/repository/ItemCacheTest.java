@@ -0,0 +1,128 @@
+package com.example.demo.repository;
+
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache item L1: chỉ cache đúng loại key, và lần đọc bắt đầu trước 1 lệnh ghi không được nạp bản cũ vào cache.
+ */
+class ItemCacheTest {
+
+    private static final String TABLE = "T";
+
+    private final ItemCache cache = new ItemCache(true, 100, 30, 300, 60);
+
+    @Test
+    void onlyConfiguredKeysAreCached() {
+        assertTrue(cache.isCached(SchoolKeys.of("CLASS#C1", "INFO")));
+        assertTrue(cache.isCached(SchoolKeys.of("SUBJECT#CS101", "INFO")));
+        assertTrue(cache.isCached(SchoolKeys.of("USER#SV01", "PROFILE")));
+        assertFalse(cache.isCached(SchoolKeys.of("CLASS#C1", "STUDENT#SV01")));
+        assertFalse(cache.isCached(SchoolKeys.of("ASSIGNMENT#C1", "INFO")));
+        assertFalse(ItemCache.disabled().isCached(SchoolKeys.of("CLASS#C1", "INFO")));
+        // TTL = 0 tắt riêng loại đó
+        assertFalse(new ItemCache(true, 100, 0, 300, 60).isCached(SchoolKeys.of("CLASS#C1", "INFO")));
+    }
+
+    @Test
+    void putWithCurrentStampIsCached() {
+        Key key = SchoolKeys.of("CLASS#C1", "INFO");
+        cache.put(key, attributes("v1"), cache.stamp());
+        assertEquals(attributes("v1"), cache.get(key));
+    }
+
+    @Test
+    void writeAfterStampDiscardsTheLoadedValue() {
+        Key key = SchoolKeys.of("CLASS#C1", "INFO");
+        long stamp = cache.stamp();
+        // Lệnh ghi xen giữa lúc đọc DB và lúc ghi vào cache
+        cache.invalidate(key);
+        cache.put(key, attributes("old"), stamp);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void invalidateRemovesEntryAndClearMovesStamp() {
+        Key key = SchoolKeys.of("USER#SV01", "PROFILE");
+        cache.put(key, attributes("v1"), cache.stamp());
+        cache.invalidate("USER#SV01", "PROFILE");
+        assertNull(cache.get(key));
+
+        long stamp = cache.stamp();
+        cache.clear();
+        cache.put(key, attributes("v2"), stamp);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void invalidatingUncachedKeyDoesNotMoveStamp() {
+        long stamp = cache.stamp();
+        cache.invalidate(SchoolKeys.of("ASSIGNMENT#C1", "SUBMISSION#A1#SV01"));
+        assertEquals(stamp, cache.stamp());
+    }
+
+    @Test
+    void repositoryDoesNotCacheReadThatRacedWithAWrite() {
+        Key key = SchoolKeys.of("CLASS#C1", "INFO");
+        RacingClient client = new RacingClient();
+        client.createTable(LocalDynamoConfig.singleTableRequest(TABLE));
+        SchoolItemRepository repository = new SchoolItemRepository(
+                DynamoDbEnhancedClient.builder().dynamoDbClient(client).build(), client, TABLE, 1, 1, 1, 1,
+                cache, Gsi1Sharding.none());
+        repository.putItem(classInfo("Lớp cũ"));
+
+        // GetItem đọc bản cũ; ngay sau đó (trước khi repository ghi cache) có người ghi bản mới
+        client.afterGet = () -> repository.putItem(classInfo("Lớp mới"));
+        assertEquals("Lớp cũ", repository.getItem(key).getName());
+        client.afterGet = null;
+
+        assertNull(cache.get(key));
+        assertEquals("Lớp mới", repository.getItem(key).getName());
+        // Lần đọc không bị ghi xen: được cache, đọc sau không gọi DB
+        long gets = client.gets;
+        assertEquals("Lớp mới", repository.getItem(key).getName());
+        assertEquals(gets, client.gets);
+    }
+
+    private static SchoolItem classInfo(String name) {
+        SchoolItem item = new SchoolItem();
+        item.setPk("CLASS#C1");
+        item.setSk("INFO");
+        item.setName(name);
+        return item;
+    }
+
+    private static Map<String, AttributeValue> attributes(String name) {
+        return Map.of("PK", AttributeValue.fromS("CLASS#C1"), "SK", AttributeValue.fromS("INFO"),
+                "name", AttributeValue.fromS(name));
+    }
+
+    /** Client chạy 1 đoạn code ngay sau khi GetItem đã đọc xong (giả lập lệnh ghi chen vào). */
+    private static final class RacingClient extends InMemoryDynamoDbClient {
+        volatile Runnable afterGet;
+        long gets;
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest request) {
+            GetItemResponse response = super.getItem(request);
+            gets++;
+            Runnable hook = afterGet;
+            if (hook != null) hook.run();
+            return response;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchoolItem;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SchoolItemSchema (viết tay) phải map giống hệt TableSchema.fromBean(SchoolItem.class).
+ */
+class SchoolItemSchemaTest {
+
+    private final TableSchema<SchoolItem> beanSchema = TableSchema.fromBean(SchoolItem.class);
+    private final TableSchema<SchoolItem> staticSchema = SchoolItemSchema.create();
+
+    @Test
+    void attributeNamesMatchBeanSchema() {
+        assertEquals(new HashSet<>(beanSchema.attributeNames()), new HashSet<>(staticSchema.attributeNames()));
+    }
+
+    @Test
+    void keysMatchBeanSchema() {
+        TableMetadata bean = beanSchema.tableMetadata();
+        TableMetadata stat = staticSchema.tableMetadata();
+        assertEquals(bean.primaryPartitionKey(), stat.primaryPartitionKey());
+        assertEquals(bean.primarySortKey(), stat.primarySortKey());
+        assertEquals(bean.indexPartitionKey(SchoolItemRepository.GSI1), stat.indexPartitionKey(SchoolItemRepository.GSI1));
+        assertEquals(bean.indexSortKey(SchoolItemRepository.GSI1), stat.indexSortKey(SchoolItemRepository.GSI1));
+    }
+
+    @Test
+    void fullyPopulatedItemMapsIdentically() throws Exception {
+        SchoolItem item = fullyPopulatedItem();
+
+        Map<String, AttributeValue> expected = beanSchema.itemToMap(item, true);
+        Map<String, AttributeValue> actual = staticSchema.itemToMap(item, true);
+        assertEquals(expected, actual);
+
+        // Chiều đọc: map -> item phải ra cùng 1 object
+        assertEquals(beanSchema.mapToItem(expected), staticSchema.mapToItem(expected));
+    }
+
+    // Gán giá trị khác null cho MỌI property để không bỏ sót cột nào
+    private static SchoolItem fullyPopulatedItem() throws Exception {
+        SchoolItem item = new SchoolItem();
+        int i = 0;
+        for (PropertyDescriptor pd : Introspector.getBeanInfo(SchoolItem.class).getPropertyDescriptors()) {
+            if (pd.getWriteMethod() == null) continue;
+            Class<?> type = pd.getPropertyType();
+            i++;
+            if (type == String.class) {
+                pd.getWriteMethod().invoke(item, pd.getName() + "-" + i);
+            } else if (type == Integer.class) {
+                pd.getWriteMethod().invoke(item, i);
+            } else if (type == Double.class) {
+                pd.getWriteMethod().invoke(item, i + 0.5);
+            } else if (type == Boolean.class) {
+                pd.getWriteMethod().invoke(item, i % 2 == 0);
+            } else {
+                throw new IllegalStateException("Kiểu chưa hỗ trợ trong test: " + pd.getName() + " " + type);
+            }
+        }
+        return item;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.demo.repository;
+
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository.RawPage;
+import com.example.demo.repository.SchoolItemRepository.ShardPage;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scatter-gather trên GSI1 chia shard: thứ tự trộn giữa các shard, đọc tiếp từ cursor không lặp / không sót,
+ * partition gốc (dữ liệu trước khi chia shard) được trộn cùng.
+ */
+class ShardCursorTest {
+
+    private static final String TABLE = "T";
+    private static final String LOG = "TYPE#LOG";
+    private static final int SHARDS = 4;
+
+    private final InMemoryDynamoDbClient client = new InMemoryDynamoDbClient();
+
+    ShardCursorTest() {
+        client.createTable(LocalDynamoConfig.singleTableRequest(TABLE));
+    }
+
+    // =========================================================
+    // QUA REPOSITORY
+    // =========================================================
+
+    @Test
+    void pagesMergeAcrossShardsInSortOrderWithoutDuplicatesOrGaps() {
+        SchoolItemRepository repository = repository(true);
+        List<SchoolItem> written = seed(repository, 50, 10);
+
+        for (int limit : new int[]{1, 7, 50, 200}) {
+            List<SchoolItem> read = readAll(repository, r -> {
+            }, limit);
+            assertEquals(ids(sorted(written, true)), ids(read), "limit " + limit);
+        }
+    }
+
+    @Test
+    void reverseOrderMergesDescending() {
+        SchoolItemRepository repository = repository(true);
+        List<SchoolItem> written = seed(repository, 30, 5);
+
+        List<SchoolItem> read = readAll(repository, r -> r.scanIndexForward(false), 6);
+        assertEquals(ids(sorted(written, false)), ids(read));
+    }
+
+    @Test
+    void legacyPartitionIsReadOnlyWhenEnabled() {
+        SchoolItemRepository repository = repository(true);
+        List<SchoolItem> written = seed(repository, 20, 8);
+        List<String> sharded = written.stream().filter(i -> !i.getGsi1Pk().equals(LOG)).map(SchoolItem::getPk)
+                .collect(Collectors.toList());
+
+        // Cùng dữ liệu, đọc bằng repository không đọc partition gốc
+        List<SchoolItem> withoutLegacy = readAll(repository(false), r -> {
+        }, 9);
+        assertEquals(sharded.size(), withoutLegacy.size());
+        assertTrue(withoutLegacy.stream().allMatch(i -> sharded.contains(i.getPk())));
+        assertEquals(28, readAll(repository, r -> {
+        }, 9).size());
+    }
+
+    @Test
+    void filteredShardsStillReturnEveryMatchOnce() {
+        SchoolItemRepository repository = repository(true);
+        List<SchoolItem> written = seed(repository, 60, 6);
+        // Chỉ ~1/5 item qua filter: shard dừng vì Limit trước khi đủ item, cursor phải giữ đúng vị trí từng shard
+        Consumer<QueryEnhancedRequest.Builder> onlyFailures = r -> r.filterExpression(Expression.builder()
+                .expression("#s = :s")
+                .putExpressionName("#s", "status")
+                .putExpressionValue(":s", AttributeValue.fromN("0"))
+                .build());
+
+        List<SchoolItem> expected = sorted(written, true).stream().filter(i -> i.getStatus() == 0)
+                .collect(Collectors.toList());
+        assertEquals(ids(expected), ids(readAll(repository, onlyFailures, 4)));
+    }
+
+    @Test
+    void cursorNamingUnknownPartitionIsRejected() {
+        Map<String, AttributeValue> cursor = new LinkedHashMap<>();
+        cursor.put("TYPE#CLASS#00", AttributeValue.fromS(""));
+        assertThrows(IllegalArgumentException.class,
+                () -> ShardCursor.decode(cursor, List.of("TYPE#LOG#00", "TYPE#LOG#01")));
+    }
+
+    // =========================================================
+    // TRỘN (ShardCursor.merge)
+    // =========================================================
+
+    @Test
+    void mergeStopsAtPositionOfShardThatStillHasData() {
+        // Shard A dừng ở "c" (còn dữ liệu sau đó): không được trả "d" của B trước khi đọc tiếp A
+        ShardPage a = new ShardPage("A", new RawPage(List.of(item("A", "a"), item("A", "c")), key("A", "c")));
+        ShardPage b = new ShardPage("B", new RawPage(List.of(item("B", "b"), item("B", "d")), null));
+        Map<String, Map<String, AttributeValue>> starts = new LinkedHashMap<>();
+        starts.put("A", null);
+        starts.put("B", null);
+
+        PageResult<SchoolItem> page = ShardCursor.GSI1.merge(List.of(a, b), starts, 10, true);
+        assertEquals(List.of("a", "b", "c"), page.getItems().stream().map(SchoolItem::getGsi1Sk).collect(Collectors.toList()));
+
+        // Cursor: A tiếp từ LastEvaluatedKey, B tiếp sau "b"
+        Map<String, Map<String, AttributeValue>> next = ShardCursor.decode(CursorCodec.decode(page.getNextCursor()),
+                List.of("A", "B"));
+        assertEquals(List.of("A", "B"), new ArrayList<>(next.keySet()));
+        assertEquals("c", next.get("A").get("GSI1SK").s());
+        assertEquals("b", next.get("B").get("GSI1SK").s());
+    }
+
+    @Test
+    void mergeKeepsUnreadShardsAndDropsFinishedOnes() {
+        ShardPage a = new ShardPage("A", new RawPage(List.of(item("A", "a"), item("A", "b")), null));
+        ShardPage b = new ShardPage("B", new RawPage(List.of(item("B", "x")), null));
+        ShardPage c = new ShardPage("C", new RawPage(Collections.emptyList(), null));
+        Map<String, Map<String, AttributeValue>> starts = new LinkedHashMap<>();
+        List.of("A", "B", "C").forEach(p -> starts.put(p, null));
+
+        PageResult<SchoolItem> page = ShardCursor.GSI1.merge(List.of(a, b, c), starts, 2, true);
+        assertEquals(List.of("a", "b"), page.getItems().stream().map(SchoolItem::getGsi1Sk).collect(Collectors.toList()));
+        // A và C đã hết; B chưa trả item nào -> đọc lại từ đầu
+        Map<String, AttributeValue> cursor = CursorCodec.decode(page.getNextCursor());
+        assertEquals(Map.of("B", AttributeValue.fromS("")), cursor);
+        assertEquals(Collections.singletonMap("B", null), ShardCursor.decode(cursor, List.of("A", "B", "C")));
+
+        PageResult<SchoolItem> last = ShardCursor.GSI1.merge(List.of(b), ShardCursor.decode(cursor, List.of("A", "B", "C")), 2, true);
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    // =========================================================
+
+    private SchoolItemRepository repository(boolean readLegacy) {
+        DynamoDbEnhancedClient enhanced = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
+        return new SchoolItemRepository(enhanced, client, TABLE, 2, 4, 2, 2, ItemCache.disabled(),
+                new Gsi1Sharding(SHARDS, List.of(LOG), readLegacy));
+    }
+
+    /**
+     * sharded item ghi qua repository (tự gắn shard) + legacy item ghi thẳng GSI1PK gốc. GSI1SK trùng nhau theo
+     * từng cặp để thứ tự trộn phải phân biệt bằng key bảng.
+     */
+    private List<SchoolItem> seed(SchoolItemRepository repository, int sharded, int legacy) {
+        List<SchoolItem> written = new ArrayList<>();
+        for (int i = 0; i < sharded + legacy; i++) {
+            SchoolItem item = new SchoolItem();
+            item.setPk(String.format("LOG#%03d", i));
+            item.setSk("INFO");
+            item.setGsi1Pk(LOG);
+            item.setGsi1Sk(String.format("LOG#2026-10-18T10:%02d", (i * 7 % (sharded + legacy)) / 2));
+            item.setStatus(i % 5 == 0 ? 0 : 1);
+            if (i < sharded) {
+                repository.putItem(item);
+            } else {
+                // Ghi trước khi chia shard: không qua Gsi1Sharding
+                client.putItem(r -> r.tableName(TABLE).item(SchoolItemSchema.create().itemToMap(item, true)));
+            }
+            written.add(item);
+        }
+        return written;
+    }
+
+    private static List<SchoolItem> readAll(SchoolItemRepository repository,
+                                            Consumer<QueryEnhancedRequest.Builder> options, int limit) {
+        List<SchoolItem> items = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageResult<SchoolItem> page = repository.queryGsi1Sharded(LOG,
+                    partition -> QueryConditional.keyEqualTo(Key.builder().partitionValue(partition).build()),
+                    options, PageRequest.of(limit, cursor));
+            assertTrue(page.getItems().size() <= limit);
+            items.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return items;
+    }
+
+    /** Thứ tự mong đợi: GSI1SK; trùng GSI1SK thì không quy định giữa các shard nên so theo tập. */
+    private static List<SchoolItem> sorted(List<SchoolItem> items, boolean forward) {
+        Comparator<SchoolItem> order = Comparator.comparing(SchoolItem::getGsi1Sk);
+        List<SchoolItem> out = new ArrayList<>(items);
+        out.sort(forward ? order : order.reversed());
+        return out;
+    }
+
+    /** GSI1SK -> các PK (đã sắp xếp) theo thứ tự GSI1SK: không phụ thuộc thứ tự của các item trùng GSI1SK. */
+    private static List<String> ids(List<SchoolItem> items) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (SchoolItem item : items) {
+            groups.computeIfAbsent(item.getGsi1Sk(), k -> new ArrayList<>()).add(item.getPk());
+        }
+        List<String> out = new ArrayList<>();
+        groups.forEach((sk, pks) -> {
+            Collections.sort(pks);
+            out.add(sk + "=" + pks);
+        });
+        return out;
+    }
+
+    private static SchoolItem item(String shard, String gsi1Sk) {
+        SchoolItem item = new SchoolItem();
+        item.setPk("LOG#" + shard + gsi1Sk);
+        item.setSk("INFO");
+        item.setGsi1Pk(shard);
+        item.setGsi1Sk(gsi1Sk);
+        return item;
+    }
+
+    private static Map<String, AttributeValue> key(String shard, String gsi1Sk) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put("GSI1PK", AttributeValue.fromS(shard));
+        key.put("GSI1SK", AttributeValue.fromS(gsi1Sk));
+        key.put("PK", AttributeValue.fromS("LOG#" + shard + gsi1Sk));
+        key.put("SK", AttributeValue.fromS("INFO"));
+        return key;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.CursorCodec;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import com.example.demo.service.ClassDirectory.Query;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Danh bạ lớp: AND các bitmap theo điều kiện lọc, từ trong tên không phân biệt dấu, tiền tố tên theo thứ tự GSI1SK,
+ * và phân trang theo cursor ổn định khi có lớp được thêm / sửa giữa 2 lần đọc.
+ */
+class ClassDirectoryTest {
+
+    private static final Query ALL = Query.builder().build();
+
+    private final SchoolItemRepository repository = ClassLeaderboardTest.repository();
+    private final ClassDirectory directory = new ClassDirectory(repository, 300);
+
+    ClassDirectoryTest() {
+        // Thứ tự GSI1SK: C3, C4, C1, C2, C5
+        repository.putItem(classInfo("C1", "Lập Trình Java", "FA25", "SWP391", "GV01", 1));
+        repository.putItem(classInfo("C2", "Lập Trình Web", "FA25", "PRN211", "GV02", 1));
+        repository.putItem(classInfo("C3", "Cơ Sở Dữ Liệu", "FA25", "DBI202", "GV01", 0));
+        repository.putItem(classInfo("C4", "Java Nâng Cao", "SP26", "SWP391", "GV01", 1));
+        repository.putItem(classInfo("C5", "Toán Rời Rạc", "SP26", "MAD101", "GV03", 1));
+    }
+
+    // =========================================================
+    // LỌC (AND BITMAP)
+    // =========================================================
+
+    @Test
+    void filtersAreIntersected() {
+        assertEquals(List.of("C3", "C4", "C1", "C2", "C5"), ids(directory.list(ALL)));
+        assertEquals(List.of("C3", "C1"), ids(directory.list(Query.builder().semester("FA25").teacherId("GV01").build())));
+        assertEquals(List.of("C4", "C1"), ids(directory.list(Query.builder().subjectId("SWP391").status(1).build())));
+        assertEquals(List.of("C1"), ids(directory.list(Query.builder()
+                .semester("FA25").subjectId("SWP391").teacherId("GV01").status(1).build())));
+        // Giá trị không có trong danh bạ: không lớp nào
+        assertTrue(directory.list(Query.builder().semester("SU24").teacherId("GV01").build()).isEmpty());
+        assertTrue(directory.list(Query.builder().semester("SP26").subjectId("DBI202").build()).isEmpty());
+    }
+
+    @Test
+    void subjectAndTeacherIdsAcceptPrefixedAndAnyCase() {
+        assertEquals(List.of("C4", "C1"), ids(directory.list(Query.builder().subjectId("SUBJECT#SWP391").build())));
+        assertEquals(List.of("C3", "C4", "C1"), ids(directory.list(Query.builder().teacherId(" gv01 ").build())));
+        assertEquals(List.of("C3", "C4", "C1"), ids(directory.list(Query.builder().teacherId("USER#GV01").build())));
+        // Chuỗi rỗng = không lọc
+        assertEquals(5, directory.list(Query.builder().semester(" ").subjectId("").build()).size());
+    }
+
+    @Test
+    void keywordTokensIgnoreCaseAndDiacritics() {
+        assertEquals(List.of("C1", "C2"), ids(directory.list(Query.builder().keyword("lap trinh").build())));
+        assertEquals(List.of("C1"), ids(directory.list(Query.builder().keyword("LẬP java").build())));
+        // Mỗi từ chỉ cần nằm trong 1 từ của tên
+        assertEquals(List.of("C1", "C2"), ids(directory.list(Query.builder().keyword("rinh").build())));
+        assertEquals(List.of("C4", "C1"), ids(directory.list(Query.builder().keyword("jav").build())));
+        assertEquals(List.of("C4"), ids(directory.list(Query.builder().keyword("java").semester("SP26").build())));
+        assertTrue(directory.list(Query.builder().keyword("lap python").build()).isEmpty());
+    }
+
+    @Test
+    void namePrefixSelectsContiguousRange() {
+        assertEquals(List.of("C1", "C2"), ids(directory.list(Query.builder().namePrefix("Lập Trình").build())));
+        assertEquals(List.of("C2"), ids(directory.list(Query.builder().namePrefix("lập trình w").build())));
+        assertEquals(List.of("C4"), ids(directory.list(Query.builder().namePrefix("JAVA").build())));
+        assertTrue(directory.list(Query.builder().namePrefix("zz").build()).isEmpty());
+    }
+
+    // =========================================================
+    // CẬP NHẬT
+    // =========================================================
+
+    @Test
+    void putUpdatesBitsInPlaceOrReorders() {
+        directory.list(ALL);
+
+        // Đổi trạng thái / giảng viên: giữ vị trí, không đánh lại id
+        SchoolItem closed = classInfo("C1", "Lập Trình Java", "FA25", "SWP391", "GV02", 0);
+        directory.put(closed);
+        assertEquals(0L, directory.metricsSnapshot().get("reorders"));
+        assertEquals(List.of("C3", "C1"), ids(directory.list(Query.builder().status(0).build())));
+        assertEquals(List.of("C3", "C4"), ids(directory.list(Query.builder().teacherId("GV01").build())));
+        assertEquals(List.of("C1", "C2"), ids(directory.list(Query.builder().teacherId("GV02").build())));
+
+        // Đổi tên: đổi vị trí, từ cũ không còn khớp
+        directory.put(classInfo("C5", "Anh Văn", "SP26", "ENW492", "GV03", 1));
+        assertEquals(1L, directory.metricsSnapshot().get("reorders"));
+        assertEquals(List.of("C5", "C3", "C4", "C1", "C2"), ids(directory.list(ALL)));
+        assertTrue(directory.list(Query.builder().keyword("toan").build()).isEmpty());
+        assertEquals(List.of("C5"), ids(directory.list(Query.builder().subjectId("ENW492").build())));
+        assertTrue(directory.list(Query.builder().subjectId("MAD101").build()).isEmpty());
+
+        // Không phải CLASS#/INFO: bỏ qua
+        SchoolItem member = classInfo("C6", "Lớp khác", "SP26", "MAD101", "GV03", 1);
+        member.setSk(SchoolKeys.STUDENT + "SV01");
+        directory.put(member);
+        assertEquals(5, directory.metricsSnapshot().get("classes"));
+    }
+
+    // =========================================================
+    // PHÂN TRANG
+    // =========================================================
+
+    @Test
+    void pagesFollowNameOrderWithoutDuplicatesOrGaps() {
+        for (int limit : new int[]{1, 2, 5, 50}) {
+            assertEquals(List.of("C3", "C4", "C1", "C2", "C5"), readAll(ALL, limit), "limit " + limit);
+        }
+        assertEquals(List.of("C4", "C1", "C2", "C5"), readAll(Query.builder().status(1).build(), 1));
+        // Trang đầy vừa đúng số lớp khớp: không trả cursor
+        assertNull(directory.search(Query.builder().semester("SP26").build(), PageRequest.first(2)).getNextCursor());
+    }
+
+    @Test
+    void cursorStaysStableWhenClassesChangeBetweenPages() {
+        PageResult<SchoolItem> first = directory.search(ALL, PageRequest.first(2));
+        assertEquals(List.of("C3", "C4"), ids(first.getItems()));
+
+        // Lớp mới xếp trước cursor, lớp mới xếp sau cursor, sửa lớp chưa đọc và xóa bit của lớp đã đọc
+        directory.put(classInfo("C0", "An Toàn Thông Tin", "FA25", "IAA202", "GV04", 1));
+        directory.put(classInfo("C9", "Xử Lý Ảnh", "SP26", "IMP301", "GV04", 1));
+        directory.put(classInfo("C2", "Lập Trình Web", "FA25", "PRN211", "GV02", 0));
+        directory.put(classInfo("C4", "Java Nâng Cao", "SP26", "SWP391", "GV01", 0));
+
+        PageResult<SchoolItem> second = directory.search(ALL, PageRequest.of(2, first.getNextCursor()));
+        assertEquals(List.of("C1", "C2"), ids(second.getItems()));
+        PageResult<SchoolItem> third = directory.search(ALL, PageRequest.of(2, second.getNextCursor()));
+        assertEquals(List.of("C5", "C9"), ids(third.getItems()));
+        assertNull(third.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        String cursor = CursorCodec.encode(Map.of("PK", AttributeValue.fromS("CLASS#C1")));
+        assertThrows(IllegalArgumentException.class, () -> directory.search(ALL, PageRequest.of(2, cursor)));
+    }
+
+    // =========================================================
+
+    private List<String> readAll(Query query, int limit) {
+        List<String> out = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageResult<SchoolItem> page = directory.search(query, PageRequest.of(limit, cursor));
+            assertTrue(page.getItems().size() <= limit);
+            out.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return out;
+    }
+
+    private static List<String> ids(List<SchoolItem> items) {
+        return items.stream().map(i -> SchoolKeys.stripPrefix(SchoolKeys.CLASS, i.getPk())).collect(Collectors.toList());
+    }
+
+    private static SchoolItem classInfo(String id, String name, String semester, String subjectId, String teacherId,
+                                        int status) {
+        SchoolItem item = new SchoolItem();
+        item.setPk(SchoolKeys.classPk(id));
+        item.setSk(SchoolKeys.INFO);
+        item.setGsi1Pk(ClassDirectory.GSI1_PK);
+        item.setGsi1Sk("NAME#" + name.toLowerCase());
+        item.setName(name);
+        item.setSemester(semester);
+        item.setSubjectId(subjectId);
+        item.setTeacherId(teacherId);
+        item.setStatus(status);
+        return item;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.dataset.DatasetGenerator;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.service.ClassLeaderboard.Board;
+import com.example.demo.service.ClassLeaderboard.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mã hóa chuỗi bảng xếp hạng, hạng đồng điểm, cộng chênh lệch và ghi có điều kiện version.
+ */
+class ClassLeaderboardTest {
+
+    // =========================================================
+    // BOARD
+    // =========================================================
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        Board board = Board.fromTotals(totals("SE01", 8.275, "SE07", 8.275, "SE03", 6.1, "SE09", 0.0), 3);
+        assertEquals("SE01:8.275;SE07:8.275;SE03:6.1;SE09:0", board.encode());
+
+        Board decoded = Board.decode(board.encode(), 3);
+        assertEquals(ids(board.all()), ids(decoded.all()));
+        assertEquals(3, decoded.getVersion());
+        assertEquals(6.1, decoded.entryOf("SE03").getTotal(), 0);
+        assertEquals(0, Board.decode("", 5).size());
+        assertEquals(0, Board.decode(null, 5).size());
+    }
+
+    @Test
+    void idsWithSeparatorsAreEscaped() {
+        Board board = Board.fromTotals(totals("A;B", 9.0, "C:D", 8.0, "E%3BF", 7.0, "G%", 6.0), 1);
+        String encoded = board.encode();
+        assertEquals(4, encoded.split(";").length);
+
+        Board decoded = Board.decode(encoded, 1);
+        assertEquals(List.of("A;B", "C:D", "E%3BF", "G%"), ids(decoded.all()));
+        assertEquals(8.0, decoded.entryOf("C:D").getTotal(), 0);
+        assertEquals(2, decoded.entryOf("C:D").getRank());
+    }
+
+    @Test
+    void storedBoardWithoutEscapesStillDecodes() {
+        Board decoded = Board.decode("SE01:9;SE02%X:7.5", 4);
+        assertEquals(List.of("SE01", "SE02%X"), ids(decoded.all()));
+    }
+
+    @Test
+    void tiesShareRankLikeCompetitionRanking() {
+        Board board = Board.fromTotals(totals("SE04", 7.0, "SE01", 9.0, "SE03", 8.0, "SE02", 8.0), 1);
+        assertEquals(List.of("SE01", "SE02", "SE03", "SE04"), ids(board.all()));
+        assertEquals(List.of(1, 2, 2, 4), board.all().stream().map(Entry::getRank).collect(Collectors.toList()));
+        assertEquals(2, board.entryOf("SE03").getRank());
+        assertNull(board.entryOf("SE99"));
+    }
+
+    @Test
+    void topAndAroundAreClipped() {
+        Board board = Board.fromTotals(totals("SE01", 5.0, "SE02", 4.0, "SE03", 3.0, "SE04", 2.0, "SE05", 1.0), 1);
+        assertEquals(List.of("SE01", "SE02"), ids(board.top(2)));
+        assertEquals(5, board.top(50).size());
+        assertEquals(List.of("SE01", "SE02", "SE03"), ids(board.around("SE01", 2)));
+        assertEquals(List.of("SE03", "SE04", "SE05"), ids(board.around("SE04", 1)));
+        assertTrue(board.around("SE99", 1).isEmpty());
+    }
+
+    @Test
+    void addMovesStudentAndBumpsVersion() {
+        Board board = Board.fromTotals(totals("SE01", 5.0, "SE02", 4.0), 7);
+
+        Board raised = board.add("SE02", 1.5);
+        assertEquals(List.of("SE02", "SE01"), ids(raised.all()));
+        assertEquals(8, raised.getVersion());
+        // Bảng cũ không đổi
+        assertEquals(4.0, board.entryOf("SE02").getTotal(), 0);
+
+        Board added = raised.add("SE03", 0);
+        assertEquals(List.of("SE02", "SE01", "SE03"), ids(added.all()));
+        assertEquals(0.0, added.entryOf("SE03").getTotal(), 0);
+    }
+
+    @Test
+    void addAllAppliesEveryDeltaInOneVersion() {
+        Board board = Board.fromTotals(totals("SE01", 5.0, "SE02", 4.0, "SE03", 3.0), 2);
+        Board next = board.addAll(totals("SE03", 2.5, "SE01", -1.0, "SE04", 0.1));
+
+        assertEquals(3, next.getVersion());
+        assertEquals(List.of("SE03", "SE01", "SE02", "SE04"), ids(next.all()));
+        assertEquals(5.5, next.entryOf("SE03").getTotal(), 0);
+        // Map rỗng: chỉ tăng version
+        Board touched = next.addAll(Map.of());
+        assertEquals(4, touched.getVersion());
+        assertEquals(ids(next.all()), ids(touched.all()));
+    }
+
+    @Test
+    void repeatedDeltasDoNotAccumulateFloatingPointError() {
+        Board board = Board.fromTotals(totals("SE01", 0.0), 1);
+        for (int i = 0; i < 10; i++) {
+            board = board.add("SE01", 0.1);
+        }
+        for (int i = 0; i < 10; i++) {
+            board = board.add("SE01", -0.1);
+        }
+        assertEquals("SE01:0", board.encode());
+    }
+
+    // =========================================================
+    // GHI VÀO DYNAMODB
+    // =========================================================
+
+    @Test
+    void applyScoreChangesAndReplaceUseVersionAsOptimisticLock() {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(repository());
+        assertEquals(0, leaderboard.version("C1"));
+        assertEquals(0, leaderboard.board("C1").size());
+
+        Board first = leaderboard.applyScoreChanges("C1", totals("SE01", 6.0, "SE02", 7.0));
+        assertNotNull(first);
+        assertEquals(1, leaderboard.version("C1"));
+        Board second = leaderboard.applyScoreChanges("C1", totals("SE01", 2.0));
+        assertEquals(2, second.getVersion());
+        assertEquals(List.of("SE01", "SE02"), ids(leaderboard.board("CLASS#C1").all()));
+
+        // Tính lại từ version cũ: có người ghi xen -> không ghi đè
+        assertNull(leaderboard.replace("C1", totals("SE01", 1.0), 1));
+        Board replaced = leaderboard.replace("C1", totals("SE01", 1.0), 2);
+        assertEquals(3, replaced.getVersion());
+        assertEquals(List.of("SE01"), ids(leaderboard.board("C1").all()));
+    }
+
+    // =========================================================
+
+    static SchoolItemRepository repository() {
+        InMemoryDynamoDbClient client = new InMemoryDynamoDbClient();
+        client.createTable(LocalDynamoConfig.singleTableRequest("T"));
+        return DatasetGenerator.repositoryFor(client, "T", 2);
+    }
+
+    private static Map<String, Double> totals(Object... pairs) {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            totals.put((String) pairs[i], ((Number) pairs[i + 1]).doubleValue());
+        }
+        return totals;
+    }
+
+    private static List<String> ids(List<Entry> entries) {
+        return entries.stream().map(Entry::getStudentId).collect(Collectors.toList());
+    }
+}
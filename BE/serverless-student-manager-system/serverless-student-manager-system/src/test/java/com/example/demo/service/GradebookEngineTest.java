@@ -0,0 +1,290 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LocalDynamoConfig;
+import com.example.demo.dataset.DatasetGenerator;
+import com.example.demo.dto.Grade.GradeSubmissionDto;
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.local.InMemoryDynamoDbClient;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.demo.service.GradebookTest.assignment;
+import static com.example.demo.service.GradebookTest.submission;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * recordSubmissions: chênh lệch cộng vào bảng xếp hạng phải cho đúng tổng như khi tính lại toàn bộ từ bài nộp,
+ * lỗi khi cập nhật tổng không làm hỏng bài nộp đã ghi, và điểm cũ của luồng chấm lấy từ chính lệnh ghi.
+ */
+class GradebookEngineTest {
+
+    private static final String CLASS_ID = GradebookTest.CLASS_ID;
+
+    private final SchoolItemRepository repository = ClassLeaderboardTest.repository();
+
+    GradebookEngineTest() {
+        seed(repository);
+    }
+
+    @Test
+    void gradingAddsContributionDeltas() {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+
+        grade(engine, submission("A1", "SV01", 8.0));
+        grade(engine, submission("A2", "SV01", 15.0));
+        assertEquals(7.7, total(leaderboard, "SV01"), 1e-9);
+
+        // Chấm lại: chỉ cộng phần chênh lệch (10 - 8) * 0.4
+        grade(engine, submission("A1", "SV01", 10.0));
+        assertEquals(8.5, total(leaderboard, "SV01"), 1e-9);
+
+        // Nộp lại làm mất điểm: trừ phần đóng góp cũ
+        grade(engine, submission("A2", "SV01", null));
+        assertEquals(4.0, total(leaderboard, "SV01"), 1e-9);
+
+        // Chấm 0 điểm: vẫn có tên trong bảng
+        grade(engine, submission("A1", "SV02", 0.0));
+        assertEquals(0.0, total(leaderboard, "SV02"), 1e-9);
+
+        assertMatchesRebuild(engine, leaderboard);
+    }
+
+    @Test
+    void bulkDeltasForManyStudentsApplyInOneVersion() {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+        grade(engine, submission("A1", "SV01", 5.0));
+        int before = leaderboard.version(CLASS_ID);
+
+        List<SchoolItem> batch = List.of(submission("A2", "SV01", 10.0), submission("A2", "SV02", 20.0),
+                submission("A1", "SV01", 6.0), submission("DRAFT", "SV03", 10.0));
+        Map<String, Double> oldScores = new HashMap<>();
+        oldScores.put(batch.get(2).getSk(), 5.0);
+        batch.forEach(repository::putItem);
+        engine.recordSubmissions(CLASS_ID, batch, oldScores);
+
+        assertEquals(before + 1, leaderboard.version(CLASS_ID));
+        // SV01: 6 * 0.4 + 10 / 20 * 6
+        assertEquals(5.4, total(leaderboard, "SV01"), 1e-9);
+        assertEquals(6.0, total(leaderboard, "SV02"), 1e-9);
+        // Bài chưa công bố không vào bảng
+        assertNull(leaderboard.board(CLASS_ID).entryOf("SV03"));
+        assertMatchesRebuild(engine, leaderboard);
+    }
+
+    @Test
+    void patchedCacheMatchesFreshLoad() {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+        engine.gradebook(CLASS_ID);
+        long loads = loads(engine);
+
+        grade(engine, submission("A1", "SV01", 7.0));
+        grade(engine, submission("A2", "SV02", 12.0));
+        Gradebook cached = engine.gradebook(CLASS_ID);
+        assertEquals(loads, loads(engine));
+
+        Gradebook fresh = new GradebookEngine(repository, leaderboard, 16, 600).gradebook(CLASS_ID);
+        assertEquals(fresh.getVersion(), cached.getVersion());
+        assertEquals(fresh.totals(), cached.totals());
+    }
+
+    @Test
+    void submitWithoutScoreChangeDoesNotLoadColdGradebook() {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+        grade(engine, submission("A1", "SV01", 7.0));
+        GradebookEngine cold = new GradebookEngine(repository, leaderboard, 16, 600);
+        int version = leaderboard.version(CLASS_ID);
+
+        SchoolItem resubmitted = submission("A2", "SV01", null);
+        repository.putItem(resubmitted);
+        cold.recordSubmission(CLASS_ID, resubmitted, null);
+
+        assertEquals(0L, loads(cold));
+        // Vẫn lên version để bảng điểm đang cache ở node khác được đọc lại
+        assertEquals(version + 1, leaderboard.version(CLASS_ID));
+        Gradebook gradebook = cold.gradebook(CLASS_ID);
+        assertEquals(1, gradebook.gradedCount("SV01"));
+        assertEquals(Gradebook.SUBMITTED, gradebook.state(gradebook.rowOf("SV01"), gradebook.columnOf("A2")));
+    }
+
+    @Test
+    void failedLeaderboardUpdateDoesNotThrowAndIsRepaired() {
+        FailingLeaderboard leaderboard = new FailingLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+        grade(engine, submission("A1", "SV01", 5.0));
+
+        leaderboard.failure = new IllegalStateException("DynamoDB không trả lời");
+        grade(engine, submission("A1", "SV01", 10.0));
+        assertEquals(1, engine.metricsSnapshot().get("staleClasses"));
+
+        // Lần đọc sau tính lại từ bài nộp đã ghi
+        leaderboard.failure = null;
+        assertEquals(4.0, engine.gradebook(CLASS_ID).total("SV01"), 1e-9);
+        assertEquals(4.0, total(leaderboard, "SV01"), 1e-9);
+        assertEquals(0, engine.metricsSnapshot().get("staleClasses"));
+    }
+
+    @Test
+    void exhaustedRetriesFallBackToRebuild() {
+        FailingLeaderboard leaderboard = new FailingLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+        grade(engine, submission("A1", "SV01", 5.0));
+
+        leaderboard.exhausted = true;
+        grade(engine, submission("A2", "SV01", 20.0));
+
+        assertEquals(1L, engine.metricsSnapshot().get("fallbackRebuilds"));
+        assertEquals(8.0, total(leaderboard, "SV01"), 1e-9);
+        assertMatchesRebuild(engine, leaderboard);
+    }
+
+    // =========================================================
+    // QUA SERVICE: ĐIỂM CŨ LẤY TỪ LỆNH GHI, KHÔNG TỪ LẦN ĐỌC TRƯỚC ĐÓ
+    // =========================================================
+
+    @Test
+    void staleSubmissionReadDoesNotCorruptTotalsOnRegrade() {
+        StaleReadClient client = new StaleReadClient();
+        client.createTable(LocalDynamoConfig.singleTableRequest("T"));
+        SchoolItemRepository stale = DatasetGenerator.repositoryFor(client, "T", 2);
+        seed(stale);
+        ClassLeaderboard leaderboard = new ClassLeaderboard(stale);
+        GradebookEngine engine = new GradebookEngine(stale, leaderboard, 16, 600);
+        LecturerService lecturer = lecturerService(stale, leaderboard, engine);
+
+        lecturer.gradeStudentSubmission(CLASS_ID, "A1", "GV01", grade("A1", "SV01", 5.0));
+        assertEquals(2.0, total(leaderboard, "SV01"), 1e-9);
+
+        // Chấm lại ngay sau đó: GetItem chưa thấy lần chấm đầu (đọc eventually consistent trả về rỗng)
+        client.staleSubmissions = true;
+        lecturer.gradeStudentSubmission(CLASS_ID, "A1", "GV01", grade("A1", "SV01", 6.0));
+        assertEquals(2.4, total(leaderboard, "SV01"), 1e-9);
+        assertMatchesRebuild(engine, leaderboard);
+    }
+
+    @Test
+    void processGradeUpdateUsesScoreReplacedByTheWrite() {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(repository);
+        GradebookEngine engine = new GradebookEngine(repository, leaderboard, 16, 600);
+        LecturerService lecturer = lecturerService(repository, leaderboard, engine);
+        repository.putItem(submission("A2", "SV01", null));
+
+        lecturer.processGradeUpdate(CLASS_ID, "A2", "GV01", grade("A2", "SV01", 10.0));
+        // Chấm lại liên tiếp: mỗi lần trừ đúng điểm vừa bị ghi đè
+        lecturer.processGradeUpdate(CLASS_ID, "A2", "GV01", grade("A2", "SV01", 15.0));
+        lecturer.processGradeUpdate(CLASS_ID, "A2", "GV01", grade("A2", "SV01", 20.0));
+        assertEquals(6.0, total(leaderboard, "SV01"), 1e-9);
+        assertMatchesRebuild(engine, leaderboard);
+
+        // Ngoài thang điểm của bài tập / chưa nộp bài: không ghi
+        assertThrows(IllegalArgumentException.class,
+                () -> lecturer.processGradeUpdate(CLASS_ID, "A2", "GV01", grade("A2", "SV01", 21.0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> lecturer.processGradeUpdate(CLASS_ID, "A2", "GV01", grade("A2", "SV01", null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> lecturer.processGradeUpdate(CLASS_ID, "A2", "GV01", grade("A2", "SV02", 5.0)));
+        assertEquals(20.0, repository.getItem(SchoolKeys.submission(CLASS_ID, "A2", "SV01")).getScore(), 0);
+    }
+
+    // =========================================================
+
+    /** A1: 40%, thang 10; A2: 60%, thang 20; DRAFT chưa công bố. Lớp C1 do GV01 dạy. */
+    private static void seed(SchoolItemRepository repository) {
+        repository.putItem(assignment("A1", 40.0, 10.0, true, "1"));
+        repository.putItem(assignment("A2", 60.0, 20.0, true, "2"));
+        repository.putItem(assignment("DRAFT", 50.0, 10.0, false, "3"));
+        SchoolItem classInfo = new SchoolItem();
+        classInfo.setPk(SchoolKeys.classPk(CLASS_ID));
+        classInfo.setSk(SchoolKeys.INFO);
+        classInfo.setName("Lớp C1");
+        classInfo.setTeacherId("GV01");
+        repository.putItem(classInfo);
+    }
+
+    /** Chỉ các phụ thuộc mà luồng chấm điểm dùng tới. */
+    private static LecturerService lecturerService(SchoolItemRepository repository, ClassLeaderboard leaderboard,
+                                                   GradebookEngine engine) {
+        return new LecturerService(repository, null, null, null, null, leaderboard, engine);
+    }
+
+    private static GradeSubmissionDto grade(String assignmentId, String studentId, Double score) {
+        GradeSubmissionDto dto = new GradeSubmissionDto();
+        dto.setAssignmentId(assignmentId);
+        dto.setStudentId(studentId);
+        dto.setScore(score);
+        return dto;
+    }
+
+    /** Ghi bài nộp như service (điểm cũ lấy từ bản trước khi ghi) rồi báo cho engine. */
+    private void grade(GradebookEngine engine, SchoolItem submission) {
+        SchoolItem previous = repository.putItemReturningOld(submission);
+        engine.recordSubmission(CLASS_ID, submission, previous != null ? previous.getScore() : null);
+    }
+
+    private void assertMatchesRebuild(GradebookEngine engine, ClassLeaderboard leaderboard) {
+        Map<String, Double> incremental = totals(leaderboard);
+        engine.rebuild(CLASS_ID);
+        assertEquals(totals(leaderboard), incremental);
+    }
+
+    private static Map<String, Double> totals(ClassLeaderboard leaderboard) {
+        Map<String, Double> totals = new HashMap<>();
+        leaderboard.board(CLASS_ID).all().forEach(e -> totals.put(e.getStudentId(), e.getTotal()));
+        return totals;
+    }
+
+    private static double total(ClassLeaderboard leaderboard, String studentId) {
+        return leaderboard.board(CLASS_ID).entryOf(studentId).getTotal();
+    }
+
+    private static long loads(GradebookEngine engine) {
+        return (Long) engine.metricsSnapshot().get("loads");
+    }
+
+    /** Client đọc bài nộp như GetItem eventually consistent chưa thấy lần ghi gần nhất (trả về rỗng). */
+    private static final class StaleReadClient extends InMemoryDynamoDbClient {
+        volatile boolean staleSubmissions;
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest request) {
+            AttributeValue sk = request.key().get("SK");
+            if (staleSubmissions && sk != null && sk.s().startsWith(SchoolKeys.SUBMISSION)) {
+                return GetItemResponse.builder().build();
+            }
+            return super.getItem(request);
+        }
+    }
+
+    /** Bảng xếp hạng lỗi theo yêu cầu: ném lỗi, hoặc hết lượt thử (null) như khi bị ghi chen liên tục. */
+    private static final class FailingLeaderboard extends ClassLeaderboard {
+        volatile RuntimeException failure;
+        volatile boolean exhausted;
+
+        FailingLeaderboard(SchoolItemRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        public Board applyScoreChanges(String classId, Map<String, Double> deltas) {
+            if (failure != null) throw failure;
+            if (exhausted) {
+                exhausted = false;
+                return null;
+            }
+            return super.applyScoreChanges(classId, deltas);
+        }
+    }
+}
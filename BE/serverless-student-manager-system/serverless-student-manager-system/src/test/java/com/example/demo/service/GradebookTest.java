@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tổng có trọng số, chuẩn hóa trọng số / điểm tối đa và sửa bảng điểm bằng withSubmissions.
+ */
+class GradebookTest {
+
+    static final String CLASS_ID = "C1";
+
+    @Test
+    void weightedTotalUsesMaxScoreAndNormalizedWeights() {
+        // A1: 40%, thang 10; A2: 60%, thang 20
+        Gradebook gradebook = Gradebook.of(CLASS_ID, List.of(
+                assignment("A1", 40.0, 10.0, true, "2026-10-01"),
+                assignment("A2", 60.0, 20.0, true, "2026-10-15"),
+                submission("A1", "SV01", 8.0),
+                submission("A2", "SV01", 15.0),
+                submission("A1", "SV02", 10.0),
+                submission("A2", "SV03", null)), 4);
+
+        assertEquals(4, gradebook.getVersion());
+        assertEquals(List.of("A1", "A2"), gradebook.assignmentIds());
+        assertEquals(List.of("SV01", "SV02", "SV03"), gradebook.studentIds());
+        assertEquals(7.7, gradebook.total("SV01"), 1e-9);
+        // Bài chưa nộp tính 0
+        assertEquals(4.0, gradebook.total("SV02"), 1e-9);
+        // Đã nộp nhưng chưa chấm: chưa có tổng, không vào bảng xếp hạng
+        assertNull(gradebook.total("SV03"));
+        assertEquals(0, gradebook.gradedCount("SV03"));
+        assertEquals(Map.of("SV01", 7.7, "SV02", 4.0), gradebook.totals());
+    }
+
+    @Test
+    void weightsAreNormalizedAndMissingWeightsSplitEvenly() {
+        Gradebook weighted = Gradebook.of(CLASS_ID, List.of(
+                assignment("A1", 1.0, null, true, "1"),
+                assignment("A2", 3.0, null, true, "2"),
+                submission("A1", "SV01", 10.0),
+                submission("A2", "SV01", 2.0)), 1);
+        // 1/4 * 10 + 3/4 * 2, thiếu max_score = thang 10
+        assertEquals(4.0, weighted.total("SV01"), 1e-9);
+
+        Gradebook even = Gradebook.of(CLASS_ID, List.of(
+                assignment("A1", null, 10.0, true, "1"),
+                assignment("A2", 0.0, 10.0, true, "2"),
+                submission("A1", "SV01", 10.0)), 1);
+        assertEquals(5.0, even.total("SV01"), 1e-9);
+    }
+
+    @Test
+    void onlyPublishedAssignmentsAreCounted() {
+        Gradebook gradebook = Gradebook.of(CLASS_ID, List.of(
+                assignment("A1", 50.0, 10.0, true, "1"),
+                assignment("DRAFT", 50.0, 10.0, false, "2"),
+                submission("A1", "SV01", 6.0),
+                submission("DRAFT", "SV01", 10.0),
+                submission("GONE", "SV02", 10.0)), 1);
+
+        assertEquals(List.of("A1"), gradebook.assignmentIds());
+        assertEquals(-1, gradebook.columnOf("DRAFT"));
+        assertEquals(6.0, gradebook.total("SV01"), 1e-9);
+        assertEquals(-1, gradebook.rowOf("SV02"));
+        assertNull(gradebook.contribution("DRAFT", 10.0));
+    }
+
+    @Test
+    void contributionIsShareOfScaledScore() {
+        Gradebook gradebook = Gradebook.of(CLASS_ID, List.of(
+                assignment("A1", 40.0, 10.0, true, "1"),
+                assignment("A2", 60.0, 20.0, true, "2")), 1);
+        assertEquals(4.5, gradebook.contribution("A2", 15.0), 1e-9);
+        assertEquals(0.0, gradebook.contribution("A1", 0.0), 1e-9);
+        assertNull(gradebook.contribution("A1", null));
+    }
+
+    @Test
+    void columnsAreOrderedByDeadlineThenId() {
+        Gradebook gradebook = Gradebook.of(CLASS_ID, List.of(
+                assignment("B", 1.0, 10.0, true, "2026-10-02"),
+                assignment("C", 1.0, 10.0, true, "2026-10-01"),
+                assignment("A", 1.0, 10.0, true, "2026-10-02")), 1);
+        assertEquals(List.of("C", "A", "B"), gradebook.assignmentIds());
+    }
+
+    @Test
+    void lateSubmissionsAreFlagged() {
+        SchoolItem late = submission("A1", "SV01", null);
+        late.setType("late");
+        Gradebook gradebook = Gradebook.of(CLASS_ID, List.of(assignment("A1", 1.0, 10.0, true, "1"), late), 1);
+        assertEquals(Gradebook.SUBMITTED | Gradebook.LATE, gradebook.state(0, 0));
+        assertTrue(Double.isNaN(gradebook.score(0, 0)));
+    }
+
+    @Test
+    void withSubmissionsMatchesFreshBuild() {
+        List<SchoolItem> rows = new ArrayList<>(List.of(
+                assignment("A1", 40.0, 10.0, true, "1"),
+                assignment("A2", 60.0, 20.0, true, "2"),
+                submission("A1", "SV02", 8.0),
+                submission("A2", "SV02", 15.0),
+                submission("A1", "SV05", 3.0)));
+        Gradebook before = Gradebook.of(CLASS_ID, rows, 1);
+
+        // Chấm lại SV02/A1, SV mới SV01 và SV09 (chèn đúng thứ tự), SV05 nộp lại mất điểm, bài không tính bị bỏ qua
+        List<SchoolItem> changed = List.of(
+                submission("A1", "SV02", 10.0),
+                submission("A2", "SV09", 20.0),
+                submission("A1", "SV01", 5.0),
+                submission("A1", "SV05", null),
+                submission("DRAFT", "SV03", 10.0));
+        Gradebook patched = before.withSubmissions(changed, 2);
+
+        List<SchoolItem> after = new ArrayList<>(rows.subList(0, 2));
+        after.add(submission("A1", "SV02", 10.0));
+        after.add(submission("A2", "SV02", 15.0));
+        after.add(submission("A1", "SV05", null));
+        after.add(submission("A2", "SV09", 20.0));
+        after.add(submission("A1", "SV01", 5.0));
+        Gradebook fresh = Gradebook.of(CLASS_ID, after, 2);
+
+        assertEquals(fresh.studentIds(), patched.studentIds());
+        assertEquals(fresh.totals(), patched.totals());
+        assertEquals(2, patched.getVersion());
+        assertNull(patched.total("SV05"));
+        // Bảng cũ không bị sửa
+        assertEquals(List.of("SV02", "SV05"), before.studentIds());
+        assertEquals(7.7, before.total("SV02"), 1e-9);
+        assertEquals(1.2, before.total("SV05"), 1e-9);
+    }
+
+    // =========================================================
+
+    static SchoolItem assignment(String id, Double weight, Double maxScore, boolean published, String deadline) {
+        SchoolItem item = new SchoolItem();
+        item.setPk("ASSIGNMENT#" + CLASS_ID);
+        item.setSk("INFO#" + id);
+        item.setId(id);
+        item.setWeight(weight);
+        item.setMaxScore(maxScore);
+        item.setIsPublished(published);
+        item.setDeadline(deadline);
+        return item;
+    }
+
+    static SchoolItem submission(String assignmentId, String studentId, Double score) {
+        SchoolItem item = new SchoolItem();
+        item.setPk("ASSIGNMENT#" + CLASS_ID);
+        item.setSk("SUBMISSION#" + assignmentId + "#" + studentId);
+        item.setStudentId(studentId);
+        item.setScore(score);
+        item.setType("on_time");
+        return item;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Con trỏ email: giữ email có điều kiện, backfill không ghi đè chủ đã có, user cũ chưa backfill được tìm 1 lần bằng scan.
+ */
+class UserEmailIndexTest {
+
+    private final SchoolItemRepository repository = ClassLeaderboardTest.repository();
+    private final UserEmailIndex index = new UserEmailIndex(repository);
+
+    @Test
+    void claimKeepsFirstOwnerAndReplacesPointerToMissingProfile() {
+        SchoolItem first = profile("U1", "Duc@FPT.edu.vn", "2026-01-01");
+        SchoolItem second = profile("U2", "duc@fpt.edu.vn", "2026-02-01");
+        repository.putItem(first);
+        repository.putItem(second);
+
+        assertSame(first, index.claim(first));
+        assertEquals("USER#U1", index.claim(second).getPk());
+        assertEquals("USER#U1", index.findProfileByEmail(" DUC@fpt.edu.vn ").getPk());
+
+        // Chủ cũ không còn profile: con trỏ được thay
+        repository.deleteItem(SchoolKeys.userProfile("U1"));
+        assertSame(second, index.claim(second));
+        assertEquals("USER#U2", index.findProfileByEmail("duc@fpt.edu.vn").getPk());
+    }
+
+    @Test
+    void backfillDoesNotOverwriteExistingOwner() {
+        SchoolItem owner = profile("U1", "a@fpt.edu.vn", "2026-03-01");
+        repository.putItem(owner);
+        index.claim(owner);
+        // Profile cũ trùng email (tạo trước, chưa có con trỏ) + 2 profile cũ khác
+        repository.putItem(profile("U0", "A@fpt.edu.vn", "2025-01-01"));
+        repository.putItem(profile("U2", "b@fpt.edu.vn", "2025-01-01"));
+        repository.putItem(profile("U3", "c@fpt.edu.vn", "2025-01-01"));
+
+        assertEquals(2, index.backfill());
+        assertEquals("USER#U1", index.findProfileByEmail("a@fpt.edu.vn").getPk());
+        assertEquals("USER#U2", index.findProfileByEmail("b@fpt.edu.vn").getPk());
+        // Chạy lại: không còn gì để ghi
+        assertEquals(0, index.backfill());
+    }
+
+    @Test
+    void resolveProfileAdoptsUnindexedProfileOnce() {
+        repository.putItem(profile("U7", "Lan@fpt.edu.vn", "2025-05-01"));
+        repository.putItem(profile("U5", "lan@fpt.edu.vn", "2025-04-01"));
+        assertNull(index.findProfileByEmail("lan@fpt.edu.vn"));
+
+        // Email trùng giữa user cũ: luôn chọn user tạo sớm nhất
+        assertEquals("USER#U5", index.resolveProfile("LAN@fpt.edu.vn").getPk());
+        assertEquals("USER#U5", index.findProfileByEmail("lan@fpt.edu.vn").getPk());
+        assertNull(index.resolveProfile("new@fpt.edu.vn"));
+    }
+
+    private static SchoolItem profile(String id, String email, String createdAt) {
+        SchoolItem item = new SchoolItem();
+        item.setPk(SchoolKeys.userPk(id));
+        item.setSk(SchoolKeys.PROFILE);
+        item.setId(id);
+        item.setEmail(email);
+        item.setCreatedAt(createdAt);
+        return item;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchoolItem;
+import com.example.demo.repository.CursorCodec;
+import com.example.demo.repository.PageRequest;
+import com.example.demo.repository.PageResult;
+import com.example.demo.repository.SchoolItemRepository;
+import com.example.demo.repository.SchoolKeys;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chỉ mục trigram tìm user: xếp hạng theo mức khớp / field, bỏ dấu tiếng Việt, giao posting list rồi kiểm tra lại,
+ * và phân trang theo cursor không lặp / không sót.
+ */
+class UserSearchIndexTest {
+
+    private static final String STUDENT = "ROLE#STUDENT";
+    private static final String LECTURER = "ROLE#LECTURER";
+
+    private final SchoolItemRepository repository = ClassLeaderboardTest.repository();
+    private final UserSearchIndex index = new UserSearchIndex(repository, 600);
+
+    UserSearchIndexTest() {
+        repository.putItem(profile("SV01", STUDENT, "Nguyễn Văn Đức", "duc.nguyen@fpt.edu.vn", "SE001"));
+        repository.putItem(profile("SV02", STUDENT, "Trần Đức Anh", "anh.tran@fpt.edu.vn", "SE002"));
+        repository.putItem(profile("SV03", STUDENT, "Phạm Quang", "quang@fpt.edu.vn", "XDUC03"));
+        repository.putItem(profile("SV04", STUDENT, "Lan Anh", "lan.anh@fpt.edu.vn", "SE004"));
+        repository.putItem(profile("GV01", LECTURER, "Đức", "duc@fpt.edu.vn", "GV001"));
+        // Không phải profile: không vào chỉ mục
+        SchoolItem other = profile("SV09", STUDENT, "Đức Khác", "x@fpt.edu.vn", "SE009");
+        other.setSk("SETTINGS");
+        repository.putItem(other);
+    }
+
+    // =========================================================
+    // CHUẨN HÓA
+    // =========================================================
+
+    @Test
+    void normalizeLowercasesAndFoldsVietnameseDiacritics() {
+        assertEquals("nguyen van duc", UserSearchIndex.normalize("  Nguyễn Văn ĐỨC "));
+        assertEquals("tran thi hoa", UserSearchIndex.normalize("Trần Thị Hoà"));
+        assertEquals("", UserSearchIndex.normalize(null));
+    }
+
+    @Test
+    void keywordWithDiacriticsMatchesFoldedText() {
+        assertEquals(List.of("GV01", "SV01", "SV02", "SV03"), ids(search(null, "ĐỨC", 10)));
+        assertEquals(ids(search(null, "duc", 10)), ids(search(null, "Đức", 10)));
+        assertEquals(List.of("SV01"), ids(search(null, "nguyễn văn", 10)));
+    }
+
+    // =========================================================
+    // XẾP HẠNG
+    // =========================================================
+
+    @Test
+    void resultsAreRankedByMatchPositionThenField() {
+        // GV01: khớp cả tên; SV01: đầu email; SV02: đầu 1 từ trong tên; SV03: giữa mã
+        assertEquals(List.of("GV01", "SV01", "SV02", "SV03"), ids(search(null, "duc", 10)));
+        // Cùng mức "đầu field": mã > email > tên
+        repository.putItem(profile("SV05", STUDENT, "Seo Min", "min@fpt.edu.vn", "MIN05"));
+        repository.putItem(profile("SV06", STUDENT, "Minh Long", "long@fpt.edu.vn", "SE006"));
+        repository.putItem(profile("SV07", STUDENT, "Hai", "minh.hai@fpt.edu.vn", "SE007"));
+        index.rebuildAsync().join();
+        assertEquals(List.of("SV05", "SV07", "SV06"), ids(search(null, "min", 10)));
+    }
+
+    @Test
+    void roleFilterUsesLogicalRoleKey() {
+        assertEquals(List.of("SV01", "SV02", "SV03"), ids(search(STUDENT, "duc", 10)));
+        assertEquals(List.of("GV01"), ids(search(LECTURER, "duc", 10)));
+        assertTrue(search("ROLE#ADMIN", "duc", 10).getItems().isEmpty());
+    }
+
+    @Test
+    void emptyKeywordListsByName() {
+        assertEquals(List.of("GV01", "SV04", "SV01", "SV03", "SV02"), ids(search(null, null, 10)));
+        assertEquals(List.of("SV04", "SV01", "SV03", "SV02"), ids(search(STUDENT, "", 10)));
+    }
+
+    // =========================================================
+    // GIAO POSTING LIST
+    // =========================================================
+
+    @Test
+    void candidatesFromTrigramsAreRecheckedWithContains() {
+        // "lan anh" có đủ trigram "lan" và "anh" của "lanh" nhưng không chứa "lanh"
+        assertTrue(search(null, "lanh", 10).getItems().isEmpty());
+        assertEquals(List.of("SV04"), ids(search(null, "lan anh", 10)));
+        // Trigram không có trong chỉ mục: không còn ứng viên
+        assertTrue(search(null, "zzz", 10).getItems().isEmpty());
+        // Keyword ngắn hơn 3 ký tự: duyệt tuần tự
+        assertEquals(List.of("GV01"), ids(search(null, "gv", 10)));
+    }
+
+    @Test
+    void putReplacesPreviousDocument() {
+        search(null, null, 1);
+        SchoolItem renamed = profile("SV02", STUDENT, "Trần Minh Anh", "anh.tran@fpt.edu.vn", "SE002");
+        repository.putItem(renamed);
+        index.put(renamed);
+
+        assertEquals(List.of("GV01", "SV01", "SV03"), ids(search(null, "duc", 10)));
+        assertEquals(List.of("SV02"), ids(search(null, "minh", 10)));
+        assertEquals(5, index.metricsSnapshot().get("profiles"));
+        assertEquals(1, index.metricsSnapshot().get("deadDocs"));
+    }
+
+    // =========================================================
+    // PHÂN TRANG
+    // =========================================================
+
+    @Test
+    void pagesFollowRankingWithoutDuplicatesOrGaps() {
+        for (int i = 1; i <= 20; i++) {
+            // Email / mã không chứa "sinh": cùng mức điểm, thứ tự theo tên
+            repository.putItem(profile(String.format("SX%02d", i), STUDENT,
+                    String.format("Sinh Viên %02d", 21 - i), "sx" + i + "@fpt.edu.vn", "K" + i));
+        }
+        List<String> all = ids(search(null, "sinh", 200));
+        assertEquals(20, all.size());
+        assertEquals("SX20", all.get(0));
+
+        for (int limit : new int[]{1, 6, 20}) {
+            assertEquals(all, readAll("sinh", limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void documentAddedBeforeCursorIsNotReturnedAgain() {
+        for (int i = 1; i <= 6; i++) {
+            repository.putItem(profile("SX0" + i, STUDENT, "Sinh Viên 0" + i, "sx" + i + "@fpt.edu.vn", "K" + i));
+        }
+        PageResult<SchoolItem> first = search(null, "sinh", 3);
+        assertEquals(List.of("SX01", "SX02", "SX03"), ids(first));
+
+        // Thêm user xếp trước cursor và user xếp sau cursor giữa 2 lần đọc trang
+        SchoolItem before = profile("SX00", STUDENT, "Sinh Viên 00", "sx0@fpt.edu.vn", "K0");
+        SchoolItem after = profile("SX99", STUDENT, "Sinh Viên 99", "sx99@fpt.edu.vn", "K99");
+        index.put(before);
+        index.put(after);
+
+        PageResult<SchoolItem> second = index.search(null, "sinh", PageRequest.of(10, first.getNextCursor()));
+        assertEquals(List.of("SX04", "SX05", "SX06", "SX99"), ids(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        String cursor = CursorCodec.encode(Map.of("PK", AttributeValue.fromS("USER#SV01")));
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, "duc", PageRequest.of(5, cursor)));
+    }
+
+    // =========================================================
+
+    private PageResult<SchoolItem> search(String roleKey, String keyword, int limit) {
+        return index.search(roleKey, keyword, PageRequest.first(limit));
+    }
+
+    private List<String> readAll(String keyword, int limit) {
+        List<String> out = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageResult<SchoolItem> page = index.search(null, keyword, PageRequest.of(limit, cursor));
+            assertTrue(page.getItems().size() <= limit);
+            out.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(out.size(), new HashSet<>(out).size());
+        return out;
+    }
+
+    private static List<String> ids(PageResult<SchoolItem> page) {
+        return page.getItems().stream().map(i -> SchoolKeys.stripPrefix(SchoolKeys.USER, i.getPk()))
+                .collect(Collectors.toList());
+    }
+
+    static SchoolItem profile(String id, String roleKey, String name, String email, String codeUser) {
+        SchoolItem item = new SchoolItem();
+        item.setPk(SchoolKeys.userPk(id));
+        item.setSk(SchoolKeys.PROFILE);
+        item.setGsi1Pk(roleKey);
+        item.setGsi1Sk("NAME#" + name.toLowerCase());
+        item.setName(name);
+        item.setEmail(email);
+        item.setCodeUser(codeUser);
+        return item;
+    }
+}